@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.vfs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * Page of a directory listing, see {@link DirectoryPageRequest}.
+ */
+@Portable
+public class DirectoryPage implements DirectoryStream<Path> {
+
+    private ArrayList<Path> content;
+    private int offset;
+    private int total;
+
+    public DirectoryPage() {
+    }
+
+    /**
+     * @param total number of entries matching the request, over all pages.
+     */
+    public DirectoryPage( final List<Path> content,
+                          final int offset,
+                          final int total ) {
+        this.content = new ArrayList<Path>( content );
+        this.offset = offset;
+        this.total = total;
+    }
+
+    public List<Path> getContent() {
+        return Collections.unmodifiableList( content );
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean hasMore() {
+        return getNextOffset() < total;
+    }
+
+    public int getNextOffset() {
+        return offset + content.size();
+    }
+
+    @Override
+    public Iterator<Path> iterator() {
+        return getContent().iterator();
+    }
+
+    @Override
+    public String toString() {
+        return "DirectoryPage{" +
+                "offset=" + offset +
+                ", size=" + content.size() +
+                ", total=" + total +
+                '}';
+    }
+}
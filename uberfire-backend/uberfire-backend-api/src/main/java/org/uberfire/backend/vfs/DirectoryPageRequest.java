@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.vfs;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+import static org.uberfire.commons.validation.PortablePreconditions.*;
+
+/**
+ * Request for a page of a directory listing, see {@link VFSService#listDirectory(Path, DirectoryPageRequest)}.
+ * <p/>
+ * Entries are filtered by name and sorted on the server before the page is cut, so offsets are stable for an
+ * unchanged directory. Selected attributes are inlined on the returned paths under the same keys used by
+ * {@link VFSService#readAttributes(Path)}, so callers can read them straight from the path; only the selected ones
+ * are present. They're not a full basic attribute set, so readAttributes itself still goes to the server.
+ */
+@Portable
+public class DirectoryPageRequest {
+
+    @Portable
+    public static enum Sort {
+        NAME, LAST_MODIFIED, SIZE
+    }
+
+    /**
+     * Attributes that can be inlined on the listed paths.
+     * <ul>
+     * <li>TYPE: <code>isDirectory</code> and <code>isRegularFile</code></li>
+     * <li>SIZE: <code>size</code></li>
+     * <li>LAST_MODIFIED: <code>lastModifiedTime</code></li>
+     * <li>LAST_AUTHOR: <code>lastAuthor</code>, only on file systems that keep a history</li>
+     * </ul>
+     */
+    @Portable
+    public static enum Attribute {
+        TYPE, SIZE, LAST_MODIFIED, LAST_AUTHOR
+    }
+
+    private int offset = 0;
+    private int limit = 0;
+    private Sort sort = Sort.NAME;
+    private boolean ascending = true;
+    private boolean directoriesFirst = false;
+    private String nameFilter = null;
+    private HashSet<Attribute> attributes = new HashSet<Attribute>();
+
+    public DirectoryPageRequest() {
+    }
+
+    /**
+     * @param limit maximum number of entries of the page, zero or less for all the remaining ones.
+     */
+    public DirectoryPageRequest( final int offset,
+                                 final int limit ) {
+        checkCondition( "offset >= 0", offset >= 0 );
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    public DirectoryPageRequest sortBy( final Sort sort,
+                                        final boolean ascending ) {
+        this.sort = checkNotNull( "sort", sort );
+        this.ascending = ascending;
+        return this;
+    }
+
+    public DirectoryPageRequest directoriesFirst( final boolean directoriesFirst ) {
+        this.directoriesFirst = directoriesFirst;
+        return this;
+    }
+
+    /**
+     * Keeps only the entries whose name contains the given text, ignoring case.
+     */
+    public DirectoryPageRequest nameFilter( final String nameFilter ) {
+        this.nameFilter = nameFilter == null || nameFilter.isEmpty() ? null : nameFilter;
+        return this;
+    }
+
+    public DirectoryPageRequest withAttributes( final Attribute... attributes ) {
+        for ( final Attribute attribute : attributes ) {
+            this.attributes.add( checkNotNull( "attribute", attribute ) );
+        }
+        return this;
+    }
+
+    /**
+     * @return request for the page following the given one, with the same sort, filter and attributes.
+     */
+    public DirectoryPageRequest next( final DirectoryPage page ) {
+        checkCondition( "page.hasMore()", page.hasMore() );
+        final DirectoryPageRequest next = new DirectoryPageRequest( page.getNextOffset(), limit );
+        next.sort = sort;
+        next.ascending = ascending;
+        next.directoriesFirst = directoriesFirst;
+        next.nameFilter = nameFilter;
+        next.attributes = new HashSet<Attribute>( attributes );
+        return next;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public boolean isDirectoriesFirst() {
+        return directoriesFirst;
+    }
+
+    public String getNameFilter() {
+        return nameFilter;
+    }
+
+    public Set<Attribute> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "DirectoryPageRequest{" +
+                "offset=" + offset +
+                ", limit=" + limit +
+                ", sort=" + sort +
+                ", ascending=" + ascending +
+                ", directoriesFirst=" + directoriesFirst +
+                ", nameFilter='" + nameFilter + '\'' +
+                ", attributes=" + attributes +
+                '}';
+    }
+}
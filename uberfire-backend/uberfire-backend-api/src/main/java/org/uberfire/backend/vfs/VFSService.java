@@ -42,6 +42,14 @@ public interface VFSService {
                                               final DirectoryStream.Filter<Path> filter )
             throws IllegalArgumentException, NotDirectoryException, IOException;
 
+    /**
+     * Lists one page of the given directory, filtered, sorted and with the requested attributes inlined, all of them
+     * resolved on the server in a single pass over the directory.
+     */
+    DirectoryPage listDirectory( final Path dir,
+                                 final DirectoryPageRequest request )
+            throws IllegalArgumentException, NotDirectoryException, IOException;
+
     Path createDirectory( final Path dir )
             throws IllegalArgumentException, UnsupportedOperationException,
             FileAlreadyExistsException, IOException;
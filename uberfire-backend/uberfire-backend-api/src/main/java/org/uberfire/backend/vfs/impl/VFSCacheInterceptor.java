@@ -16,20 +16,43 @@
 
 package org.uberfire.backend.vfs.impl;
 
+import java.util.Map;
+
 import org.jboss.errai.bus.client.api.interceptor.RpcInterceptor;
 import org.jboss.errai.common.client.api.interceptor.RemoteCallContext;
 import org.uberfire.backend.vfs.PathFactory;
 
+/**
+ * Answers {@link org.uberfire.backend.vfs.VFSService#readAttributes(org.uberfire.backend.vfs.Path)} from the
+ * attributes a path already holds, if they include the full basic attribute set; paths listed with just a few
+ * attributes inlined (see {@link org.uberfire.backend.vfs.DirectoryPageRequest}) still go to the server.
+ */
 public class VFSCacheInterceptor implements RpcInterceptor {
 
+    private static final String[] BASIC_ATTRIBUTES = new String[]{
+            "isRegularFile", "isDirectory", "isSymbolicLink", "isOther", "size",
+            "fileKey", "lastModifiedTime", "lastAccessTime", "creationTime" };
+
     @Override
     public void aroundInvoke( final RemoteCallContext context ) {
         final Object o = context.getParameters()[ 0 ];
-        if ( o instanceof PathFactory.PathImpl && ( (PathFactory.PathImpl) o ).getAttributes().size() > 0) {
+        if ( o instanceof PathFactory.PathImpl && hasBasicAttributes( ( (PathFactory.PathImpl) o ).getAttributes() ) ) {
             context.setResult( ( (PathFactory.PathImpl) o ).getAttributes() );
             return;
         }
 
         context.proceed();
     }
+
+    static boolean hasBasicAttributes( final Map<String, Object> attributes ) {
+        if ( attributes == null ) {
+            return false;
+        }
+        for ( final String attribute : BASIC_ATTRIBUTES ) {
+            if ( !attributes.containsKey( attribute ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,96 @@
+package org.uberfire.backend.vfs.impl;
+
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.errai.common.client.api.ErrorCallback;
+import org.jboss.errai.common.client.api.RemoteCallback;
+import org.jboss.errai.common.client.api.interceptor.RemoteCallContext;
+import org.junit.Test;
+import org.uberfire.backend.vfs.FileSystem;
+import org.uberfire.backend.vfs.Path;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.uberfire.backend.vfs.PathFactory.*;
+
+public class VFSCacheInterceptorTest {
+
+    private final VFSCacheInterceptor interceptor = new VFSCacheInterceptor();
+
+    @Test
+    public void testNoAttributesProceeds() {
+        final TestCallContext context = new TestCallContext( newPath( mock( FileSystem.class ), "file.txt", "file:///file.txt" ) );
+
+        interceptor.aroundInvoke( context );
+
+        assertThat( context.proceeded ).isTrue();
+        assertThat( context.getResult() ).isNull();
+    }
+
+    @Test
+    public void testPartialAttributesProceed() {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        attributes.put( "isDirectory", false );
+        attributes.put( "isRegularFile", true );
+        final TestCallContext context = new TestCallContext( newPath( mock( FileSystem.class ), "file.txt", "file:///file.txt", attributes ) );
+
+        interceptor.aroundInvoke( context );
+
+        assertThat( context.proceeded ).isTrue();
+        assertThat( context.getResult() ).isNull();
+    }
+
+    @Test
+    public void testBasicAttributesAnswer() {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        for ( final String name : new String[]{ "isRegularFile", "isDirectory", "isSymbolicLink", "isOther", "size",
+                "fileKey", "lastModifiedTime", "lastAccessTime", "creationTime" } ) {
+            attributes.put( name, null );
+        }
+        attributes.put( "dcore.author", "author" );
+        final TestCallContext context = new TestCallContext( newPath( mock( FileSystem.class ), "file.txt", "file:///file.txt", attributes ) );
+
+        interceptor.aroundInvoke( context );
+
+        assertThat( context.proceeded ).isFalse();
+        assertThat( context.getResult() ).isEqualTo( attributes );
+    }
+
+    private static class TestCallContext extends RemoteCallContext {
+
+        private boolean proceeded = false;
+
+        TestCallContext( final Path path ) {
+            setParameters( new Object[]{ path } );
+        }
+
+        @Override
+        public Object proceed() {
+            proceeded = true;
+            return null;
+        }
+
+        @Override
+        public void proceed( final RemoteCallback<?> callback ) {
+            proceed();
+        }
+
+        @Override
+        public void proceed( final RemoteCallback<?> callback,
+                             final ErrorCallback<?> errorCallback ) {
+            proceed();
+        }
+
+        @Override
+        public String getMethodName() {
+            return "readAttributes";
+        }
+
+        @Override
+        public Annotation[] getAnnotations() {
+            return new Annotation[ 0 ];
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -14,7 +15,9 @@ import org.uberfire.backend.repositories.Repository;
 import org.uberfire.backend.repositories.RepositoryService;
 import org.uberfire.backend.server.util.Paths;
 import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.version.LastChanges;
 import org.uberfire.java.nio.base.version.VersionAttributeView;
+import org.uberfire.java.nio.base.version.VersionRecord;
 import org.uberfire.java.nio.file.DirectoryStream;
 import org.uberfire.java.nio.file.Files;
 import org.uberfire.java.nio.file.Path;
@@ -45,16 +48,24 @@ public class FileNavigatorServiceImpl implements FileNavigatorService {
         Path path = Paths.convert( _path );
         final DirectoryStream<Path> stream = ioService.newDirectoryStream( path );
 
-        for ( final Path activePath : stream ) {
-            final VersionAttributeView versionAttributeView = ioService.getFileAttributeView( activePath, VersionAttributeView.class );
-            int index = versionAttributeView.readAttributes().history().records().size() - 1;
-
-            final String authorEmail = versionAttributeView.readAttributes().history().records().get( index ).email();
-            final String author = versionAttributeView.readAttributes().history().records().get( index ).author();
-            final String comment = versionAttributeView.readAttributes().history().records().get( index ).comment();
+        final Map<String, VersionRecord> lastChanges;
+        if ( path.getFileSystem() instanceof LastChanges ) {
+            lastChanges = ( (LastChanges) path.getFileSystem() ).lastChanges( path );
+        } else {
+            lastChanges = null;
+        }
 
-            final String time = p.format( new Date( Files.getLastModifiedTime( activePath ).toMillis() ) );
-            result.add( new DataContent( Files.isDirectory( activePath ), comment, author, authorEmail, time, Paths.convert( activePath ) ) );
+        for ( final Path activePath : stream ) {
+            final VersionRecord lastChange = lastChanges != null ? lastChanges.get( activePath.getFileName().toString() ) : null;
+            // entries the one pass walk couldn't resolve fall back to their own history
+            final VersionRecord record = lastChange != null ? lastChange : lastRecord( activePath );
+
+            final String time = p.format( lastChange != null ? lastChange.date() : new Date( Files.getLastModifiedTime( activePath ).toMillis() ) );
+            if ( record == null ) {
+                result.add( new DataContent( Files.isDirectory( activePath ), null, null, null, time, Paths.convert( activePath ) ) );
+            } else {
+                result.add( new DataContent( Files.isDirectory( activePath ), record.comment(), record.author(), record.email(), time, Paths.convert( activePath ) ) );
+            }
         }
 
         sort( result, new Comparator<DataContent>() {
@@ -93,6 +104,10 @@ public class FileNavigatorServiceImpl implements FileNavigatorService {
         return new NavigatorContent( repositoryService.getRepository( root ).getAlias(), root, breadcrumbs, result );
     }
 
+    private VersionRecord lastRecord( final Path path ) {
+        return ioService.getFileAttributeView( path, VersionAttributeView.class ).readAttributes().history().newest();
+    }
+
     @Override
     public List<Repository> listRepositories() {
         return new ArrayList<Repository>( repositoryService.getRepositories() );
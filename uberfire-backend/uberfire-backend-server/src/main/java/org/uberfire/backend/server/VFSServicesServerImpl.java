@@ -17,33 +17,49 @@
 package org.uberfire.backend.server;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.jboss.errai.bus.server.annotations.Service;
 import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.DirectoryPage;
+import org.uberfire.backend.vfs.DirectoryPageRequest;
 import org.uberfire.backend.vfs.DirectoryStream;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.backend.vfs.VFSService;
 import org.uberfire.backend.vfs.impl.DirectoryStreamImpl;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.version.LastChanges;
+import org.uberfire.java.nio.base.version.VersionRecord;
 import org.uberfire.java.nio.file.AtomicMoveNotSupportedException;
 import org.uberfire.java.nio.file.DirectoryNotEmptyException;
 import org.uberfire.java.nio.file.FileAlreadyExistsException;
 import org.uberfire.java.nio.file.FileSystemAlreadyExistsException;
+import org.uberfire.java.nio.file.FileVisitOption;
+import org.uberfire.java.nio.file.FileVisitResult;
+import org.uberfire.java.nio.file.FileVisitor;
 import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.java.nio.file.NotDirectoryException;
 import org.uberfire.java.nio.file.ProviderNotFoundException;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 import org.uberfire.java.nio.file.attribute.FileTime;
 
+import static java.util.Collections.*;
+import static org.uberfire.backend.vfs.DirectoryPageRequest.Attribute.*;
+import static org.uberfire.commons.validation.Preconditions.*;
+
 @Service
 @ApplicationScoped
 public class VFSServicesServerImpl implements VFSService {
@@ -75,6 +91,43 @@ public class VFSServicesServerImpl implements VFSService {
         return newDirectoryStream( content );
     }
 
+    @Override
+    public DirectoryPage listDirectory( final Path dir,
+                                        final DirectoryPageRequest request )
+            throws IllegalArgumentException, NotDirectoryException, IOException {
+        checkNotNull( "request", request );
+        final org.uberfire.java.nio.file.Path path = Paths.convert( dir );
+        final Set<DirectoryPageRequest.Attribute> attributes = request.getAttributes();
+
+        final List<Entry> entries = readEntries( path, request.getNameFilter() );
+
+        final boolean needsHistory = request.getSort() == DirectoryPageRequest.Sort.LAST_MODIFIED ||
+                attributes.contains( LAST_MODIFIED ) || attributes.contains( LAST_AUTHOR );
+        if ( needsHistory && !entries.isEmpty() && path.getFileSystem() instanceof LastChanges ) {
+            final Map<String, VersionRecord> lastChanges = ( (LastChanges) path.getFileSystem() ).lastChanges( path );
+            for ( final Entry entry : entries ) {
+                entry.record = lastChanges.get( entry.name );
+            }
+        }
+
+        sort( entries, comparator( request ) );
+
+        final int from = Math.min( request.getOffset(), entries.size() );
+        final int to;
+        if ( request.getLimit() > 0 && request.getLimit() < entries.size() - from ) {
+            to = from + request.getLimit();
+        } else {
+            to = entries.size();
+        }
+
+        final List<Path> content = new ArrayList<Path>( to - from );
+        for ( final Entry entry : entries.subList( from, to ) ) {
+            content.add( Paths.convert( entry.path, entry.toAttributes( attributes ) ) );
+        }
+
+        return new DirectoryPage( content, from, entries.size() );
+    }
+
     @Override
     public Path createDirectory( final Path dir )
             throws IllegalArgumentException, UnsupportedOperationException,
@@ -173,6 +226,93 @@ public class VFSServicesServerImpl implements VFSService {
         return new DirectoryStreamImpl( content );
     }
 
+    /**
+     * Reads the direct children of the given directory along with their basic attributes, in a single walk of depth
+     * one, so file systems that walk their trees natively don't resolve each child on its own.
+     */
+    private List<Entry> readEntries( final org.uberfire.java.nio.file.Path dir,
+                                     final String nameFilter ) {
+        final String filter = nameFilter == null ? null : nameFilter.toLowerCase();
+        final List<Entry> entries = new ArrayList<Entry>();
+
+        ioService.walkFileTree( dir, EnumSet.noneOf( FileVisitOption.class ), 1, new FileVisitor<org.uberfire.java.nio.file.Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory( final org.uberfire.java.nio.file.Path directory,
+                                                      final BasicFileAttributes attrs ) throws IOException {
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile( final org.uberfire.java.nio.file.Path file,
+                                              final BasicFileAttributes attrs ) throws IOException {
+                if ( file.equals( dir ) ) {
+                    throw new NotDirectoryException( dir.toString() );
+                }
+                final String name = file.getFileName().toString();
+                if ( filter == null || name.toLowerCase().contains( filter ) ) {
+                    entries.add( new Entry( file, name, attrs ) );
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed( final org.uberfire.java.nio.file.Path file,
+                                                    final IOException exc ) throws IOException {
+                if ( file.equals( dir ) ) {
+                    throw exc;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory( final org.uberfire.java.nio.file.Path directory,
+                                                       final IOException exc ) throws IOException {
+                if ( exc != null ) {
+                    throw exc;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+
+        return entries;
+    }
+
+    private Comparator<Entry> comparator( final DirectoryPageRequest request ) {
+        final DirectoryPageRequest.Sort sort = request.getSort();
+        final boolean ascending = request.isAscending();
+        final boolean directoriesFirst = request.isDirectoriesFirst();
+
+        return new Comparator<Entry>() {
+            @Override
+            public int compare( final Entry entry,
+                                final Entry entry2 ) {
+                if ( directoriesFirst && entry.isDirectory() != entry2.isDirectory() ) {
+                    return entry.isDirectory() ? -1 : 1;
+                }
+
+                int result;
+                switch ( sort ) {
+                    case LAST_MODIFIED:
+                        result = entry.lastModified().compareTo( entry2.lastModified() );
+                        break;
+                    case SIZE:
+                        result = Long.valueOf( entry.size() ).compareTo( entry2.size() );
+                        break;
+                    default:
+                        result = 0;
+                }
+                if ( result == 0 ) {
+                    result = entry.name.compareToIgnoreCase( entry2.name );
+                }
+                if ( result == 0 ) {
+                    result = entry.name.compareTo( entry2.name );
+                }
+
+                return ascending ? result : -result;
+            }
+        };
+    }
+
     private DirectoryStream.Filter<org.uberfire.java.nio.file.Path> convert( final DirectoryStream.Filter<Path> filter ) {
         return new DirectoryStream.Filter<org.uberfire.java.nio.file.Path>() {
             @Override
@@ -181,4 +321,67 @@ public class VFSServicesServerImpl implements VFSService {
             }
         };
     }
+
+    /**
+     * Child of a listed directory; size and last modification are read once, and only if sorting or the request
+     * needs them.
+     */
+    private static class Entry {
+
+        private final org.uberfire.java.nio.file.Path path;
+        private final String name;
+        private final BasicFileAttributes attrs;
+        private VersionRecord record = null;
+        private Long size = null;
+        private Date lastModified = null;
+
+        private Entry( final org.uberfire.java.nio.file.Path path,
+                       final String name,
+                       final BasicFileAttributes attrs ) {
+            this.path = path;
+            this.name = name;
+            this.attrs = attrs;
+        }
+
+        private boolean isDirectory() {
+            return attrs.isDirectory();
+        }
+
+        private long size() {
+            if ( size == null ) {
+                size = attrs.size();
+            }
+            return size;
+        }
+
+        private Date lastModified() {
+            if ( lastModified == null ) {
+                if ( record != null ) {
+                    lastModified = record.date();
+                } else {
+                    final FileTime time = attrs.lastModifiedTime();
+                    lastModified = new Date( time == null ? 0 : time.toMillis() );
+                }
+            }
+            return lastModified;
+        }
+
+        private Map<String, Object> toAttributes( final Set<DirectoryPageRequest.Attribute> attributes ) {
+            final Map<String, Object> result = new HashMap<String, Object>();
+            if ( attributes.contains( TYPE ) ) {
+                result.put( "isDirectory", attrs.isDirectory() );
+                result.put( "isRegularFile", attrs.isRegularFile() );
+            }
+            if ( attributes.contains( SIZE ) ) {
+                result.put( "size", size() );
+            }
+            if ( attributes.contains( LAST_MODIFIED ) ) {
+                result.put( "lastModifiedTime", lastModified() );
+            }
+            if ( attributes.contains( LAST_AUTHOR ) && record != null ) {
+                result.put( "lastAuthor", record.author() );
+            }
+            return result;
+        }
+    }
 }
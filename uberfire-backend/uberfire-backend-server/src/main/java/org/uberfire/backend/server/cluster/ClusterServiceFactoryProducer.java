@@ -26,6 +26,7 @@ public class ClusterServiceFactoryProducer {
         final String zkAddress = System.getProperty( "org.uberfire.cluster.zk", null );
         final String localId = System.getProperty( "org.uberfire.cluster.local.id", null );
         final String resourceName = System.getProperty( "org.uberfire.cluster.vfs.lock", null );
+        final int lockStripes = Integer.parseInt( System.getProperty( "org.uberfire.cluster.vfs.lock.stripes", "1" ) );
         final boolean autostart = Boolean.parseBoolean(System.getProperty("org.uberfire.cluster.autostart", "true"));
 
         if ( clusterName == null || zkAddress == null || localId == null || resourceName == null ) {
@@ -35,7 +36,7 @@ public class ClusterServiceFactoryProducer {
                 @Override
                 public ClusterService build( final MessageHandlerResolver resolver ) {
                     if ( clusterService == null ) {
-                        clusterService = new ClusterServiceHelix( clusterName, zkAddress, localId, resourceName, resolver );
+                        clusterService = new ClusterServiceHelix( clusterName, zkAddress, localId, resourceName, lockStripes, resolver );
                     } else {
                         clusterService.addMessageHandlerResolver( resolver );
                     }
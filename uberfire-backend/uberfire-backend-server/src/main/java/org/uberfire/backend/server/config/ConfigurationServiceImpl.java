@@ -201,12 +201,12 @@ public class ConfigurationServiceImpl implements ConfigurationService,
         final CommentedOption commentedOption = new CommentedOption( getIdentityName(),
                                                                      "Created config " + filePath.getFileName() );
         try {
-            ioService.startBatch();
+            ioService.startBatch( fs );
             ioService.write( filePath, marshaller.marshall( configGroup ), commentedOption );
 
             updateLastModified();
         } finally {
-            ioService.endBatch();
+            ioService.endBatch( fs );
         }
         //Invalidate cache if a new item has been created; otherwise cached value is stale
         configuration.remove( configGroup.getType() );
@@ -223,12 +223,12 @@ public class ConfigurationServiceImpl implements ConfigurationService,
         final CommentedOption commentedOption = new CommentedOption( getIdentityName(),
                                                                      "Updated config " + filePath.getFileName() );
         try {
-            ioService.startBatch();
+            ioService.startBatch( fs );
             ioService.write( filePath, marshaller.marshall( configGroup ), commentedOption );
 
             updateLastModified();
         } finally {
-            ioService.endBatch();
+            ioService.endBatch( fs );
         }
         //Invalidate cache if a new item has been created; otherwise cached value is stale
         configuration.remove( configGroup.getType() );
@@ -250,13 +250,13 @@ public class ConfigurationServiceImpl implements ConfigurationService,
         }
         boolean result;
         try {
-            ioService.startBatch();
+            ioService.startBatch( fs );
             result = ioService.deleteIfExists( filePath );
             if ( result ) {
                 updateLastModified();
             }
         } finally {
-            ioService.endBatch();
+            ioService.endBatch( fs );
         }
 
         return result;
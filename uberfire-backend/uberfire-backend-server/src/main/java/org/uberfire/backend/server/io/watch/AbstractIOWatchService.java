@@ -4,9 +4,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.PreDestroy;
 import javax.enterprise.event.Event;
 import javax.enterprise.event.Observes;
@@ -14,10 +12,9 @@ import javax.inject.Inject;
 import javax.naming.InitialContext;
 
 import org.uberfire.backend.server.util.Filter;
-import org.uberfire.commons.async.DescriptiveRunnable;
-import org.uberfire.commons.async.DescriptiveThreadFactory;
 import org.uberfire.commons.services.cdi.ApplicationStarted;
 import org.uberfire.io.IOWatchService;
+import org.uberfire.java.nio.base.watch.WatchEventDispatcher;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.WatchEvent;
 import org.uberfire.java.nio.file.WatchKey;
@@ -31,10 +28,9 @@ import org.uberfire.workbench.events.ResourceUpdatedEvent;
 public abstract class AbstractIOWatchService implements IOWatchService,
                                                         Filter<WatchEvent<?>> {
 
-    private final ExecutorService executorService = Executors.newCachedThreadPool( new DescriptiveThreadFactory() );
-
     private final List<FileSystem> fileSystems = new ArrayList<FileSystem>();
     private final List<WatchService> watchServices = new ArrayList<WatchService>();
+    private final List<WatchEventDispatcher.Subscription> subscriptions = new CopyOnWriteArrayList<WatchEventDispatcher.Subscription>();
     protected boolean isDisposed = false;
 
     private boolean started;
@@ -63,18 +59,7 @@ public abstract class AbstractIOWatchService implements IOWatchService,
         if ( !started ) {
             this.started = true;
             for ( final AsyncWatchService watchThread : watchThreads ) {
-                final IOWatchServiceExecutor watchServiceExecutor = getWatchServiceExecutor();
-                executorService.execute( new DescriptiveRunnable() {
-                    @Override
-                    public String getDescription() {
-                        return watchThread.getDescription();
-                    }
-
-                    @Override
-                    public void run() {
-                        watchThread.execute( watchServiceExecutor );
-                    }
-                } );
+                watchThread.execute( getWatchServiceExecutor() );
             }
             watchThreads.clear();
         }
@@ -83,25 +68,12 @@ public abstract class AbstractIOWatchService implements IOWatchService,
     @PreDestroy
     protected void dispose() {
         isDisposed = true;
+        for ( final WatchEventDispatcher.Subscription subscription : subscriptions ) {
+            subscription.cancel();
+        }
         for ( final WatchService watchService : watchServices ) {
             watchService.close();
         }
-        executorService.shutdown(); // Disable new tasks from being submitted
-        try {
-            // Wait a while for existing tasks to terminate
-            if ( !executorService.awaitTermination( 60, TimeUnit.SECONDS ) ) {
-                executorService.shutdownNow(); // Cancel currently executing tasks
-                // Wait a while for tasks to respond to being cancelled
-                if ( !executorService.awaitTermination( 60, TimeUnit.SECONDS ) ) {
-                    System.err.println( "Pool did not terminate" );
-                }
-            }
-        } catch ( InterruptedException ie ) {
-            // (Re-)Cancel if current thread also interrupted
-            executorService.shutdownNow();
-            // Preserve interrupt status
-            Thread.currentThread().interrupt();
-        }
     }
 
     @Override
@@ -118,24 +90,21 @@ public abstract class AbstractIOWatchService implements IOWatchService,
         final AsyncWatchService asyncWatchService = new AsyncWatchService() {
             @Override
             public void execute( final IOWatchServiceExecutor wsExecutor ) {
-                while ( !isDisposed ) {
-                    final WatchKey wk;
-                    try {
-                        wk = ws.take();
-                    } catch ( final Exception ex ) {
-                        break;
-                    }
+                subscriptions.add( WatchEventDispatcher.getInstance().subscribe( ws, getDescription(), new WatchEventDispatcher.WatchKeyHandler() {
+                    @Override
+                    public boolean handle( final WatchKey wk ) {
+                        if ( isDisposed ) {
+                            return false;
+                        }
 
-                    wsExecutor.execute( wk, AbstractIOWatchService.this );
+                        wsExecutor.execute( wk, AbstractIOWatchService.this );
 
-                    // Reset the key -- this step is critical if you want to
-                    // receive further watch events.  If the key is no longer valid,
-                    // the directory is inaccessible so exit the loop.
-                    boolean valid = wk.reset();
-                    if ( !valid ) {
-                        break;
+                        // Reset the key -- this step is critical if you want to
+                        // receive further watch events.  If the key is no longer valid,
+                        // the directory is inaccessible so stop the subscription.
+                        return wk.reset();
                     }
-                }
+                } ) );
             }
 
             @Override
@@ -145,18 +114,7 @@ public abstract class AbstractIOWatchService implements IOWatchService,
         };
 
         if ( started ) {
-            final IOWatchServiceExecutor watchServiceExecutor = getWatchServiceExecutor();
-            executorService.execute( new DescriptiveRunnable() {
-                @Override
-                public String getDescription() {
-                    return asyncWatchService.getDescription();
-                }
-
-                @Override
-                public void run() {
-                    asyncWatchService.execute( watchServiceExecutor );
-                }
-            } );
+            asyncWatchService.execute( getWatchServiceExecutor() );
         } else {
             watchThreads.add( asyncWatchService );
         }
@@ -310,17 +310,11 @@ public class RepositoryServiceImpl implements RepositoryService {
         }
 
         final VersionAttributeView versionAttributeView = ioService.getFileAttributeView( Paths.convert( repo.getRoot() ), VersionAttributeView.class );
-        final List<VersionRecord> records = versionAttributeView.readAttributes().history().records();
-        Collections.reverse( records );
+        final List<VersionRecord> records = versionAttributeView.readAttributes().history().records( 0, HISTORY_PAGE_SIZE + 1 );
 
         return new RepositoryInfo( alias, ouName, repo.getRoot(), repo.getPublicURIs(), new ArrayList<VersionRecord>( HISTORY_PAGE_SIZE ) {{
-            int size = 0;
             for ( final VersionRecord record : records ) {
                 add( new PortableVersionRecord( record.id(), record.author(), record.email(), record.comment(), record.date(), record.uri() ) );
-                size++;
-                if ( size > HISTORY_PAGE_SIZE ) {
-                    break;
-                }
             }
         }} );
     }
@@ -332,23 +326,16 @@ public class RepositoryServiceImpl implements RepositoryService {
 
         final VersionAttributeView versionAttributeView = ioService.getFileAttributeView( Paths.convert( repo.getRoot() ), VersionAttributeView.class );
 
-        final List<VersionRecord> records = versionAttributeView.readAttributes().history().records();
+        final List<VersionRecord> records = versionAttributeView.readAttributes().history().records( startIndex, HISTORY_PAGE_SIZE );
 
-        if ( records.size() <= startIndex ) {
+        if ( records.isEmpty() ) {
             return Collections.emptyList();
         }
 
-        Collections.reverse( records );
         final List<VersionRecord> result = new ArrayList<VersionRecord>( HISTORY_PAGE_SIZE );
 
-        int size = 0;
-
-        for ( final VersionRecord record : records.subList( startIndex, records.size() > startIndex + HISTORY_PAGE_SIZE ? startIndex + HISTORY_PAGE_SIZE : records.size() ) ) {
+        for ( final VersionRecord record : records ) {
             result.add( new PortableVersionRecord( record.id(), record.author(), record.email(), record.comment(), record.date(), record.uri() ) );
-            size++;
-            if ( size > HISTORY_PAGE_SIZE ) {
-                break;
-            }
         }
 
         return result;
@@ -31,15 +31,20 @@ public final class Paths {
     private static Map<org.uberfire.java.nio.file.FileSystem, FileSystem> cache = new HashMap<org.uberfire.java.nio.file.FileSystem, FileSystem>();
 
     public static Path convert( final org.uberfire.java.nio.file.Path path ) {
+        return convert( path, null );
+    }
+
+    public static Path convert( final org.uberfire.java.nio.file.Path path,
+                                final Map<String, Object> attrs ) {
         if ( path == null ) {
             return null;
         }
 
         if ( path.getFileName() == null ) {
-            return newPath( convert( path.getFileSystem() ), "/", path.toUri().toString() );
+            return newPath( convert( path.getFileSystem() ), "/", path.toUri().toString(), attrs );
         }
 
-        return newPath( convert( path.getFileSystem() ), path.getFileName().toString(), path.toUri().toString() );
+        return newPath( convert( path.getFileSystem() ), path.getFileName().toString(), path.toUri().toString(), attrs );
     }
 
     public static org.uberfire.java.nio.file.Path convert( final Path path ) {
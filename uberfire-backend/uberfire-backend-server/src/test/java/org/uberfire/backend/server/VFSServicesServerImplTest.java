@@ -0,0 +1,144 @@
+package org.uberfire.backend.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.DirectoryPage;
+import org.uberfire.backend.vfs.DirectoryPageRequest;
+import org.uberfire.backend.vfs.DirectoryPageRequest.Attribute;
+import org.uberfire.backend.vfs.DirectoryPageRequest.Sort;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.io.IOService;
+import org.uberfire.io.impl.IOServiceNio2WrapperImpl;
+import org.uberfire.java.nio.file.FileVisitOption;
+import org.uberfire.java.nio.file.FileVisitor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VFSServicesServerImplTest {
+
+    @Spy
+    private IOService ioService = new IOServiceNio2WrapperImpl();
+
+    @InjectMocks
+    private VFSServicesServerImpl service;
+    private File dir;
+    private Path root;
+
+    @Before
+    public void setup() throws IOException {
+        dir = File.createTempFile( "listDirectory", "" );
+        dir.delete();
+        dir.mkdirs();
+        FileUtils.writeStringToFile( new File( dir, "b.txt" ), "12345" );
+        FileUtils.writeStringToFile( new File( dir, "A.txt" ), "1" );
+        FileUtils.writeStringToFile( new File( dir, "c.md" ), "123" );
+        new File( dir, "docs" ).mkdir();
+
+        root = Paths.convert( org.uberfire.java.nio.file.Paths.get( dir.toURI() ) );
+    }
+
+    @After
+    public void cleanup() {
+        FileUtils.deleteQuietly( dir );
+    }
+
+    @Test
+    public void testPaging() {
+        final DirectoryPageRequest request = new DirectoryPageRequest( 0, 3 );
+
+        final DirectoryPage first = service.listDirectory( root, request );
+        assertEquals( Arrays.asList( "A.txt", "b.txt", "c.md" ), names( first ) );
+        assertEquals( 0, first.getOffset() );
+        assertEquals( 4, first.getTotal() );
+        assertTrue( first.hasMore() );
+
+        final DirectoryPage second = service.listDirectory( root, request.next( first ) );
+        assertEquals( Arrays.asList( "docs" ), names( second ) );
+        assertEquals( 3, second.getOffset() );
+        assertEquals( 4, second.getTotal() );
+        assertFalse( second.hasMore() );
+        verify( ioService, times( 2 ) ).walkFileTree( eq( Paths.convert( root ) ), anySetOf( FileVisitOption.class ), eq( 1 ), any( FileVisitor.class ) );
+
+        final DirectoryPage beyond = service.listDirectory( root, new DirectoryPageRequest( 10, 3 ) );
+        assertTrue( beyond.getContent().isEmpty() );
+        assertEquals( 4, beyond.getTotal() );
+    }
+
+    @Test
+    public void testSort() {
+        assertEquals( Arrays.asList( "docs", "A.txt", "b.txt", "c.md" ),
+                      names( service.listDirectory( root, new DirectoryPageRequest( 0, 0 ).directoriesFirst( true ) ) ) );
+
+        assertEquals( Arrays.asList( "docs", "c.md", "b.txt", "A.txt" ),
+                      names( service.listDirectory( root, new DirectoryPageRequest( 0, 0 ).sortBy( Sort.NAME, false ) ) ) );
+
+        assertEquals( Arrays.asList( "docs", "A.txt", "c.md", "b.txt" ),
+                      names( service.listDirectory( root, new DirectoryPageRequest( 0, 0 ).sortBy( Sort.SIZE, true ).directoriesFirst( true ) ) ) );
+
+        assertEquals( Arrays.asList( "b.txt", "c.md", "A.txt" ),
+                      names( service.listDirectory( root, new DirectoryPageRequest( 0, 0 ).sortBy( Sort.SIZE, false ).nameFilter( "." ) ) ) );
+    }
+
+    @Test
+    public void testNameFilter() {
+        final DirectoryPage page = service.listDirectory( root, new DirectoryPageRequest( 0, 1 ).nameFilter( "TXT" ) );
+
+        assertEquals( Arrays.asList( "A.txt" ), names( page ) );
+        assertEquals( 2, page.getTotal() );
+        assertTrue( page.hasMore() );
+
+        assertTrue( service.listDirectory( root, new DirectoryPageRequest( 0, 0 ).nameFilter( "missing" ) ).getContent().isEmpty() );
+    }
+
+    @Test
+    public void testInlinedAttributes() {
+        final DirectoryPage none = service.listDirectory( root, new DirectoryPageRequest( 0, 0 ) );
+        for ( final Path path : none ) {
+            assertTrue( attributes( path ).isEmpty() );
+        }
+
+        final DirectoryPage typed = service.listDirectory( root, new DirectoryPageRequest( 0, 0 ).directoriesFirst( true ).withAttributes( Attribute.TYPE ) );
+        final Map<String, Object> docs = attributes( typed.getContent().get( 0 ) );
+        assertEquals( 2, docs.size() );
+        assertEquals( true, docs.get( "isDirectory" ) );
+        assertEquals( false, docs.get( "isRegularFile" ) );
+        final Map<String, Object> file = attributes( typed.getContent().get( 1 ) );
+        assertEquals( 2, file.size() );
+        assertEquals( false, file.get( "isDirectory" ) );
+        assertEquals( true, file.get( "isRegularFile" ) );
+
+        final DirectoryPage sized = service.listDirectory( root, new DirectoryPageRequest( 0, 0 ).nameFilter( "b." ).withAttributes( Attribute.SIZE, Attribute.TYPE ) );
+        final Map<String, Object> b = attributes( sized.getContent().get( 0 ) );
+        assertEquals( 3, b.size() );
+        assertEquals( 5L, b.get( "size" ) );
+    }
+
+    private List<String> names( final DirectoryPage page ) {
+        final List<String> result = new ArrayList<String>();
+        for ( final Path path : page ) {
+            result.add( path.getFileName() );
+        }
+        return result;
+    }
+
+    private Map<String, Object> attributes( final Path path ) {
+        return ( (PathFactory.PathImpl) path ).getAttributes();
+    }
+}
@@ -12,8 +12,13 @@ abstract class BaseLockExecuteNotifyReleaseTemplate<V> {
 
     public V execute( final ClusterService clusterService,
                       final RunnableFuture<V> task ) {
+        final String lockKey = getLockKey();
         try {
-            clusterService.lock();
+            if ( lockKey == null ) {
+                clusterService.lock();
+            } else {
+                clusterService.lock( lockKey );
+            }
 
             task.run();
 
@@ -27,7 +32,11 @@ abstract class BaseLockExecuteNotifyReleaseTemplate<V> {
         } catch ( final Exception e ) {
             throwException( e );
         } finally {
-            clusterService.unlock();
+            if ( lockKey == null ) {
+                clusterService.unlock();
+            } else {
+                clusterService.unlock( lockKey );
+            }
         }
         return null;
     }
@@ -41,6 +50,13 @@ abstract class BaseLockExecuteNotifyReleaseTemplate<V> {
 
     abstract void sendMessage( final ClusterService clusterService );
 
+    /**
+     * @return key of the cluster lock to hold while executing, or null to hold the whole cluster lock.
+     */
+    public String getLockKey() {
+        return null;
+    }
+
     public abstract MessageType getMessageType();
 
     public abstract String getServiceId();
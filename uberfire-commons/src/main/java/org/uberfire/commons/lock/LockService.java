@@ -7,4 +7,26 @@ public abstract interface LockService {
     void unlock();
 
     boolean isLocked();
+
+    /**
+     * Locks only the part of the lock the given key belongs to (ex. a file system id),
+     * so work on unrelated keys may run in parallel; {@link #lock()} excludes every key.
+     */
+    void lock( final String key );
+
+    void unlock( final String key );
+
+    boolean isLocked( final String key );
+
+    /**
+     * Locks the parts of the lock all the given keys belong to, always in the same order whatever the order of the
+     * keys, so callers that need several keys at once can't deadlock each other; a part shared by several keys is
+     * taken once.
+     */
+    void lockAll( final String... keys );
+
+    /**
+     * Releases what {@link #lockAll(String...)} took for the same keys.
+     */
+    void unlockAll( final String... keys );
 }
@@ -0,0 +1,124 @@
+package org.uberfire.commons.lock.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Wait and hold time histograms of a lock service.
+ */
+public class LockMetrics {
+
+    private final Histogram waitTime = new Histogram();
+    private final Histogram holdTime = new Histogram();
+
+    public Histogram getWaitTime() {
+        return waitTime;
+    }
+
+    public Histogram getHoldTime() {
+        return holdTime;
+    }
+
+    @Override
+    public String toString() {
+        return "LockMetrics{" +
+                "waitTime=" + waitTime +
+                ", holdTime=" + holdTime +
+                '}';
+    }
+
+    /**
+     * Histogram with power of two millisecond buckets: bucket 0 counts durations under 1ms,
+     * bucket i counts durations from 2^(i-1) up to 2^i ms; the last bucket is unbounded.
+     */
+    public static class Histogram {
+
+        public static final int BUCKETS = 20;
+
+        private final AtomicLongArray buckets = new AtomicLongArray( BUCKETS );
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        public void record( final long nanos ) {
+            final long millis = TimeUnit.NANOSECONDS.toMillis( nanos );
+            final int bucket = millis == 0 ? 0 : Math.min( 64 - Long.numberOfLeadingZeros( millis ), BUCKETS - 1 );
+            buckets.incrementAndGet( bucket );
+            count.incrementAndGet();
+            totalNanos.addAndGet( nanos );
+            long max = maxNanos.get();
+            while ( nanos > max && !maxNanos.compareAndSet( max, nanos ) ) {
+                max = maxNanos.get();
+            }
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getMeanNanos() {
+            final long c = count.get();
+            return c == 0 ? 0 : totalNanos.get() / c;
+        }
+
+        public long[] getBucketCounts() {
+            final long[] result = new long[ BUCKETS ];
+            for ( int i = 0; i < BUCKETS; i++ ) {
+                result[ i ] = buckets.get( i );
+            }
+            return result;
+        }
+
+        /**
+         * @return exclusive upper bound, in milliseconds, of the given bucket; {@link Long#MAX_VALUE} for the last one.
+         */
+        public static long getBucketUpperBoundMillis( final int bucket ) {
+            if ( bucket >= BUCKETS - 1 ) {
+                return Long.MAX_VALUE;
+            }
+            return 1L << bucket;
+        }
+
+        /**
+         * @return upper bound, in milliseconds, of the bucket that contains the given percentile (0-100).
+         */
+        public long getPercentileMillis( final double percentile ) {
+            final long[] counts = getBucketCounts();
+            long total = 0;
+            for ( final long c : counts ) {
+                total += c;
+            }
+            if ( total == 0 ) {
+                return 0;
+            }
+            final long target = (long) Math.ceil( total * percentile / 100 );
+            long seen = 0;
+            for ( int i = 0; i < counts.length; i++ ) {
+                seen += counts[ i ];
+                if ( seen >= target ) {
+                    return getBucketUpperBoundMillis( i );
+                }
+            }
+            return getBucketUpperBoundMillis( BUCKETS - 1 );
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram{" +
+                    "count=" + getCount() +
+                    ", meanMs=" + TimeUnit.NANOSECONDS.toMillis( getMeanNanos() ) +
+                    ", p99Ms<" + getPercentileMillis( 99 ) +
+                    ", maxMs=" + TimeUnit.NANOSECONDS.toMillis( getMaxNanos() ) +
+                    '}';
+        }
+    }
+}
@@ -1,52 +1,198 @@
 package org.uberfire.commons.lock.impl;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.uberfire.commons.lock.LockService;
 
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Fair, reentrant, thread owned lock service; waiting threads are parked and served in arrival order.
+ * <p/>
+ * The unkeyed lock excludes every keyed one, while keyed locks only exclude the same key. A thread that holds
+ * a keyed lock can't acquire the unkeyed lock, it would wait for itself: that's refused with an
+ * {@link IllegalStateException} (the opposite is fine).
+ */
 public class ThreadLockServiceImpl implements LockService {
 
-    protected final AtomicReference<Thread> holder = new AtomicReference<Thread>();
-    protected final AtomicInteger stackSize = new AtomicInteger();
-    private final int sleep;
+    private final ReentrantReadWriteLock globalLock = new ReentrantReadWriteLock( true );
+    private final ConcurrentMap<String, ReentrantLock> keyLocks = new ConcurrentHashMap<String, ReentrantLock>();
+    private final ThreadLocal<Long> globalAcquiredAt = new ThreadLocal<Long>();
+    private final ConcurrentMap<ReentrantLock, Long> keyAcquiredAt = new ConcurrentHashMap<ReentrantLock, Long>();
+    private final LockMetrics metrics = new LockMetrics();
 
     public ThreadLockServiceImpl() {
-        this( 50 );
     }
 
+    /**
+     * @deprecated waiting threads are no longer polling, so there's no sleep time to configure.
+     */
+    @Deprecated
     public ThreadLockServiceImpl( int sleep ) {
-        this.sleep = sleep;
+        this();
     }
 
     @Override
     public void lock() {
-        while ( holder.get() != null ) {
-            if ( holder.get().equals( Thread.currentThread() ) ) {
-                stackSize.incrementAndGet();
-                return;
-            }
-            try {
-                Thread.sleep( sleep );
-            } catch ( final InterruptedException ignored ) {
-            }
+        checkNoKeyHeld();
+        final long start = System.nanoTime();
+        globalLock.writeLock().lock();
+        onGlobalAcquired( start );
+    }
+
+    public boolean tryLock( final long timeout,
+                            final TimeUnit unit ) throws InterruptedException {
+        checkNoKeyHeld();
+        final long start = System.nanoTime();
+        if ( !globalLock.writeLock().tryLock( timeout, unit ) ) {
+            return false;
         }
-        holder.set( Thread.currentThread() );
-        stackSize.set( 1 );
+        onGlobalAcquired( start );
+        return true;
     }
 
     @Override
     public void unlock() {
-        int size = stackSize.decrementAndGet();
-        if ( size == 0 ) {
-            holder.set( null );
-        } else if ( size < 0 ) {
+        if ( !globalLock.isWriteLockedByCurrentThread() ) {
             throw new IllegalMonitorStateException();
         }
+        if ( globalLock.getWriteHoldCount() == 1 ) {
+            final Long acquiredAt = globalAcquiredAt.get();
+            if ( acquiredAt != null ) {
+                metrics.getHoldTime().record( System.nanoTime() - acquiredAt );
+                globalAcquiredAt.remove();
+            }
+        }
+        globalLock.writeLock().unlock();
     }
 
     @Override
     public boolean isLocked() {
-        return holder.get() != null && holder.get().equals( Thread.currentThread() );
+        return globalLock.isWriteLockedByCurrentThread();
+    }
+
+    @Override
+    public void lock( final String key ) {
+        final ReentrantLock keyLock = keyLock( key );
+        final long start = System.nanoTime();
+        globalLock.readLock().lock();
+        keyLock.lock();
+        onKeyAcquired( keyLock, start );
+    }
+
+    public boolean tryLock( final String key,
+                            final long timeout,
+                            final TimeUnit unit ) throws InterruptedException {
+        final ReentrantLock keyLock = keyLock( key );
+        final long start = System.nanoTime();
+        final long deadline = start + unit.toNanos( timeout );
+        if ( !globalLock.readLock().tryLock( timeout, unit ) ) {
+            return false;
+        }
+        boolean acquired = false;
+        try {
+            acquired = keyLock.tryLock( deadline - System.nanoTime(), TimeUnit.NANOSECONDS );
+        } finally {
+            if ( !acquired ) {
+                globalLock.readLock().unlock();
+            }
+        }
+        if ( !acquired ) {
+            return false;
+        }
+        onKeyAcquired( keyLock, start );
+        return true;
+    }
+
+    @Override
+    public void unlock( final String key ) {
+        final ReentrantLock keyLock = keyLocks.get( checkNotNull( "key", key ) );
+        if ( keyLock == null || !keyLock.isHeldByCurrentThread() ) {
+            throw new IllegalMonitorStateException();
+        }
+        if ( keyLock.getHoldCount() == 1 ) {
+            final Long acquiredAt = keyAcquiredAt.remove( keyLock );
+            if ( acquiredAt != null ) {
+                metrics.getHoldTime().record( System.nanoTime() - acquiredAt );
+            }
+        }
+        keyLock.unlock();
+        globalLock.readLock().unlock();
+    }
+
+    @Override
+    public boolean isLocked( final String key ) {
+        final ReentrantLock keyLock = keyLocks.get( checkNotNull( "key", key ) );
+        return isLocked() || ( keyLock != null && keyLock.isHeldByCurrentThread() );
+    }
+
+    @Override
+    public void lockAll( final String... keys ) {
+        for ( final String key : sortedKeys( keys ) ) {
+            lock( key );
+        }
+    }
+
+    @Override
+    public void unlockAll( final String... keys ) {
+        final List<String> sorted = sortedKeys( keys );
+        for ( int i = sorted.size() - 1; i >= 0; i-- ) {
+            unlock( sorted.get( i ) );
+        }
+    }
+
+    private List<String> sortedKeys( final String... keys ) {
+        final Set<String> result = new TreeSet<String>();
+        for ( final String key : checkNotNull( "keys", keys ) ) {
+            result.add( checkNotNull( "key", key ) );
+        }
+        return new ArrayList<String>( result );
+    }
+
+    public LockMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void checkNoKeyHeld() {
+        // keyed locks hold the read side, that can't be upgraded to the write side
+        if ( globalLock.getReadHoldCount() > 0 && !globalLock.isWriteLockedByCurrentThread() ) {
+            throw new IllegalStateException( "Can't acquire the global lock while holding a keyed lock." );
+        }
+    }
+
+    private void onGlobalAcquired( final long start ) {
+        if ( globalLock.getWriteHoldCount() == 1 ) {
+            final long now = System.nanoTime();
+            metrics.getWaitTime().record( now - start );
+            globalAcquiredAt.set( now );
+        }
+    }
+
+    private void onKeyAcquired( final ReentrantLock keyLock,
+                                final long start ) {
+        if ( keyLock.getHoldCount() == 1 ) {
+            final long now = System.nanoTime();
+            metrics.getWaitTime().record( now - start );
+            keyAcquiredAt.put( keyLock, now );
+        }
+    }
+
+    private ReentrantLock keyLock( final String key ) {
+        checkNotNull( "key", key );
+        final ReentrantLock lock = keyLocks.get( key );
+        if ( lock != null ) {
+            return lock;
+        }
+        final ReentrantLock newLock = new ReentrantLock( true );
+        final ReentrantLock existing = keyLocks.putIfAbsent( key, newLock );
+        return existing != null ? existing : newLock;
     }
 }
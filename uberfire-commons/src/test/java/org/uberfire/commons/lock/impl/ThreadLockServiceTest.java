@@ -0,0 +1,172 @@
+package org.uberfire.commons.lock.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ThreadLockServiceTest {
+
+    @Test
+    public void testLock() {
+        final ThreadLockServiceImpl lockService = new ThreadLockServiceImpl();
+        lockService.lock();
+        lockService.unlock();
+    }
+
+    @Test
+    public void testDoubleLock() {
+        final ThreadLockServiceImpl lockService = new ThreadLockServiceImpl();
+        lockService.lock();
+        lockService.lock();
+        lockService.unlock();
+        lockService.unlock();
+    }
+
+    @Test(expected = IllegalMonitorStateException.class)
+    public void testUnlock() {
+        final ThreadLockServiceImpl lockService = new ThreadLockServiceImpl();
+        lockService.lock();
+        lockService.lock();
+        lockService.unlock();
+        lockService.unlock();
+        lockService.unlock();
+    }
+
+    @Test
+    public void testOnThreads() throws InterruptedException {
+        for ( int i = 0; i < 100; i++ ) {
+            final ThreadLockServiceImpl lockService = new ThreadLockServiceImpl();
+            final boolean[] vals = new boolean[]{ false };
+            lockService.lock();
+            Thread thread = new Thread( new Runnable() {
+                @Override
+                public void run() {
+                    lockService.lock();
+                    vals[ 0 ] = true;
+                }
+            } );
+            thread.setName( "temp" );
+            assertFalse( vals[ 0 ] );
+            thread.start();
+            assertFalse( vals[ 0 ] );
+            lockService.unlock();
+            Thread.sleep( 120 );
+            assertTrue( vals[ 0 ] );
+        }
+    }
+
+    @Test
+    public void testKeyedLocksAreIndependent() throws InterruptedException {
+        final ThreadLockServiceImpl lockService = new ThreadLockServiceImpl();
+        lockService.lock( "repo1" );
+
+        final AtomicBoolean otherKey = new AtomicBoolean( false );
+        final AtomicBoolean sameKey = new AtomicBoolean( true );
+        final AtomicBoolean global = new AtomicBoolean( true );
+        final Thread thread = new Thread( new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    otherKey.set( lockService.tryLock( "repo2", 1, TimeUnit.SECONDS ) );
+                    lockService.unlock( "repo2" );
+                    sameKey.set( lockService.tryLock( "repo1", 50, TimeUnit.MILLISECONDS ) );
+                    global.set( lockService.tryLock( 50, TimeUnit.MILLISECONDS ) );
+                } catch ( final InterruptedException ignored ) {
+                }
+            }
+        } );
+        thread.start();
+        thread.join();
+
+        assertTrue( otherKey.get() );
+        assertFalse( sameKey.get() );
+        assertFalse( global.get() );
+        assertTrue( lockService.isLocked( "repo1" ) );
+
+        lockService.unlock( "repo1" );
+        assertFalse( lockService.isLocked( "repo1" ) );
+    }
+
+    @Test
+    public void testGlobalLockExcludesKeys() throws InterruptedException {
+        final ThreadLockServiceImpl lockService = new ThreadLockServiceImpl();
+        lockService.lock();
+        lockService.lock( "repo1" );
+        lockService.unlock( "repo1" );
+
+        final CountDownLatch acquired = new CountDownLatch( 1 );
+        final Thread thread = new Thread( new Runnable() {
+            @Override
+            public void run() {
+                lockService.lock( "repo1" );
+                acquired.countDown();
+                lockService.unlock( "repo1" );
+            }
+        } );
+        thread.start();
+
+        assertFalse( acquired.await( 100, TimeUnit.MILLISECONDS ) );
+        lockService.unlock();
+        assertTrue( acquired.await( 1, TimeUnit.SECONDS ) );
+        thread.join();
+
+        assertEquals( 3, lockService.getMetrics().getWaitTime().getCount() );
+        assertEquals( 3, lockService.getMetrics().getHoldTime().getCount() );
+        assertTrue( lockService.getMetrics().getWaitTime().getMaxNanos() >= TimeUnit.MILLISECONDS.toNanos( 100 ) );
+    }
+
+    @Test(expected = IllegalMonitorStateException.class)
+    public void testUnlockKeyNotHeld() {
+        final ThreadLockServiceImpl lockService = new ThreadLockServiceImpl();
+        lockService.unlock( "repo1" );
+    }
+
+    @Test
+    public void testGlobalLockWhileHoldingKey() throws InterruptedException {
+        final ThreadLockServiceImpl lockService = new ThreadLockServiceImpl();
+        lockService.lock( "repo1" );
+        try {
+            lockService.lock();
+            fail( "upgrade must be refused" );
+        } catch ( final IllegalStateException ignored ) {
+        }
+        try {
+            lockService.tryLock( 1, TimeUnit.SECONDS );
+            fail( "upgrade must be refused" );
+        } catch ( final IllegalStateException ignored ) {
+        }
+        lockService.unlock( "repo1" );
+
+        assertTrue( lockService.tryLock( 0, TimeUnit.MILLISECONDS ) );
+        lockService.unlock();
+    }
+
+    @Test
+    public void testLockAllInAnyOrder()throws InterruptedException {
+        final ThreadLockServiceImpl lockService = new ThreadLockServiceImpl();
+        final CountDownLatch done = new CountDownLatch( 2 );
+        final String[][] orders = new String[][]{ { "repo1", "repo2", "repo1" }, { "repo2", "repo1" } };
+        for ( final String[] keys : orders ) {
+            new Thread( new Runnable() {
+                @Override
+                public void run() {
+                    for ( int i = 0; i < 1000; i++ ) {
+                        lockService.lockAll( keys );
+                        assertTrue( lockService.isLocked( "repo1" ) );
+                        assertTrue( lockService.isLocked( "repo2" ) );
+                        lockService.unlockAll( keys );
+                    }
+                    done.countDown();
+                }
+            } ).start();
+        }
+
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertTrue( lockService.tryLock( 0, TimeUnit.MILLISECONDS ) );
+        lockService.unlock();
+    }
+}
@@ -38,6 +38,8 @@ import org.uberfire.java.nio.file.FileAlreadyExistsException;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.FileSystemAlreadyExistsException;
 import org.uberfire.java.nio.file.FileSystemNotFoundException;
+import org.uberfire.java.nio.file.FileVisitOption;
+import org.uberfire.java.nio.file.FileVisitor;
 import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.java.nio.file.NotDirectoryException;
 import org.uberfire.java.nio.file.OpenOption;
@@ -62,6 +64,15 @@ public interface IOService extends SecurityAware {
 
     void endBatch( final Option... options );
 
+    /**
+     * Starts a batch that only locks the given file system, so batches on other file systems may run concurrently.
+     */
+    void startBatch( final FileSystem fs,
+                     final Option... options );
+
+    void endBatch( final FileSystem fs,
+                   final Option... options );
+
     FileAttribute<?>[] convert( Map<String, ?> attrs );
 
     Path get( final String first,
@@ -120,6 +131,12 @@ public interface IOService extends SecurityAware {
                                               final DirectoryStream.Filter<Path> filter )
             throws IllegalArgumentException, NotDirectoryException, IOException, SecurityException;
 
+    Path walkFileTree( final Path start,
+                       final Set<FileVisitOption> options,
+                       final int maxDepth,
+                       final FileVisitor<Path> visitor )
+            throws IllegalArgumentException, SecurityException, IOException;
+
     Path createFile( final Path path,
                      final FileAttribute<?>... attrs )
             throws IllegalArgumentException, UnsupportedOperationException,
@@ -0,0 +1,21 @@
+package org.uberfire.io.attribute;
+
+import org.uberfire.java.nio.base.Properties;
+import org.uberfire.java.nio.file.Path;
+
+/**
+ * Read side of the attributes kept by {@link org.uberfire.io.impl.IOServiceDotFileImpl} outside of the file
+ * system itself.
+ */
+public interface AttributeStore {
+
+    /**
+     * @return a copy of the stored attributes of the given path, empty if there are none.
+     */
+    Properties load( final Path path );
+
+    /**
+     * Drops any state kept for the given path, called after its attributes are written, moved or deleted.
+     */
+    void invalidate( final Path path );
+}
@@ -41,6 +41,7 @@ import org.uberfire.io.FileSystemType;
 import org.uberfire.io.IOWatchService;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.AbstractPath;
+import org.uberfire.java.nio.base.FileSystemId;
 import org.uberfire.java.nio.base.FileSystemState;
 import org.uberfire.java.nio.channels.SeekableByteChannel;
 import org.uberfire.java.nio.file.CopyOption;
@@ -51,6 +52,8 @@ import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.FileSystemAlreadyExistsException;
 import org.uberfire.java.nio.file.FileSystemNotFoundException;
 import org.uberfire.java.nio.file.FileSystems;
+import org.uberfire.java.nio.file.FileVisitOption;
+import org.uberfire.java.nio.file.FileVisitor;
 import org.uberfire.java.nio.file.Files;
 import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.java.nio.file.NotDirectoryException;
@@ -143,12 +146,15 @@ public abstract class AbstractIOService implements IOServiceIdentifiable {
     @Override
     public void startBatch( final Option... options ) {
         lockService.lock();
-        if ( !fileSystems.isEmpty() ) {
-            cleanupClosedFileSystems();
-            final Path path = fileSystems.values().iterator().next().get( 0 ).getRootDirectories().iterator().next();
-            setAttribute( path, FileSystemState.FILE_SYSTEM_STATE_ATTR, FileSystemState.BATCH );
-            if ( options != null && options.length == 1 ) {
-                setAttribute( path, FileSystemState.FILE_SYSTEM_STATE_ATTR, options[ 0 ] );
+        cleanupClosedFileSystems();
+        // batch state is kept per file system, so all of them have to be switched
+        for ( final List<FileSystem> fsList : fileSystems.values() ) {
+            for ( final FileSystem fs : fsList ) {
+                final Path path = fs.getRootDirectories().iterator().next();
+                setAttribute( path, FileSystemState.FILE_SYSTEM_STATE_ATTR, FileSystemState.BATCH );
+                if ( options != null && options.length == 1 ) {
+                    setAttribute( path, FileSystemState.FILE_SYSTEM_STATE_ATTR, options[ 0 ] );
+                }
             }
         }
     }
@@ -156,13 +162,41 @@ public abstract class AbstractIOService implements IOServiceIdentifiable {
     @Override
     public void endBatch( final Option... options ) {
         lockService.unlock();
-        if ( !fileSystems.isEmpty() ) {
-            cleanupClosedFileSystems();
-            final Path path = fileSystems.values().iterator().next().get( 0 ).getRootDirectories().iterator().next();
-            setAttribute( path, FileSystemState.FILE_SYSTEM_STATE_ATTR, FileSystemState.NORMAL );
+        cleanupClosedFileSystems();
+        for ( final List<FileSystem> fsList : fileSystems.values() ) {
+            for ( final FileSystem fs : fsList ) {
+                final Path path = fs.getRootDirectories().iterator().next();
+                setAttribute( path, FileSystemState.FILE_SYSTEM_STATE_ATTR, FileSystemState.NORMAL );
+            }
+        }
+    }
+
+    @Override
+    public void startBatch( final FileSystem fs,
+                            final Option... options ) {
+        lockService.lock( lockKey( checkNotNull( "fs", fs ) ) );
+        final Path path = fs.getRootDirectories().iterator().next();
+        setAttribute( path, FileSystemState.FILE_SYSTEM_STATE_ATTR, FileSystemState.BATCH );
+        if ( options != null && options.length == 1 ) {
+            setAttribute( path, FileSystemState.FILE_SYSTEM_STATE_ATTR, options[ 0 ] );
         }
     }
 
+    @Override
+    public void endBatch( final FileSystem fs,
+                          final Option... options ) {
+        lockService.unlock( lockKey( checkNotNull( "fs", fs ) ) );
+        final Path path = fs.getRootDirectories().iterator().next();
+        setAttribute( path, FileSystemState.FILE_SYSTEM_STATE_ATTR, FileSystemState.NORMAL );
+    }
+
+    private String lockKey( final FileSystem fs ) {
+        if ( fs instanceof FileSystemId ) {
+            return ( (FileSystemId) fs ).id();
+        }
+        return fs.toString();
+    }
+
     private void cleanupClosedFileSystems() {
         for ( final Map.Entry<FileSystemType, List<FileSystem>> fileSystemTypeListEntry : fileSystems.entrySet() ) {
             final ArrayList<FileSystem> removeList = new ArrayList<FileSystem>();
@@ -314,6 +348,15 @@ public abstract class AbstractIOService implements IOServiceIdentifiable {
         return Files.newDirectoryStream( dir, filter );
     }
 
+    @Override
+    public Path walkFileTree( final Path start,
+                              final Set<FileVisitOption> options,
+                              final int maxDepth,
+                              final FileVisitor<Path> visitor )
+            throws IllegalArgumentException, SecurityException, IOException {
+        return Files.walkFileTree( start, options, maxDepth, visitor );
+    }
+
     @Override
     public OutputStream newOutputStream( final Path path,
                                          final OpenOption... options )
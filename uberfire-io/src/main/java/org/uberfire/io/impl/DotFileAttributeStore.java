@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.io.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.uberfire.io.attribute.AttributeStore;
+import org.uberfire.java.nio.base.FSPath;
+import org.uberfire.java.nio.base.Properties;
+import org.uberfire.java.nio.file.Files;
+import org.uberfire.java.nio.file.NoSuchFileException;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
+
+import static org.uberfire.java.nio.base.dotfiles.DotFileUtils.*;
+
+/**
+ * Dot file backed {@link AttributeStore} with a bounded LRU cache of decoded content.
+ * <p/>
+ * Cached content is validated against the dot file key (the blob id on git) or, if the file system has no file
+ * keys, its last modified time and size; so a cache hit costs an attribute lookup and a decode of the compact
+ * encoding instead of a read. Content is cached encoded, so callers never share (mutable) values with the cache.
+ */
+public class DotFileAttributeStore implements AttributeStore {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private final Map<String, Entry> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public DotFileAttributeStore() {
+        this( Integer.getInteger( "org.uberfire.io.attributes.cache.size", DEFAULT_MAX_ENTRIES ) );
+    }
+
+    public DotFileAttributeStore( final int maxEntries ) {
+        this.cache = new LinkedHashMap<String, Entry>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( final Map.Entry<String, Entry> eldest ) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Properties load( final Path path ) {
+        final Path dot = dot( path );
+        final String key = dot.toUri().toString();
+
+        final Object stamp;
+        try {
+            stamp = stamp( Files.readAttributes( dot, BasicFileAttributes.class ) );
+        } catch ( final NoSuchFileException ex ) {
+            synchronized ( cache ) {
+                cache.remove( key );
+            }
+            return new Properties();
+        }
+
+        final Entry entry;
+        synchronized ( cache ) {
+            entry = cache.get( key );
+        }
+        if ( entry != null && entry.stamp.equals( stamp ) ) {
+            hits.incrementAndGet();
+            final Properties content = new Properties();
+            content.load( new ByteArrayInputStream( entry.content ) );
+            return content;
+        }
+
+        misses.incrementAndGet();
+        final Properties content = new Properties();
+        content.load( Files.newInputStream( dot ) );
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        content.store( encoded );
+        synchronized ( cache ) {
+            cache.put( key, new Entry( stamp, encoded.toByteArray() ) );
+        }
+        return content;
+    }
+
+    @Override
+    public void invalidate( final Path path ) {
+        if ( path instanceof FSPath ) {
+            // the whole file system is gone
+            synchronized ( cache ) {
+                cache.clear();
+            }
+            return;
+        }
+        final String key = dot( path ).toUri().toString();
+        synchronized ( cache ) {
+            cache.remove( key );
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized ( cache ) {
+            return cache.size();
+        }
+    }
+
+    private Object stamp( final BasicFileAttributes attrs ) {
+        if ( attrs.fileKey() != null ) {
+            return attrs.fileKey();
+        }
+        return attrs.lastModifiedTime().toMillis() + ":" + attrs.size();
+    }
+
+    private static class Entry {
+
+        private final Object stamp;
+        private final byte[] content;
+
+        Entry( final Object stamp,
+               final byte[] content ) {
+            this.stamp = stamp;
+            this.content = content;
+        }
+    }
+}
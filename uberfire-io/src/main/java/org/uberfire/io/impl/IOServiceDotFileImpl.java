@@ -16,14 +16,18 @@
 
 package org.uberfire.io.impl;
 
+import java.io.InputStream;
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.uberfire.io.IOService;
 import org.uberfire.io.IOWatchService;
+import org.uberfire.io.attribute.AttributeStore;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.AbstractBasicFileAttributeView;
 import org.uberfire.java.nio.base.AttrHolder;
@@ -36,10 +40,13 @@ import org.uberfire.java.nio.file.CopyOption;
 import org.uberfire.java.nio.file.DeleteOption;
 import org.uberfire.java.nio.file.DirectoryNotEmptyException;
 import org.uberfire.java.nio.file.FileAlreadyExistsException;
+import org.uberfire.java.nio.file.FileVisitResult;
 import org.uberfire.java.nio.file.Files;
 import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.java.nio.file.OpenOption;
 import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.SimpleFileVisitor;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 import org.uberfire.java.nio.file.attribute.FileAttribute;
 import org.uberfire.java.nio.file.attribute.FileAttributeView;
 import org.uberfire.commons.lock.LockService;
@@ -48,10 +55,28 @@ import static org.uberfire.java.nio.base.dotfiles.DotFileUtils.*;
 import static org.uberfire.java.nio.file.StandardCopyOption.*;
 import static org.uberfire.commons.validation.Preconditions.*;
 
+/**
+ * {@link IOService} that keeps the attributes not supported by the file system in a hidden sibling dot file.
+ * <p/>
+ * Dot file content is read through an {@link AttributeStore} (cached by default) and writes are serialized per
+ * path, not on the whole service.
+ */
 public class IOServiceDotFileImpl
         extends AbstractIOService
         implements IOService {
 
+    private static final int LOCK_STRIPES = 64;
+    private static final byte[] LEGACY_HEADER = ( "<" + Properties.class.getName() ).getBytes();
+
+    private final ReentrantLock[] pathLocks = new ReentrantLock[ LOCK_STRIPES ];
+    private AttributeStore attributeStore = new DotFileAttributeStore();
+
+    {
+        for ( int i = 0; i < pathLocks.length; i++ ) {
+            pathLocks[ i ] = new ReentrantLock();
+        }
+    }
+
     public IOServiceDotFileImpl() {
         super();
     }
@@ -80,112 +105,152 @@ public class IOServiceDotFileImpl
         super( serviceId, lockService, watchService );
     }
 
+    public AttributeStore getAttributeStore() {
+        return attributeStore;
+    }
+
+    public void setAttributeStore( final AttributeStore attributeStore ) {
+        this.attributeStore = checkNotNull( "attributeStore", attributeStore );
+    }
+
     @Override
-    public synchronized void delete( final Path path,
-                                     final DeleteOption... options )
+    public void delete( final Path path,
+                        final DeleteOption... options )
             throws IllegalArgumentException, NoSuchFileException, DirectoryNotEmptyException,
             IOException, SecurityException {
-        Files.delete( path, options );
+        final ReentrantLock lock = lock( path );
         try {
-            Files.deleteIfExists( dot( path ), options );
-        } catch ( Exception ex ) {
-        }
-        if ( path instanceof AttrHolder ) {
-            ( (AttrHolder) path ).getAttrStorage().clear();
+            Files.delete( path, options );
+            try {
+                Files.deleteIfExists( dot( path ), options );
+            } catch ( Exception ex ) {
+            }
+            attributeStore.invalidate( path );
+            if ( path instanceof AttrHolder ) {
+                ( (AttrHolder) path ).getAttrStorage().clear();
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
-    public synchronized boolean deleteIfExists( final Path path,
-                                                final DeleteOption... options )
+    public boolean deleteIfExists( final Path path,
+                                   final DeleteOption... options )
             throws IllegalArgumentException, DirectoryNotEmptyException, IOException, SecurityException {
-        final boolean result = Files.deleteIfExists( path, options );
+        final ReentrantLock lock = lock( path );
         try {
-            Files.deleteIfExists( dot( path ), options );
-        } catch ( Exception ex ) {
-        }
-        if ( path instanceof AttrHolder ) {
-            ( (AttrHolder) path ).getAttrStorage().clear();
+            final boolean result = Files.deleteIfExists( path, options );
+            try {
+                Files.deleteIfExists( dot( path ), options );
+            } catch ( Exception ex ) {
+            }
+            attributeStore.invalidate( path );
+            if ( path instanceof AttrHolder ) {
+                ( (AttrHolder) path ).getAttrStorage().clear();
+            }
+            return result;
+        } finally {
+            lock.unlock();
         }
-        return result;
     }
 
     @Override
-    public synchronized SeekableByteChannel newByteChannel( final Path path,
-                                                            final Set<? extends OpenOption> options,
-                                                            final FileAttribute<?>... attrs )
+    public SeekableByteChannel newByteChannel( final Path path,
+                                               final Set<? extends OpenOption> options,
+                                               final FileAttribute<?>... attrs )
             throws IllegalArgumentException, UnsupportedOperationException,
             FileAlreadyExistsException, IOException, SecurityException {
         checkNotNull( "path", path );
 
-        final Properties properties = new Properties();
-        if ( exists( dot( path ) ) ) {
-            properties.load( newInputStream( dot( path ) ) );
-        }
-        final FileAttribute<?>[] allAttrs = consolidate( properties, attrs );
+        final ReentrantLock lock = lock( path );
+        try {
+            final FileAttribute<?>[] allAttrs = consolidate( attributeStore.load( path ), attrs );
 
-        final SeekableByteChannel result = Files.newByteChannel( path, buildOptions( options ), allAttrs );
+            final SeekableByteChannel result = Files.newByteChannel( path, buildOptions( options ), allAttrs );
 
-        if ( isFileScheme( path ) ) {
-            buildDotFile( path, newOutputStream( dot( path ) ), allAttrs );
-        }
+            if ( isFileScheme( path ) ) {
+                buildDotFile( path, newOutputStream( dot( path ) ), allAttrs );
+            }
+            attributeStore.invalidate( path );
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public synchronized Path createDirectory( final Path dir,
-                                              final FileAttribute<?>... attrs )
+    public Path createDirectory( final Path dir,
+                                 final FileAttribute<?>... attrs )
             throws IllegalArgumentException, UnsupportedOperationException, FileAlreadyExistsException,
             IOException, SecurityException {
         return internalCreateDirectory( dir, false, attrs );
     }
 
     @Override
-    public synchronized Path createDirectories( final Path dir,
-                                                final FileAttribute<?>... attrs )
+    public Path createDirectories( final Path dir,
+                                   final FileAttribute<?>... attrs )
             throws UnsupportedOperationException, FileAlreadyExistsException,
             IOException, SecurityException {
-        final Path result = Files.createDirectories( dir, attrs );
+        final ReentrantLock lock = lock( dir );
+        try {
+            final Path result = Files.createDirectories( dir, attrs );
 
-        buildDotFile( dir, newOutputStream( dot( dir ) ), attrs );
+            buildDotFile( dir, newOutputStream( dot( dir ) ), attrs );
+            attributeStore.invalidate( dir );
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public synchronized Path copy( final Path source,
-                                   final Path target,
-                                   final CopyOption... options )
+    public Path copy( final Path source,
+                      final Path target,
+                      final CopyOption... options )
             throws UnsupportedOperationException, FileAlreadyExistsException,
             DirectoryNotEmptyException, IOException, SecurityException {
+        final ReentrantLock[] locks = lock( source, target );
+        try {
+            if ( Files.exists( dot( source ) ) ) {
+                Files.copy( dot( source ), dot( target ), forceBuildOptions( options ) );
+            } else if ( Files.exists( dot( target ) ) ) {
+                Files.delete( dot( target ) );
+            }
 
-        if ( Files.exists( dot( source ) ) ) {
-            Files.copy( dot( source ), dot( target ), forceBuildOptions( options ) );
-        } else if ( Files.exists( dot( target ) ) ) {
-            Files.delete( dot( target ) );
-        }
-
-        final Path result = Files.copy( source, target, options );
+            final Path result = Files.copy( source, target, options );
+            attributeStore.invalidate( target );
 
-        return result;
+            return result;
+        } finally {
+            unlock( locks );
+        }
     }
 
     @Override
-    public synchronized Path move( final Path source,
-                                   final Path target,
-                                   final CopyOption... options )
+    public Path move( final Path source,
+                      final Path target,
+                      final CopyOption... options )
             throws UnsupportedOperationException, FileAlreadyExistsException,
             DirectoryNotEmptyException, AtomicMoveNotSupportedException, IOException, SecurityException {
-        if ( Files.exists( dot( source ) ) ) {
-            Files.move( dot( source ), dot( target ), forceBuildOptions( options ) );
-        } else if ( Files.exists( dot( target ) ) ) {
-            Files.delete( dot( target ) );
-        }
+        final ReentrantLock[] locks = lock( source, target );
+        try {
+            if ( Files.exists( dot( source ) ) ) {
+                Files.move( dot( source ), dot( target ), forceBuildOptions( options ) );
+            } else if ( Files.exists( dot( target ) ) ) {
+                Files.delete( dot( target ) );
+            }
 
-        final Path result = Files.move( source, target, options );
+            final Path result = Files.move( source, target, options );
+            attributeStore.invalidate( source );
+            attributeStore.invalidate( target );
 
-        return result;
+            return result;
+        } finally {
+            unlock( locks );
+        }
     }
 
     @Override
@@ -216,33 +281,39 @@ public class IOServiceDotFileImpl
         checkNotEmpty( "attributes", attributes );
 
         final Properties original = new Properties( Files.readAttributes( path, attributes ) );
-        if ( attributes.equals( "*" ) && exists( dot( path ) ) ) {
-            boolean isAttrHolder = path instanceof AttrHolder;
-            if ( isAttrHolder && ( (AttrHolder) path ).getAttrStorage().getContent().size() > 0 ) {
-                return ( (AttrHolder) path ).getAttrStorage().getAllContent();
-            }
-            final Properties content = new Properties();
-            content.load( newInputStream( dot( path ) ) );
-            content.putAll( original );
+        if ( attributes.equals( "*" ) ) {
+            final Properties content = attributeStore.load( path );
+            if ( !content.isEmpty() ) {
+                boolean isAttrHolder = path instanceof AttrHolder;
+                if ( isAttrHolder && ( (AttrHolder) path ).getAttrStorage().getContent().size() > 0 ) {
+                    return ( (AttrHolder) path ).getAttrStorage().getAllContent();
+                }
+                content.putAll( original );
 
-            if ( isAttrHolder ) {
-                ( (AttrHolder) path ).getAttrStorage().loadContent( content );
+                if ( isAttrHolder ) {
+                    ( (AttrHolder) path ).getAttrStorage().loadContent( content );
+                }
+                return content;
             }
-            return content;
         }
 
         return original;
     }
 
     @Override
-    public synchronized Path setAttributes( final Path path,
-                                            final FileAttribute<?>... attrs )
+    public Path setAttributes( final Path path,
+                               final FileAttribute<?>... attrs )
             throws UnsupportedOperationException, IllegalArgumentException, ClassCastException, IOException, SecurityException {
         checkNotNull( "path", path );
-        if ( Files.isDirectory( path ) ) {
-            return internalCreateDirectory( path, true, attrs );
+        final ReentrantLock lock = lock( path );
+        try {
+            if ( Files.isDirectory( path ) ) {
+                return internalCreateDirectory( path, true, attrs );
+            }
+            return write( path, readAllBytes( path ), Collections.<OpenOption>emptySet(), attrs );
+        } finally {
+            lock.unlock();
         }
-        return write( path, readAllBytes( path ), Collections.<OpenOption>emptySet(), attrs );
     }
 
     @Override
@@ -306,8 +377,7 @@ public class IOServiceDotFileImpl
     }
 
     protected void loadDotFile( final Path path ) {
-        final Properties content = new Properties();
-        content.load( newInputStream( dot( path ) ) );
+        final Properties content = attributeStore.load( path );
 
         if ( path instanceof AttrHolder ) {
             ( (AttrHolder) path ).getAttrStorage().loadContent( content );
@@ -330,30 +400,133 @@ public class IOServiceDotFileImpl
         return null;
     }
 
-    protected synchronized Path internalCreateDirectory( final Path dir,
-                                                         final boolean skipAlreadyExistsException,
-                                                         final FileAttribute<?>... attrs )
+    protected Path internalCreateDirectory( final Path dir,
+                                            final boolean skipAlreadyExistsException,
+                                            final FileAttribute<?>... attrs )
             throws IllegalArgumentException, UnsupportedOperationException, FileAlreadyExistsException,
             IOException, SecurityException {
         checkNotNull( "dir", dir );
 
-        FileAttribute<?>[] allAttrs = attrs;
+        final ReentrantLock lock = lock( dir );
+        try {
+            FileAttribute<?>[] allAttrs = attrs;
+            try {
+                Files.createDirectory( dir, attrs );
+            } catch ( final FileAlreadyExistsException ex ) {
+                allAttrs = consolidate( attributeStore.load( dir ), attrs );
+                if ( !skipAlreadyExistsException ) {
+                    throw ex;
+                }
+            }
+
+            buildDotFile( dir, newOutputStream( dot( dir ) ), allAttrs );
+            attributeStore.invalidate( dir );
+
+            return dir;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the dot files under the given directory still in the legacy XML format with the compact
+     * encoding, in a single batch of the directory file system.
+     * @return the number of migrated dot files.
+     */
+    public int migrateDotFiles( final Path dir ) {
+        checkNotNull( "dir", dir );
+        final int[] migrated = new int[]{ 0 };
+        startBatch( dir.getFileSystem() );
+        try {
+            Files.walkFileTree( dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile( final Path file,
+                                                  final BasicFileAttributes attrs ) throws IOException {
+                    if ( file.getFileName() == null || !file.getFileName().toString().startsWith( "." ) ) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    final Path owner = owner( file );
+                    final ReentrantLock lock = lock( owner );
+                    try {
+                        if ( isLegacyDotFile( file ) ) {
+                            final Properties content = new Properties();
+                            content.load( Files.newInputStream( file ) );
+                            content.store( Files.newOutputStream( file ) );
+                            attributeStore.invalidate( owner );
+                            migrated[ 0 ]++;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            } );
+        } finally {
+            endBatch( dir.getFileSystem() );
+        }
+        return migrated[ 0 ];
+    }
+
+    /**
+     * @return the path a dot file holds the attributes of, the one its lock and cache entry are keyed on.
+     */
+    private Path owner( final Path dotFile ) {
+        final String name = dotFile.getFileName().toString();
+        if ( name.equals( ".root" ) && dotFile.getParent() != null && dotFile.getParent().getFileName() == null ) {
+            return dotFile.getParent();
+        }
+        return dotFile.resolveSibling( name.substring( 1 ) );
+    }
+
+    private boolean isLegacyDotFile( final Path file ) {
+        final InputStream in = Files.newInputStream( file );
         try {
-            Files.createDirectory( dir, attrs );
-        } catch ( final FileAlreadyExistsException ex ) {
-            final Properties properties = new Properties();
-            if ( exists( dot( dir ) ) ) {
-                properties.load( newInputStream( dot( dir ) ) );
+            final byte[] header = new byte[ LEGACY_HEADER.length ];
+            int length = 0;
+            int read;
+            while ( length < header.length && ( read = in.read( header, length, header.length - length ) ) != -1 ) {
+                length += read;
             }
-            allAttrs = consolidate( properties, attrs );
-            if ( !skipAlreadyExistsException ) {
-                throw ex;
+            return length == header.length && Arrays.equals( header, LEGACY_HEADER );
+        } catch ( final java.io.IOException e ) {
+            return false;
+        } finally {
+            try {
+                in.close();
+            } catch ( final java.io.IOException e ) {
             }
         }
+    }
 
-        buildDotFile( dir, newOutputStream( dot( dir ) ), allAttrs );
+    private ReentrantLock lock( final Path path ) {
+        final ReentrantLock lock = pathLocks[ stripe( path ) ];
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Locks the stripes of both paths, always in the same order.
+     */
+    private ReentrantLock[] lock( final Path source,
+                                  final Path target ) {
+        final int first = Math.min( stripe( source ), stripe( target ) );
+        final int second = Math.max( stripe( source ), stripe( target ) );
+        pathLocks[ first ].lock();
+        if ( first == second ) {
+            return new ReentrantLock[]{ pathLocks[ first ] };
+        }
+        pathLocks[ second ].lock();
+        return new ReentrantLock[]{ pathLocks[ second ], pathLocks[ first ] };
+    }
+
+    private void unlock( final ReentrantLock[] locks ) {
+        for ( final ReentrantLock lock : locks ) {
+            lock.unlock();
+        }
+    }
 
-        return dir;
+    private int stripe( final Path path ) {
+        return ( path.hashCode() & 0x7fffffff ) % pathLocks.length;
     }
 
     protected String[] split( final String attribute ) {
@@ -0,0 +1,197 @@
+package org.uberfire.io.impl.cluster;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.FileSystemAlreadyExistsException;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Brings the file systems of a node joining the cluster in line with the other nodes, several at a time.
+ * <p/>
+ * A run creates every missing file system and syncs it with its origin, at most {@link #getConcurrency()} in
+ * parallel; progress is logged as file systems complete and can be read with the getters, the estimated time
+ * left is based on the average time per file system so far.
+ */
+public class ClusterBootstrap {
+
+    private static final Logger logger = LoggerFactory.getLogger( ClusterBootstrap.class );
+
+    public static final int CONCURRENCY = Integer.parseInt( System.getProperty( "org.uberfire.cluster.bootstrap.concurrency", "4" ) );
+
+    private final IOService service;
+    private final int concurrency;
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile String phase = "idle";
+    private volatile long startTime = 0;
+    private volatile long endTime = 0;
+
+    public ClusterBootstrap( final IOService service ) {
+        this( service, CONCURRENCY );
+    }
+
+    public ClusterBootstrap( final IOService service,
+                             final int concurrency ) {
+        this.service = checkNotNull( "service", service );
+        this.concurrency = concurrency > 0 ? concurrency : 1;
+    }
+
+    /**
+     * Creates and syncs the given file systems, blocking until all of them are done.
+     * @param phase name of the run, used for logging.
+     */
+    public void run( final String phase,
+                     final Collection<IOServiceClusterImpl.FileSystemInfo> fileSystems ) {
+        this.phase = phase;
+        total.set( fileSystems.size() );
+        completed.set( 0 );
+        failed.set( 0 );
+        startTime = System.currentTimeMillis();
+        endTime = 0;
+
+        if ( !fileSystems.isEmpty() ) {
+            final CountDownLatch done = new CountDownLatch( fileSystems.size() );
+            final ExecutorService executor = Executors.newFixedThreadPool( Math.min( concurrency, fileSystems.size() ), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread( final Runnable r ) {
+                    final Thread thread = new Thread( r, "uberfire-cluster-bootstrap-" + count.incrementAndGet() );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            } );
+            try {
+                for ( final IOServiceClusterImpl.FileSystemInfo fileSystemInfo : fileSystems ) {
+                    executor.execute( new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                bootstrap( fileSystemInfo );
+                            } catch ( Exception e ) {
+                                failed.incrementAndGet();
+                                logger.error( "Cluster bootstrap of file system " + fileSystemInfo.getId() + " failed.", e );
+                            } finally {
+                                completed.incrementAndGet();
+                                done.countDown();
+                                logger.info( "Cluster bootstrap [{}] {}", phase, ClusterBootstrap.this );
+                            }
+                        }
+                    } );
+                }
+                done.await();
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        endTime = System.currentTimeMillis();
+    }
+
+    private void bootstrap( final IOServiceClusterImpl.FileSystemInfo fileSystemInfo ) {
+        try {
+            final URI newFS = URI.create( fileSystemInfo.getScheme() + "://" + fileSystemInfo.getId() );
+            service.newFileSystem( newFS, Collections.<String, Object>emptyMap() );
+        } catch ( FileSystemAlreadyExistsException ex ) {
+        }
+
+        RuntimeException lastError = null;
+        for ( final String origin : fileSystemInfo.getUri().split( "\n" ) ) {
+            try {
+                service.getFileSystem( URI.create( fileSystemInfo.getScheme() + "://" + fileSystemInfo.getId() + "?sync=" + encode( origin ) + "&force" ) );
+                return;
+            } catch ( RuntimeException e ) {
+                // try the other supported uri in case of failure
+                lastError = e;
+            }
+        }
+        if ( lastError != null ) {
+            throw lastError;
+        }
+    }
+
+    private static String encode( final String value ) {
+        try {
+            return URLEncoder.encode( value, "UTF-8" );
+        } catch ( UnsupportedEncodingException e ) {
+            return value;
+        }
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public int getTotal() {
+        return total.get();
+    }
+
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public boolean isDone() {
+        return endTime != 0;
+    }
+
+    /**
+     * @return time spent on the current (or last) run, in milliseconds.
+     */
+    public long getElapsed() {
+        if ( startTime == 0 ) {
+            return 0;
+        }
+        return ( endTime != 0 ? endTime : System.currentTimeMillis() ) - startTime;
+    }
+
+    /**
+     * @return estimated time left to complete the current run, in milliseconds; -1 if there's nothing to base the
+     * estimate on yet.
+     */
+    public long getEstimatedRemaining() {
+        if ( isDone() ) {
+            return 0;
+        }
+        final int done = completed.get();
+        if ( done == 0 ) {
+            return -1;
+        }
+        return getElapsed() * ( total.get() - done ) / done;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterBootstrap{" +
+                "phase=" + phase +
+                ", completed=" + getCompleted() + "/" + getTotal() +
+                ", failed=" + getFailed() +
+                ", elapsed=" + getElapsed() +
+                ", estimatedRemaining=" + getEstimatedRemaining() +
+                '}';
+    }
+}
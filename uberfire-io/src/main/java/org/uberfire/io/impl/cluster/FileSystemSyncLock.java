@@ -2,23 +2,80 @@ package org.uberfire.io.impl.cluster;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
 
+import org.uberfire.commons.cluster.ClusterService;
 import org.uberfire.commons.cluster.LockExecuteNotifyAsyncReleaseTemplate;
 import org.uberfire.commons.message.MessageType;
+import org.uberfire.java.nio.base.FileSystemChanges;
 import org.uberfire.java.nio.base.FileSystemId;
 import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Path;
 
 import static org.uberfire.io.impl.cluster.ClusterMessageType.*;
 
+/**
+ * Executes a write holding the lock of its file system, then tells the other nodes to sync it.
+ * <p/>
+ * When built from a path of a file system that tracks its revisions ({@link FileSystemChanges}), the revision of the
+ * path's root is recorded before and after the write: the message carries the root and both revisions, so nodes
+ * fetch just that root's branch (or nothing, if they're already there), and a write that didn't change anything
+ * isn't broadcast at all.
+ */
 public class FileSystemSyncLock<V> extends LockExecuteNotifyAsyncReleaseTemplate<V> {
 
     private final FileSystem fileSystem;
     private final String serviceId;
+    private final Path root;
+
+    private String oldRevision = null;
 
     public FileSystemSyncLock( final String serviceId,
                                final FileSystem fileSystem ) {
         this.serviceId = serviceId;
         this.fileSystem = fileSystem;
+        this.root = null;
+    }
+
+    public FileSystemSyncLock( final String serviceId,
+                               final Path path ) {
+        this.serviceId = serviceId;
+        this.fileSystem = path.getFileSystem();
+        this.root = fileSystem instanceof FileSystemChanges ? path.getRoot() : null;
+    }
+
+    @Override
+    public V execute( final ClusterService clusterService,
+                      final RunnableFuture<V> task ) {
+        if ( root == null ) {
+            return super.execute( clusterService, task );
+        }
+        return super.execute( clusterService, new FutureTask<V>( new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                oldRevision = revision();
+                task.run();
+                try {
+                    return task.get();
+                } catch ( final ExecutionException e ) {
+                    if ( e.getCause() instanceof Exception ) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } ) );
+    }
+
+    @Override
+    public void sendMessage( final ClusterService clusterService ) {
+        if ( root != null && oldRevision != null && oldRevision.equals( revision() ) ) {
+            return;
+        }
+        super.sendMessage( clusterService );
     }
 
     @Override
@@ -31,12 +88,32 @@ public class FileSystemSyncLock<V> extends LockExecuteNotifyAsyncReleaseTemplate
         return serviceId;
     }
 
+    @Override
+    public String getLockKey() {
+        return ( (FileSystemId) fileSystem ).id();
+    }
+
     @Override
     public Map<String, String> buildContent() {
         return new HashMap<String, String>() {{
             put( "fs_scheme", fileSystem.getRootDirectories().iterator().next().toUri().getScheme() );
             put( "fs_id", ( (FileSystemId) fileSystem ).id() );
             put( "fs_uri", fileSystem.toString() );
+            if ( root != null ) {
+                final String newRevision = revision();
+                if ( newRevision != null ) {
+                    put( "fs_root", root.toUri().toString() );
+                    put( "fs_new_rev", newRevision );
+                    if ( oldRevision != null ) {
+                        put( "fs_old_rev", oldRevision );
+                    }
+                    put( "fs_sent", String.valueOf( System.currentTimeMillis() ) );
+                }
+            }
         }};
     }
+
+    private String revision() {
+        return ( (FileSystemChanges) fileSystem ).revision( root );
+    }
 }
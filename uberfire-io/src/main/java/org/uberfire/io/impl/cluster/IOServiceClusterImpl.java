@@ -8,13 +8,19 @@ import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -36,6 +42,8 @@ import org.uberfire.io.IOClusteredService;
 import org.uberfire.io.IOService;
 import org.uberfire.io.impl.IOServiceIdentifiable;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.Discardable;
+import org.uberfire.java.nio.base.FileSystemChanges;
 import org.uberfire.java.nio.base.FileSystemId;
 import org.uberfire.java.nio.base.SeekableByteChannelWrapperImpl;
 import org.uberfire.java.nio.channels.SeekableByteChannel;
@@ -48,6 +56,8 @@ import org.uberfire.java.nio.file.FileAlreadyExistsException;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.FileSystemAlreadyExistsException;
 import org.uberfire.java.nio.file.FileSystemNotFoundException;
+import org.uberfire.java.nio.file.FileVisitOption;
+import org.uberfire.java.nio.file.FileVisitor;
 import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.java.nio.file.NotDirectoryException;
 import org.uberfire.java.nio.file.OpenOption;
@@ -73,6 +83,8 @@ public class IOServiceClusterImpl implements IOClusteredService {
     private final IOServiceIdentifiable service;
     private final ClusterService clusterService;
     private final AtomicBoolean started = new AtomicBoolean( false );
+    private final ReplicationMetrics replicationMetrics = new ReplicationMetrics();
+    private final ClusterBootstrap bootstrap;
 
     private NewFileSystemListener newFileSystemListener = null;
 
@@ -86,6 +98,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
                                  final boolean autoStart ) {
         checkNotNull( "clusterServiceFactory", clusterServiceFactory );
         this.service = checkInstanceOf( "service", service, IOServiceIdentifiable.class );
+        this.bootstrap = new ClusterBootstrap( this.service );
 
         logger.debug( "Creating instance of cluster service with auto start {}", autoStart );
         this.clusterService = clusterServiceFactory.build( new MessageHandlerResolver() {
@@ -125,89 +138,125 @@ public class IOServiceClusterImpl implements IOClusteredService {
         } );
     }
 
+    /**
+     * Joins the cluster: file systems are cloned and synced outside the cluster lock, several at a time (see
+     * {@link ClusterBootstrap}), then the lock is taken just to catch up with the changes made meanwhile: only the
+     * file systems created since the first pass, or whose revisions moved, are synced again.
+     */
     @Override
     public void start() {
         started.set( true );
         logger.debug( "Starting cluster service {}", this );
-        //New cluster members are executed within locked
+
+        bootstrap.run( "clone", queryFileSystems() );
+
+        //New cluster members catch up within locked
         new LockExecuteReleaseTemplate<Void>().execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
             @Override
             public Void call() throws Exception {
+                bootstrap.run( "catch-up", notUpToDate( queryFileSystems() ) );
+                return null;
+            }
+        } ) );
+    }
 
-                // 10 seconds
-                int timeout = 10000;
-                final AtomicBoolean msgAnsweredOrTimedout = new AtomicBoolean( false );
-                final AtomicBoolean onSync = new AtomicBoolean( false );
+    /**
+     * @return the given file systems that are missing here or whose revisions differ from the local ones; those
+     * reported without revisions (ex. by nodes that can't tell them) are always included.
+     */
+    private Collection<FileSystemInfo> notUpToDate( final Collection<FileSystemInfo> fileSystems ) {
+        final List<FileSystemInfo> result = new ArrayList<FileSystemInfo>();
+        for ( final FileSystemInfo fileSystemInfo : fileSystems ) {
+            if ( fileSystemInfo.getRevisions() == null ) {
+                result.add( fileSystemInfo );
+                continue;
+            }
+            try {
+                final FileSystem fs = service.getFileSystem( URI.create( fileSystemInfo.getScheme() + "://" + fileSystemInfo.getId() ) );
+                if ( !fileSystemInfo.getRevisions().equals( revisions( fs ) ) ) {
+                    result.add( fileSystemInfo );
+                }
+            } catch ( final Exception ex ) {
+                result.add( fileSystemInfo );
+            }
+        }
+        logger.debug( "Cluster catch-up: {} of {} file systems changed since the first pass", result.size(), fileSystems.size() );
+        return result;
+    }
 
-                final Map<Integer, FileSystemInfo> fileSystems = new HashMap<Integer, FileSystemInfo>();
+    /**
+     * @return the revisions of all the roots of the given file system, in a stable order; null if the file system
+     * doesn't track revisions.
+     */
+    static String revisions( final FileSystem fs ) {
+        if ( !( fs instanceof FileSystemChanges ) ) {
+            return null;
+        }
+        final Map<String, String> revisions = new TreeMap<String, String>();
+        for ( final Path root : fs.getRootDirectories() ) {
+            revisions.put( root.toUri().toString(), ( (FileSystemChanges) fs ).revision( root ) );
+        }
+        return revisions.toString();
+    }
 
-                clusterService.broadcastAndWait( service.getId(), QUERY_FOR_FS, Collections.<String, String>emptyMap(), timeout, new AsyncCallback() {
-                    @Override
-                    public void onTimeOut() {
-                        msgAnsweredOrTimedout.set( true );
-                    }
+    private Collection<FileSystemInfo> queryFileSystems() {
+        // 10 seconds
+        int timeout = 10000;
+        final CountDownLatch msgAnsweredOrTimedout = new CountDownLatch( 1 );
 
-                    @Override
-                    public void onReply( final MessageType type,
-                                         final Map<String, String> content ) {
-                        if ( msgAnsweredOrTimedout.get() || onSync.get() ) {
-                            return;
-                        }
+        final Map<Integer, FileSystemInfo> fileSystems = new HashMap<Integer, FileSystemInfo>();
 
-                        onSync.set( true );
+        clusterService.broadcastAndWait( service.getId(), QUERY_FOR_FS, Collections.<String, String>emptyMap(), timeout, new AsyncCallback() {
+            @Override
+            public void onTimeOut() {
+                msgAnsweredOrTimedout.countDown();
+            }
 
-                        SimpleAsyncExecutorService.getUnmanagedInstance().execute( new DescriptiveRunnable() {
-                            @Override
-                            public String getDescription() {
-                                return "Cluster Messaging Reply [" + service.getId() + "/QUERY_FOR_FS]";
-                            }
+            @Override
+            public void onReply( final MessageType type,
+                                 final Map<String, String> content ) {
+                synchronized ( fileSystems ) {
+                    if ( msgAnsweredOrTimedout.getCount() == 0 ) {
+                        return;
+                    }
 
-                            @Override
-                            public void run() {
-                                for ( final Map.Entry<String, String> entry : content.entrySet() ) {
-                                    if ( entry.getKey().startsWith( "fs_" ) ) {
-                                        int index = Integer.valueOf( entry.getKey().substring( entry.getKey().lastIndexOf( "_" ) + 1 ) );
-                                        if ( !fileSystems.containsKey( index ) ) {
-                                            fileSystems.put( index, new FileSystemInfo() );
-                                        }
-                                        final FileSystemInfo fsInfo = fileSystems.get( index );
-                                        if ( entry.getKey().startsWith( "fs_id_" ) ) {
-                                            fsInfo.setId( entry.getValue() );
-                                        } else if ( entry.getKey().startsWith( "fs_scheme_" ) ) {
-                                            fsInfo.setScheme( entry.getValue() );
-                                        } else if ( entry.getKey().startsWith( "fs_uri_" ) ) {
-                                            fsInfo.setUri( entry.getValue() );
-                                        }
-                                    }
-                                }
-
-                                for ( final FileSystemInfo fileSystemInfo : new HashSet<FileSystemInfo>( fileSystems.values() ) ) {
-                                    try {
-                                        final URI newFS = URI.create( fileSystemInfo.getScheme() + "://" + fileSystemInfo.getId() );
-                                        service.newFileSystem( newFS, Collections.<String, Object>emptyMap() );
-                                    } catch ( FileSystemAlreadyExistsException ex ) {
-                                    }
-
-                                    final URI fs = URI.create( fileSystemInfo.getScheme() + "://" + fileSystemInfo.getId() + "?sync=" + fileSystemInfo.getUri().split( "\n" )[ 0 ] + "&force" );
-                                    service.getFileSystem( fs );
-                                }
-
-                                msgAnsweredOrTimedout.set( true );
+                    for ( final Map.Entry<String, String> entry : content.entrySet() ) {
+                        if ( entry.getKey().startsWith( "fs_" ) ) {
+                            int index = Integer.valueOf( entry.getKey().substring( entry.getKey().lastIndexOf( "_" ) + 1 ) );
+                            if ( !fileSystems.containsKey( index ) ) {
+                                fileSystems.put( index, new FileSystemInfo() );
                             }
-                        } );
+                            final FileSystemInfo fsInfo = fileSystems.get( index );
+                            if ( entry.getKey().startsWith( "fs_id_" ) ) {
+                                fsInfo.setId( entry.getValue() );
+                            } else if ( entry.getKey().startsWith( "fs_scheme_" ) ) {
+                                fsInfo.setScheme( entry.getValue() );
+                            } else if ( entry.getKey().startsWith( "fs_uri_" ) ) {
+                                fsInfo.setUri( entry.getValue() );
+                            } else if ( entry.getKey().startsWith( "fs_rev_" ) ) {
+                                fsInfo.setRevisions( entry.getValue() );
+                            }
+                        }
                     }
-                } );
 
-                while ( !msgAnsweredOrTimedout.get() ) {
-                    try {
-                        Thread.sleep( 100 );
-                    } catch ( InterruptedException ignored ) {
-                    }
+                    msgAnsweredOrTimedout.countDown();
                 }
-
-                return null;
             }
-        } ) );
+        } );
+
+        try {
+            msgAnsweredOrTimedout.await();
+        } catch ( InterruptedException ignored ) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized ( fileSystems ) {
+            return new ArrayList<FileSystemInfo>( fileSystems.values() );
+        }
+    }
+
+    public ClusterBootstrap getBootstrap() {
+        return bootstrap;
     }
 
     @Override
@@ -216,6 +265,10 @@ public class IOServiceClusterImpl implements IOClusteredService {
         service.dispose();
     }
 
+    public ReplicationMetrics getReplicationMetrics() {
+        return replicationMetrics;
+    }
+
     @Override
     public void startBatch( final Option... options ) {
         clusterService.lock();
@@ -228,6 +281,20 @@ public class IOServiceClusterImpl implements IOClusteredService {
         clusterService.unlock();
     }
 
+    @Override
+    public void startBatch( final FileSystem fs,
+                            final Option... options ) {
+        clusterService.lock( ( (FileSystemId) fs ).id() );
+        service.startBatch( fs, options );
+    }
+
+    @Override
+    public void endBatch( final FileSystem fs,
+                          final Option... options ) {
+        service.endBatch( fs, options );
+        clusterService.unlock( ( (FileSystemId) fs ).id() );
+    }
+
     @Override
     public FileAttribute<?>[] convert( final Map<String, ?> attrs ) {
         return service.convert( attrs );
@@ -363,10 +430,18 @@ public class IOServiceClusterImpl implements IOClusteredService {
         return service.newDirectoryStream( dir, filter );
     }
 
+    @Override
+    public Path walkFileTree( final Path start,
+                              final Set<FileVisitOption> options,
+                              final int maxDepth,
+                              final FileVisitor<Path> visitor ) throws IllegalArgumentException, SecurityException, IOException {
+        return service.walkFileTree( start, options, maxDepth, visitor );
+    }
+
     @Override
     public Path createFile( final Path path,
                             final FileAttribute<?>... attrs ) throws IllegalArgumentException, UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.createFile( path, attrs );
@@ -377,7 +452,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     @Override
     public Path createDirectory( final Path dir,
                                  final FileAttribute<?>... attrs ) throws IllegalArgumentException, UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), dir.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), dir ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.createDirectory( dir, attrs );
@@ -388,7 +463,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     @Override
     public Path createDirectories( final Path dir,
                                    final FileAttribute<?>... attrs ) throws UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), dir.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), dir ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.createDirectories( dir, attrs );
@@ -399,7 +474,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     @Override
     public Path createDirectory( final Path dir,
                                  final Map<String, ?> attrs ) throws IllegalArgumentException, UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), dir.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), dir ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.createDirectory( dir, attrs );
@@ -410,7 +485,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     @Override
     public Path createDirectories( final Path dir,
                                    final Map<String, ?> attrs ) throws UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), dir.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), dir ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.createDirectories( dir, attrs );
@@ -421,7 +496,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     @Override
     public void delete( final Path path,
                         final DeleteOption... options ) throws IllegalArgumentException, NoSuchFileException, DirectoryNotEmptyException, IOException, SecurityException {
-        new FileSystemSyncLock<Void>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
+        new FileSystemSyncLock<Void>( service.getId(), path ).execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
             @Override
             public Void call() throws Exception {
                 service.delete( path, options );
@@ -433,7 +508,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     @Override
     public boolean deleteIfExists( final Path path,
                                    final DeleteOption... options ) throws IllegalArgumentException, DirectoryNotEmptyException, IOException, SecurityException {
-        return new FileSystemSyncLock<Boolean>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Boolean>( new Callable<Boolean>() {
+        return new FileSystemSyncLock<Boolean>( service.getId(), path ).execute( clusterService, new FutureTask<Boolean>( new Callable<Boolean>() {
             @Override
             public Boolean call() throws Exception {
                 return service.deleteIfExists( path, options );
@@ -473,7 +548,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     public Path copy( final Path source,
                       final Path target,
                       final CopyOption... options ) throws UnsupportedOperationException, FileAlreadyExistsException, DirectoryNotEmptyException, IOException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), target.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), target ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.copy( source, target, options );
@@ -485,7 +560,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     public long copy( final InputStream in,
                       final Path target,
                       final CopyOption... options ) throws IOException, FileAlreadyExistsException, DirectoryNotEmptyException, UnsupportedOperationException, SecurityException {
-        return new FileSystemSyncLock<Long>( service.getId(), target.getFileSystem() ).execute( clusterService, new FutureTask<Long>( new Callable<Long>() {
+        return new FileSystemSyncLock<Long>( service.getId(), target ).execute( clusterService, new FutureTask<Long>( new Callable<Long>() {
             @Override
             public Long call() throws Exception {
                 return service.copy( in, target, options );
@@ -503,17 +578,25 @@ public class IOServiceClusterImpl implements IOClusteredService {
     public Path move( final Path source,
                       final Path target,
                       final CopyOption... options ) throws UnsupportedOperationException, FileAlreadyExistsException, DirectoryNotEmptyException, AtomicMoveNotSupportedException, IOException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), source.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
-            @Override
-            public Path call() throws Exception {
-                return new FileSystemSyncLock<Path>( service.getId(), target.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
-                    @Override
-                    public Path call() throws Exception {
-                        return service.move( source, target, options );
-                    }
-                } ) );
-            }
-        } ) );
+        // both file systems are locked up front by the cluster service, in its own order, to avoid deadlocks between
+        // nodes moving in opposite directions; the sync locks below then just re-enter them
+        final String[] keys = new String[]{ ( (FileSystemId) source.getFileSystem() ).id(), ( (FileSystemId) target.getFileSystem() ).id() };
+        clusterService.lockAll( keys );
+        try {
+            return new FileSystemSyncLock<Path>( service.getId(), source.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+                @Override
+                public Path call() throws Exception {
+                    return new FileSystemSyncLock<Path>( service.getId(), target.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+                        @Override
+                        public Path call() throws Exception {
+                            return service.move( source, target, options );
+                        }
+                    } ) );
+                }
+            } ) );
+        } finally {
+            clusterService.unlockAll( keys );
+        }
     }
 
     @Override
@@ -536,7 +619,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     @Override
     public Path setAttributes( final Path path,
                                final FileAttribute<?>... attrs ) throws UnsupportedOperationException, IllegalArgumentException, ClassCastException, IOException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.setAttributes( path, attrs );
@@ -547,7 +630,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     @Override
     public Path setAttributes( final Path path,
                                final Map<String, Object> attrs ) throws UnsupportedOperationException, IllegalArgumentException, ClassCastException, IOException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.setAttributes( path, attrs );
@@ -559,7 +642,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     public Path setAttribute( final Path path,
                               final String attribute,
                               final Object value ) throws UnsupportedOperationException, IllegalArgumentException, ClassCastException, IOException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.setAttribute( path, attribute, value );
@@ -636,7 +719,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     public Path write( final Path path,
                        final byte[] bytes,
                        final OpenOption... options ) throws IOException, UnsupportedOperationException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.write( path, bytes, options );
@@ -649,7 +732,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
                        final byte[] bytes,
                        final Map<String, ?> attrs,
                        final OpenOption... options ) throws IOException, UnsupportedOperationException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.write( path, bytes, attrs, options );
@@ -662,7 +745,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
                        final byte[] bytes,
                        final Set<? extends OpenOption> options,
                        final FileAttribute<?>... attrs ) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.write( path, bytes, options, attrs );
@@ -675,7 +758,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
                        final Iterable<? extends CharSequence> lines,
                        final Charset cs,
                        final OpenOption... options ) throws IllegalArgumentException, IOException, UnsupportedOperationException, SecurityException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.write( path, lines, cs, options );
@@ -687,7 +770,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
     public Path write( final Path path,
                        final String content,
                        final OpenOption... options ) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.write( path, content, options );
@@ -700,7 +783,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
                        final String content,
                        final Charset cs,
                        final OpenOption... options ) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.write( path, content, cs, options );
@@ -713,7 +796,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
                        final String content,
                        final Set<? extends OpenOption> options,
                        final FileAttribute<?>... attrs ) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.write( path, content, options, attrs );
@@ -727,7 +810,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
                        final Charset cs,
                        final Set<? extends OpenOption> options,
                        final FileAttribute<?>... attrs ) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.write( path, content, cs, options, attrs );
@@ -740,7 +823,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
                        final String content,
                        final Map<String, ?> attrs,
                        final OpenOption... options ) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.write( path, content, attrs, options );
@@ -754,7 +837,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
                        final Charset cs,
                        final Map<String, ?> attrs,
                        final OpenOption... options ) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        return new FileSystemSyncLock<Path>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
+        return new FileSystemSyncLock<Path>( service.getId(), path ).execute( clusterService, new FutureTask<Path>( new Callable<Path>() {
             @Override
             public Path call() throws Exception {
                 return service.write( path, content, cs, attrs, options );
@@ -765,24 +848,60 @@ public class IOServiceClusterImpl implements IOClusteredService {
     @Override
     public OutputStream newOutputStream( final Path path,
                                          final OpenOption... options ) throws IllegalArgumentException, UnsupportedOperationException, IOException, SecurityException {
-        final OutputStream out = service.newOutputStream( path, options );
-        return new OutputStream() {
-            @Override
-            public void write( final int b ) throws java.io.IOException {
-                out.write( b );
-            }
+        return new SyncOnCloseOutputStream( path, service.newOutputStream( path, options ) );
+    }
 
-            @Override
-            public void close() throws java.io.IOException {
-                new FileSystemSyncLock<Void>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
-                    @Override
-                    public Void call() throws Exception {
-                        out.close();
-                        return null;
-                    }
-                } ) );
+    /**
+     * Closes the wrapped stream holding the file system lock, then tells the other nodes to sync; a discarded
+     * stream didn't change anything, so there's nothing to sync.
+     */
+    private class SyncOnCloseOutputStream extends OutputStream implements Discardable {
+
+        private final Path path;
+        private final OutputStream out;
+
+        SyncOnCloseOutputStream( final Path path,
+                                 final OutputStream out ) {
+            this.path = path;
+            this.out = out;
+        }
+
+        @Override
+        public void write( final int b ) throws java.io.IOException {
+            out.write( b );
+        }
+
+        @Override
+        public void write( final byte[] b,
+                           final int off,
+                           final int len ) throws java.io.IOException {
+            out.write( b, off, len );
+        }
+
+        @Override
+        public void flush() throws java.io.IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws java.io.IOException {
+            new FileSystemSyncLock<Void>( service.getId(), path ).execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    out.close();
+                    return null;
+                }
+            } ) );
+        }
+
+        @Override
+        public void discard() throws java.io.IOException {
+            if ( out instanceof Discardable ) {
+                ( (Discardable) out ).discard();
+            } else {
+                close();
             }
-        };
+        }
     }
 
     @Override
@@ -793,7 +912,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
         return new SeekableByteChannelWrapperImpl( sbc ) {
             @Override
             public void close() throws java.io.IOException {
-                new FileSystemSyncLock<Void>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
+                new FileSystemSyncLock<Void>( service.getId(), path ).execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
                     @Override
                     public Void call() throws Exception {
                         sbc.close();
@@ -813,7 +932,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
         return new SeekableByteChannelWrapperImpl( sbc ) {
             @Override
             public void close() throws java.io.IOException {
-                new FileSystemSyncLock<Void>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
+                new FileSystemSyncLock<Void>( service.getId(), path ).execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
                     @Override
                     public Void call() throws Exception {
                         sbc.close();
@@ -831,7 +950,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
         return new BufferedWriter( service.newBufferedWriter( path, cs, options ) ) {
             @Override
             public void close() throws java.io.IOException {
-                new FileSystemSyncLock<Void>( service.getId(), path.getFileSystem() ).execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
+                new FileSystemSyncLock<Void>( service.getId(), path ).execute( clusterService, new FutureTask<Void>( new Callable<Void>() {
                     @Override
                     public Void call() throws Exception {
                         superClose();
@@ -906,42 +1025,138 @@ public class IOServiceClusterImpl implements IOClusteredService {
         }
     }
 
+    /**
+     * Syncs the file systems changed on other nodes.
+     * <p/>
+     * Messages that carry the changed root and its new revision are skipped if this node is already there, otherwise
+     * just that root is fetched; syncs run off the messaging thread, one at a time per root, and messages arriving
+     * while one is pending replace it, so a burst of writes ends in a single fetch.
+     */
     class SyncFileSystemMessageHandler implements MessageHandler {
 
+        private final ConcurrentMap<String, Map<String, String>> pendingSyncs = new ConcurrentHashMap<String, Map<String, String>>();
+        private final ConcurrentMap<String, Object> syncLocks = new ConcurrentHashMap<String, Object>();
+
         @Override
         public Pair<MessageType, Map<String, String>> handleMessage( final MessageType type,
                                                                      final Map<String, String> content ) {
             if ( SYNC_FS.equals( type ) ) {
-                final String scheme = content.get( "fs_scheme" );
-                final String id = content.get( "fs_id" );
-                String uris = content.get( "fs_uri" );
-                String[] supportedUris = uris.split( "\n" );
-
-                for ( String supportedUri : supportedUris ) {
-                    try {
-                        String origin;
-                        try {
-                            origin = URLEncoder.encode( supportedUri, "UTF-8" );
-                        } catch ( UnsupportedEncodingException e ) {
-                            origin = supportedUri;
-                        }
+                replicationMetrics.received();
+                if ( isUpToDate( content ) ) {
+                    replicationMetrics.skipped();
+                    lag( content );
+                    return null;
+                }
 
-                        if ( origin != null ) {
-                            final URI fs = URI.create( scheme + "://" + id + "?sync=" + origin + "&force" );
+                final String key = content.get( "fs_id" ) + "|" + content.get( "fs_root" );
+                if ( pendingSyncs.put( key, content ) != null ) {
+                    replicationMetrics.coalesced();
+                    return null;
+                }
+
+                SimpleAsyncExecutorService.getUnmanagedInstance().execute( new DescriptiveRunnable() {
+                    @Override
+                    public String getDescription() {
+                        return "Cluster Messaging Sync [" + service.getId() + "/" + key + "]";
+                    }
 
-                            service.getFileSystem( fs );
+                    @Override
+                    public void run() {
+                        syncLocks.putIfAbsent( key, new Object() );
+                        synchronized ( syncLocks.get( key ) ) {
+                            Map<String, String> pending;
+                            while ( ( pending = pendingSyncs.remove( key ) ) != null ) {
+                                sync( pending );
+                            }
                         }
-                        break;
-                    } catch ( Exception e ) {
-                        // try the other supported uri in case of failure
-                        logger.warn( "File system synchronization for origin {} failed with error {}, trying another if available",
-                                     supportedUri, e.getMessage() );
                     }
-                }
+                } );
             }
 
             return null;
         }
+
+        private boolean isUpToDate( final Map<String, String> content ) {
+            final String revision = content.get( "fs_new_rev" );
+            return revision != null && revision.equals( currentRevision( content ) );
+        }
+
+        /**
+         * @return local revision of the message's root, or null if it has no root or it can't be resolved.
+         */
+        private String currentRevision( final Map<String, String> content ) {
+            final String root = content.get( "fs_root" );
+            if ( root == null ) {
+                return null;
+            }
+            try {
+                final Path path = service.get( URI.create( root ) );
+                if ( path.getFileSystem() instanceof FileSystemChanges ) {
+                    return ( (FileSystemChanges) path.getFileSystem() ).revision( path );
+                }
+            } catch ( Exception ignored ) {
+            }
+            return null;
+        }
+
+        private void sync( final Map<String, String> content ) {
+            if ( isUpToDate( content ) ) {
+                replicationMetrics.skipped();
+                lag( content );
+                return;
+            }
+
+            final String scheme = content.get( "fs_scheme" );
+            final String id = content.get( "fs_id" );
+            final String root = content.get( "fs_root" );
+            final String revision = content.get( "fs_new_rev" );
+            String uris = content.get( "fs_uri" );
+            String[] supportedUris = uris.split( "\n" );
+
+            for ( String supportedUri : supportedUris ) {
+                try {
+                    final StringBuilder fs = new StringBuilder( scheme ).append( "://" ).append( id )
+                            .append( "?sync=" ).append( encode( supportedUri ) ).append( "&force" );
+                    if ( root != null && revision != null ) {
+                        fs.append( "&root=" ).append( encode( root ) ).append( "&rev=" ).append( revision );
+                    }
+
+                    final String before = currentRevision( content );
+                    service.getFileSystem( URI.create( fs.toString() ) );
+                    // a branch sync that found nothing to fetch leaves the root where it was
+                    if ( before != null && before.equals( currentRevision( content ) ) ) {
+                        replicationMetrics.skipped();
+                    } else {
+                        replicationMetrics.fetched();
+                    }
+                    lag( content );
+                    return;
+                } catch ( Exception e ) {
+                    // try the other supported uri in case of failure
+                    logger.warn( "File system synchronization for origin {} failed with error {}, trying another if available",
+                                 supportedUri, e.getMessage() );
+                }
+            }
+            replicationMetrics.failed();
+        }
+
+        private void lag( final Map<String, String> content ) {
+            final String sent = content.get( "fs_sent" );
+            if ( sent != null ) {
+                try {
+                    replicationMetrics.lag( System.currentTimeMillis() - Long.parseLong( sent ) );
+                } catch ( NumberFormatException ignored ) {
+                }
+            }
+        }
+
+        private String encode( final String value ) {
+            try {
+                return URLEncoder.encode( value, "UTF-8" );
+            } catch ( UnsupportedEncodingException e ) {
+                return value;
+            }
+        }
     }
 
     class QueryFileSystemMessageHandler implements MessageHandler {
@@ -962,6 +1177,10 @@ public class IOServiceClusterImpl implements IOClusteredService {
                     replyContent.put( "fs_scheme_" + i, fs.getRootDirectories().iterator().next().toUri().getScheme() );
                     replyContent.put( "fs_id_" + i, ( (FileSystemId) fs ).id() );
                     replyContent.put( "fs_uri_" + i, fs.toString() );
+                    final String revisions = revisions( fs );
+                    if ( revisions != null ) {
+                        replyContent.put( "fs_rev_" + i, revisions );
+                    }
                     i++;
                 }
                 return new Pair<MessageType, Map<String, String>>( QUERY_FOR_FS_RESULT, replyContent );
@@ -975,6 +1194,7 @@ public class IOServiceClusterImpl implements IOClusteredService {
         private String id;
         private String scheme;
         private String uri;
+        private String revisions;
 
         FileSystemInfo() {
 
@@ -1011,5 +1231,16 @@ public class IOServiceClusterImpl implements IOClusteredService {
         void setUri( String uri ) {
             this.uri = uri;
         }
+
+        /**
+         * @return revisions of the file system roots on the node that reported it, null if unknown.
+         */
+        String getRevisions() {
+            return revisions;
+        }
+
+        void setRevisions( String revisions ) {
+            this.revisions = revisions;
+        }
     }
 }
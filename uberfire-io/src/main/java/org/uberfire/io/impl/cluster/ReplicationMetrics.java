@@ -0,0 +1,113 @@
+package org.uberfire.io.impl.cluster;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the file system sync messages handled by a node.
+ * <p/>
+ * Lag is measured from the time the message was sent to the time this node got in sync, so it's only as accurate
+ * as the clocks of the nodes are aligned.
+ */
+public class ReplicationMetrics {
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong lagSamples = new AtomicLong();
+    private final AtomicLong totalLag = new AtomicLong();
+    private final AtomicLong lastLag = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+
+    void received() {
+        received.incrementAndGet();
+    }
+
+    void coalesced() {
+        coalesced.incrementAndGet();
+    }
+
+    void skipped() {
+        skipped.incrementAndGet();
+    }
+
+    void fetched() {
+        fetched.incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void lag( final long lag ) {
+        final long value = Math.max( lag, 0 );
+        lagSamples.incrementAndGet();
+        totalLag.addAndGet( value );
+        lastLag.set( value );
+        long max = maxLag.get();
+        while ( value > max && !maxLag.compareAndSet( max, value ) ) {
+            max = maxLag.get();
+        }
+    }
+
+    /**
+     * Sync messages received from other nodes.
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * Messages merged into a sync already pending for the same file system root.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Messages ignored because the local root was already at the announced revision.
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * Syncs that actually went to the origin.
+     */
+    public long getFetched() {
+        return fetched.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getLastLag() {
+        return lastLag.get();
+    }
+
+    public long getMaxLag() {
+        return maxLag.get();
+    }
+
+    public long getAverageLag() {
+        final long samples = lagSamples.get();
+        return samples == 0 ? 0 : totalLag.get() / samples;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicationMetrics{" +
+                "received=" + getReceived() +
+                ", coalesced=" + getCoalesced() +
+                ", skipped=" + getSkipped() +
+                ", fetched=" + getFetched() +
+                ", failed=" + getFailed() +
+                ", lastLag=" + getLastLag() +
+                ", maxLag=" + getMaxLag() +
+                ", averageLag=" + getAverageLag() +
+                '}';
+    }
+}
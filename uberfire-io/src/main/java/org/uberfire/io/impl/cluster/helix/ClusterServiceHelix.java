@@ -4,15 +4,21 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.helix.Criteria;
+import org.apache.helix.HelixAdmin;
+import org.apache.helix.HelixException;
 import org.apache.helix.HelixManager;
 import org.apache.helix.InstanceType;
 import org.apache.helix.NotificationContext;
 import org.apache.helix.messaging.handling.HelixTaskResult;
 import org.apache.helix.messaging.handling.MessageHandler;
 import org.apache.helix.messaging.handling.MessageHandlerFactory;
+import org.apache.helix.model.IdealState;
 import org.apache.helix.model.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,9 +41,9 @@ public class ClusterServiceHelix implements ClusterService {
     private final String clusterName;
     private final String instanceName;
     private final HelixManager participantManager;
-    private final SimpleLock lock = new SimpleLock();
+    private final ConcurrentMap<String, SimpleLock> locks = new ConcurrentHashMap<String, SimpleLock>();
     private final String resourceName;
-    private int stackSize = 0;
+    private final Stripe[] stripes;
     private final Map<String, MessageHandlerResolver> messageHandlerResolver = new HashMap<String, MessageHandlerResolver>();
     private AtomicBoolean started = new AtomicBoolean( false );
     private final Collection<Runnable> onStart = new ArrayList<Runnable>();
@@ -47,9 +53,27 @@ public class ClusterServiceHelix implements ClusterService {
                                 final String instanceName,
                                 final String resourceName,
                                 final MessageHandlerResolver messageHandlerResolver ) {
+        this( clusterName, zkAddress, instanceName, resourceName, 1, messageHandlerResolver );
+    }
+
+    /**
+     * @param lockStripes number of partitions of the lock resource; keyed locks are hashed into them,
+     * so the resource must have (at least) this number of partitions. It's created on start if missing.
+     */
+    public ClusterServiceHelix( final String clusterName,
+                                final String zkAddress,
+                                final String instanceName,
+                                final String resourceName,
+                                final int lockStripes,
+                                final MessageHandlerResolver messageHandlerResolver ) {
         this.clusterName = clusterName;
         this.instanceName = instanceName;
         this.resourceName = resourceName;
+        this.stripes = new Stripe[ Math.max( lockStripes, 1 ) ];
+        for ( int i = 0; i < stripes.length; i++ ) {
+            final String partitionName = resourceName + "_" + i;
+            stripes[ i ] = new Stripe( partitionName, LockTransitionalFactory.lockOf( locks, partitionName ) );
+        }
         this.messageHandlerResolver.put( messageHandlerResolver.getServiceId(), messageHandlerResolver );
 
         this.participantManager = getZKHelixManager( clusterName, instanceName, InstanceType.PARTICIPANT, zkAddress );
@@ -68,8 +92,11 @@ public class ClusterServiceHelix implements ClusterService {
         }
         try {
             this.participantManager.connect();
-            disablePartition();
-            this.participantManager.getStateMachineEngine().registerStateModelFactory( "LeaderStandby", new LockTransitionalFactory( lock ) );
+            checkLockPartitions();
+            for ( final Stripe stripe : stripes ) {
+                disablePartition( stripe.partitionName );
+            }
+            this.participantManager.getStateMachineEngine().registerStateModelFactory( "LeaderStandby", new LockTransitionalFactory( locks ) );
             this.participantManager.getMessagingService().registerMessageHandlerFactory( Message.MessageType.USER_DEFINE_MSG.toString(), new MessageHandlerResolverWrapper( messageHandlerResolver ).convert() );
             started.set( true );
             for ( final Runnable runnable : onStart ) {
@@ -80,6 +107,30 @@ public class ClusterServiceHelix implements ClusterService {
         }
     }
 
+    /**
+     * Creates the lock resource with one partition per stripe if it doesn't exist yet, and refuses to start if it has
+     * fewer partitions than stripes: the stripes without a partition could never be locked.
+     */
+    private void checkLockPartitions() {
+        final HelixAdmin admin = participantManager.getClusterManagmentTool();
+        IdealState idealState = admin.getResourceIdealState( clusterName, resourceName );
+        if ( idealState == null ) {
+            try {
+                admin.addResource( clusterName, resourceName, stripes.length, "LeaderStandby", IdealState.RebalanceMode.FULL_AUTO.toString() );
+                admin.rebalance( clusterName, resourceName, 1 );
+            } catch ( final HelixException ex ) {
+                logger.debug( "Lock resource '" + resourceName + "' created meanwhile by another node", ex );
+            }
+            idealState = admin.getResourceIdealState( clusterName, resourceName );
+        }
+        final int partitions = idealState == null ? 0 : idealState.getNumPartitions();
+        if ( partitions < stripes.length ) {
+            participantManager.disconnect();
+            throw new IllegalStateException( "Lock resource '" + resourceName + "' of cluster '" + clusterName + "' has " + partitions +
+                                                     " partition(s), but " + stripes.length + " lock stripes are configured." );
+        }
+    }
+
     public boolean isStarted() {
         return started.get();
     }
@@ -96,68 +147,156 @@ public class ClusterServiceHelix implements ClusterService {
         this.onStart.add( runnable );
     }
 
-    private void enablePartition() {
+    private void enablePartition( final String partitionName ) {
         if ( !isStarted() ) {
             return;
         }
-        participantManager.getClusterManagmentTool().enablePartition( true, clusterName, instanceName, resourceName, asList( resourceName + "_0" ) );
+        participantManager.getClusterManagmentTool().enablePartition( true, clusterName, instanceName, resourceName, asList( partitionName ) );
     }
 
-    private void disablePartition() {
+    private void disablePartition( final String partitionName ) {
         if ( !isStarted() ) {
             return;
         }
-        participantManager.getClusterManagmentTool().enablePartition( false, clusterName, instanceName, resourceName, asList( resourceName + "_0" ) );
+        participantManager.getClusterManagmentTool().enablePartition( false, clusterName, instanceName, resourceName, asList( partitionName ) );
     }
 
+    /**
+     * Locks every stripe, in order, so it excludes any keyed lock of the cluster.
+     */
     @Override
     public void lock() {
         if ( !isStarted() ) {
             return;
         }
-        stackSize++;
-        if ( lock.isLocked() ) {
+        for ( final Stripe stripe : stripes ) {
+            stripe.lock();
+        }
+    }
+
+    @Override
+    public void unlock() {
+        if ( !isStarted() ) {
             return;
         }
-        enablePartition();
+        for ( int i = stripes.length - 1; i >= 0; i-- ) {
+            stripes[ i ].unlock();
+        }
+    }
 
-        while ( !lock.isLocked() ) {
-            try {
-                Thread.sleep( 10 );
-            } catch ( InterruptedException e ) {
+    @Override
+    public boolean isLocked() {
+        if ( !isStarted() ) {
+            return true;
+        }
+        for ( final Stripe stripe : stripes ) {
+            if ( !stripe.lock.isLocked() ) {
+                return false;
             }
         }
+        return true;
     }
 
     @Override
-    public void unlock() {
+    public void lock( final String key ) {
         if ( !isStarted() ) {
             return;
         }
-        stackSize--;
-        if ( !lock.isLocked() ) {
-            stackSize = 0;
+        stripeOf( key ).lock();
+    }
+
+    @Override
+    public void unlock( final String key ) {
+        if ( !isStarted() ) {
             return;
         }
+        stripeOf( key ).unlock();
+    }
 
-        if ( stackSize == 0 ) {
-            disablePartition();
+    @Override
+    public boolean isLocked( final String key ) {
+        if ( !isStarted() ) {
+            return true;
+        }
+        return stripeOf( key ).lock.isLocked();
+    }
 
-            while ( lock.isLocked() ) {
-                try {
-                    Thread.sleep( 10 );
-                } catch ( InterruptedException e ) {
-                }
-            }
+    /**
+     * Locks the stripes of the given keys by ascending index, as {@link #lock()} does, so nodes locking
+     * the same keys in any order can't deadlock; a stripe shared by several keys is locked once.
+     */
+    @Override
+    public void lockAll( final String... keys ) {
+        if ( !isStarted() ) {
+            return;
+        }
+        for ( final Integer index : stripeIndexes( keys ) ) {
+            stripes[ index ].lock();
         }
     }
 
     @Override
-    public boolean isLocked() {
+    public void unlockAll( final String... keys ) {
         if ( !isStarted() ) {
-            return true;
+            return;
+        }
+        for ( final Integer index : stripeIndexes( keys ).descendingSet() ) {
+            stripes[ index ].unlock();
+        }
+    }
+
+    private TreeSet<Integer> stripeIndexes( final String... keys ) {
+        final TreeSet<Integer> result = new TreeSet<Integer>();
+        for ( final String key : keys ) {
+            result.add( stripeIndexOf( key ) );
+        }
+        return result;
+    }
+
+    private Stripe stripeOf( final String key ) {
+        return stripes[ stripeIndexOf( key ) ];
+    }
+
+    private int stripeIndexOf( final String key ) {
+        return ( key.hashCode() & Integer.MAX_VALUE ) % stripes.length;
+    }
+
+    /**
+     * A partition of the lock resource; it's held by this node while there's any local holder.
+     */
+    private class Stripe {
+
+        private final String partitionName;
+        private final SimpleLock lock;
+        private int holders = 0;
+
+        Stripe( final String partitionName,
+                final SimpleLock lock ) {
+            this.partitionName = partitionName;
+            this.lock = lock;
+        }
+
+        synchronized void lock() {
+            holders++;
+            if ( lock.isLocked() ) {
+                return;
+            }
+            enablePartition( partitionName );
+            lock.await( true );
+        }
+
+        synchronized void unlock() {
+            holders--;
+            if ( !lock.isLocked() ) {
+                holders = 0;
+                return;
+            }
+
+            if ( holders == 0 ) {
+                disablePartition( partitionName );
+                lock.await( false );
+            }
         }
-        return lock.isLocked();
     }
 
     @Override
@@ -1,17 +1,30 @@
 package org.uberfire.io.impl.cluster.helix;
 
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.helix.participant.statemachine.StateModelFactory;
 
 public class LockTransitionalFactory extends StateModelFactory<LockTransitionModel> {
 
-    private final SimpleLock lock;
+    private final ConcurrentMap<String, SimpleLock> locks;
 
-    LockTransitionalFactory( final SimpleLock lock ) {
-        this.lock = lock;
+    LockTransitionalFactory( final ConcurrentMap<String, SimpleLock> locks ) {
+        this.locks = locks;
     }
 
     @Override
     public LockTransitionModel createNewStateModel( final String lockName ) {
-        return new LockTransitionModel( lockName, lock );
+        return new LockTransitionModel( lockName, lockOf( locks, lockName ) );
+    }
+
+    static SimpleLock lockOf( final ConcurrentMap<String, SimpleLock> locks,
+                              final String lockName ) {
+        final SimpleLock lock = locks.get( lockName );
+        if ( lock != null ) {
+            return lock;
+        }
+        final SimpleLock newLock = new SimpleLock();
+        final SimpleLock existing = locks.putIfAbsent( lockName, newLock );
+        return existing != null ? existing : newLock;
     }
 }
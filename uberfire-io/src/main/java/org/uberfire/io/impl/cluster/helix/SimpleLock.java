@@ -4,16 +4,35 @@ class SimpleLock {
 
     private boolean isLocked;
 
-    public void lock() {
+    public synchronized void lock() {
         this.isLocked = true;
+        notifyAll();
     }
 
-    public boolean isLocked() {
+    public synchronized boolean isLocked() {
         return isLocked;
     }
 
-    public void unlock() {
+    public synchronized void unlock() {
         isLocked = false;
+        notifyAll();
+    }
+
+    /**
+     * Blocks until the lock state, driven by cluster state transitions, becomes the expected one.
+     */
+    public synchronized void await( final boolean locked ) {
+        boolean interrupted = false;
+        while ( isLocked != locked ) {
+            try {
+                wait();
+            } catch ( final InterruptedException e ) {
+                interrupted = true;
+            }
+        }
+        if ( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
     }
 
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.thoughtworks.xstream.XStream;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.io.impl.DotFileAttributeStore;
+import org.uberfire.io.impl.IOServiceDotFileImpl;
+import org.uberfire.java.nio.base.Properties;
+import org.uberfire.java.nio.base.dotfiles.AttributeCodec;
+import org.uberfire.java.nio.file.Files;
+import org.uberfire.java.nio.file.OpenOption;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.attribute.FileAttribute;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.uberfire.java.nio.base.dotfiles.DotFileUtils.*;
+
+public class DotFileAttributeStoreTest {
+
+    private IOServiceDotFileImpl ioService;
+    private DotFileAttributeStore store;
+    private File dir;
+
+    @Before
+    public void setup() throws IOException {
+        store = spy( new DotFileAttributeStore( 10 ) );
+        ioService = new IOServiceDotFileImpl();
+        ioService.setAttributeStore( store );
+        dir = CommonIOServiceDotFileTest.createTempDirectory();
+    }
+
+    @After
+    public void cleanup() {
+        ioService.dispose();
+        FileUtils.deleteQuietly( dir );
+    }
+
+    @Test
+    public void testLoadReturnsCopies() {
+        final Path path = ioService.get( dir.toURI() ).resolve( "file.txt" );
+        ioService.write( path, "content", Collections.<OpenOption>emptySet(), attribute( "list", new ArrayList<String>( Arrays.asList( "a" ) ) ) );
+
+        final Properties first = store.load( path );
+        ( (List<String>) first.get( "list" ) ).add( "b" );
+        first.put( "other", "value" );
+
+        final Properties cached = store.load( path );
+        assertEquals( Arrays.asList( "a" ), cached.get( "list" ) );
+        assertNull( cached.get( "other" ) );
+        assertTrue( store.getHitCount() > 0 );
+    }
+
+    @Test
+    public void testWriteInvalidates() {
+        final Path path = ioService.get( dir.toURI() ).resolve( "file.txt" );
+        ioService.write( path, "content", Collections.<OpenOption>emptySet(), attribute( "name", "first" ) );
+        assertEquals( "first", store.load( path ).get( "name" ) );
+
+        ioService.write( path, "content", Collections.<OpenOption>emptySet(), attribute( "name", "second" ) );
+        assertEquals( "second", store.load( path ).get( "name" ) );
+    }
+
+    @Test
+    public void testConcurrentAttributeUpdatesOnSamePath() throws Exception {
+        final Path path = ioService.get( dir.toURI() ).resolve( "file.txt" );
+        ioService.write( path, "content" );
+
+        final int writers = 8;
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final ExecutorService executor = Executors.newFixedThreadPool( writers );
+        try {
+            final List<Future<?>> results = new ArrayList<Future<?>>();
+            for ( int i = 0; i < writers; i++ ) {
+                final String name = "attr" + i;
+                results.add( executor.submit( new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        ioService.setAttributes( path, Collections.<String, Object>singletonMap( name, "value" ) );
+                        return null;
+                    }
+                } ) );
+            }
+            start.countDown();
+            for ( final Future<?> result : results ) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Properties content = store.load( path );
+        for ( int i = 0; i < writers; i++ ) {
+            assertEquals( "value", content.get( "attr" + i ) );
+        }
+    }
+
+    @Test
+    public void testMigrateDotFiles() throws Exception {
+        final Path root = ioService.get( dir.toURI() );
+        final Path path = root.resolve( "file.txt" );
+        ioService.write( path, "content" );
+
+        final Map<String, Object> legacy = new Properties();
+        legacy.put( "name", "value" );
+        final OutputStream out = Files.newOutputStream( dot( path ) );
+        new XStream().toXML( legacy, out );
+        out.close();
+
+        assertEquals( "value", store.load( path ).get( "name" ) );
+
+        assertEquals( 1, ioService.migrateDotFiles( root ) );
+        verify( store, times( 2 ) ).invalidate( path ); // the write and the migration
+
+        final byte[] content = Files.readAllBytes( dot( path ) );
+        assertTrue( AttributeCodec.isEncoded( content, content.length ) );
+        assertEquals( "value", store.load( path ).get( "name" ) );
+
+        assertEquals( 0, ioService.migrateDotFiles( root ) );
+    }
+
+    private FileAttribute<Object> attribute( final String name,
+                                             final Object value ) {
+        return new FileAttribute<Object>() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public Object value() {
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package org.uberfire.io.impl.cluster;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.FileSystemAlreadyExistsException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ClusterBootstrapTest {
+
+    private IOService service;
+
+    @Before
+    public void setup() {
+        service = mock( IOService.class );
+    }
+
+    @Test
+    public void testConcurrencyBound() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        when( service.getFileSystem( any( URI.class ) ) ).thenAnswer( new Answer<FileSystem>() {
+            @Override
+            public FileSystem answer( final InvocationOnMock invocation ) throws InterruptedException {
+                final int current = running.incrementAndGet();
+                synchronized ( maxRunning ) {
+                    maxRunning.set( Math.max( maxRunning.get(), current ) );
+                }
+                Thread.sleep( 50 );
+                running.decrementAndGet();
+                return null;
+            }
+        } );
+
+        final ClusterBootstrap bootstrap = new ClusterBootstrap( service, 2 );
+        bootstrap.run( "clone", fileSystems( "repo1", "repo2", "repo3", "repo4", "repo5", "repo6" ) );
+
+        assertEquals( 2, maxRunning.get() );
+        assertEquals( 6, bootstrap.getCompleted() );
+        assertEquals( 0, bootstrap.getFailed() );
+        verify( service, times( 6 ) ).newFileSystem( any( URI.class ), anyMapOf( String.class, Object.class ) );
+    }
+
+    @Test
+    public void testFailures() {
+        when( service.newFileSystem( eq( URI.create( "git://existing" ) ), anyMapOf( String.class, Object.class ) ) ).thenThrow( new FileSystemAlreadyExistsException() );
+        when( service.getFileSystem( URI.create( "git://broken?sync=" + encoded( "git://origin/broken" ) + "&force" ) ) ).thenThrow( new RuntimeException( "unreachable" ) );
+        when( service.getFileSystem( URI.create( "git://fallback?sync=" + encoded( "git://down/fallback" ) + "&force" ) ) ).thenThrow( new RuntimeException( "unreachable" ) );
+
+        final List<IOServiceClusterImpl.FileSystemInfo> fileSystems = fileSystems( "existing", "broken" );
+        fileSystems.add( new IOServiceClusterImpl.FileSystemInfo( "fallback", "git", "git://down/fallback\ngit://origin/fallback" ) );
+
+        final ClusterBootstrap bootstrap = new ClusterBootstrap( service, 2 );
+        bootstrap.run( "clone", fileSystems );
+
+        assertTrue( bootstrap.isDone() );
+        assertEquals( 3, bootstrap.getTotal() );
+        assertEquals( 3, bootstrap.getCompleted() );
+        assertEquals( 1, bootstrap.getFailed() );
+        // an existing file system is still synced, a failing origin falls back to the next one
+        verify( service ).getFileSystem( URI.create( "git://existing?sync=" + encoded( "git://origin/existing" ) + "&force" ) );
+        verify( service ).getFileSystem( URI.create( "git://fallback?sync=" + encoded( "git://origin/fallback" ) + "&force" ) );
+    }
+
+    @Test
+    public void testProgress() throws InterruptedException {
+        final ClusterBootstrap bootstrap = new ClusterBootstrap( service, 1 );
+        assertEquals( "idle", bootstrap.getPhase() );
+        assertFalse( bootstrap.isDone() );
+        assertEquals( 0, bootstrap.getElapsed() );
+        assertEquals( -1, bootstrap.getEstimatedRemaining() );
+
+        final CountDownLatch blocked = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        when( service.getFileSystem( URI.create( "git://repo2?sync=" + encoded( "git://origin/repo2" ) + "&force" ) ) ).thenAnswer( new Answer<FileSystem>() {
+            @Override
+            public FileSystem answer( final InvocationOnMock invocation ) throws InterruptedException {
+                Thread.sleep( 20 );
+                blocked.countDown();
+                release.await( 5, TimeUnit.SECONDS );
+                return null;
+            }
+        } );
+
+        final Thread runner = new Thread() {
+            @Override
+            public void run() {
+                bootstrap.run( "catch-up", fileSystems( "repo1", "repo2" ) );
+            }
+        };
+        runner.start();
+        assertTrue( blocked.await( 5, TimeUnit.SECONDS ) );
+
+        assertEquals( "catch-up", bootstrap.getPhase() );
+        assertFalse( bootstrap.isDone() );
+        assertEquals( 2, bootstrap.getTotal() );
+        assertEquals( 1, bootstrap.getCompleted() );
+        final long elapsed = bootstrap.getElapsed();
+        assertTrue( elapsed > 0 );
+        // one of two done: as much time left as spent so far
+        assertTrue( bootstrap.getEstimatedRemaining() >= elapsed );
+
+        release.countDown();
+        runner.join( 5000 );
+
+        assertTrue( bootstrap.isDone() );
+        assertEquals( 2, bootstrap.getCompleted() );
+        assertEquals( 0, bootstrap.getEstimatedRemaining() );
+    }
+
+    @Test
+    public void testEmptyRun() {
+        final ClusterBootstrap bootstrap = new ClusterBootstrap( service, 0 );
+        bootstrap.run( "clone", Collections.<IOServiceClusterImpl.FileSystemInfo>emptyList() );
+
+        assertEquals( 1, bootstrap.getConcurrency() );
+        assertTrue( bootstrap.isDone() );
+        assertEquals( 0, bootstrap.getTotal() );
+        verifyZeroInteractions( service );
+    }
+
+    private List<IOServiceClusterImpl.FileSystemInfo> fileSystems( final String... ids ) {
+        final List<IOServiceClusterImpl.FileSystemInfo> result = new ArrayList<IOServiceClusterImpl.FileSystemInfo>();
+        for ( final String id : Arrays.asList( ids ) ) {
+            result.add( new IOServiceClusterImpl.FileSystemInfo( id, "git", "git://origin/" + id ) );
+        }
+        return result;
+    }
+
+    private String encoded( final String uri ) {
+        return uri.replace( ":", "%3A" ).replace( "/", "%2F" );
+    }
+}
@@ -0,0 +1,92 @@
+package org.uberfire.io.impl.cluster;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.uberfire.commons.cluster.ClusterService;
+import org.uberfire.commons.message.MessageType;
+import org.uberfire.java.nio.base.FileSystemChanges;
+import org.uberfire.java.nio.base.FileSystemId;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.uberfire.io.impl.cluster.ClusterMessageType.*;
+
+public class FileSystemSyncLockTest {
+
+    private final AtomicReference<String> revision = new AtomicReference<String>();
+
+    private ClusterService clusterService;
+    private Path path;
+
+    @Before
+    public void setup() {
+        clusterService = mock( ClusterService.class );
+
+        final FileSystem fs = mock( FileSystem.class, withSettings().extraInterfaces( FileSystemChanges.class, FileSystemId.class ) );
+        final Path root = mock( Path.class );
+        path = mock( Path.class );
+        when( path.getFileSystem() ).thenReturn( fs );
+        when( path.getRoot() ).thenReturn( root );
+        when( root.toUri() ).thenReturn( URI.create( "git://master@repo/" ) );
+        when( fs.getRootDirectories() ).thenReturn( Arrays.asList( root ) );
+        when( ( (FileSystemId) fs ).id() ).thenReturn( "repo" );
+        when( ( (FileSystemChanges) fs ).revision( root ) ).thenAnswer( new Answer<String>() {
+            @Override
+            public String answer( final InvocationOnMock invocation ) {
+                return revision.get();
+            }
+        } );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBroadcastRevisions() {
+        revision.set( "r1" );
+
+        assertEquals( "done", new FileSystemSyncLock<String>( "service", path ).execute( clusterService, write( "r2" ) ) );
+
+        final ArgumentCaptor<Map> content = ArgumentCaptor.forClass( Map.class );
+        verify( clusterService ).lock( "repo" );
+        verify( clusterService ).broadcast( eq( "service" ), eq( (MessageType) SYNC_FS ), content.capture() );
+        verify( clusterService ).unlock( "repo" );
+        assertEquals( "git", content.getValue().get( "fs_scheme" ) );
+        assertEquals( "repo", content.getValue().get( "fs_id" ) );
+        assertEquals( "git://master@repo/", content.getValue().get( "fs_root" ) );
+        assertEquals( "r1", content.getValue().get( "fs_old_rev" ) );
+        assertEquals( "r2", content.getValue().get( "fs_new_rev" ) );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNoBroadcastOnUnchangedRevision() {
+        revision.set( "r1" );
+
+        assertEquals( "done", new FileSystemSyncLock<String>( "service", path ).execute( clusterService, write( "r1" ) ) );
+
+        verify( clusterService ).lock( "repo" );
+        verify( clusterService, never() ).broadcast( anyString(), any( MessageType.class ), anyMap() );
+        verify( clusterService ).unlock( "repo" );
+    }
+
+    private FutureTask<String> write( final String newRevision ) {
+        return new FutureTask<String>( new Callable<String>() {
+            @Override
+            public String call() {
+                revision.set( newRevision );
+                return "done";
+            }
+        } );
+    }
+}
@@ -0,0 +1,231 @@
+package org.uberfire.io.impl.cluster;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.uberfire.commons.cluster.ClusterService;
+import org.uberfire.commons.cluster.ClusterServiceFactory;
+import org.uberfire.commons.message.AsyncCallback;
+import org.uberfire.commons.message.MessageHandler;
+import org.uberfire.commons.message.MessageHandlerResolver;
+import org.uberfire.commons.message.MessageType;
+import org.uberfire.io.impl.IOServiceIdentifiable;
+import org.uberfire.java.nio.base.FileSystemChanges;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.uberfire.io.impl.cluster.ClusterMessageType.*;
+
+public class IOServiceClusterImplTest {
+
+    private static final String ROOT = "git://master@repo/";
+
+    private final AtomicReference<String> localRevision = new AtomicReference<String>();
+    private final AtomicReference<MessageHandlerResolver> resolver = new AtomicReference<MessageHandlerResolver>();
+
+    private IOServiceIdentifiable service;
+    private ClusterService clusterService;
+    private IOServiceClusterImpl clusterIOService;
+    private ReplicationMetrics metrics;
+    private MessageHandler handler;
+
+    @Before
+    public void setup() {
+        service = mock( IOServiceIdentifiable.class );
+        when( service.getId() ).thenReturn( "service" );
+
+        final FileSystem fs = mock( FileSystem.class, withSettings().extraInterfaces( FileSystemChanges.class ) );
+        final Path root = mock( Path.class );
+        when( root.getFileSystem() ).thenReturn( fs );
+        when( service.get( URI.create( ROOT ) ) ).thenReturn( root );
+        when( ( (FileSystemChanges) fs ).revision( root ) ).thenAnswer( new Answer<String>() {
+            @Override
+            public String answer( final InvocationOnMock invocation ) {
+                return localRevision.get();
+            }
+        } );
+
+        clusterService = mock( ClusterService.class );
+        final ClusterServiceFactory factory = mock( ClusterServiceFactory.class );
+        when( factory.build( any( MessageHandlerResolver.class ) ) ).thenAnswer( new Answer<ClusterService>() {
+            @Override
+            public ClusterService answer( final InvocationOnMock invocation ) {
+                resolver.set( (MessageHandlerResolver) invocation.getArguments()[ 0 ] );
+                return clusterService;
+            }
+        } );
+
+        clusterIOService = new IOServiceClusterImpl( service, factory, false );
+        metrics = clusterIOService.getReplicationMetrics();
+        handler = resolver.get().resolveHandler( "service", SYNC_FS );
+    }
+
+    @Test
+    public void testSkipIfUpToDate() {
+        localRevision.set( "r1" );
+
+        handler.handleMessage( SYNC_FS, message( "r1" ) );
+
+        assertEquals( 1, metrics.getReceived() );
+        assertEquals( 1, metrics.getSkipped() );
+        assertEquals( 0, metrics.getFetched() );
+        verify( service, never() ).getFileSystem( any( URI.class ) );
+    }
+
+    @Test
+    public void testFetchRootBranch() throws InterruptedException {
+        localRevision.set( "r1" );
+        when( service.getFileSystem( any( URI.class ) ) ).thenAnswer( moveToRequestedRevision( null, null ) );
+
+        handler.handleMessage( SYNC_FS, message( "r2" ) );
+
+        waitForSyncs( 1 );
+        assertEquals( 1, metrics.getFetched() );
+        assertEquals( "r2", localRevision.get() );
+        verify( service ).getFileSystem( URI.create( "git://repo?sync=" + encodedOrigin() + "&force&root=" + encodedRoot() + "&rev=r2" ) );
+    }
+
+    @Test
+    public void testNotFetchedIfRevisionUnchanged() throws InterruptedException {
+        localRevision.set( "r1" );
+        // the branch sync found nothing to fetch
+        when( service.getFileSystem( any( URI.class ) ) ).thenReturn( null );
+
+        handler.handleMessage( SYNC_FS, message( "r2" ) );
+
+        waitForSyncs( 1 );
+        assertEquals( 0, metrics.getFetched() );
+        assertEquals( 1, metrics.getSkipped() );
+        verify( service ).getFileSystem( any( URI.class ) );
+    }
+
+    @Test
+    public void testCoalescePendingSyncs() throws InterruptedException {
+        localRevision.set( "r1" );
+        final CountDownLatch syncing = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        when( service.getFileSystem( any( URI.class ) ) ).thenAnswer( moveToRequestedRevision( syncing, release ) );
+
+        handler.handleMessage( SYNC_FS, message( "r2" ) );
+        assertTrue( syncing.await( 5, TimeUnit.SECONDS ) );
+
+        // both arrive while r2 is being fetched: only the latest one is synced
+        handler.handleMessage( SYNC_FS, message( "r3" ) );
+        handler.handleMessage( SYNC_FS, message( "r4" ) );
+        release.countDown();
+
+        waitForSyncs( 2 );
+        assertEquals( 3, metrics.getReceived() );
+        assertEquals( 1, metrics.getCoalesced() );
+        assertEquals( 2, metrics.getFetched() );
+        assertEquals( "r4", localRevision.get() );
+        verify( service, never() ).getFileSystem( URI.create( "git://repo?sync=" + encodedOrigin() + "&force&root=" + encodedRoot() + "&rev=r3" ) );
+    }
+
+    @Test
+    public void testCatchUpOnlyChangedFileSystems() {
+        final Map<String, String> reply = new HashMap<String, String>();
+        reply.put( "fs_id_0", "same" );
+        reply.put( "fs_scheme_0", "git" );
+        reply.put( "fs_uri_0", "git://origin/same" );
+        reply.put( "fs_rev_0", "{git://master@same/=r1}" );
+        reply.put( "fs_id_1", "moved" );
+        reply.put( "fs_scheme_1", "git" );
+        reply.put( "fs_uri_1", "git://origin/moved" );
+        reply.put( "fs_rev_1", "{git://master@moved/=r2}" );
+        reply.put( "fs_id_2", "unknown" );
+        reply.put( "fs_scheme_2", "git" );
+        reply.put( "fs_uri_2", "git://origin/unknown" );
+        doAnswer( new Answer<Void>() {
+            @Override
+            public Void answer( final InvocationOnMock invocation ) {
+                ( (AsyncCallback) invocation.getArguments()[ 4 ] ).onReply( QUERY_FOR_FS_RESULT, reply );
+                return null;
+            }
+        } ).when( clusterService ).broadcastAndWait( eq( "service" ), eq( (MessageType) QUERY_FOR_FS ), anyMapOf( String.class, String.class ), anyInt(), any( AsyncCallback.class ) );
+
+        final FileSystem same = fileSystemAt( "git://master@same/", "r1" );
+        final FileSystem moved = fileSystemAt( "git://master@moved/", "r1" );
+        when( service.getFileSystem( URI.create( "git://same" ) ) ).thenReturn( same );
+        when( service.getFileSystem( URI.create( "git://moved" ) ) ).thenReturn( moved );
+
+        clusterIOService.start();
+
+        final ClusterBootstrap bootstrap = clusterIOService.getBootstrap();
+        assertEquals( "catch-up", bootstrap.getPhase() );
+        assertEquals( 2, bootstrap.getTotal() );
+        verify( clusterService ).lock();
+        verify( clusterService ).unlock();
+        // cloned once, then caught up only if the revisions moved or weren't reported
+        verify( service, times( 1 ) ).getFileSystem( URI.create( "git://same?sync=" + encoded( "git://origin/same" ) + "&force" ) );
+        verify( service, times( 2 ) ).getFileSystem( URI.create( "git://moved?sync=" + encoded( "git://origin/moved" ) + "&force" ) );
+        verify( service, times( 2 ) ).getFileSystem( URI.create( "git://unknown?sync=" + encoded( "git://origin/unknown" ) + "&force" ) );
+    }
+
+    private FileSystem fileSystemAt( final String rootUri,
+                                     final String revision ) {
+        final FileSystem fs = mock( FileSystem.class, withSettings().extraInterfaces( FileSystemChanges.class ) );
+        final Path root = mock( Path.class );
+        when( root.toUri() ).thenReturn( URI.create( rootUri ) );
+        when( fs.getRootDirectories() ).thenReturn( Arrays.asList( root ) );
+        when( ( (FileSystemChanges) fs ).revision( root ) ).thenReturn( revision );
+        return fs;
+    }
+
+    private Answer<FileSystem> moveToRequestedRevision( final CountDownLatch syncing,
+                                                        final CountDownLatch release ) {
+        return new Answer<FileSystem>() {
+            @Override
+            public FileSystem answer( final InvocationOnMock invocation ) throws InterruptedException {
+                if ( syncing != null && syncing.getCount() > 0 ) {
+                    syncing.countDown();
+                    release.await( 5, TimeUnit.SECONDS );
+                }
+                final String uri = invocation.getArguments()[ 0 ].toString();
+                localRevision.set( uri.substring( uri.indexOf( "&rev=" ) + "&rev=".length() ) );
+                return null;
+            }
+        };
+    }
+
+    private void waitForSyncs( final long expected ) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while ( metrics.getFetched() + metrics.getSkipped() + metrics.getFailed() < expected ) {
+            assertTrue( "sync didn't complete in time", System.currentTimeMillis() < deadline );
+            Thread.sleep( 10 );
+        }
+    }
+
+    private Map<String, String> message( final String revision ) {
+        return new HashMap<String, String>() {{
+            put( "fs_scheme", "git" );
+            put( "fs_id", "repo" );
+            put( "fs_uri", "git://origin/repo" );
+            put( "fs_root", ROOT );
+            put( "fs_new_rev", revision );
+        }};
+    }
+
+    private String encodedOrigin() {
+        return encoded( "git://origin/repo" );
+    }
+
+    private String encodedRoot() {
+        return encoded( ROOT );
+    }
+
+    private String encoded( final String uri ) {
+        return uri.replace( ":", "%3A" ).replace( "/", "%2F" ).replace( "@", "%40" );
+    }
+}
@@ -12,6 +12,17 @@ public interface Index {
 
     void commit();
 
+    /**
+     * @return value of the named checkpoint as of the last commit, or null if not set.
+     */
+    String getCheckpoint( final String name );
+
+    /**
+     * Sets the named checkpoint, persisted along with the next commit.
+     */
+    void setCheckpoint( final String name,
+                        final String value );
+
     void delete();
 
 }
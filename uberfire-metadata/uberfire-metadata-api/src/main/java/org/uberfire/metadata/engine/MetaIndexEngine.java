@@ -43,6 +43,13 @@ public interface MetaIndexEngine {
 
     void commit( final KCluster cluster );
 
+    String getCheckpoint( final KCluster cluster,
+                          final String name );
+
+    void setCheckpoint( final KCluster cluster,
+                        final String name,
+                        final String value );
+
     void dispose();
 
     void beforeDispose( final Runnable callback );
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.model;
+
+/**
+ * How a property is kept in the index.
+ */
+public enum StoragePolicy {
+
+    /**
+     * Indexed and stored: it can be searched and it's returned with the results.
+     */
+    STORED,
+
+    /**
+     * Indexed only: it can be searched, but it isn't returned with the results.
+     */
+    INDEXED,
+
+    /**
+     * Indexed, plus a per document column that makes sorting and counting cheap; it isn't returned with the results.
+     */
+    DOC_VALUES;
+
+    /**
+     * @return policy of the given property or meta property, {@link #STORED} if it doesn't choose one.
+     */
+    public static StoragePolicy of( final Object property ) {
+        if ( property instanceof StoragePolicyAware ) {
+            final StoragePolicy policy = ( (StoragePolicyAware) property ).getStoragePolicy();
+            if ( policy != null ) {
+                return policy;
+            }
+        }
+        return STORED;
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.model;
+
+/**
+ * Implemented by the {@link KProperty}s and {@link org.uberfire.metadata.model.schema.MetaProperty}s that choose how
+ * they're kept in the index; the ones that don't are {@link StoragePolicy#STORED}.
+ */
+public interface StoragePolicyAware {
+
+    StoragePolicy getStoragePolicy();
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.search;
+
+/**
+ * Counts to collect along a search: hits per distinct value of a field, or per date interval of a date field.
+ */
+public class FacetRequest {
+
+    public enum Interval {
+        DAY, MONTH, YEAR
+    }
+
+    private final String field;
+    private final Interval interval;
+
+    private FacetRequest( final String field,
+                          final Interval interval ) {
+        this.field = field;
+        this.interval = interval;
+    }
+
+    public static FacetRequest terms( final String field ) {
+        return new FacetRequest( field, null );
+    }
+
+    public static FacetRequest dateHistogram( final String field,
+                                              final Interval interval ) {
+        return new FacetRequest( field, interval );
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * @return null for value counts.
+     */
+    public Interval getInterval() {
+        return interval;
+    }
+
+    public boolean isDateHistogram() {
+        return interval != null;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.search;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Total hits of a search and the counts of each requested facet, by field.
+ * <p/>
+ * Value counts are ordered by descending count, date histograms by interval (formatted as <code>yyyy</code>,
+ * <code>yyyy-MM</code> or <code>yyyy-MM-dd</code>, in UTC).
+ */
+public class FacetResult {
+
+    private final int totalHits;
+    private final Map<String, Map<String, Integer>> counts;
+
+    public FacetResult( final int totalHits,
+                        final Map<String, Map<String, Integer>> counts ) {
+        this.totalHits = totalHits;
+        this.counts = counts;
+    }
+
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    public Map<String, Integer> getCounts( final String field ) {
+        final Map<String, Integer> result = counts.get( field );
+        if ( result == null ) {
+            return Collections.emptyMap();
+        }
+        return result;
+    }
+
+    public Map<String, Map<String, Integer>> getCounts() {
+        return counts;
+    }
+}
@@ -36,6 +36,42 @@ public interface SearchIndex {
                                   final int startIndex,
                                   final ClusterSegment... clusterSegments );
 
+    /**
+     * Cursor based variant: the cost of a page doesn't depend on how deep it is.
+     * @param continuation token of the previous page, null for the first one.
+     * @param sortBy null to sort by relevance.
+     */
+    SearchPage searchByAttrs( final Map<String, ?> attrs,
+                              final int pageSize,
+                              final String continuation,
+                              final SortBy sortBy,
+                              final ClusterSegment... clusterSegments );
+
+    /**
+     * Cursor based variant: the cost of a page doesn't depend on how deep it is.
+     * @param continuation token of the previous page, null for the first one.
+     * @param sortBy null to sort by relevance.
+     */
+    SearchPage fullTextSearch( final String term,
+                               final int pageSize,
+                               final String continuation,
+                               final SortBy sortBy,
+                               final ClusterSegment... clusterSegments );
+
+    /**
+     * Total hits and facet counts of a search, collected in a single pass.
+     */
+    FacetResult searchByAttrsFacets( final Map<String, ?> attrs,
+                                     final List<FacetRequest> facets,
+                                     final ClusterSegment... clusterSegments );
+
+    /**
+     * Total hits and facet counts of a search, collected in a single pass.
+     */
+    FacetResult fullTextSearchFacets( final String term,
+                                      final List<FacetRequest> facets,
+                                      final ClusterSegment... clusterSegments );
+
     int searchByAttrsHits( final Map<String, ?> attrs,
                            final ClusterSegment... clusterSegments );
 
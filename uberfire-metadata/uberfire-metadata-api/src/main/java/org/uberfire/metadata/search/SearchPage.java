@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.search;
+
+import java.util.List;
+
+import org.uberfire.metadata.model.KObject;
+
+/**
+ * A page of results of a cursor based search.
+ */
+public class SearchPage {
+
+    private final List<KObject> results;
+    private final String continuation;
+
+    public SearchPage( final List<KObject> results,
+                       final String continuation ) {
+        this.results = results;
+        this.continuation = continuation;
+    }
+
+    public List<KObject> getResults() {
+        return results;
+    }
+
+    /**
+     * Opaque token to pass back to get the next page, null if this is the last one.
+     */
+    public String getContinuation() {
+        return continuation;
+    }
+
+    public boolean hasNext() {
+        return continuation != null;
+    }
+}
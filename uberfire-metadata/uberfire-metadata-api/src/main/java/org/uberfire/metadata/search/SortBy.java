@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.search;
+
+/**
+ * Sort on an indexed field; string sorts need fields indexed as a single, untokenized term.
+ */
+public class SortBy {
+
+    public enum Type {
+        STRING, INT, LONG, DOUBLE
+    }
+
+    private final String field;
+    private final Type type;
+    private final boolean descending;
+
+    public SortBy( final String field,
+                   final Type type,
+                   final boolean descending ) {
+        this.field = field;
+        this.type = type;
+        this.descending = descending;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+}
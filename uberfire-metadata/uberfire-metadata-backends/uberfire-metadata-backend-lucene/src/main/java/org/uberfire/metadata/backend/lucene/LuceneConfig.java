@@ -46,15 +46,39 @@ public class LuceneConfig implements MetadataConfig {
                          final LuceneIndexFactory indexFactory,
                          final Set<Indexer> indexers,
                          final Analyzer analyzer ) {
+        this( metaModelStore, fieldFactory, indexFactory, indexers, analyzer, LuceneIndexEngine.DEFAULT_BULK_COMMIT_SIZE, Runtime.getRuntime().availableProcessors() );
+    }
+
+    public LuceneConfig( final MetaModelStore metaModelStore,
+                         final FieldFactory fieldFactory,
+                         final LuceneIndexFactory indexFactory,
+                         final Set<Indexer> indexers,
+                         final Analyzer analyzer,
+                         final int bulkCommitSize,
+                         final int bulkThreads ) {
+        this( metaModelStore, fieldFactory, indexFactory, indexers, analyzer, bulkCommitSize, bulkThreads, false );
+    }
+
+    public LuceneConfig( final MetaModelStore metaModelStore,
+                         final FieldFactory fieldFactory,
+                         final LuceneIndexFactory indexFactory,
+                         final Set<Indexer> indexers,
+                         final Analyzer analyzer,
+                         final int bulkCommitSize,
+                         final int bulkThreads,
+                         final boolean lazyResults ) {
         this.metaModelStore = metaModelStore;
         this.fieldFactory = fieldFactory;
         this.indexManager = new LuceneIndexManager( indexFactory );
         this.analyzer = analyzer;
         this.searchIndex = new LuceneSearchIndex( this.indexManager,
-                                                  this.analyzer );
+                                                  this.analyzer,
+                                                  lazyResults );
         this.indexEngine = new LuceneIndexEngine( this.fieldFactory,
                                                   this.metaModelStore,
-                                                  this.indexManager );
+                                                  this.indexManager,
+                                                  bulkCommitSize,
+                                                  bulkThreads );
         this.indexers = indexers;
     }
 
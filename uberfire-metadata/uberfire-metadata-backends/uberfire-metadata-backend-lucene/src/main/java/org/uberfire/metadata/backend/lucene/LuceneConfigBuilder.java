@@ -28,8 +28,11 @@ import org.uberfire.metadata.backend.lucene.analyzer.FilenameAnalyzer;
 import org.uberfire.metadata.backend.lucene.fields.FieldFactory;
 import org.uberfire.metadata.backend.lucene.fields.SimpleFieldFactory;
 import org.uberfire.metadata.backend.lucene.index.LuceneIndex;
+import org.uberfire.metadata.backend.lucene.index.LuceneIndexEngine;
 import org.uberfire.metadata.backend.lucene.index.directory.DirectoryFactory;
 import org.uberfire.metadata.backend.lucene.index.directory.DirectoryType;
+import org.uberfire.metadata.backend.lucene.index.directory.IndexWriterSettings;
+import org.uberfire.metadata.backend.lucene.metamodel.FileMetaModelStore;
 import org.uberfire.metadata.backend.lucene.metamodel.InMemoryMetaModelStore;
 import org.uberfire.metadata.backend.lucene.metamodel.NullMetaModelStore;
 import org.uberfire.metadata.engine.Indexer;
@@ -45,6 +48,14 @@ public final class LuceneConfigBuilder {
     private Analyzer analyzer;
     private Set<Indexer> indexers;
     private Map<String, Analyzer> analyzers;
+    private long searcherMaxStaleness = 0;
+    private double ramBufferSizeMB = -1;
+    private int maxThreadStates = -1;
+    private double segmentsPerTier = -1;
+    private double maxMergedSegmentMB = -1;
+    private int bulkCommitSize = LuceneIndexEngine.DEFAULT_BULK_COMMIT_SIZE;
+    private int bulkThreads = Runtime.getRuntime().availableProcessors();
+    private boolean lazyResults = false;
 
     public LuceneConfigBuilder() {
     }
@@ -54,6 +65,14 @@ public final class LuceneConfigBuilder {
         return this;
     }
 
+    /**
+     * Meta model written through to a file next to the index directories and loaded back at startup.
+     */
+    public LuceneConfigBuilder withPersistentMetaModelStore() {
+        this.metaModelStore = new FileMetaModelStore();
+        return this;
+    }
+
     public LuceneConfigBuilder withoutMemoryMetaModel() {
         this.metaModelStore = new NullMetaModelStore();
         return this;
@@ -74,11 +93,74 @@ public final class LuceneConfigBuilder {
         return this;
     }
 
+    public LuceneConfigBuilder usingMetaModelStore( final MetaModelStore metaModelStore ) {
+        this.metaModelStore = metaModelStore;
+        return this;
+    }
+
     public LuceneConfigBuilder usingFieldFactory( final FieldFactory fieldFactory ) {
         this.fieldFactory = fieldFactory;
         return this;
     }
 
+    /**
+     * Allows searches to use an index view up to the given milliseconds old, instead of reopening it after every change.
+     */
+    public LuceneConfigBuilder withSearcherMaxStaleness( final long searcherMaxStaleness ) {
+        this.searcherMaxStaleness = searcherMaxStaleness;
+        return this;
+    }
+
+    /**
+     * Memory the index writers buffer before flushing a segment; larger buffers mean fewer, bigger segments.
+     */
+    public LuceneConfigBuilder withRAMBufferSizeMB( final double ramBufferSizeMB ) {
+        this.ramBufferSizeMB = ramBufferSizeMB;
+        return this;
+    }
+
+    /**
+     * Max number of threads that can index concurrently on the same cluster index.
+     */
+    public LuceneConfigBuilder withMaxThreadStates( final int maxThreadStates ) {
+        this.maxThreadStates = maxThreadStates;
+        return this;
+    }
+
+    /**
+     * Tiered merge policy tuning: segments allowed per tier and max size of merged segments.
+     */
+    public LuceneConfigBuilder withMergePolicy( final double segmentsPerTier,
+                                                final double maxMergedSegmentMB ) {
+        this.segmentsPerTier = segmentsPerTier;
+        this.maxMergedSegmentMB = maxMergedSegmentMB;
+        return this;
+    }
+
+    /**
+     * Number of documents of a bulk index committed together.
+     */
+    public LuceneConfigBuilder withBulkCommitSize( final int bulkCommitSize ) {
+        this.bulkCommitSize = bulkCommitSize;
+        return this;
+    }
+
+    /**
+     * Max number of clusters a bulk index writes to in parallel.
+     */
+    public LuceneConfigBuilder withBulkThreads( final int bulkThreads ) {
+        this.bulkThreads = bulkThreads;
+        return this;
+    }
+
+    /**
+     * Search results load only their key fields, the other properties are read from the index on first access.
+     */
+    public LuceneConfigBuilder withLazyResults() {
+        this.lazyResults = true;
+        return this;
+    }
+
     public LuceneConfigBuilder useDirectoryBasedIndex() {
         return this;
     }
@@ -121,9 +203,17 @@ public final class LuceneConfigBuilder {
         return new LuceneConfig( metaModelStore,
                                  fieldFactory,
                                  new DirectoryFactory( type,
-                                                       analyzer ),
+                                                       analyzer,
+                                                       searcherMaxStaleness,
+                                                       new IndexWriterSettings( ramBufferSizeMB,
+                                                                                maxThreadStates,
+                                                                                segmentsPerTier,
+                                                                                maxMergedSegmentMB ) ),
                                  indexers,
-                                 analyzer );
+                                 analyzer,
+                                 bulkCommitSize,
+                                 bulkThreads,
+                                 lazyResults );
     }
 
     public void withDefaultDirectory() {
@@ -16,123 +16,187 @@
 
 package org.uberfire.metadata.backend.lucene.fields;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import org.apache.lucene.document.DoubleDocValuesField;
 import org.apache.lucene.document.DoubleField;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FloatDocValuesField;
 import org.apache.lucene.document.FloatField;
+import org.apache.lucene.document.IntDocValuesField;
 import org.apache.lucene.document.IntField;
+import org.apache.lucene.document.LongDocValuesField;
 import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.SortedBytesDocValuesField;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.util.BytesRef;
 import org.uberfire.java.nio.base.version.VersionHistory;
+import org.uberfire.java.nio.base.version.VersionRecord;
 import org.uberfire.java.nio.file.attribute.FileTime;
 import org.uberfire.metadata.model.KProperty;
+import org.uberfire.metadata.model.StoragePolicy;
+import org.uberfire.metadata.model.StoragePolicyAware;
 
 import static org.uberfire.metadata.backend.lucene.util.Serializer.*;
 
 public class SimpleFieldFactory implements FieldFactory {
 
+    /**
+     * Prefix of the untokenized, not stored copies of string properties used to count values (facets).
+     */
+    public static final String FACET_PREFIX = "facet.";
+
+    public static final Set<String> DEFAULT_FACET_FIELDS = Collections.unmodifiableSet( new HashSet<String>( Arrays.asList( "lastModifiedBy", "createdBy" ) ) );
+
+    private final Set<String> facetFields;
+
+    public SimpleFieldFactory() {
+        this( DEFAULT_FACET_FIELDS );
+    }
+
+    /**
+     * @param facetFields names of the string properties that also get a facet field.
+     */
+    public SimpleFieldFactory( final Set<String> facetFields ) {
+        this.facetFields = facetFields;
+    }
+
+    /**
+     * Builds the fields of a property according to its {@link StoragePolicy}: values are stored only when the
+     * policy is {@link StoragePolicy#STORED}, doc values are added for {@link StoragePolicy#DOC_VALUES}.
+     */
     @Override
     public IndexableField[] build( final KProperty<?> property ) {
+        final StoragePolicy policy = StoragePolicy.of( property );
+        final Field.Store store = policy == StoragePolicy.STORED ? Field.Store.YES : Field.Store.NO;
+        final String name = property.getName();
+        final Object value = property.getValue();
 
-        if ( Enum.class.isAssignableFrom( property.getValue().getClass() ) ) {
+        if ( Enum.class.isAssignableFrom( value.getClass() ) ) {
             if ( property.isSearchable() ) {
-                return new IndexableField[]{ new TextField( property.getName(), property.getValue().toString().toLowerCase(), Field.Store.YES ) };
+                return new IndexableField[]{ new TextField( name, value.toString().toLowerCase(), store ) };
             }
-            return new IndexableField[]{ new StringField( property.getName(), property.getValue().toString().toLowerCase(), Field.Store.YES ) };
+            return new IndexableField[]{ new StringField( name, value.toString().toLowerCase(), store ) };
         }
 
-        if ( property.getValue().getClass() == String.class ) {
+        if ( value.getClass() == String.class ) {
+            final List<IndexableField> fields = new ArrayList<IndexableField>( 3 );
             if ( property.isSearchable() ) {
-                return new IndexableField[]{ new TextField( property.getName(), property.getValue().toString(), Field.Store.YES ) };
+                fields.add( new TextField( name, value.toString(), store ) );
+            } else {
+                fields.add( new StringField( name, value.toString(), store ) );
+            }
+            if ( facetFields.contains( name ) ) {
+                fields.add( new StringField( FACET_PREFIX + name, value.toString(), Field.Store.NO ) );
             }
-            return new IndexableField[]{ new StringField( property.getName(), property.getValue().toString(), Field.Store.YES ) };
+            if ( policy == StoragePolicy.DOC_VALUES ) {
+                fields.add( new SortedBytesDocValuesField( name, new BytesRef( value.toString() ) ) );
+            }
+            return fields.toArray( new IndexableField[ fields.size() ] );
         }
 
-        if ( property.getValue().getClass() == Boolean.class ) {
+        if ( value.getClass() == Boolean.class ) {
             if ( property.isSearchable() ) {
-                return new IndexableField[]{ new TextField( property.getName(), ( (Boolean) property.getValue() ) ? "0" : "1", Field.Store.YES ) };
+                return new IndexableField[]{ new TextField( name, ( (Boolean) value ) ? "0" : "1", store ) };
             }
-            return new IndexableField[]{ new StringField( property.getName(), ( (Boolean) property.getValue() ) ? "0" : "1", Field.Store.YES ) };
+            return new IndexableField[]{ new StringField( name, ( (Boolean) value ) ? "0" : "1", store ) };
         }
 
-        if ( property.getValue().getClass() == Integer.class ) {
-            if ( property.isSearchable() ) {
-                return new IndexableField[]{ new IntField( property.getName(), (Integer) property.getValue(), Field.Store.YES ) };
-            }
-            return new IndexableField[]{ new StoredField( property.getName(), (Integer) property.getValue() ) };
+        if ( value.getClass() == Integer.class ) {
+            final int intValue = (Integer) value;
+            return numeric( property, policy, new IntField( name, intValue, store ), new StoredField( name, intValue ), new IntDocValuesField( name, intValue ) );
         }
 
-        if ( property.getValue().getClass() == Long.class ) {
-            if ( property.isSearchable() ) {
-                return new IndexableField[]{ new LongField( property.getName(), (Long) property.getValue(), Field.Store.YES ) };
-            }
-            return new IndexableField[]{ new StoredField( property.getName(), (Long) property.getValue() ) };
+        if ( value.getClass() == Long.class ) {
+            final long longValue = (Long) value;
+            return numeric( property, policy, new LongField( name, longValue, store ), new StoredField( name, longValue ), new LongDocValuesField( name, longValue ) );
         }
 
-        if ( property.getValue().getClass() == Double.class ) {
-            if ( property.isSearchable() ) {
-                return new IndexableField[]{ new DoubleField( property.getName(), (Double) property.getValue(), Field.Store.YES ) };
-            }
-            return new IndexableField[]{ new StoredField( property.getName(), (Double) property.getValue() ) };
+        if ( value.getClass() == Double.class ) {
+            final double doubleValue = (Double) value;
+            return numeric( property, policy, new DoubleField( name, doubleValue, store ), new StoredField( name, doubleValue ), new DoubleDocValuesField( name, doubleValue ) );
         }
 
-        if ( property.getValue().getClass() == Float.class ) {
-            if ( property.isSearchable() ) {
-                return new IndexableField[]{ new FloatField( property.getName(), (Float) property.getValue(), Field.Store.YES ) };
-            }
-            return new IndexableField[]{ new StoredField( property.getName(), (Float) property.getValue() ) };
+        if ( value.getClass() == Float.class ) {
+            final float floatValue = (Float) value;
+            return numeric( property, policy, new FloatField( name, floatValue, store ), new StoredField( name, floatValue ), new FloatDocValuesField( name, floatValue ) );
         }
 
-        if ( FileTime.class.isAssignableFrom( property.getValue().getClass() ) ) {
-            if ( property.isSearchable() ) {
-                return new IndexableField[]{ new LongField( property.getName(), ( (FileTime) property.getValue() ).toMillis(), Field.Store.YES ) };
-            }
-            return new IndexableField[]{ new StoredField( property.getName(), ( (FileTime) property.getValue() ).toMillis() ) };
+        if ( FileTime.class.isAssignableFrom( value.getClass() ) ) {
+            final long millis = ( (FileTime) value ).toMillis();
+            return numeric( property, policy, new LongField( name, millis, store ), new StoredField( name, millis ), new LongDocValuesField( name, millis ) );
         }
 
-        if ( Date.class.isAssignableFrom( property.getValue().getClass() ) ) {
-            if ( property.isSearchable() ) {
-                return new IndexableField[]{ new LongField( property.getName(), ( (Date) property.getValue() ).getTime(), Field.Store.YES ) };
-            }
-            return new IndexableField[]{ new StoredField( property.getName(), ( (Date) property.getValue() ).getTime() ) };
+        if ( Date.class.isAssignableFrom( value.getClass() ) ) {
+            final long millis = ( (Date) value ).getTime();
+            return numeric( property, policy, new LongField( name, millis, store ), new StoredField( name, millis ), new LongDocValuesField( name, millis ) );
         }
 
-        if ( VersionHistory.class.isAssignableFrom( property.getValue().getClass() ) ) {
-            final VersionHistory versionHistory = (VersionHistory) property.getValue();
+        if ( VersionHistory.class.isAssignableFrom( value.getClass() ) ) {
+            final VersionHistory versionHistory = (VersionHistory) value;
             return build( versionHistory );
         }
 
-        if ( Collection.class.isAssignableFrom( property.getValue().getClass() ) ) {
+        if ( Collection.class.isAssignableFrom( value.getClass() ) ) {
             final StringBuilder sb = new StringBuilder();
-            for ( final java.lang.Object ovalue : (Collection) property.getValue() ) {
+            for ( final java.lang.Object ovalue : (Collection) value ) {
                 sb.append( ovalue ).append( ' ' );
             }
 
             if ( property.isSearchable() ) {
-                return new IndexableField[]{ new TextField( property.getName(), sb.toString(), Field.Store.YES ) };
+                return new IndexableField[]{ new TextField( name, sb.toString(), store ) };
             }
-            return new IndexableField[]{ new StringField( property.getName(), sb.toString(), Field.Store.YES ) };
+            return new IndexableField[]{ new StringField( name, sb.toString(), store ) };
         }
 
+        // other values can't be searched, only stored
+        if ( policy != StoragePolicy.STORED ) {
+            return new IndexableField[ 0 ];
+        }
         try {
-            return new IndexableField[]{ new StoredField( property.getName(), toByteArray( property.getValue() ) ) };
+            return new IndexableField[]{ new StoredField( name, toByteArray( value ) ) };
         } catch ( final Exception ex ) {
-            return new IndexableField[]{ new StoredField( property.getName(), property.getValue().toString() ) };
+            return new IndexableField[]{ new StoredField( name, value.toString() ) };
+        }
+    }
+
+    private IndexableField[] numeric( final KProperty<?> property,
+                                      final StoragePolicy policy,
+                                      final IndexableField indexed,
+                                      final IndexableField stored,
+                                      final IndexableField docValues ) {
+        final List<IndexableField> fields = new ArrayList<IndexableField>( 2 );
+        if ( property.isSearchable() ) {
+            fields.add( indexed );
+        } else if ( policy == StoragePolicy.STORED ) {
+            fields.add( stored );
+        }
+        if ( policy == StoragePolicy.DOC_VALUES ) {
+            fields.add( docValues );
         }
+        return fields.toArray( new IndexableField[ fields.size() ] );
     }
 
     private IndexableField[] build( final VersionHistory versionHistory ) {
-        if ( versionHistory.records().size() == 0 ) {
+        final VersionRecord newest = versionHistory.newest();
+        if ( newest == null ) {
             return new IndexableField[]{ };
         }
+        final VersionRecord oldest = versionHistory.oldest();
 
-        final int lastIndex = versionHistory.records().size() - 1;
-        final IndexableField checkinComment = build( new KProperty<String>() {
+        final List<IndexableField> fields = new ArrayList<IndexableField>();
+
+        fields.addAll( Arrays.asList( build( new StoragePolicyProperty<String>() {
             @Override
             public String getName() {
                 return "checkinComment";
@@ -140,16 +204,22 @@ public class SimpleFieldFactory implements FieldFactory {
 
             @Override
             public String getValue() {
-                return versionHistory.records().get( lastIndex ).comment();
+                return newest.comment();
             }
 
             @Override
             public boolean isSearchable() {
                 return true;
             }
-        } )[ 0 ];
 
-        final IndexableField lastModifiedBy = build( new KProperty<String>() {
+            @Override
+            public StoragePolicy getStoragePolicy() {
+                // searchable through the full text, not needed to display results
+                return StoragePolicy.INDEXED;
+            }
+        } ) ) );
+
+        fields.addAll( Arrays.asList( build( new KProperty<String>() {
             @Override
             public String getName() {
                 return "lastModifiedBy";
@@ -157,16 +227,16 @@ public class SimpleFieldFactory implements FieldFactory {
 
             @Override
             public String getValue() {
-                return versionHistory.records().get( lastIndex ).author();
+                return newest.author();
             }
 
             @Override
             public boolean isSearchable() {
                 return true;
             }
-        } )[ 0 ];
+        } ) ) );
 
-        final IndexableField createdBy = build( new KProperty<String>() {
+        fields.addAll( Arrays.asList( build( new KProperty<String>() {
             @Override
             public String getName() {
                 return "createdBy";
@@ -174,16 +244,16 @@ public class SimpleFieldFactory implements FieldFactory {
 
             @Override
             public String getValue() {
-                return versionHistory.records().get( 0 ).author();
+                return oldest.author();
             }
 
             @Override
             public boolean isSearchable() {
                 return true;
             }
-        } )[ 0 ];
+        } ) ) );
 
-        final IndexableField createdDate = build( new KProperty<Date>() {
+        fields.addAll( Arrays.asList( build( new KProperty<Date>() {
             @Override
             public String getName() {
                 return "createdDate";
@@ -191,16 +261,16 @@ public class SimpleFieldFactory implements FieldFactory {
 
             @Override
             public Date getValue() {
-                return versionHistory.records().get( 0 ).date();
+                return oldest.date();
             }
 
             @Override
             public boolean isSearchable() {
                 return true;
             }
-        } )[ 0 ];
+        } ) ) );
 
-        final IndexableField lastModifiedDate = build( new KProperty<Date>() {
+        fields.addAll( Arrays.asList( build( new KProperty<Date>() {
             @Override
             public String getName() {
                 return "lastModifiedDate";
@@ -208,17 +278,21 @@ public class SimpleFieldFactory implements FieldFactory {
 
             @Override
             public Date getValue() {
-                return versionHistory.records().get( lastIndex ).date();
+                return newest.date();
             }
 
             @Override
             public boolean isSearchable() {
                 return true;
             }
-        } )[ 0 ];
+        } ) ) );
 
-        return new IndexableField[]{ checkinComment, lastModifiedBy, createdBy, createdDate, lastModifiedDate };
+        return fields.toArray( new IndexableField[ fields.size() ] );
 
     }
 
+    private interface StoragePolicyProperty<T> extends KProperty<T>,
+                                                       StoragePolicyAware {
+
+    }
 }
@@ -18,12 +18,14 @@ package org.uberfire.metadata.backend.lucene.index;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.AtomicReader;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.DocsEnum;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
@@ -31,12 +33,31 @@ import org.apache.lucene.util.BytesRef;
 
 public abstract class BaseLuceneIndex implements LuceneIndex {
 
+    /**
+     * Replaces by id term: the delete is buffered by the writer and applied on flush, no reader is needed.
+     */
     @Override
     public void indexDocument( final String id,
                                final Document doc ) {
         try {
-            deleteIfExists( id );
-            writer().addDocument( doc );
+            writer().updateDocument( new Term( "id", id ), doc );
+            markChanged();
+        } catch ( IOException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    @Override
+    public void indexDocuments( final Map<String, Document> docs ) {
+        if ( docs.isEmpty() ) {
+            return;
+        }
+        try {
+            final IndexWriter writer = writer();
+            for ( final Map.Entry<String, Document> entry : docs.entrySet() ) {
+                writer.updateDocument( new Term( "id", entry.getKey() ), entry.getValue() );
+            }
+            markChanged();
         } catch ( IOException e ) {
             throw new RuntimeException( e );
         }
@@ -45,7 +66,7 @@ public abstract class BaseLuceneIndex implements LuceneIndex {
     @Override
     public boolean deleteIfExists( final String... docIds ) {
         boolean deletedSomething = false;
-        final IndexSearcher searcher = nrtSearcher();
+        final IndexSearcher searcher = nrtFreshSearcher();
         try {
             final int[] answers = lookupDocIdByPK( searcher, docIds );
             for ( final int docId : answers ) {
@@ -60,17 +81,21 @@ public abstract class BaseLuceneIndex implements LuceneIndex {
         } finally {
             nrtRelease( searcher );
         }
+        if ( deletedSomething ) {
+            markChanged();
+        }
         return deletedSomething;
     }
 
     @Override
     public void rename( final String sourceId,
                         final Document doc ) {
-        final IndexSearcher searcher = nrtSearcher();
+        final IndexSearcher searcher = nrtFreshSearcher();
         try {
             int docId = lookupDocIdByPK( searcher, sourceId )[ 0 ];
             if ( docId != -1 ) {
                 writer().tryDeleteDocument( searcher.getIndexReader(), docId );
+                markChanged();
             }
             indexDocument( sourceId, doc );
         } catch ( IOException ex ) {
@@ -117,6 +142,19 @@ public abstract class BaseLuceneIndex implements LuceneIndex {
         return results;
     }
 
+    /**
+     * Searcher that sees every change made so far, regardless of any staleness allowance.
+     */
+    protected IndexSearcher nrtFreshSearcher() {
+        return nrtSearcher();
+    }
+
+    /**
+     * Called after every change to the index writer.
+     */
+    protected void markChanged() {
+    }
+
     public abstract IndexWriter writer();
 
 }
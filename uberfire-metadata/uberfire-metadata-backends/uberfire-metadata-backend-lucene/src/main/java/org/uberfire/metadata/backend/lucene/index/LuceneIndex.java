@@ -16,6 +16,8 @@
 
 package org.uberfire.metadata.backend.lucene.index;
 
+import java.util.Map;
+
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.IndexSearcher;
@@ -32,6 +34,11 @@ public interface LuceneIndex extends Index {
     void indexDocument( final String id,
                         final Document doc );
 
+    /**
+     * Adds or replaces the given documents, keyed by id.
+     */
+    void indexDocuments( final Map<String, Document> docs );
+
     boolean deleteIfExists( final String... ids );
 
     void rename( final String sourceId,
@@ -20,11 +20,18 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.document.Document;
@@ -33,6 +40,7 @@ import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexableField;
 import org.uberfire.metadata.backend.lucene.fields.FieldFactory;
+import org.uberfire.metadata.backend.lucene.metamodel.ClassSet;
 import org.uberfire.metadata.engine.Index;
 import org.uberfire.metadata.engine.MetaIndexEngine;
 import org.uberfire.metadata.engine.MetaModelStore;
@@ -40,6 +48,8 @@ import org.uberfire.metadata.model.KCluster;
 import org.uberfire.metadata.model.KObject;
 import org.uberfire.metadata.model.KObjectKey;
 import org.uberfire.metadata.model.KProperty;
+import org.uberfire.metadata.model.StoragePolicy;
+import org.uberfire.metadata.model.StoragePolicyAware;
 import org.uberfire.metadata.model.schema.MetaObject;
 import org.uberfire.metadata.model.schema.MetaProperty;
 import org.uberfire.metadata.model.schema.MetaType;
@@ -48,21 +58,41 @@ import static org.uberfire.commons.validation.Preconditions.*;
 
 public class LuceneIndexEngine implements MetaIndexEngine {
 
+    public static final int DEFAULT_BULK_COMMIT_SIZE = 10000;
+
     private final FieldFactory fieldFactory;
     private final MetaModelStore metaModelStore;
     private final LuceneIndexManager indexManager;
+    private final int bulkCommitSize;
+    private final int bulkThreads;
     private final Map<KCluster, AtomicInteger> batchMode = new ConcurrentHashMap<KCluster, AtomicInteger>();
+    private final ConcurrentMap<KCluster, Object> commitLocks = new ConcurrentHashMap<KCluster, Object>();
     private final Collection<Runnable> beforeDispose = new ArrayList<Runnable>();
+    private ExecutorService bulkExecutor = null;
 
     public LuceneIndexEngine( final FieldFactory fieldFactory,
                               final MetaModelStore metaModelStore,
                               final LuceneIndexManager indexManager ) {
+        this( fieldFactory, metaModelStore, indexManager, DEFAULT_BULK_COMMIT_SIZE, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * @param bulkCommitSize number of documents of a bulk index committed together, outside batch mode.
+     * @param bulkThreads max number of clusters a bulk index writes to in parallel.
+     */
+    public LuceneIndexEngine( final FieldFactory fieldFactory,
+                              final MetaModelStore metaModelStore,
+                              final LuceneIndexManager indexManager,
+                              final int bulkCommitSize,
+                              final int bulkThreads ) {
         this.fieldFactory = checkNotNull( "fieldFactory",
                                           fieldFactory );
         this.metaModelStore = checkNotNull( "metaModelStore",
                                             metaModelStore );
         this.indexManager = checkNotNull( "indexManager",
                                           indexManager );
+        this.bulkCommitSize = bulkCommitSize > 0 ? bulkCommitSize : DEFAULT_BULK_COMMIT_SIZE;
+        this.bulkThreads = Math.max( bulkThreads, 1 );
     }
 
     @Override
@@ -137,13 +167,94 @@ public class LuceneIndexEngine implements MetaIndexEngine {
         return doc;
     }
 
+    /**
+     * Bulk index: objects are grouped by cluster, each group is written with id term updates and committed every
+     * <code>bulkCommitSize</code> documents (unless in batch mode); groups of different clusters are written in parallel.
+     */
     @Override
     public void index( final KObject... objects ) {
+        final Map<LuceneIndex, List<KObject>> execution = new LinkedHashMap<LuceneIndex, List<KObject>>();
         for ( final KObject object : objects ) {
-            index( object );
+            updateMetaModel( object );
+
+            final LuceneIndex index = indexManager.indexOf( object );
+            List<KObject> group = execution.get( index );
+            if ( group == null ) {
+                group = new ArrayList<KObject>();
+                execution.put( index, group );
+            }
+            group.add( object );
+        }
+
+        if ( execution.size() == 1 || bulkThreads == 1 ) {
+            for ( final Map.Entry<LuceneIndex, List<KObject>> entry : execution.entrySet() ) {
+                indexBulk( entry.getKey(), entry.getValue() );
+            }
+            return;
+        }
+
+        final List<Future<Void>> results = new ArrayList<Future<Void>>( execution.size() );
+        for ( final Map.Entry<LuceneIndex, List<KObject>> entry : execution.entrySet() ) {
+            results.add( bulkExecutor().submit( new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    indexBulk( entry.getKey(), entry.getValue() );
+                    return null;
+                }
+            } ) );
+        }
+
+        RuntimeException failure = null;
+        for ( final Future<Void> result : results ) {
+            try {
+                result.get();
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException( e );
+            } catch ( final ExecutionException e ) {
+                if ( failure == null ) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException( e.getCause() );
+                }
+            }
+        }
+        if ( failure != null ) {
+            throw failure;
+        }
+    }
+
+    private void indexBulk( final LuceneIndex index,
+                            final List<KObject> objects ) {
+        final Map<String, Document> docs = new LinkedHashMap<String, Document>();
+        for ( final KObject object : objects ) {
+            docs.put( object.getId(), newDocument( object ) );
+            if ( docs.size() >= bulkCommitSize ) {
+                index.indexDocuments( docs );
+                commitIfNotBatchMode( index.getCluster() );
+                docs.clear();
+            }
+        }
+        if ( !docs.isEmpty() ) {
+            index.indexDocuments( docs );
+            commitIfNotBatchMode( index.getCluster() );
         }
     }
 
+    private synchronized ExecutorService bulkExecutor() {
+        if ( bulkExecutor == null ) {
+            bulkExecutor = Executors.newFixedThreadPool( bulkThreads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread( final Runnable runnable ) {
+                    final Thread thread = new Thread( runnable, "LuceneIndexEngine-bulk-" + count.incrementAndGet() );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            } );
+        }
+        return bulkExecutor;
+    }
+
     @Override
     public void rename( final KObjectKey from,
                         final KObject to ) {
@@ -163,6 +274,7 @@ public class LuceneIndexEngine implements MetaIndexEngine {
     @Override
     public void delete( KCluster cluster ) {
         indexManager.delete( cluster );
+        commitLocks.remove( cluster );
     }
 
     @Override
@@ -211,13 +323,48 @@ public class LuceneIndexEngine implements MetaIndexEngine {
         }
     }
 
-    private synchronized void commitIfNotBatchMode( final KCluster cluster ) {
-        final AtomicInteger batchStack = batchMode.get( cluster );
-        if ( batchStack == null || batchStack.get() <= 0 ) {
-            commit( cluster );
+    @Override
+    public String getCheckpoint( final KCluster cluster,
+                                 final String name ) {
+        final Index index = indexManager.get( cluster );
+        if ( index == null ) {
+            return null;
+        }
+        return index.getCheckpoint( name );
+    }
+
+    @Override
+    public void setCheckpoint( final KCluster cluster,
+                               final String name,
+                               final String value ) {
+        final Index index = indexManager.get( cluster );
+        if ( index != null ) {
+            index.setCheckpoint( name, value );
+        }
+    }
+
+    /**
+     * Serialized per cluster only, commits of different clusters don't wait on each other.
+     */
+    private void commitIfNotBatchMode( final KCluster cluster ) {
+        synchronized ( commitLock( cluster ) ) {
+            final AtomicInteger batchStack = batchMode.get( cluster );
+            if ( batchStack == null || batchStack.get() <= 0 ) {
+                commit( cluster );
+            }
         }
     }
 
+    private Object commitLock( final KCluster cluster ) {
+        final Object lock = commitLocks.get( cluster );
+        if ( lock != null ) {
+            return lock;
+        }
+        final Object newLock = new Object();
+        final Object current = commitLocks.putIfAbsent( cluster, newLock );
+        return current == null ? newLock : current;
+    }
+
     @Override
     public void dispose() {
         if ( !beforeDispose.isEmpty() ) {
@@ -225,6 +372,12 @@ public class LuceneIndexEngine implements MetaIndexEngine {
                 activeDispose.run();
             }
         }
+        synchronized ( this ) {
+            if ( bulkExecutor != null ) {
+                bulkExecutor.shutdownNow();
+                bulkExecutor = null;
+            }
+        }
     }
 
     @Override
@@ -237,18 +390,28 @@ public class LuceneIndexEngine implements MetaIndexEngine {
         if ( metaObject == null ) {
             metaModelStore.add( newMetaObect( object ) );
         } else {
+            // steady state indexing doesn't change the schema: update the store only when something is new
+            boolean changed = false;
             for ( final KProperty property : object.getProperties() ) {
                 final MetaProperty metaProperty = metaObject.getProperty( property.getName() );
                 if ( metaProperty == null ) {
                     metaObject.addProperty( newMetaProperty( property ) );
+                    changed = true;
                 } else {
-                    metaProperty.addType( property.getValue().getClass() );
-                    if ( property.isSearchable() ) {
+                    final Class<?> type = property.getValue().getClass();
+                    if ( !metaProperty.getTypes().contains( type ) ) {
+                        metaProperty.addType( type );
+                        changed = true;
+                    }
+                    if ( property.isSearchable() && !metaProperty.isSearchable() ) {
                         metaProperty.setAsSearchable();
+                        changed = true;
                     }
                 }
             }
-            metaModelStore.update( metaObject );
+            if ( changed ) {
+                metaModelStore.update( metaObject );
+            }
         }
     }
 
@@ -291,12 +454,11 @@ public class LuceneIndexEngine implements MetaIndexEngine {
     }
 
     private MetaProperty newMetaProperty( final KProperty<?> property ) {
-        return new MetaProperty() {
+        return new StoragePolicyMetaProperty() {
 
             private boolean isSearchable = property.isSearchable();
-            private Set<Class<?>> types = new CopyOnWriteArraySet<Class<?>>() {{
-                add( property.getValue().getClass() );
-            }};
+            private final StoragePolicy storagePolicy = StoragePolicy.of( property );
+            private final ClassSet types = new ClassSet( property.getValue().getClass() );
 
             @Override
             public String getName() {
@@ -313,6 +475,11 @@ public class LuceneIndexEngine implements MetaIndexEngine {
                 return isSearchable;
             }
 
+            @Override
+            public StoragePolicy getStoragePolicy() {
+                return storagePolicy;
+            }
+
             @Override
             public void setAsSearchable() {
                 this.isSearchable = true;
@@ -340,4 +507,9 @@ public class LuceneIndexEngine implements MetaIndexEngine {
             }
         };
     }
+
+    private interface StoragePolicyMetaProperty extends MetaProperty,
+                                                        StoragePolicyAware {
+
+    }
 }
@@ -20,14 +20,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.search.IndexSearcher;
-import org.apache.lucene.search.SearcherFactory;
 import org.uberfire.metadata.backend.lucene.model.KClusterImpl;
 import org.uberfire.metadata.engine.Index;
 import org.uberfire.metadata.engine.IndexManager;
@@ -39,8 +41,20 @@ import static org.uberfire.commons.validation.Preconditions.*;
 
 public class LuceneIndexManager implements IndexManager {
 
+    private static final int MAX_COMPOSITE_SEARCHERS = 32;
+
     private final LuceneIndexFactory factory;
     private final Map<KCluster, LuceneIndex> indexes = new HashMap<KCluster, LuceneIndex>();
+    private final Map<String, CompositeSearcher> composites = new LinkedHashMap<String, CompositeSearcher>( 16, 0.75f, true ) {
+        @Override
+        protected boolean removeEldestEntry( final Map.Entry<String, CompositeSearcher> eldest ) {
+            if ( size() > MAX_COMPOSITE_SEARCHERS ) {
+                eldest.getValue().decRef();
+                return true;
+            }
+            return false;
+        }
+    };
 
     public LuceneIndexManager( final LuceneIndexFactory factory ) {
         this.factory = checkNotNull( "factory", factory );
@@ -72,6 +86,7 @@ public class LuceneIndexManager implements IndexManager {
 
     @Override
     public void delete( KCluster cluster ) {
+        purgeComposites( cluster.getClusterId() );
         final LuceneIndex setup = indexes.remove( cluster );
         factory.remove( cluster );
         if ( setup != null ) {
@@ -81,6 +96,7 @@ public class LuceneIndexManager implements IndexManager {
 
     @Override
     public void dispose() {
+        purgeComposites( null );
         for ( final LuceneIndex index : indexes.values() ) {
             index.dispose();
         }
@@ -92,36 +108,124 @@ public class LuceneIndexManager implements IndexManager {
         return indexes.get( cluster );
     }
 
+    /**
+     * Returns a searcher over the given clusters (all if none given) that must be handed back to {@link #release(IndexSearcher)}.
+     * <p/>
+     * Searchers are shared: the composite reader of a cluster combination is reused as long as none of its clusters changed.
+     */
     public IndexSearcher getIndexSearcher( final ClusterSegment... clusterSegments ) {
-        final Set<KCluster> clusters;
+        final Set<String> clusterIds = new TreeSet<String>();
         if ( clusterSegments == null || clusterSegments.length == 0 ) {
-            clusters = new HashSet<KCluster>( indexes.keySet() );
+            for ( final KCluster cluster : indexes.keySet() ) {
+                clusterIds.add( cluster.getClusterId() );
+            }
         } else {
-            clusters = new HashSet<KCluster>( clusterSegments.length );
             for ( final ClusterSegment clusterSegment : clusterSegments ) {
-                clusters.add( new KClusterImpl( clusterSegment.getClusterId() ) );
+                clusterIds.add( clusterSegment.getClusterId() );
             }
         }
 
-        final Collection<IndexReader> readers = new ArrayList<IndexReader>( clusters.size() );
-        for ( final KCluster cluster : clusters ) {
-            final LuceneIndex index = indexes.get( cluster );
-            readers.add( index.nrtReader() );
-        }
-
+        final Map<LuceneIndex, IndexSearcher> acquired = new LinkedHashMap<LuceneIndex, IndexSearcher>( clusterIds.size() );
         try {
-            return new SearcherFactory().newSearcher( new MultiReader( readers.toArray( new IndexReader[ readers.size() ] ) ) );
-        } catch ( IOException e ) {
-            throw new RuntimeException( e );
+            for ( final String clusterId : clusterIds ) {
+                final LuceneIndex index = indexes.get( new KClusterImpl( clusterId ) );
+                if ( index != null ) {
+                    acquired.put( index, index.nrtSearcher() );
+                }
+            }
+
+            final List<IndexReader> parts = new ArrayList<IndexReader>( acquired.size() );
+            for ( final IndexSearcher searcher : acquired.values() ) {
+                parts.add( searcher.getIndexReader() );
+            }
+
+            return compositeOf( acquired.keySet(), parts );
+        } finally {
+            for ( final Map.Entry<LuceneIndex, IndexSearcher> entry : acquired.entrySet() ) {
+                entry.getKey().nrtRelease( entry.getValue() );
+            }
         }
     }
 
     public void release( final IndexSearcher index ) {
         try {
-            index.getIndexReader().close();
+            index.getIndexReader().decRef();
         } catch ( IOException e ) {
             throw new RuntimeException( e );
         }
     }
 
+    private IndexSearcher compositeOf( final Collection<LuceneIndex> sources,
+                                       final List<IndexReader> parts ) {
+        final StringBuilder sb = new StringBuilder();
+        for ( final LuceneIndex index : sources ) {
+            sb.append( index.getCluster().getClusterId() ).append( '\n' );
+        }
+        final String key = sb.toString();
+
+        synchronized ( composites ) {
+            final CompositeSearcher current = composites.get( key );
+            if ( current != null && current.isOver( parts ) ) {
+                current.incRef();
+                return current.searcher;
+            }
+
+            final CompositeSearcher composite = new CompositeSearcher( parts );
+            composites.put( key, composite );
+            if ( current != null ) {
+                current.decRef();
+            }
+            composite.incRef();
+            return composite.searcher;
+        }
+    }
+
+    private void purgeComposites( final String clusterId ) {
+        synchronized ( composites ) {
+            final Iterator<Map.Entry<String, CompositeSearcher>> iterator = composites.entrySet().iterator();
+            while ( iterator.hasNext() ) {
+                final Map.Entry<String, CompositeSearcher> entry = iterator.next();
+                if ( clusterId == null || ( '\n' + entry.getKey() ).contains( '\n' + clusterId + '\n' ) ) {
+                    entry.getValue().decRef();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static class CompositeSearcher {
+
+        private final List<IndexReader> parts;
+        private final IndexSearcher searcher;
+
+        CompositeSearcher( final List<IndexReader> parts ) {
+            this.parts = new ArrayList<IndexReader>( parts );
+            this.searcher = new IndexSearcher( new MultiReader( parts.toArray( new IndexReader[ parts.size() ] ), false ) );
+        }
+
+        boolean isOver( final List<IndexReader> readers ) {
+            if ( readers.size() != parts.size() ) {
+                return false;
+            }
+            for ( int i = 0; i < parts.size(); i++ ) {
+                if ( parts.get( i ) != readers.get( i ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void incRef() {
+            searcher.getIndexReader().incRef();
+        }
+
+        void decRef() {
+            try {
+                searcher.getIndexReader().decRef();
+            } catch ( IOException e ) {
+                throw new RuntimeException( e );
+            }
+        }
+    }
+
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.backend.lucene.index;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Reference counted near-real-time searcher of a single index writer.
+ * <p/>
+ * The searcher is reopened lazily on acquire, only if the index changed since the last reopen and
+ * the current one is older than {@code maxStaleness} milliseconds; {@link #acquireFresh()} ignores the staleness
+ * allowance and is meant for lookups that must see every change (ex. deletes by id).
+ */
+public class NRTSearcherPool {
+
+    private final SearcherManager manager;
+    private final long maxStaleness;
+    private final Object refreshLock = new Object();
+
+    private final AtomicLong generation = new AtomicLong( 0 );
+    private volatile long refreshedGeneration = 0;
+    private volatile long lastRefresh = System.currentTimeMillis();
+
+    public NRTSearcherPool( final IndexWriter writer,
+                            final long maxStaleness ) {
+        checkNotNull( "writer", writer );
+        try {
+            this.manager = new SearcherManager( writer, true, new SearcherFactory() );
+        } catch ( final IOException e ) {
+            throw new RuntimeException( e );
+        }
+        this.maxStaleness = maxStaleness;
+    }
+
+    /**
+     * Signals that the underlying writer has changes not visible yet to the current searcher.
+     */
+    public void markChanged() {
+        generation.incrementAndGet();
+    }
+
+    public IndexSearcher acquire() {
+        maybeRefresh( false );
+        return doAcquire();
+    }
+
+    public IndexSearcher acquireFresh() {
+        maybeRefresh( true );
+        return doAcquire();
+    }
+
+    public void release( final IndexSearcher searcher ) {
+        try {
+            manager.release( searcher );
+        } catch ( final IOException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    public long getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public void close() {
+        try {
+            manager.close();
+        } catch ( final IOException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private IndexSearcher doAcquire() {
+        try {
+            return manager.acquire();
+        } catch ( final RuntimeException e ) {
+            throw e;
+        } catch ( final Exception e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private void maybeRefresh( final boolean force ) {
+        final long currentGeneration = generation.get();
+        if ( currentGeneration == refreshedGeneration ) {
+            return;
+        }
+        if ( !force && System.currentTimeMillis() - lastRefresh < maxStaleness ) {
+            return;
+        }
+        synchronized ( refreshLock ) {
+            if ( refreshedGeneration >= currentGeneration ) {
+                return;
+            }
+            try {
+                manager.maybeRefresh();
+            } catch ( final IOException e ) {
+                throw new RuntimeException( e );
+            }
+            refreshedGeneration = currentGeneration;
+            lastRefresh = System.currentTimeMillis();
+        }
+    }
+}
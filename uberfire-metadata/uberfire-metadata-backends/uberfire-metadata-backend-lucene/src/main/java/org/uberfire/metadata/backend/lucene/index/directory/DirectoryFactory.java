@@ -41,17 +41,34 @@ public class DirectoryFactory implements LuceneIndexFactory {
     private final Map<KCluster, LuceneIndex> clusters = new ConcurrentHashMap<KCluster, LuceneIndex>();
     private final DirectoryType type;
     private final Analyzer analyzer;
+    private final long searcherMaxStaleness;
+    private final IndexWriterSettings writerSettings;
 
     public DirectoryFactory( final DirectoryType type,
                              final Analyzer analyzer ) {
+        this( type, analyzer, 0 );
+    }
+
+    public DirectoryFactory( final DirectoryType type,
+                             final Analyzer analyzer,
+                             final long searcherMaxStaleness ) {
+        this( type, analyzer, searcherMaxStaleness, IndexWriterSettings.DEFAULT );
+    }
+
+    public DirectoryFactory( final DirectoryType type,
+                             final Analyzer analyzer,
+                             final long searcherMaxStaleness,
+                             final IndexWriterSettings writerSettings ) {
         this.analyzer = analyzer;
         this.type = type;
+        this.searcherMaxStaleness = searcherMaxStaleness;
+        this.writerSettings = checkNotNull( "writerSettings", writerSettings );
         final File[] files = defaultHostingDir().listFiles();
         if ( files != null && files.length > 0 ) {
             for ( final File file : files ) {
                 if ( file.isDirectory() ) {
                     final KCluster cluster = new KClusterImpl( file.getName() );
-                    clusters.put( cluster, type.newIndex( cluster, newConfig( analyzer ) ) );
+                    clusters.put( cluster, type.newIndex( cluster, newConfig( analyzer ), searcherMaxStaleness ) );
                 }
             }
         }
@@ -71,14 +88,14 @@ public class DirectoryFactory implements LuceneIndexFactory {
         };
         config.setCodec( codec );
 
-        return config;
+        return writerSettings.applyTo( config );
     }
 
     @Override
     public LuceneIndex newCluster( final KCluster kcluster ) {
         checkCondition( "Cluster already exists", !clusters.containsKey( checkNotNull( "kcluster", kcluster ) ) );
 
-        final LuceneIndex newIndex = type.newIndex( kcluster, newConfig( analyzer ) );
+        final LuceneIndex newIndex = type.newIndex( kcluster, newConfig( analyzer ), searcherMaxStaleness );
         clusters.put( kcluster, newIndex );
 
         return newIndex;
@@ -17,15 +17,20 @@
 package org.uberfire.metadata.backend.lucene.index.directory;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexNotFoundException;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.search.IndexSearcher;
-import org.apache.lucene.search.SearcherFactory;
 import org.uberfire.metadata.backend.lucene.index.BaseLuceneIndex;
+import org.uberfire.metadata.backend.lucene.index.NRTSearcherPool;
 import org.uberfire.metadata.model.KCluster;
 
 import static org.uberfire.commons.validation.Preconditions.*;
@@ -38,17 +43,28 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
     private final KCluster cluster;
     private final IndexWriter writer;
     private final Directory directory;
+    private final NRTSearcherPool searcherPool;
+    private final Map<String, String> checkpoints = new HashMap<String, String>();
     private AtomicBoolean freshIndex;
     private AtomicBoolean isDisposed = new AtomicBoolean( false );
 
     public DirectoryLuceneIndex( final KCluster cluster,
                                  final Directory directory,
                                  final IndexWriterConfig config ) {
+        this( cluster, directory, config, 0 );
+    }
+
+    public DirectoryLuceneIndex( final KCluster cluster,
+                                 final Directory directory,
+                                 final IndexWriterConfig config,
+                                 final long searcherMaxStaleness ) {
         try {
             this.cluster = checkNotNull( "cluster", cluster );
             this.directory = checkNotNull( "directory", directory );
             this.writer = new IndexWriter( directory.getDirectory(), config );
+            this.searcherPool = new NRTSearcherPool( writer, searcherMaxStaleness );
             this.freshIndex = new AtomicBoolean( directory.freshIndex() );
+            this.checkpoints.putAll( lastCommitData( directory ) );
         } catch ( final Exception ex ) {
             throw new RuntimeException( ex );
         }
@@ -66,17 +82,13 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
 
     @Override
     public IndexReader nrtReader() {
-        try {
-            return DirectoryReader.open( writer, true );
-        } catch ( IOException e ) {
-            throw new RuntimeException( e );
-        }
+        return searcherPool.acquire().getIndexReader();
     }
 
     @Override
     public void nrtRelease( final IndexReader reader ) {
         try {
-            reader.close();
+            reader.decRef();
         } catch ( IOException e ) {
             throw new RuntimeException( e );
         }
@@ -84,20 +96,22 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
 
     @Override
     public IndexSearcher nrtSearcher() {
-        try {
-            return new SearcherFactory().newSearcher( nrtReader() );
-        } catch ( IOException e ) {
-            throw new RuntimeException( e );
-        }
+        return searcherPool.acquire();
+    }
+
+    @Override
+    protected IndexSearcher nrtFreshSearcher() {
+        return searcherPool.acquireFresh();
     }
 
     @Override
     public void nrtRelease( final IndexSearcher searcher ) {
-        try {
-            searcher.getIndexReader().close();
-        } catch ( IOException e ) {
-            throw new RuntimeException( e );
-        }
+        searcherPool.release( searcher );
+    }
+
+    @Override
+    protected void markChanged() {
+        searcherPool.markChanged();
     }
 
     @Override
@@ -112,7 +126,8 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
 
     private void closeWriter() {
         try {
-            writer.commit();
+            searcherPool.close();
+            doCommit();
             writer.close();
         } catch ( IOException e ) {
             throw new RuntimeException( e );
@@ -127,13 +142,59 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
     @Override
     public void commit() {
         try {
-            writer.commit();
+            doCommit();
             freshIndex.set( false );
         } catch ( IOException e ) {
             throw new RuntimeException( e );
         }
     }
 
+    @Override
+    public String getCheckpoint( final String name ) {
+        synchronized ( checkpoints ) {
+            return checkpoints.get( name );
+        }
+    }
+
+    @Override
+    public void setCheckpoint( final String name,
+                               final String value ) {
+        synchronized ( checkpoints ) {
+            if ( value == null ) {
+                checkpoints.remove( checkNotNull( "name", name ) );
+            } else {
+                checkpoints.put( checkNotNull( "name", name ), value );
+            }
+        }
+    }
+
+    /**
+     * Checkpoints are stored as commit user data, so they're always consistent with the committed documents.
+     */
+    private void doCommit() throws IOException {
+        final Map<String, String> commitData;
+        synchronized ( checkpoints ) {
+            commitData = new HashMap<String, String>( checkpoints );
+        }
+        writer.commit( commitData );
+    }
+
+    private static Map<String, String> lastCommitData( final Directory directory ) throws IOException {
+        try {
+            final List<IndexCommit> commits = DirectoryReader.listCommits( directory.getDirectory() );
+            if ( commits.isEmpty() ) {
+                return new HashMap<String, String>();
+            }
+            final Map<String, String> userData = commits.get( commits.size() - 1 ).getUserData();
+            if ( userData == null ) {
+                return new HashMap<String, String>();
+            }
+            return userData;
+        } catch ( final IndexNotFoundException ex ) {
+            return new HashMap<String, String>();
+        }
+    }
+
     @Override
     public void delete() {
         closeWriter();
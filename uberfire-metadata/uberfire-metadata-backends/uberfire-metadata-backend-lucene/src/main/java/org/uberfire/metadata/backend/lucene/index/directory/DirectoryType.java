@@ -31,18 +31,20 @@ public enum DirectoryType {
     INMEMORY {
         @Override
         public LuceneIndex newIndex( final KCluster cluster,
-                                     final IndexWriterConfig config ) {
+                                     final IndexWriterConfig config,
+                                     final long searcherMaxStaleness ) {
             final Directory directory = new Directory( new RAMDirectory(), new DeleteCommand() {
                 @Override
                 public void execute( org.apache.lucene.store.Directory directory ) {
                 }
             }, true );
-            return new DirectoryLuceneIndex( cluster, directory, config );
+            return new DirectoryLuceneIndex( cluster, directory, config, searcherMaxStaleness );
         }
     }, NIO {
         @Override
         public LuceneIndex newIndex( final KCluster cluster,
-                                     final IndexWriterConfig config ) {
+                                     final IndexWriterConfig config,
+                                     final long searcherMaxStaleness ) {
 
             final File clusterDir = clusterDir( cluster.getClusterId() );
             final NIOFSDirectory luceneDir;
@@ -60,12 +62,13 @@ public enum DirectoryType {
                 }
             }, freshIndex( clusterDir ) );
 
-            return new DirectoryLuceneIndex( cluster, directory, config );
+            return new DirectoryLuceneIndex( cluster, directory, config, searcherMaxStaleness );
         }
     }, MMAP {
         @Override
         public LuceneIndex newIndex( final KCluster cluster,
-                                     final IndexWriterConfig config ) {
+                                     final IndexWriterConfig config,
+                                     final long searcherMaxStaleness ) {
             final File clusterDir = clusterDir( cluster.getClusterId() );
             final MMapDirectory luceneDir;
             try {
@@ -81,12 +84,13 @@ public enum DirectoryType {
                 }
             }, freshIndex( clusterDir ) );
 
-            return new DirectoryLuceneIndex( cluster, directory, config );
+            return new DirectoryLuceneIndex( cluster, directory, config, searcherMaxStaleness );
         }
     };
 
     public abstract LuceneIndex newIndex( final KCluster cluster,
-                                          final IndexWriterConfig config );
+                                          final IndexWriterConfig config,
+                                          final long searcherMaxStaleness );
 
     private static File clusterDir( final String clusterId ) {
         return new File( DirectoryFactory.defaultHostingDir(), clusterId );
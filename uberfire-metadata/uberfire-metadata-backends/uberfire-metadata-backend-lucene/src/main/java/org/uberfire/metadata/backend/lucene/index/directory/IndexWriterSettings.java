@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.backend.lucene.index.directory;
+
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.TieredMergePolicy;
+
+/**
+ * Tuning of the index writers, applied to the config of every cluster index; non positive values keep the Lucene
+ * defaults.
+ */
+public class IndexWriterSettings {
+
+    public static final IndexWriterSettings DEFAULT = new IndexWriterSettings( -1, -1, -1, -1 );
+
+    private final double ramBufferSizeMB;
+    private final int maxThreadStates;
+    private final double segmentsPerTier;
+    private final double maxMergedSegmentMB;
+
+    /**
+     * @param ramBufferSizeMB memory buffered before flushing a new segment.
+     * @param maxThreadStates max number of threads indexing concurrently on the same writer.
+     * @param segmentsPerTier segments allowed per tier before merging, higher values merge less while indexing.
+     * @param maxMergedSegmentMB max size of a merged segment.
+     */
+    public IndexWriterSettings( final double ramBufferSizeMB,
+                                final int maxThreadStates,
+                                final double segmentsPerTier,
+                                final double maxMergedSegmentMB ) {
+        this.ramBufferSizeMB = ramBufferSizeMB;
+        this.maxThreadStates = maxThreadStates;
+        this.segmentsPerTier = segmentsPerTier;
+        this.maxMergedSegmentMB = maxMergedSegmentMB;
+    }
+
+    public double getRamBufferSizeMB() {
+        return ramBufferSizeMB;
+    }
+
+    public int getMaxThreadStates() {
+        return maxThreadStates;
+    }
+
+    public double getSegmentsPerTier() {
+        return segmentsPerTier;
+    }
+
+    public double getMaxMergedSegmentMB() {
+        return maxMergedSegmentMB;
+    }
+
+    public IndexWriterConfig applyTo( final IndexWriterConfig config ) {
+        if ( ramBufferSizeMB > 0 ) {
+            config.setRAMBufferSizeMB( ramBufferSizeMB );
+        }
+        if ( maxThreadStates > 0 ) {
+            config.setMaxThreadStates( maxThreadStates );
+        }
+        if ( segmentsPerTier > 0 || maxMergedSegmentMB > 0 ) {
+            // merge policies are bound to a single writer, so every config gets its own
+            final TieredMergePolicy mergePolicy = new TieredMergePolicy();
+            if ( segmentsPerTier > 0 ) {
+                mergePolicy.setSegmentsPerTier( segmentsPerTier );
+            }
+            if ( maxMergedSegmentMB > 0 ) {
+                mergePolicy.setMaxMergedSegmentMB( maxMergedSegmentMB );
+            }
+            config.setMergePolicy( mergePolicy );
+        }
+        return config;
+    }
+}
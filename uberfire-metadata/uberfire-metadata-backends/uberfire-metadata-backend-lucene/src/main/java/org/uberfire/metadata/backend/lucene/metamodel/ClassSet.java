@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.metadata.backend.lucene.metamodel;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Thread safe set of the few classes a property value can have; contains and add of a class already in the set
+ * scan a plain array and don't allocate, the array is copied only when a new class is added.
+ */
+public class ClassSet extends AbstractSet<Class<?>> {
+
+    private volatile Class<?>[] classes = new Class<?>[ 0 ];
+
+    public ClassSet() {
+    }
+
+    public ClassSet( final Class<?> aClass ) {
+        add( aClass );
+    }
+
+    @Override
+    public boolean contains( final Object o ) {
+        final Class<?>[] current = classes;
+        for ( int i = 0; i < current.length; i++ ) {
+            if ( current[ i ] == o ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean add( final Class<?> aClass ) {
+        if ( aClass == null || contains( aClass ) ) {
+            return false;
+        }
+        synchronized ( this ) {
+            if ( contains( aClass ) ) {
+                return false;
+            }
+            final Class<?>[] newClasses = Arrays.copyOf( classes, classes.length + 1 );
+            newClasses[ classes.length ] = aClass;
+            classes = newClasses;
+            return true;
+        }
+    }
+
+    @Override
+    public Iterator<Class<?>> iterator() {
+        return Arrays.<Class<?>>asList( classes ).iterator();
+    }
+
+    @Override
+    public int size() {
+        return classes.length;
+    }
+}
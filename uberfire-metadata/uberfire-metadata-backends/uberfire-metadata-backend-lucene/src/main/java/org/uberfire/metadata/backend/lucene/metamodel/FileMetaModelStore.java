@@ -0,0 +1,298 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.metadata.backend.lucene.metamodel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.uberfire.metadata.backend.lucene.index.directory.DirectoryFactory;
+import org.uberfire.metadata.engine.MetaModelStore;
+import org.uberfire.metadata.model.StoragePolicy;
+import org.uberfire.metadata.model.StoragePolicyAware;
+import org.uberfire.metadata.model.schema.MetaObject;
+import org.uberfire.metadata.model.schema.MetaProperty;
+import org.uberfire.metadata.model.schema.MetaType;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Meta model store that survives restarts: the model is kept in memory and written through to a single file,
+ * by default next to the index directories, that is read back at startup.
+ * <p/>
+ * Each type keeps the signature it was last written with, so an update that doesn't change the schema of the
+ * type doesn't touch the file; property types no longer on the classpath are dropped on load.
+ */
+public class FileMetaModelStore implements MetaModelStore {
+
+    private static final String FILE_NAME = ".metamodel";
+    private static final int VERSION = 1;
+
+    private final File file;
+    private final ConcurrentHashMap<String, MetaObject> metaModel = new ConcurrentHashMap<String, MetaObject>();
+    private final Map<String, String> signatures = new HashMap<String, String>();
+
+    public FileMetaModelStore() {
+        this( new File( DirectoryFactory.defaultHostingDir(), FILE_NAME ) );
+    }
+
+    public FileMetaModelStore( final File file ) {
+        this.file = checkNotNull( "file", file );
+        load();
+    }
+
+    @Override
+    public void add( final MetaObject metaObject ) {
+        metaModel.put( metaObject.getType().getName(), metaObject );
+        persist( metaObject );
+    }
+
+    @Override
+    public void update( final MetaObject metaObject ) {
+        metaModel.put( metaObject.getType().getName(), metaObject );
+        persist( metaObject );
+    }
+
+    @Override
+    public MetaObject getMetaObject( final String type ) {
+        return metaModel.get( type );
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    private synchronized void persist( final MetaObject metaObject ) {
+        final String type = metaObject.getType().getName();
+        final String signature = signature( metaObject );
+        if ( signature.equals( signatures.get( type ) ) ) {
+            return;
+        }
+        write();
+        signatures.put( type, signature );
+    }
+
+    private void write() {
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if ( parent != null && !parent.exists() ) {
+            parent.mkdirs();
+        }
+        final File temp = new File( parent, file.getName() + ".tmp" );
+        try {
+            final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temp ) ) );
+            try {
+                final List<MetaObject> metaObjects = new ArrayList<MetaObject>( metaModel.values() );
+                out.writeInt( VERSION );
+                out.writeInt( metaObjects.size() );
+                for ( final MetaObject metaObject : metaObjects ) {
+                    final List<MetaProperty> properties = new ArrayList<MetaProperty>( metaObject.getProperties() );
+                    out.writeUTF( metaObject.getType().getName() );
+                    out.writeInt( properties.size() );
+                    for ( final MetaProperty property : properties ) {
+                        final List<Class<?>> types = new ArrayList<Class<?>>( property.getTypes() );
+                        out.writeUTF( property.getName() );
+                        out.writeBoolean( property.isSearchable() );
+                        out.writeUTF( StoragePolicy.of( property ).name() );
+                        out.writeInt( types.size() );
+                        for ( final Class<?> type : types ) {
+                            out.writeUTF( type.getName() );
+                        }
+                    }
+                }
+            } finally {
+                out.close();
+            }
+            if ( !temp.renameTo( file ) ) {
+                file.delete();
+                if ( !temp.renameTo( file ) ) {
+                    throw new IOException( "Can't replace " + file );
+                }
+            }
+        } catch ( final IOException ex ) {
+            throw new RuntimeException( "Error writing meta model to " + file, ex );
+        }
+    }
+
+    private synchronized void load() {
+        if ( !file.isFile() ) {
+            return;
+        }
+        try {
+            final DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+            try {
+                if ( in.readInt() != VERSION ) {
+                    return;
+                }
+                final int size = in.readInt();
+                for ( int i = 0; i < size; i++ ) {
+                    final StoredMetaObject metaObject = new StoredMetaObject( in.readUTF() );
+                    final int properties = in.readInt();
+                    for ( int j = 0; j < properties; j++ ) {
+                        final StoredMetaProperty property = new StoredMetaProperty( in.readUTF(), in.readBoolean(), StoragePolicy.valueOf( in.readUTF() ) );
+                        final int types = in.readInt();
+                        for ( int k = 0; k < types; k++ ) {
+                            property.addType( classOf( in.readUTF() ) );
+                        }
+                        metaObject.addProperty( property );
+                    }
+                    metaModel.put( metaObject.getType().getName(), metaObject );
+                    signatures.put( metaObject.getType().getName(), signature( metaObject ) );
+                }
+            } finally {
+                in.close();
+            }
+        } catch ( final Exception ex ) {
+            // unreadable model: start over, it's rebuilt as content gets indexed
+            metaModel.clear();
+            signatures.clear();
+        }
+    }
+
+    private static String signature( final MetaObject metaObject ) {
+        final List<String> properties = new ArrayList<String>();
+        for ( final MetaProperty property : metaObject.getProperties() ) {
+            final List<String> types = new ArrayList<String>();
+            for ( final Class<?> type : property.getTypes() ) {
+                types.add( type.getName() );
+            }
+            Collections.sort( types );
+            properties.add( property.getName() + '|' + property.isSearchable() + '|' + StoragePolicy.of( property ) + '|' + types );
+        }
+        Collections.sort( properties );
+        return properties.toString();
+    }
+
+    private static Class<?> classOf( final String name ) {
+        final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        try {
+            return Class.forName( name, false, cl != null ? cl : FileMetaModelStore.class.getClassLoader() );
+        } catch ( final ClassNotFoundException e ) {
+            return null;
+        }
+    }
+
+    private static class StoredMetaObject implements MetaObject {
+
+        private final MetaType type;
+        private final Map<String, MetaProperty> properties = new ConcurrentHashMap<String, MetaProperty>();
+
+        StoredMetaObject( final String name ) {
+            this.type = new MetaType() {
+                @Override
+                public String getName() {
+                    return name;
+                }
+            };
+        }
+
+        @Override
+        public MetaType getType() {
+            return type;
+        }
+
+        @Override
+        public Collection<MetaProperty> getProperties() {
+            return properties.values();
+        }
+
+        @Override
+        public MetaProperty getProperty( final String name ) {
+            return properties.get( name );
+        }
+
+        @Override
+        public void addProperty( final MetaProperty metaProperty ) {
+            if ( !properties.containsKey( metaProperty.getName() ) ) {
+                properties.put( metaProperty.getName(), metaProperty );
+            }
+        }
+    }
+
+    private static class StoredMetaProperty implements MetaProperty,
+                                                    StoragePolicyAware {
+
+        private final String name;
+        private final StoragePolicy storagePolicy;
+        private final ClassSet types = new ClassSet();
+        private volatile boolean isSearchable;
+
+        StoredMetaProperty( final String name,
+                            final boolean isSearchable,
+                            final StoragePolicy storagePolicy ) {
+            this.name = name;
+            this.isSearchable = isSearchable;
+            this.storagePolicy = storagePolicy;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Set<Class<?>> getTypes() {
+            return types;
+        }
+
+        @Override
+        public boolean isSearchable() {
+            return isSearchable;
+        }
+
+        @Override
+        public StoragePolicy getStoragePolicy() {
+            return storagePolicy;
+        }
+
+        @Override
+        public void setAsSearchable() {
+            this.isSearchable = true;
+        }
+
+        @Override
+        public void addType( final Class<?> aClass ) {
+            types.add( aClass );
+        }
+
+        @Override
+        public boolean equals( final Object obj ) {
+            if ( !( obj instanceof MetaProperty ) ) {
+                return false;
+            }
+            return ( (MetaProperty) obj ).getName().equals( getName() );
+        }
+
+        @Override
+        public int hashCode() {
+            return getName().hashCode();
+        }
+    }
+}
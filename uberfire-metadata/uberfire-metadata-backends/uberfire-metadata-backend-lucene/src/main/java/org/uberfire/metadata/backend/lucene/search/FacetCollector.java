@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.backend.lucene.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldCache;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.uberfire.metadata.search.FacetRequest;
+import org.uberfire.metadata.search.FacetResult;
+
+/**
+ * Counts hits and facet values while the query is collected, so a single search feeds every facet.
+ * <p/>
+ * Values are read from the field cache: per segment, term facets are counted by ordinal and only resolved to
+ * their value when the segment is done; date histograms bucket the numeric value of each hit.
+ */
+class FacetCollector extends Collector {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone( "UTC" );
+
+    private final List<FacetRequest> facets;
+    private final String[] luceneFields;
+    private final List<Map<String, Integer>> counts;
+
+    private final FieldCache.DocTermsIndex[] termsIndexes;
+    private final int[][] ordCounts;
+    private final long[][] longValues;
+    private final Bits[] docsWithField;
+    private final Calendar calendar = Calendar.getInstance( UTC );
+
+    private int totalHits = 0;
+
+    /**
+     * @param luceneFields index field of each facet.
+     */
+    FacetCollector( final List<FacetRequest> facets,
+                    final String[] luceneFields ) {
+        this.facets = facets;
+        this.luceneFields = luceneFields;
+        this.counts = new ArrayList<Map<String, Integer>>( facets.size() );
+        for ( int i = 0; i < facets.size(); i++ ) {
+            counts.add( new HashMap<String, Integer>() );
+        }
+        this.termsIndexes = new FieldCache.DocTermsIndex[ facets.size() ];
+        this.ordCounts = new int[ facets.size() ][];
+        this.longValues = new long[ facets.size() ][];
+        this.docsWithField = new Bits[ facets.size() ];
+    }
+
+    @Override
+    public void setScorer( final Scorer scorer ) throws IOException {
+    }
+
+    @Override
+    public void setNextReader( final AtomicReaderContext context ) throws IOException {
+        flushSegment();
+        for ( int i = 0; i < facets.size(); i++ ) {
+            if ( facets.get( i ).isDateHistogram() ) {
+                longValues[ i ] = FieldCache.DEFAULT.getLongs( context.reader(), luceneFields[ i ], FieldCache.NUMERIC_UTILS_LONG_PARSER, true );
+                docsWithField[ i ] = FieldCache.DEFAULT.getDocsWithField( context.reader(), luceneFields[ i ] );
+            } else {
+                termsIndexes[ i ] = FieldCache.DEFAULT.getTermsIndex( context.reader(), luceneFields[ i ] );
+                ordCounts[ i ] = new int[ termsIndexes[ i ].numOrd() ];
+            }
+        }
+    }
+
+    @Override
+    public void collect( final int doc ) throws IOException {
+        totalHits++;
+        for ( int i = 0; i < facets.size(); i++ ) {
+            if ( facets.get( i ).isDateHistogram() ) {
+                if ( docsWithField[ i ].get( doc ) ) {
+                    increment( counts.get( i ), bucket( longValues[ i ][ doc ], facets.get( i ).getInterval() ), 1 );
+                }
+            } else {
+                ordCounts[ i ][ termsIndexes[ i ].getOrd( doc ) ]++;
+            }
+        }
+    }
+
+    @Override
+    public boolean acceptsDocsOutOfOrder() {
+        return true;
+    }
+
+    FacetResult getResult() {
+        flushSegment();
+        final Map<String, Map<String, Integer>> result = new LinkedHashMap<String, Map<String, Integer>>();
+        for ( int i = 0; i < facets.size(); i++ ) {
+            if ( facets.get( i ).isDateHistogram() ) {
+                result.put( facets.get( i ).getField(), new TreeMap<String, Integer>( counts.get( i ) ) );
+            } else {
+                result.put( facets.get( i ).getField(), byCount( counts.get( i ) ) );
+            }
+        }
+        return new FacetResult( totalHits, result );
+    }
+
+    private void flushSegment() {
+        final BytesRef spare = new BytesRef();
+        for ( int i = 0; i < facets.size(); i++ ) {
+            if ( ordCounts[ i ] == null ) {
+                continue;
+            }
+            // ord 0 is for docs without a value
+            for ( int ord = 1; ord < ordCounts[ i ].length; ord++ ) {
+                if ( ordCounts[ i ][ ord ] > 0 ) {
+                    increment( counts.get( i ), termsIndexes[ i ].lookup( ord, spare ).utf8ToString(), ordCounts[ i ][ ord ] );
+                }
+            }
+            ordCounts[ i ] = null;
+            termsIndexes[ i ] = null;
+        }
+    }
+
+    private String bucket( final long millis,
+                           final FacetRequest.Interval interval ) {
+        calendar.setTimeInMillis( millis );
+        final StringBuilder sb = new StringBuilder().append( calendar.get( Calendar.YEAR ) );
+        if ( interval != FacetRequest.Interval.YEAR ) {
+            sb.append( '-' ).append( twoDigits( calendar.get( Calendar.MONTH ) + 1 ) );
+        }
+        if ( interval == FacetRequest.Interval.DAY ) {
+            sb.append( '-' ).append( twoDigits( calendar.get( Calendar.DAY_OF_MONTH ) ) );
+        }
+        return sb.toString();
+    }
+
+    private static String twoDigits( final int value ) {
+        return value < 10 ? "0" + value : String.valueOf( value );
+    }
+
+    private static void increment( final Map<String, Integer> counts,
+                                   final String key,
+                                   final int count ) {
+        final Integer current = counts.get( key );
+        counts.put( key, current == null ? count : current + count );
+    }
+
+    private static Map<String, Integer> byCount( final Map<String, Integer> counts ) {
+        final List<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>( counts.entrySet() );
+        Collections.sort( entries, new Comparator<Map.Entry<String, Integer>>() {
+            @Override
+            public int compare( final Map.Entry<String, Integer> o1,
+                                final Map.Entry<String, Integer> o2 ) {
+                final int result = o2.getValue().compareTo( o1.getValue() );
+                if ( result != 0 ) {
+                    return result;
+                }
+                return o1.getKey().compareTo( o2.getKey() );
+            }
+        } );
+        final Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+        for ( final Map.Entry<String, Integer> entry : entries ) {
+            result.put( entry.getKey(), entry.getValue() );
+        }
+        return result;
+    }
+}
@@ -16,11 +16,17 @@
 
 package org.uberfire.metadata.backend.lucene.search;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
@@ -30,18 +36,28 @@ import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.WildcardQuery;
 import org.apache.lucene.util.Version;
+import org.uberfire.metadata.backend.lucene.fields.SimpleFieldFactory;
 import org.uberfire.metadata.backend.lucene.index.LuceneIndex;
 import org.uberfire.metadata.backend.lucene.index.LuceneIndexManager;
+import org.uberfire.metadata.backend.lucene.model.KClusterImpl;
+import org.uberfire.metadata.backend.lucene.util.KObjectUtil.DocumentLoader;
 import org.uberfire.metadata.engine.IndexManager;
 import org.uberfire.metadata.model.KObject;
 import org.uberfire.metadata.search.ClusterSegment;
 import org.uberfire.metadata.search.DateRange;
+import org.uberfire.metadata.search.FacetRequest;
+import org.uberfire.metadata.search.FacetResult;
 import org.uberfire.metadata.search.SearchIndex;
+import org.uberfire.metadata.search.SearchPage;
+import org.uberfire.metadata.search.SortBy;
 
 import static java.util.Collections.*;
 import static org.apache.lucene.search.BooleanClause.Occur.*;
@@ -56,13 +72,30 @@ import static org.uberfire.metadata.engine.MetaIndexEngine.*;
  */
 public class LuceneSearchIndex implements SearchIndex {
 
+    /**
+     * Untokenized fields of every document, counted directly; any other field is counted on its facet copy.
+     */
+    private static final Set<String> UNTOKENIZED_FIELDS = new HashSet<String>( Arrays.asList( "id", "type", "cluster.id", "segment.id" ) );
+
     private final LuceneIndexManager indexManager;
     private final QueryParser queryParser;
+    private final boolean lazyResults;
 
     public LuceneSearchIndex( final LuceneIndexManager indexManager,
                               final Analyzer analyzer ) {
+        this( indexManager, analyzer, false );
+    }
+
+    /**
+     * @param lazyResults if true, results load only their key fields from the index; the other properties are
+     * loaded on demand, when first requested.
+     */
+    public LuceneSearchIndex( final LuceneIndexManager indexManager,
+                              final Analyzer analyzer,
+                              final boolean lazyResults ) {
         this.indexManager = checkNotNull( "lucene",
                                           indexManager );
+        this.lazyResults = lazyResults;
         this.queryParser = new QueryParser( Version.LUCENE_40, FULL_TEXT_FIELD, analyzer );
         this.queryParser.setAllowLeadingWildcard( true );
     }
@@ -86,6 +119,44 @@ public class LuceneSearchIndex implements SearchIndex {
         return search( buildQuery( term, clusterSegments ), pageSize, startIndex, clusterSegments );
     }
 
+    @Override
+    public SearchPage searchByAttrs( final Map<String, ?> attrs,
+                                     final int pageSize,
+                                     final String continuation,
+                                     final SortBy sortBy,
+                                     final ClusterSegment... clusterSegments ) {
+        if ( attrs == null || attrs.size() == 0 ) {
+            return new SearchPage( Collections.<KObject>emptyList(), null );
+        }
+        return searchAfter( buildQuery( attrs, clusterSegments ), pageSize, continuation, sortBy, clusterSegments );
+    }
+
+    @Override
+    public SearchPage fullTextSearch( final String term,
+                                      final int pageSize,
+                                      final String continuation,
+                                      final SortBy sortBy,
+                                      final ClusterSegment... clusterSegments ) {
+        return searchAfter( buildQuery( term, clusterSegments ), pageSize, continuation, sortBy, clusterSegments );
+    }
+
+    @Override
+    public FacetResult searchByAttrsFacets( final Map<String, ?> attrs,
+                                            final List<FacetRequest> facets,
+                                            final ClusterSegment... clusterSegments ) {
+        if ( attrs == null || attrs.size() == 0 ) {
+            return new FacetResult( 0, Collections.<String, Map<String, Integer>>emptyMap() );
+        }
+        return searchFacets( buildQuery( attrs, clusterSegments ), facets, clusterSegments );
+    }
+
+    @Override
+    public FacetResult fullTextSearchFacets( final String term,
+                                             final List<FacetRequest> facets,
+                                             final ClusterSegment... clusterSegments ) {
+        return searchFacets( buildQuery( term, clusterSegments ), facets, clusterSegments );
+    }
+
     @Override
     public int searchByAttrsHits( final Map<String, ?> attrs,
                                   final ClusterSegment... clusterSegments ) {
@@ -115,11 +186,37 @@ public class LuceneSearchIndex implements SearchIndex {
         }
     }
 
+    private FacetResult searchFacets( final Query query,
+                                      final List<FacetRequest> facets,
+                                      final ClusterSegment... clusterSegments ) {
+        checkNotNull( "facets", facets );
+        final String[] luceneFields = new String[ facets.size() ];
+        for ( int i = 0; i < luceneFields.length; i++ ) {
+            final FacetRequest facet = facets.get( i );
+            if ( facet.isDateHistogram() || UNTOKENIZED_FIELDS.contains( facet.getField() ) ) {
+                luceneFields[ i ] = facet.getField();
+            } else {
+                luceneFields[ i ] = SimpleFieldFactory.FACET_PREFIX + facet.getField();
+            }
+        }
+
+        final IndexSearcher index = indexManager.getIndexSearcher( clusterSegments );
+        try {
+            final FacetCollector collector = new FacetCollector( facets, luceneFields );
+            index.search( query, collector );
+            return collector.getResult();
+        } catch ( final Exception ex ) {
+            throw new RuntimeException( "Error during Query!", ex );
+        } finally {
+            indexManager.release( index );
+        }
+    }
+
     private List<KObject> search( final Query query,
                                   final int pageSize,
                                   final int startIndex,
                                   final ClusterSegment... clusterSegments ) {
-        final TopScoreDocCollector collector = TopScoreDocCollector.create( ( startIndex + 1 ) * pageSize, true );
+        final TopScoreDocCollector collector = TopScoreDocCollector.create( startIndex + pageSize, true );
         final IndexSearcher index = indexManager.getIndexSearcher( clusterSegments );
         final List<KObject> result = new ArrayList<KObject>( pageSize );
         try {
@@ -127,7 +224,7 @@ public class LuceneSearchIndex implements SearchIndex {
             final ScoreDoc[] hits = collector.topDocs( startIndex ).scoreDocs;
             int iterations = hits.length > pageSize ? pageSize : hits.length;
             for ( int i = 0; i < iterations; i++ ) {
-                result.add( toKObject( index.doc( hits[ i ].doc ) ) );
+                result.add( hydrate( index, hits[ i ].doc ) );
             }
         } catch ( final Exception ex ) {
             throw new RuntimeException( "Error during Query!", ex );
@@ -138,6 +235,102 @@ public class LuceneSearchIndex implements SearchIndex {
         return result;
     }
 
+    /**
+     * Collects only a page worth of hits after the cursor, instead of every hit up to the requested offset.
+     */
+    private SearchPage searchAfter( final Query query,
+                                    final int pageSize,
+                                    final String continuation,
+                                    final SortBy sortBy,
+                                    final ClusterSegment... clusterSegments ) {
+        checkCondition( "pageSize must be positive", pageSize > 0 );
+        final Sort sort = toSort( sortBy );
+        final ScoreDoc after = continuation == null ? null : SearchCursor.decode( continuation, sort );
+
+        final IndexSearcher index = indexManager.getIndexSearcher( clusterSegments );
+        final List<KObject> result = new ArrayList<KObject>( pageSize );
+        try {
+            final TopDocs topDocs;
+            if ( sort == null ) {
+                topDocs = index.searchAfter( after, query, pageSize );
+            } else {
+                topDocs = index.searchAfter( after, query, pageSize, sort );
+            }
+            final ScoreDoc[] hits = topDocs.scoreDocs;
+            for ( final ScoreDoc hit : hits ) {
+                result.add( hydrate( index, hit.doc ) );
+            }
+            if ( hits.length < pageSize ) {
+                return new SearchPage( result, null );
+            }
+            return new SearchPage( result, SearchCursor.encode( hits[ hits.length - 1 ] ) );
+        } catch ( final Exception ex ) {
+            throw new RuntimeException( "Error during Query!", ex );
+        } finally {
+            indexManager.release( index );
+        }
+    }
+
+    private KObject hydrate( final IndexSearcher index,
+                             final int doc ) throws IOException {
+        if ( !lazyResults ) {
+            return toKObject( index.doc( doc ) );
+        }
+        final Document keys = index.doc( doc, KEY_FIELDS );
+        final String clusterId = keys.get( "cluster.id" );
+        final String id = keys.get( "id" );
+        return toKObject( keys, new DocumentLoader() {
+            @Override
+            public Document load() {
+                return loadDocument( clusterId, id );
+            }
+        } );
+    }
+
+    /**
+     * Looks the document up by id, as doc ids of the searcher used for the results aren't valid anymore.
+     */
+    private Document loadDocument( final String clusterId,
+                                   final String id ) {
+        final LuceneIndex index = (LuceneIndex) indexManager.get( new KClusterImpl( clusterId ) );
+        if ( index == null ) {
+            return null;
+        }
+        final IndexSearcher searcher = index.nrtSearcher();
+        try {
+            final TopDocs topDocs = searcher.search( new TermQuery( new Term( "id", id ) ), 1 );
+            if ( topDocs.scoreDocs.length == 0 ) {
+                return null;
+            }
+            return searcher.doc( topDocs.scoreDocs[ 0 ].doc );
+        } catch ( final IOException ex ) {
+            throw new RuntimeException( "Error loading document '" + id + "'", ex );
+        } finally {
+            index.nrtRelease( searcher );
+        }
+    }
+
+    private Sort toSort( final SortBy sortBy ) {
+        if ( sortBy == null ) {
+            return null;
+        }
+        final SortField.Type type;
+        switch ( sortBy.getType() ) {
+            case INT:
+                type = SortField.Type.INT;
+                break;
+            case LONG:
+                type = SortField.Type.LONG;
+                break;
+            case DOUBLE:
+                type = SortField.Type.DOUBLE;
+                break;
+            default:
+                type = SortField.Type.STRING;
+        }
+        return new Sort( new SortField( checkNotEmpty( "sortBy.field", sortBy.getField() ), type, sortBy.isDescending() ) );
+    }
+
     private Query buildQuery( final Map<String, ?> attrs,
                               final ClusterSegment... clusterSegments ) {
         final BooleanQuery query = new BooleanQuery();
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.backend.lucene.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Encodes the last hit of a page (doc id, score and sort values) as an opaque, url safe token.
+ * <p/>
+ * Doc ids are the ones of the composite reader, so a cursor is exact as long as the index doesn't change; after
+ * changes it keeps following the sort order, but a few hits can be skipped or repeated at the page boundary.
+ */
+final class SearchCursor {
+
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte INTEGER = 1;
+    private static final byte LONG = 2;
+    private static final byte FLOAT = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BYTES = 5;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private SearchCursor() {
+
+    }
+
+    static String encode( final ScoreDoc hit ) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream( bytes );
+            out.writeByte( VERSION );
+            out.writeInt( hit.doc );
+            out.writeFloat( hit.score );
+            if ( hit instanceof FieldDoc ) {
+                final Object[] fields = ( (FieldDoc) hit ).fields;
+                out.writeInt( fields.length );
+                for ( final Object field : fields ) {
+                    writeValue( out, field );
+                }
+            } else {
+                out.writeInt( -1 );
+            }
+            out.flush();
+            return toHex( bytes.toByteArray() );
+        } catch ( final IOException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    /**
+     * @param sort sort of the search the token is used with, null for relevance.
+     */
+    static ScoreDoc decode( final String token,
+                            final Sort sort ) {
+        try {
+            final DataInputStream in = new DataInputStream( new ByteArrayInputStream( fromHex( token ) ) );
+            if ( in.readByte() != VERSION ) {
+                throw invalid( token );
+            }
+            final int doc = in.readInt();
+            final float score = in.readFloat();
+            final int size = in.readInt();
+            if ( sort == null ) {
+                if ( size != -1 ) {
+                    throw invalid( token );
+                }
+                return new ScoreDoc( doc, score );
+            }
+            if ( size != sort.getSort().length ) {
+                throw invalid( token );
+            }
+            final Object[] fields = new Object[ size ];
+            for ( int i = 0; i < size; i++ ) {
+                fields[ i ] = readValue( in );
+            }
+            return new FieldDoc( doc, score, fields );
+        } catch ( final IOException e ) {
+            throw invalid( token );
+        }
+    }
+
+    private static void writeValue( final DataOutputStream out,
+                                    final Object value ) throws IOException {
+        if ( value == null ) {
+            out.writeByte( NULL );
+        } else if ( value instanceof Integer ) {
+            out.writeByte( INTEGER );
+            out.writeInt( (Integer) value );
+        } else if ( value instanceof Long ) {
+            out.writeByte( LONG );
+            out.writeLong( (Long) value );
+        } else if ( value instanceof Float ) {
+            out.writeByte( FLOAT );
+            out.writeFloat( (Float) value );
+        } else if ( value instanceof Double ) {
+            out.writeByte( DOUBLE );
+            out.writeDouble( (Double) value );
+        } else if ( value instanceof BytesRef ) {
+            final BytesRef ref = (BytesRef) value;
+            out.writeByte( BYTES );
+            out.writeInt( ref.length );
+            out.write( ref.bytes, ref.offset, ref.length );
+        } else {
+            throw new IllegalArgumentException( "Unsupported sort value type " + value.getClass().getName() );
+        }
+    }
+
+    private static Object readValue( final DataInputStream in ) throws IOException {
+        final byte type = in.readByte();
+        switch ( type ) {
+            case NULL:
+                return null;
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case BYTES:
+                final int length = in.readInt();
+                if ( length < 0 || length > in.available() ) {
+                    throw new IOException( "Invalid sort value length " + length );
+                }
+                final byte[] bytes = new byte[ length ];
+                in.readFully( bytes );
+                return new BytesRef( bytes );
+            default:
+                throw new IOException( "Unknown sort value type " + type );
+        }
+    }
+
+    private static String toHex( final byte[] bytes ) {
+        final char[] chars = new char[ bytes.length * 2 ];
+        for ( int i = 0; i < bytes.length; i++ ) {
+            chars[ i * 2 ] = HEX[ ( bytes[ i ] >> 4 ) & 0xf ];
+            chars[ i * 2 + 1 ] = HEX[ bytes[ i ] & 0xf ];
+        }
+        return new String( chars );
+    }
+
+    private static byte[] fromHex( final String token ) throws IOException {
+        if ( token.length() % 2 != 0 ) {
+            throw new IOException( "Odd token length" );
+        }
+        final byte[] bytes = new byte[ token.length() / 2 ];
+        for ( int i = 0; i < bytes.length; i++ ) {
+            final int high = Character.digit( token.charAt( i * 2 ), 16 );
+            final int low = Character.digit( token.charAt( i * 2 + 1 ), 16 );
+            if ( high < 0 || low < 0 ) {
+                throw new IOException( "Not an hex token" );
+            }
+            bytes[ i ] = (byte) ( ( high << 4 ) | low );
+        }
+        return bytes;
+    }
+
+    private static IllegalArgumentException invalid( final String token ) {
+        return new IllegalArgumentException( "Invalid continuation token '" + token + "'." );
+    }
+}
@@ -18,7 +18,11 @@ package org.uberfire.metadata.backend.lucene.util;
 
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexableField;
@@ -31,9 +35,36 @@ import org.uberfire.metadata.model.schema.MetaType;
  */
 public final class KObjectUtil {
 
+    /**
+     * Fields every result needs, loaded up front when results are hydrated lazily.
+     */
+    public static final Set<String> KEY_FIELDS = Collections.unmodifiableSet( new HashSet<String>( Arrays.asList( "id", "type", "cluster.id", "segment.id", "key" ) ) );
+
+    /**
+     * Loads the complete stored document of a lazy result.
+     */
+    public interface DocumentLoader {
+
+        /**
+         * @return null if the document doesn't exist anymore.
+         */
+        Document load();
+    }
+
     public static KObject toKObject( final Document document ) {
+        return toKObject( document, null );
+    }
+
+    /**
+     * @param document the complete stored document or, if a loader is given, just its {@link #KEY_FIELDS}.
+     * @param loader loads the complete document the first time properties are requested; null if it's complete.
+     */
+    public static KObject toKObject( final Document document,
+                                     final DocumentLoader loader ) {
         return new KObject() {
 
+            private Document complete = loader == null ? document : null;
+
             @Override
             public String getId() {
                 return document.get( "id" );
@@ -92,7 +123,7 @@ public final class KObjectUtil {
             @Override
             public Iterable<KProperty<?>> getProperties() {
                 final List<KProperty<?>> kProperties = new ArrayList<KProperty<?>>();
-                for ( final IndexableField indexableField : document ) {
+                for ( final IndexableField indexableField : completeDocument() ) {
                     if ( isExtension( indexableField.name() ) ) {
                         kProperties.add( new KProperty<Object>() {
                             @Override
@@ -116,6 +147,14 @@ public final class KObjectUtil {
                 return kProperties;
             }
 
+            private synchronized Document completeDocument() {
+                if ( complete == null ) {
+                    final Document loaded = loader.load();
+                    complete = loaded == null ? document : loaded;
+                }
+                return complete;
+            }
+
             private boolean isExtension( final String name ) {
                 return !( name.equals( "id" ) || name.equals( "type" ) || name.equals( "cluster.id" ) || name.equals( "segment.id" ) || name.equals( "key" ) );
             }
@@ -16,8 +16,21 @@
 
 package org.uberfire.metadata.io;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,11 +38,14 @@ import org.uberfire.commons.async.DescriptiveRunnable;
 import org.uberfire.commons.async.SimpleAsyncExecutorService;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.FileSystemChanges;
 import org.uberfire.java.nio.base.FileSystemId;
+import org.uberfire.java.nio.base.WatchContext;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.FileVisitResult;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.java.nio.file.SimpleFileVisitor;
+import org.uberfire.java.nio.file.WatchEvent;
 import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 import org.uberfire.java.nio.file.attribute.FileAttribute;
 import org.uberfire.java.nio.file.attribute.FileAttributeView;
@@ -37,27 +53,46 @@ import org.uberfire.metadata.engine.Indexer;
 import org.uberfire.metadata.engine.MetaIndexEngine;
 import org.uberfire.metadata.model.KCluster;
 import org.uberfire.metadata.model.KObject;
+import org.uberfire.metadata.model.KObjectKey;
 
 import static org.uberfire.commons.validation.PortablePreconditions.*;
 import static org.uberfire.java.nio.file.Files.*;
+import static org.uberfire.java.nio.file.StandardWatchEventKind.*;
 import static org.uberfire.metadata.io.KObjectUtil.*;
 
 /**
- *
+ * Indexes a whole file system root, or only what changed since the last indexed revision of it.
+ * <p/>
+ * Attributes loading and {@link Indexer#toKObject(Path)} run on a bounded worker pool, while results are handed
+ * to the index engine in walk order from the calling thread. After each run the root revision is stored as an index
+ * checkpoint, used by {@link #runIncremental(Path)} to index only the changes since then.
  */
 public final class BatchIndex {
 
     private static final Logger LOG = LoggerFactory.getLogger( BatchIndex.class );
 
+    public static final int DEFAULT_THREADS = Integer.parseInt( System.getProperty( "org.uberfire.metadata.index.threads",
+                                                                                    String.valueOf( Runtime.getRuntime().availableProcessors() ) ) );
+
     private final MetaIndexEngine indexEngine;
     private final Set<Indexer> additionalIndexers;
     private final IOService ioService;
     private final Class<? extends FileAttributeView>[] views;
     private final AtomicBoolean indexDisposed = new AtomicBoolean( false );
+    private final int threads;
+    private ExecutorService executor = null;
+
+    public BatchIndex( final MetaIndexEngine indexEngine,
+                       final Set<Indexer> additionalIndexers,
+                       final IOService ioService,
+                       final Class<? extends FileAttributeView>... views ) {
+        this( indexEngine, additionalIndexers, ioService, DEFAULT_THREADS, views );
+    }
 
     public BatchIndex( final MetaIndexEngine indexEngine,
                        final Set<Indexer> additionalIndexers,
                        final IOService ioService,
+                       final int threads,
                        final Class<? extends FileAttributeView>... views ) {
         this.indexEngine = checkNotNull( "indexEngine",
                                          indexEngine );
@@ -65,10 +100,24 @@ public final class BatchIndex {
                                                 additionalIndexers );
         this.ioService = checkNotNull( "ioService",
                                        ioService );
+        this.threads = threads;
         this.views = views;
     }
 
     public void runAsync( final FileSystem fs ) {
+        runAsync( fs, false );
+    }
+
+    /**
+     * Indexes only the changes since the last indexed revision of each root of the file system; roots without
+     * checkpoint are left untouched, roots whose checkpoint revision is unknown are fully walked again.
+     */
+    public void runAsyncIncremental( final FileSystem fs ) {
+        runAsync( fs, true );
+    }
+
+    private void runAsync( final FileSystem fs,
+                           final boolean incremental ) {
         if ( fs != null && fs.getRootDirectories().iterator().hasNext() ) {
             SimpleAsyncExecutorService.getUnmanagedInstance().execute( new DescriptiveRunnable() {
                 @Override
@@ -84,7 +133,7 @@ public final class BatchIndex {
                         public void run() {
                             indexDisposed.set( true );
 
-                            if ( !indexFinished.get() ) {
+                            if ( !indexFinished.get() && !incremental ) {
                                 indexEngine.delete( KObjectUtil.toKCluster( fs ) );
                             }
                         }
@@ -92,7 +141,11 @@ public final class BatchIndex {
 
                     try {
                         for ( final Path root : fs.getRootDirectories() ) {
-                            BatchIndex.this.run( root );
+                            if ( incremental ) {
+                                BatchIndex.this.runIncremental( root );
+                            } else {
+                                BatchIndex.this.run( root );
+                            }
                         }
                         indexFinished.set( true );
                     } catch ( Exception ex ) {
@@ -130,7 +183,9 @@ public final class BatchIndex {
                 return;
             }
             final KCluster cluster = toKCluster( root.getFileSystem() );
+            final String revision = revisionOf( root );
             indexEngine.startBatch( cluster );
+            final OrderedHandOff handOff = new OrderedHandOff();
             walkFileTree( checkNotNull( "root", root ),
                           new SimpleFileVisitor<Path>() {
                               @Override
@@ -139,49 +194,13 @@ public final class BatchIndex {
                                   if ( indexDisposed.get() ) {
                                       return FileVisitResult.TERMINATE;
                                   }
-                                  try {
-                                      checkNotNull( "file",
-                                                    file );
-                                      checkNotNull( "attrs",
-                                                    attrs );
-
-                                      if ( !file.getFileName().toString().startsWith( "." ) ) {
-
-                                          //Default indexing
-                                          for ( final Class<? extends FileAttributeView> view : views ) {
-                                              ioService.getFileAttributeView( file,
-                                                                              view );
-                                          }
-                                          final FileAttribute<?>[] allAttrs = ioService.convert( ioService.readAttributes( file ) );
-                                          if ( !indexDisposed.get() ) {
-                                              indexEngine.index( KObjectUtil.toKObject( file,
-                                                                                        allAttrs ) );
-                                          } else {
-                                              return FileVisitResult.TERMINATE;
-                                          }
-
-                                          //Additional indexing
-                                          for ( Indexer indexer : additionalIndexers ) {
-                                              if ( indexer.supportsPath( file ) ) {
-                                                  final KObject kObject = indexer.toKObject( file );
-                                                  if ( kObject != null ) {
-                                                      if ( !indexDisposed.get() ) {
-                                                          indexEngine.index( kObject );
-                                                      } else {
-                                                          return FileVisitResult.TERMINATE;
-                                                      }
-                                                  }
-                                              }
-                                          }
-
-                                      }
-                                  } catch ( final Exception ex ) {
-                                      if ( indexDisposed.get() ) {
-                                          LOG.warn( "Batch index couldn't finish. [@" + root.toUri().toString() + "]" );
-                                          return FileVisitResult.TERMINATE;
-                                      } else {
-                                          LOG.error( "Index fails. [@" + file.toString() + "]", ex );
-                                      }
+                                  checkNotNull( "file",
+                                                file );
+                                  checkNotNull( "attrs",
+                                                attrs );
+
+                                  if ( !file.getFileName().toString().startsWith( "." ) && !handOff.submit( file ) ) {
+                                      return FileVisitResult.TERMINATE;
                                   }
                                   if ( indexDisposed.get() ) {
                                       return FileVisitResult.TERMINATE;
@@ -189,14 +208,8 @@ public final class BatchIndex {
                                   return FileVisitResult.CONTINUE;
                               }
                           } );
-            if ( !indexDisposed.get() ) {
-                indexEngine.commit( cluster );
-                if ( callback != null ) {
-                    callback.run();
-                }
-            } else {
-                LOG.warn( "Batch index couldn't finish. [@" + root.toUri().toString() + "]" );
-            }
+            handOff.drain();
+            finish( root, cluster, revision, callback );
         } catch ( final IllegalStateException ex ) {
             if ( indexDisposed.get() ) {
                 LOG.warn( "Batch index couldn't finish. [@" + root.toUri().toString() + "]" );
@@ -212,8 +225,277 @@ public final class BatchIndex {
         }
     }
 
+    public void runIncremental( final Path root ) {
+        runIncremental( root, null );
+    }
+
+    public void runIncremental( final Path root,
+                                final Runnable callback ) {
+        if ( root == null || !( root.getFileSystem() instanceof FileSystemChanges ) ) {
+            return;
+        }
+        final KCluster cluster = toKCluster( root.getFileSystem() );
+        final String checkpoint = indexEngine.getCheckpoint( cluster, checkpointName( root ) );
+        if ( checkpoint == null ) {
+            return;
+        }
+        final String revision = revisionOf( root );
+        if ( checkpoint.equals( revision ) ) {
+            return;
+        }
+
+        final List<WatchEvent<?>> changes = ( (FileSystemChanges) root.getFileSystem() ).changesSince( root, checkpoint );
+        if ( changes == null ) {
+            LOG.warn( "Last indexed revision is unknown, indexing it again. [@" + root.toUri().toString() + "]" );
+            run( root, callback );
+            return;
+        }
+
+        try {
+            indexEngine.startBatch( cluster );
+            final OrderedHandOff handOff = new OrderedHandOff();
+            for ( final WatchEvent<?> event : changes ) {
+                if ( indexDisposed.get() ) {
+                    break;
+                }
+                if ( event.kind() == ENTRY_MODIFY || event.kind() == ENTRY_CREATE ) {
+                    final Path path = ( (WatchContext) event.context() ).getPath();
+                    if ( !path.getFileName().toString().startsWith( "." ) && !handOff.submit( path ) ) {
+                        break;
+                    }
+                } else if ( handOff.drain() ) {
+                    try {
+                        index( event );
+                    } catch ( final Exception ex ) {
+                        LOG.error( "Error during indexing. { " + event.toString() + " }", ex );
+                    }
+                }
+            }
+            handOff.drain();
+            finish( root, cluster, revision, callback );
+        } catch ( final Exception ex ) {
+            if ( indexDisposed.get() ) {
+                LOG.warn( "Batch index couldn't finish. [@" + root.toUri().toString() + "]" );
+            } else {
+                LOG.error( "Index fails. [@" + root.toUri().toString() + "]", ex );
+            }
+        }
+    }
+
+    /**
+     * Applies a single file system change (create, modify, rename or delete) to the index.
+     */
+    public void index( final WatchEvent<?> event ) {
+        final WatchContext context = ( (WatchContext) event.context() );
+        if ( event.kind() == ENTRY_MODIFY || event.kind() == ENTRY_CREATE ) {
+            final Path path = context.getPath();
+
+            if ( !path.getFileName().toString().startsWith( "." ) ) {
+                for ( final KObject kObject : toKObjects( path ) ) {
+                    indexEngine.index( kObject );
+                }
+            }
+        }
+        if ( event.kind() == ENTRY_RENAME ) {
+            //Default indexing
+            final Path sourcePath = context.getOldPath();
+            final Path destinationPath = context.getPath();
+            indexEngine.rename( KObjectUtil.toKObjectKey( sourcePath ),
+                                KObjectUtil.toKObject( destinationPath ) );
+
+            //Additional indexing
+            for ( Indexer indexer : additionalIndexers ) {
+                if ( indexer.supportsPath( destinationPath ) ) {
+                    final KObjectKey kObjectSource = indexer.toKObjectKey( sourcePath );
+                    final KObject kObjectDestination = indexer.toKObject( destinationPath );
+                    if ( kObjectSource != null && kObjectDestination != null ) {
+                        indexEngine.rename( kObjectSource,
+                                            kObjectDestination );
+                    }
+                }
+            }
+        }
+
+        if ( event.kind() == ENTRY_DELETE ) {
+            //Default indexing
+            final Path oldPath = context.getOldPath();
+            indexEngine.delete( KObjectUtil.toKObjectKey( oldPath ) );
+
+            //Additional indexing
+            for ( Indexer indexer : additionalIndexers ) {
+                if ( indexer.supportsPath( oldPath ) ) {
+                    final KObjectKey kObject = indexer.toKObjectKey( oldPath );
+                    if ( kObject != null ) {
+                        indexEngine.delete( kObject );
+                    }
+                }
+            }
+        }
+    }
+
     public void dispose() {
+        synchronized ( this ) {
+            if ( executor != null ) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
         indexEngine.dispose();
     }
 
+    private void finish( final Path root,
+                         final KCluster cluster,
+                         final String revision,
+                         final Runnable callback ) {
+        if ( !indexDisposed.get() ) {
+            if ( revision != null ) {
+                indexEngine.setCheckpoint( cluster, checkpointName( root ), revision );
+            }
+            indexEngine.commit( cluster );
+            if ( callback != null ) {
+                callback.run();
+            }
+        } else {
+            LOG.warn( "Batch index couldn't finish. [@" + root.toUri().toString() + "]" );
+        }
+    }
+
+    private String revisionOf( final Path root ) {
+        if ( root.getFileSystem() instanceof FileSystemChanges ) {
+            return ( (FileSystemChanges) root.getFileSystem() ).revision( root );
+        }
+        return null;
+    }
+
+    private String checkpointName( final Path root ) {
+        return "revision:" + root.toUri().toString();
+    }
+
+    /**
+     * Loads the default and additional {@link KObject}s of a file; failures are logged and produce no object.
+     */
+    private List<KObject> toKObjects( final Path file ) {
+        try {
+            final List<KObject> result = new ArrayList<KObject>( additionalIndexers.size() + 1 );
+
+            //Default indexing
+            for ( final Class<? extends FileAttributeView> view : views ) {
+                ioService.getFileAttributeView( file,
+                                                view );
+            }
+            final FileAttribute<?>[] allAttrs = ioService.convert( ioService.readAttributes( file ) );
+            result.add( KObjectUtil.toKObject( file,
+                                               allAttrs ) );
+
+            //Additional indexing
+            for ( Indexer indexer : additionalIndexers ) {
+                if ( indexer.supportsPath( file ) ) {
+                    final KObject kObject = indexer.toKObject( file );
+                    if ( kObject != null ) {
+                        result.add( kObject );
+                    }
+                }
+            }
+            return result;
+        } catch ( final Exception ex ) {
+            if ( !indexDisposed.get() ) {
+                LOG.error( "Index fails. [@" + file.toString() + "]", ex );
+            }
+            return Collections.emptyList();
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if ( executor == null ) {
+            executor = Executors.newFixedThreadPool( threads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread( final Runnable runnable ) {
+                    final Thread thread = new Thread( runnable, "BatchIndex-worker-" + count.incrementAndGet() );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            } );
+        }
+        return executor;
+    }
+
+    /**
+     * Loads files on the worker pool, keeping a bounded number of them in flight, and indexes the results
+     * in submission order on the calling thread.
+     */
+    private class OrderedHandOff {
+
+        private final Deque<Future<List<KObject>>> inFlight = new ArrayDeque<Future<List<KObject>>>();
+        private final int maxInFlight = Math.max( threads, 1 ) * 4;
+
+        /**
+         * @return false if indexing must stop.
+         */
+        boolean submit( final Path file ) {
+            final Callable<List<KObject>> task = new Callable<List<KObject>>() {
+                @Override
+                public List<KObject> call() throws Exception {
+                    return toKObjects( file );
+                }
+            };
+            if ( threads <= 1 ) {
+                final FutureTask<List<KObject>> future = new FutureTask<List<KObject>>( task );
+                future.run();
+                inFlight.add( future );
+            } else {
+                inFlight.add( executor().submit( task ) );
+            }
+            while ( inFlight.size() >= maxInFlight ) {
+                if ( !indexNext() ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return false if indexing must stop.
+         */
+        boolean drain() {
+            while ( !inFlight.isEmpty() ) {
+                if ( !indexNext() ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean indexNext() {
+            final Future<List<KObject>> next = inFlight.poll();
+            final List<KObject> kObjects;
+            try {
+                kObjects = next.get();
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                cancelAll();
+                return false;
+            } catch ( final ExecutionException e ) {
+                LOG.error( "Index fails.", e.getCause() );
+                return true;
+            }
+            if ( indexDisposed.get() ) {
+                cancelAll();
+                return false;
+            }
+            if ( !kObjects.isEmpty() ) {
+                indexEngine.index( kObjects.toArray( new KObject[ kObjects.size() ] ) );
+            }
+            return true;
+        }
+
+        private void cancelAll() {
+            for ( final Future<List<KObject>> future : inFlight ) {
+                future.cancel( true );
+            }
+            inFlight.clear();
+        }
+    }
+
 }
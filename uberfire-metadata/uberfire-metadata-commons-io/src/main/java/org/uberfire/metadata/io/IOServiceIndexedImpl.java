@@ -21,18 +21,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.uberfire.commons.async.DescriptiveRunnable;
-import org.uberfire.commons.async.SimpleAsyncExecutorService;
 import org.uberfire.commons.lock.LockService;
 import org.uberfire.io.FileSystemType;
 import org.uberfire.io.IOWatchService;
 import org.uberfire.io.impl.IOServiceDotFileImpl;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.FSPath;
-import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.base.watch.WatchEventDispatcher;
 import org.uberfire.java.nio.file.DeleteOption;
 import org.uberfire.java.nio.file.DirectoryNotEmptyException;
 import org.uberfire.java.nio.file.FileSystem;
@@ -41,20 +42,15 @@ import org.uberfire.java.nio.file.FileSystemNotFoundException;
 import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.java.nio.file.ProviderNotFoundException;
-import org.uberfire.java.nio.file.StandardWatchEventKind;
 import org.uberfire.java.nio.file.WatchEvent;
 import org.uberfire.java.nio.file.WatchKey;
 import org.uberfire.java.nio.file.WatchService;
-import org.uberfire.java.nio.file.attribute.FileAttribute;
 import org.uberfire.java.nio.file.attribute.FileAttributeView;
 import org.uberfire.metadata.engine.Indexer;
 import org.uberfire.metadata.engine.MetaIndexEngine;
 import org.uberfire.metadata.model.KCluster;
-import org.uberfire.metadata.model.KObject;
-import org.uberfire.metadata.model.KObjectKey;
 
 import static org.uberfire.commons.validation.Preconditions.*;
-import static org.uberfire.java.nio.file.StandardWatchEventKind.*;
 
 public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
 
@@ -67,6 +63,16 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
     private final List<FileSystem> watchedList = new ArrayList<FileSystem>();
     private final Set<Indexer> additionalIndexers;
     private final List<WatchService> watchServices = new ArrayList<WatchService>();
+    private final List<WatchEventDispatcher.Subscription> subscriptions = new ArrayList<WatchEventDispatcher.Subscription>();
+    // indexing is slow, it gets its own thread instead of holding the shared watch event dispatcher ones
+    private final ExecutorService indexingExecutor = Executors.newSingleThreadExecutor( new ThreadFactory() {
+        @Override
+        public Thread newThread( final Runnable r ) {
+            final Thread thread = new Thread( r, "watch-event-indexer" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    } );
 
     public IOServiceIndexedImpl( final MetaIndexEngine indexEngine,
                                  final Set<Indexer> additionalIndexers,
@@ -217,9 +223,13 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
 
     @Override
     public void dispose() {
+        for ( final WatchEventDispatcher.Subscription subscription : subscriptions ) {
+            subscription.cancel();
+        }
         for ( final WatchService watchService : watchServices ) {
             watchService.close();
         }
+        indexingExecutor.shutdown();
         super.dispose();
     }
 
@@ -231,99 +241,33 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
         watchedList.add( fs );
         watchServices.add( ws );
 
-        SimpleAsyncExecutorService.getUnmanagedInstance().execute( new DescriptiveRunnable() {
+        final WatchEventDispatcher.Subscription subscription = WatchEventDispatcher.getInstance().subscribe( ws, "IOServiceIndexedImpl(" + ws.toString() + ")", new WatchEventDispatcher.WatchKeyHandler() {
             @Override
-            public String getDescription() {
-                return "IOServiceIndexedImpl(" + ws.toString() + ")";
-            }
+            public boolean handle( final WatchKey wk ) {
+                if ( isDisposed ) {
+                    return false;
+                }
 
-            @Override
-            public void run() {
-                while ( !isDisposed && !ws.isClose() ) {
-                    final WatchKey wk;
+                final List<WatchEvent<?>> events = wk.pollEvents();
+                for ( WatchEvent object : events ) {
                     try {
-                        wk = ws.take();
+                        batchIndex.index( object );
                     } catch ( final Exception ex ) {
-                        break;
-                    }
-
-                    final List<WatchEvent<?>> events = wk.pollEvents();
-                    for ( WatchEvent object : events ) {
-                        try {
-                            final WatchContext context = ( (WatchContext) object.context() );
-                            if ( object.kind() == ENTRY_MODIFY || object.kind() == ENTRY_CREATE ) {
-
-                                final Path path = context.getPath();
-
-                                if ( !path.getFileName().toString().startsWith( "." ) ) {
-                                    //Default indexing
-                                    for ( final Class<? extends FileAttributeView> view : views ) {
-                                        getFileAttributeView( path,
-                                                              view );
-                                    }
-                                    final FileAttribute<?>[] allAttrs = convert( readAttributes( path ) );
-                                    indexEngine.index( KObjectUtil.toKObject( path,
-                                                                              allAttrs ) );
-
-                                    //Additional indexing
-                                    for ( Indexer indexer : additionalIndexers ) {
-                                        if ( indexer.supportsPath( path ) ) {
-                                            final KObject kObject = indexer.toKObject( path );
-                                            if ( kObject != null ) {
-                                                indexEngine.index( kObject );
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                            if ( object.kind() == StandardWatchEventKind.ENTRY_RENAME ) {
-                                //Default indexing
-                                final Path sourcePath = context.getOldPath();
-                                final Path destinationPath = context.getPath();
-                                indexEngine.rename( KObjectUtil.toKObjectKey( sourcePath ),
-                                                    KObjectUtil.toKObject( destinationPath ) );
-
-                                //Additional indexing
-                                for ( Indexer indexer : additionalIndexers ) {
-                                    if ( indexer.supportsPath( destinationPath ) ) {
-                                        final KObjectKey kObjectSource = indexer.toKObjectKey( sourcePath );
-                                        final KObject kObjectDestination = indexer.toKObject( destinationPath );
-                                        if ( kObjectSource != null && kObjectDestination != null ) {
-                                            indexEngine.rename( kObjectSource,
-                                                                kObjectDestination );
-                                        }
-                                    }
-                                }
-                            }
-
-                            if ( object.kind() == StandardWatchEventKind.ENTRY_DELETE ) {
-                                //Default indexing
-                                final Path oldPath = context.getOldPath();
-                                indexEngine.delete( KObjectUtil.toKObjectKey( oldPath ) );
-
-                                //Additional indexing
-                                for ( Indexer indexer : additionalIndexers ) {
-                                    if ( indexer.supportsPath( oldPath ) ) {
-                                        final KObjectKey kObject = indexer.toKObjectKey( oldPath );
-                                        if ( kObject != null ) {
-                                            indexEngine.delete( kObject );
-                                        }
-                                    }
-                                }
-                            }
-
-                        } catch ( final Exception ex ) {
-                            LOGGER.error( "Error during indexing. { " + object.toString() + " }", ex );
-                        }
+                        LOGGER.error( "Error during indexing. { " + object.toString() + " }", ex );
                     }
                 }
+                return true;
             }
-        } );
+        }, indexingExecutor );
+        subscriptions.add( subscription );
     }
 
     private void indexIfFresh( final FileSystem fs ) {
         if ( indexEngine.freshIndex( KObjectUtil.toKCluster( fs ) ) ) {
             index( fs );
+        } else if ( !watchedList.contains( fs ) ) {
+            // first access since startup: catch up with changes made while the index was offline
+            batchIndex.runAsyncIncremental( fs );
         }
     }
 
@@ -22,10 +22,12 @@ import java.net.URI;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopScoreDocCollector;
@@ -65,7 +67,6 @@ public class BatchIndexTest {
     public static void setup() throws IOException {
         final String path = createTempDirectory().getAbsolutePath();
         System.setProperty( "org.uberfire.nio.git.dir", path );
-        System.out.println( ".niogit: " + path );
 
         final URI newRepo = URI.create( "git://temp-repo-test" );
 
@@ -239,6 +240,64 @@ public class BatchIndexTest {
 
     }
 
+    @Test
+    public void testIncrementalIndex() throws IOException, InterruptedException {
+        final URI repo = URI.create( "git://temp-repo-incremental-test" );
+        ioService().newFileSystem( repo, new HashMap<String, Object>() );
+
+        final Path first = ioService().get( "git://temp-repo-incremental-test/first.txt" );
+        final Path second = ioService().get( "git://temp-repo-incremental-test/second.txt" );
+        final Path third = ioService().get( "git://temp-repo-incremental-test/third.txt" );
+        ioService().write( first, "first content" );
+        ioService().write( second, "second content" );
+
+        final Path root = ioService().get( "git://temp-repo-incremental-test/" );
+        final BatchIndex batchIndex = new BatchIndex( config.getIndexEngine(),
+                                                      config.getIndexers(),
+                                                      ioService(),
+                                                      2,
+                                                      DublinCoreView.class );
+        batchIndex.run( root );
+        assertEquals( 2, countDocs( root, new MatchAllDocsQuery() ) );
+        assertTrue( isIndexed( first ) );
+        assertTrue( isIndexed( second ) );
+        assertFalse( isIndexed( third ) );
+
+        ioService().write( third, "third content" );
+        ioService().delete( first );
+
+        final AtomicBoolean finished = new AtomicBoolean( false );
+        batchIndex.runIncremental( root, new Runnable() {
+            @Override
+            public void run() {
+                finished.set( true );
+            }
+        } );
+
+        assertTrue( finished.get() );
+        assertEquals( 2, countDocs( root, new MatchAllDocsQuery() ) );
+        assertFalse( isIndexed( first ) );
+        assertTrue( isIndexed( second ) );
+        assertTrue( isIndexed( third ) );
+    }
+
+    private boolean isIndexed( final Path path ) throws IOException {
+        return countDocs( path, new TermQuery( new Term( "id", toKObjectKey( path ).getId() ) ) ) == 1;
+    }
+
+    private int countDocs( final Path path,
+                           final Query query ) throws IOException {
+        final LuceneIndex index = (LuceneIndex) config.getIndexManager().get( toKCluster( path.getFileSystem() ) );
+        final IndexSearcher searcher = index.nrtSearcher();
+        try {
+            final TopScoreDocCollector collector = TopScoreDocCollector.create( 10, true );
+            searcher.search( query, collector );
+            return collector.topDocs().scoreDocs.length;
+        } finally {
+            index.nrtRelease( searcher );
+        }
+    }
+
     public static File createTempDirectory()
             throws IOException {
         final File temp = File.createTempFile( "temp", Long.toString( System.nanoTime() ) );
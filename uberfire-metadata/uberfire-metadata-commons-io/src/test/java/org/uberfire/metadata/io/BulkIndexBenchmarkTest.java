@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.io;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.metadata.backend.lucene.LuceneConfig;
+import org.uberfire.metadata.backend.lucene.LuceneConfigBuilder;
+import org.uberfire.metadata.backend.lucene.index.LuceneIndex;
+import org.uberfire.metadata.backend.lucene.model.KClusterImpl;
+import org.uberfire.metadata.engine.MetaIndexEngine;
+import org.uberfire.metadata.model.KObject;
+import org.uberfire.metadata.model.schema.MetaType;
+
+import static org.junit.Assert.*;
+import static org.uberfire.metadata.io.TestKObjects.*;
+
+/**
+ * Indexing throughput over a synthetic corpus, one document at a time vs. bulk.
+ * <p/>
+ * Run with <code>-Dorg.uberfire.metadata.benchmark=true</code>.
+ */
+public class BulkIndexBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger( BulkIndexBenchmarkTest.class );
+
+    private static final int DOCUMENTS = 100000;
+    private static final int CLUSTERS = 4;
+
+    private static final MetaType TYPE = metaType( "benchmark" );
+
+    private final List<KObject> corpus = new ArrayList<KObject>( DOCUMENTS );
+
+    @Before
+    public void setup() {
+        Assume.assumeTrue( Boolean.getBoolean( "org.uberfire.metadata.benchmark" ) );
+        for ( int i = 0; i < DOCUMENTS; i++ ) {
+            corpus.add( newKObject( "cluster" + ( i % CLUSTERS ), i ) );
+        }
+    }
+
+    @Test
+    public void testThroughput() {
+        final LuceneConfig single = newConfig();
+        try {
+            final MetaIndexEngine engine = single.getIndexEngine();
+            final long start = System.nanoTime();
+            for ( int i = 0; i < CLUSTERS; i++ ) {
+                engine.startBatch( new KClusterImpl( "cluster" + i ) );
+            }
+            for ( final KObject object : corpus ) {
+                engine.index( object );
+            }
+            for ( int i = 0; i < CLUSTERS; i++ ) {
+                engine.commit( new KClusterImpl( "cluster" + i ) );
+            }
+            report( "single", start );
+            assertEquals( DOCUMENTS, countDocs( single ) );
+        } finally {
+            single.dispose();
+        }
+
+        final LuceneConfig bulk = newConfig();
+        try {
+            final long start = System.nanoTime();
+            bulk.getIndexEngine().index( corpus.toArray( new KObject[ corpus.size() ] ) );
+            report( "bulk", start );
+            assertEquals( DOCUMENTS, countDocs( bulk ) );
+
+            // re-indexing replaces the documents
+            bulk.getIndexEngine().index( corpus.subList( 0, 1000 ).toArray( new KObject[ 1000 ] ) );
+            assertEquals( DOCUMENTS, countDocs( bulk ) );
+        } finally {
+            bulk.dispose();
+        }
+    }
+
+    private LuceneConfig newConfig() {
+        return new LuceneConfigBuilder()
+                .withInMemoryMetaModelStore()
+                .useDirectoryBasedIndex()
+                .useInMemoryDirectory()
+                .withRAMBufferSizeMB( 64 )
+                .build();
+    }
+
+    private int countDocs( final LuceneConfig config ) {
+        int total = 0;
+        for ( int i = 0; i < CLUSTERS; i++ ) {
+            final LuceneIndex index = (LuceneIndex) config.getIndexManager().get( new KClusterImpl( "cluster" + i ) );
+            final IndexSearcher searcher = index.nrtSearcher();
+            try {
+                total += searcher.getIndexReader().numDocs();
+            } finally {
+                index.nrtRelease( searcher );
+            }
+        }
+        return total;
+    }
+
+    private void report( final String name,
+                         final long start ) {
+        final long elapsed = Math.max( System.nanoTime() - start, 1 );
+        logger.info( "{}: {} documents in {}ms, {} docs/s", name, DOCUMENTS, elapsed / 1000000, DOCUMENTS * 1000000000L / elapsed );
+    }
+
+    private static KObject newKObject( final String clusterId,
+                                       final int i ) {
+        return kObject( TYPE, clusterId, "/path/" + ( i / 100 ) + "/file" + i + ".txt",
+                        property( "dcore.author", "author " + ( i % 97 ) ),
+                        property( "dcore.comment", "synthetic document number " + i + " for the indexing benchmark" ),
+                        property( "dcore.lastModification", new Date( 1400000000000L + i ) ),
+                        property( "filename", "file" + i + ".txt" ) );
+    }
+}
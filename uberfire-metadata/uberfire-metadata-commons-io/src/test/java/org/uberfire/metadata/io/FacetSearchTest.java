@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.uberfire.metadata.backend.lucene.LuceneConfig;
+import org.uberfire.metadata.backend.lucene.LuceneConfigBuilder;
+import org.uberfire.metadata.model.KObject;
+import org.uberfire.metadata.search.ClusterSegment;
+import org.uberfire.metadata.search.FacetRequest;
+import org.uberfire.metadata.search.FacetResult;
+
+import static org.junit.Assert.*;
+import static org.uberfire.metadata.io.TestKObjects.*;
+
+public class FacetSearchTest {
+
+    private static LuceneConfig config;
+
+    @BeforeClass
+    public static void setup() {
+        config = new LuceneConfigBuilder().withInMemoryMetaModelStore().useDirectoryBasedIndex().useInMemoryDirectory().build();
+        final List<KObject> objects = new ArrayList<KObject>();
+        for ( int i = 0; i < 30; i++ ) {
+            objects.add( newKObject( i % 3 == 0 ? "facet-repo-b" : "facet-repo-a",
+                                     i % 2 == 0 ? "drl" : "bpmn",
+                                     i < 20 ? "John Doe" : "Mary",
+                                     date( 2014, i < 10 ? Calendar.JANUARY : Calendar.MARCH, 1 + i % 28 ),
+                                     i ) );
+        }
+        config.getIndexEngine().index( objects.toArray( new KObject[ objects.size() ] ) );
+    }
+
+    @AfterClass
+    public static void cleanup() {
+        config.dispose();
+    }
+
+    @Test
+    public void testCountsInOnePass() {
+        final FacetResult result = config.getSearchIndex().fullTextSearchFacets( "facet", Arrays.asList( FacetRequest.terms( "type" ),
+                                                                                                          FacetRequest.terms( "cluster.id" ),
+                                                                                                          FacetRequest.terms( "lastModifiedBy" ),
+                                                                                                          FacetRequest.dateHistogram( "lastModifiedDate", FacetRequest.Interval.MONTH ) ) );
+
+        assertEquals( 30, result.getTotalHits() );
+
+        assertEquals( 15, (int) result.getCounts( "type" ).get( "drl" ) );
+        assertEquals( 15, (int) result.getCounts( "type" ).get( "bpmn" ) );
+
+        assertEquals( 20, (int) result.getCounts( "cluster.id" ).get( "facet-repo-a" ) );
+        assertEquals( 10, (int) result.getCounts( "cluster.id" ).get( "facet-repo-b" ) );
+        assertEquals( "facet-repo-a", result.getCounts( "cluster.id" ).keySet().iterator().next() );
+
+        final Map<String, Integer> authors = result.getCounts( "lastModifiedBy" );
+        assertEquals( 2, authors.size() );
+        assertEquals( 20, (int) authors.get( "John Doe" ) );
+        assertEquals( 10, (int) authors.get( "Mary" ) );
+
+        final Map<String, Integer> months = result.getCounts( "lastModifiedDate" );
+        assertEquals( Arrays.asList( "2014-01", "2014-03" ), new ArrayList<String>( months.keySet() ) );
+        assertEquals( 10, (int) months.get( "2014-01" ) );
+        assertEquals( 20, (int) months.get( "2014-03" ) );
+    }
+
+    @Test
+    public void testCountsOfClusterSubset() {
+        final FacetResult result = config.getSearchIndex().fullTextSearchFacets( "facet", Arrays.asList( FacetRequest.terms( "type" ) ), new ClusterSegment() {
+            @Override
+            public String getClusterId() {
+                return "facet-repo-b";
+            }
+
+            @Override
+            public String[] segmentIds() {
+                return new String[ 0 ];
+            }
+        } );
+
+        assertEquals( 10, result.getTotalHits() );
+        assertEquals( 5, (int) result.getCounts( "type" ).get( "drl" ) );
+        assertEquals( 5, (int) result.getCounts( "type" ).get( "bpmn" ) );
+    }
+
+    private static java.util.Date date( final int year,
+                                        final int month,
+                                        final int day ) {
+        final Calendar calendar = Calendar.getInstance( TimeZone.getTimeZone( "UTC" ) );
+        calendar.clear();
+        calendar.set( year, month, day, 12, 0 );
+        return calendar.getTime();
+    }
+
+    private static KObject newKObject( final String clusterId,
+                                       final String type,
+                                       final String author,
+                                       final java.util.Date date,
+                                       final int i ) {
+        return kObject( metaType( type ), clusterId, "/doc" + i,
+                        property( "dcore.comment", "facet sample" ),
+                        property( "lastModifiedBy", author ),
+                        property( "lastModifiedDate", date ) );
+    }
+}
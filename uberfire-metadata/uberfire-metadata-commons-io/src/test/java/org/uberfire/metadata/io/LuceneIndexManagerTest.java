@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.io;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.metadata.backend.lucene.LuceneConfig;
+import org.uberfire.metadata.backend.lucene.LuceneConfigBuilder;
+import org.uberfire.metadata.backend.lucene.index.LuceneIndexManager;
+import org.uberfire.metadata.backend.lucene.model.KClusterImpl;
+import org.uberfire.metadata.model.KObject;
+import org.uberfire.metadata.model.schema.MetaType;
+import org.uberfire.metadata.search.ClusterSegment;
+
+import static org.junit.Assert.*;
+import static org.uberfire.metadata.io.TestKObjects.*;
+
+public class LuceneIndexManagerTest {
+
+    private static final MetaType TYPE = metaType( "composite" );
+
+    private LuceneConfig config;
+    private LuceneIndexManager indexManager;
+
+    @Before
+    public void setup() {
+        config = new LuceneConfigBuilder().withInMemoryMetaModelStore().useDirectoryBasedIndex().useInMemoryDirectory().build();
+        config.getIndexEngine().index( newKObject( "repo-a", 1 ) );
+        config.getIndexEngine().index( newKObject( "repo-b", 1 ) );
+        indexManager = (LuceneIndexManager) config.getIndexManager();
+    }
+
+    @After
+    public void cleanup() {
+        config.dispose();
+    }
+
+    @Test
+    public void testCompositeSearcherIsShared() {
+        final IndexSearcher first = indexManager.getIndexSearcher();
+        final IndexSearcher second = indexManager.getIndexSearcher();
+        assertSame( first, second );
+        assertEquals( 2, first.getIndexReader().numDocs() );
+        // one reference held by the cache, one per caller
+        assertEquals( 3, first.getIndexReader().getRefCount() );
+
+        indexManager.release( first );
+        indexManager.release( second );
+        assertEquals( 1, first.getIndexReader().getRefCount() );
+    }
+
+    @Test
+    public void testCompositeSearcherPerClusterCombination() {
+        final IndexSearcher all = indexManager.getIndexSearcher();
+        final IndexSearcher repoA = indexManager.getIndexSearcher( segment( "repo-a" ) );
+        assertNotSame( all, repoA );
+        assertEquals( 2, all.getIndexReader().numDocs() );
+        assertEquals( 1, repoA.getIndexReader().numDocs() );
+
+        indexManager.release( all );
+        indexManager.release( repoA );
+    }
+
+    @Test
+    public void testCompositeSearcherRebuiltAfterChange() {
+        final IndexSearcher before = indexManager.getIndexSearcher();
+
+        config.getIndexEngine().index( newKObject( "repo-a", 2 ) );
+
+        final IndexSearcher after = indexManager.getIndexSearcher();
+        assertNotSame( before, after );
+        assertEquals( 3, after.getIndexReader().numDocs() );
+
+        // dropped by the cache, but still usable by its current holder
+        assertEquals( 1, before.getIndexReader().getRefCount() );
+        assertEquals( 2, before.getIndexReader().numDocs() );
+        indexManager.release( before );
+        assertEquals( 0, before.getIndexReader().getRefCount() );
+
+        indexManager.release( after );
+    }
+
+    @Test
+    public void testDeletedClusterPurgesCompositeSearchers() {
+        final IndexSearcher all = indexManager.getIndexSearcher();
+        indexManager.release( all );
+        assertEquals( 1, all.getIndexReader().getRefCount() );
+
+        indexManager.delete( new KClusterImpl( "repo-b" ) );
+        assertEquals( 0, all.getIndexReader().getRefCount() );
+
+        final IndexSearcher remaining = indexManager.getIndexSearcher();
+        assertEquals( 1, remaining.getIndexReader().numDocs() );
+        indexManager.release( remaining );
+    }
+
+    private ClusterSegment segment( final String clusterId ) {
+        return new ClusterSegment() {
+            @Override
+            public String getClusterId() {
+                return clusterId;
+            }
+
+            @Override
+            public String[] segmentIds() {
+                return new String[ 0 ];
+            }
+        };
+    }
+
+    private KObject newKObject( final String clusterId,
+                                final int i ) {
+        return kObject( TYPE, clusterId, "/doc" + i,
+                        property( "dcore.author", "author " + i ) );
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.metadata.io;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.metadata.backend.lucene.LuceneConfig;
+import org.uberfire.metadata.backend.lucene.LuceneConfigBuilder;
+import org.uberfire.metadata.backend.lucene.metamodel.FileMetaModelStore;
+import org.uberfire.metadata.engine.MetaModelStore;
+import org.uberfire.metadata.model.KObject;
+import org.uberfire.metadata.model.StoragePolicy;
+import org.uberfire.metadata.model.schema.MetaObject;
+import org.uberfire.metadata.model.schema.MetaProperty;
+import org.uberfire.metadata.model.schema.MetaType;
+
+import static org.junit.Assert.*;
+import static org.uberfire.metadata.io.TestKObjects.*;
+
+public class MetaModelStoreTest {
+
+    private static final MetaType TYPE = metaType( "metamodel" );
+
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile( "metamodel", ".bin" );
+        FileUtils.deleteQuietly( file );
+    }
+
+    @After
+    public void cleanup() {
+        FileUtils.deleteQuietly( file );
+    }
+
+    @Test
+    public void testModelSurvivesRestart() {
+        final LuceneConfig config = newConfig( new FileMetaModelStore( file ) );
+        try {
+            config.getIndexEngine().index( newKObject( 0, "text", false ) );
+            config.getIndexEngine().index( newKObject( 1, 1L, true ) );
+        } finally {
+            config.dispose();
+        }
+        assertTrue( file.isFile() );
+
+        final MetaObject metaObject = new FileMetaModelStore( file ).getMetaObject( "metamodel" );
+        assertNotNull( metaObject );
+        assertEquals( 2, metaObject.getProperties().size() );
+
+        final MetaProperty value = metaObject.getProperty( "value" );
+        assertTrue( value.isSearchable() );
+        assertEquals( StoragePolicy.INDEXED, StoragePolicy.of( value ) );
+        assertEquals( 2, value.getTypes().size() );
+        assertTrue( value.getTypes().contains( String.class ) );
+        assertTrue( value.getTypes().contains( Long.class ) );
+    }
+
+    @Test
+    public void testUnchangedSchemaIsNotUpdated() {
+        final CountingStore store = new CountingStore( new FileMetaModelStore( file ) );
+        final LuceneConfig config = newConfig( store );
+        try {
+            for ( int i = 0; i < 100; i++ ) {
+                config.getIndexEngine().index( newKObject( i, "text " + i, false ) );
+            }
+            assertEquals( 1, store.adds );
+            assertEquals( 0, store.updates );
+
+            config.getIndexEngine().index( newKObject( 100, 100, false ) );
+            assertEquals( 1, store.updates );
+
+            config.getIndexEngine().index( newKObject( 101, 101, true ) );
+            assertEquals( 2, store.updates );
+
+            config.getIndexEngine().index( newKObject( 102, 102, true ) );
+            assertEquals( 2, store.updates );
+        } finally {
+            config.dispose();
+        }
+    }
+
+    private LuceneConfig newConfig( final MetaModelStore store ) {
+        return new LuceneConfigBuilder().usingMetaModelStore( store ).useDirectoryBasedIndex().useInMemoryDirectory().build();
+    }
+
+    private static KObject newKObject( final int i,
+                                       final Object value,
+                                       final boolean searchable ) {
+        return kObject( TYPE, "metamodel", "/doc" + i,
+                        property( "dcore.author", "author " + i, true, StoragePolicy.STORED ),
+                        property( "value", value, searchable, StoragePolicy.INDEXED ) );
+    }
+
+    private static class CountingStore implements MetaModelStore {
+
+        private final MetaModelStore store;
+        private int adds = 0;
+        private int updates = 0;
+
+        CountingStore( final MetaModelStore store ) {
+            this.store = store;
+        }
+
+        @Override
+        public void add( final MetaObject metaObject ) {
+            adds++;
+            store.add( metaObject );
+        }
+
+        @Override
+        public void update( final MetaObject metaObject ) {
+            updates++;
+            store.update( metaObject );
+        }
+
+        @Override
+        public MetaObject getMetaObject( final String type ) {
+            return store.getMetaObject( type );
+        }
+
+        @Override
+        public void dispose() {
+            store.dispose();
+        }
+    }
+}
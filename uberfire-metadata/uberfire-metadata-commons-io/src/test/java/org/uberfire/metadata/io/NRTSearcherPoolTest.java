@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.io;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.metadata.backend.lucene.index.NRTSearcherPool;
+
+import static org.junit.Assert.*;
+
+public class NRTSearcherPoolTest {
+
+    private IndexWriter writer;
+
+    @Before
+    public void setup() throws IOException {
+        writer = new IndexWriter( new RAMDirectory(), new IndexWriterConfig( Version.LUCENE_40, new KeywordAnalyzer() ) );
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        writer.close();
+    }
+
+    @Test
+    public void testAcquireRelease() {
+        final NRTSearcherPool pool = new NRTSearcherPool( writer, 0 );
+
+        final IndexSearcher first = pool.acquire();
+        final IndexSearcher second = pool.acquire();
+        assertSame( first, second );
+        // one reference held by the pool, one per acquire
+        assertEquals( 3, first.getIndexReader().getRefCount() );
+
+        pool.release( first );
+        pool.release( second );
+        assertEquals( 1, first.getIndexReader().getRefCount() );
+
+        pool.close();
+        assertEquals( 0, first.getIndexReader().getRefCount() );
+    }
+
+    @Test
+    public void testReopenOnlyAfterChange() throws IOException {
+        final NRTSearcherPool pool = new NRTSearcherPool( writer, 0 );
+
+        final IndexSearcher before = pool.acquire();
+        pool.release( before );
+
+        // not signaled: the same searcher is handed out
+        addDocument( "1" );
+        final IndexSearcher unchanged = pool.acquire();
+        assertSame( before, unchanged );
+        assertEquals( 0, unchanged.getIndexReader().numDocs() );
+        pool.release( unchanged );
+
+        pool.markChanged();
+        final IndexSearcher after = pool.acquire();
+        assertNotSame( before, after );
+        assertEquals( 1, after.getIndexReader().numDocs() );
+        pool.release( after );
+
+        // the replaced searcher was closed once released
+        assertEquals( 0, before.getIndexReader().getRefCount() );
+        pool.close();
+    }
+
+    @Test
+    public void testReplacedSearcherStaysOpenUntilReleased() throws IOException {
+        final NRTSearcherPool pool = new NRTSearcherPool( writer, 0 );
+
+        final IndexSearcher old = pool.acquire();
+        addDocument( "1" );
+        pool.markChanged();
+
+        final IndexSearcher current = pool.acquire();
+        assertNotSame( old, current );
+        assertEquals( 1, old.getIndexReader().getRefCount() );
+        assertEquals( 0, old.getIndexReader().numDocs() );
+
+        pool.release( old );
+        assertEquals( 0, old.getIndexReader().getRefCount() );
+
+        pool.release( current );
+        pool.close();
+    }
+
+    @Test
+    public void testStalenessAllowance() throws IOException {
+        final NRTSearcherPool pool = new NRTSearcherPool( writer, 60000 );
+
+        final IndexSearcher before = pool.acquire();
+        pool.release( before );
+
+        addDocument( "1" );
+        pool.markChanged();
+
+        // refreshed less than a minute ago: still good enough for searches
+        final IndexSearcher stale = pool.acquire();
+        assertSame( before, stale );
+        pool.release( stale );
+
+        final IndexSearcher fresh = pool.acquireFresh();
+        assertNotSame( before, fresh );
+        assertEquals( 1, fresh.getIndexReader().numDocs() );
+        pool.release( fresh );
+
+        pool.close();
+    }
+
+    private void addDocument( final String id ) throws IOException {
+        final Document doc = new Document();
+        doc.add( new StringField( "id", id, Field.Store.YES ) );
+        writer.addDocument( doc );
+    }
+}
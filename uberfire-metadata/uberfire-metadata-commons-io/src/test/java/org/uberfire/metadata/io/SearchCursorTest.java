@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.io;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.uberfire.metadata.backend.lucene.LuceneConfig;
+import org.uberfire.metadata.backend.lucene.LuceneConfigBuilder;
+import org.uberfire.metadata.model.KObject;
+import org.uberfire.metadata.model.schema.MetaType;
+import org.uberfire.metadata.search.SearchPage;
+import org.uberfire.metadata.search.SortBy;
+
+import static org.junit.Assert.*;
+import static org.uberfire.metadata.io.TestKObjects.*;
+
+public class SearchCursorTest {
+
+    private static final MetaType TYPE = metaType( "cursor" );
+
+    private static final int DOCUMENTS = 250;
+
+    private static LuceneConfig config;
+
+    @BeforeClass
+    public static void setup() {
+        config = new LuceneConfigBuilder().withInMemoryMetaModelStore().useDirectoryBasedIndex().useInMemoryDirectory().build();
+        final KObject[] objects = new KObject[ DOCUMENTS ];
+        for ( int i = 0; i < DOCUMENTS; i++ ) {
+            objects[ i ] = newKObject( i );
+        }
+        config.getIndexEngine().index( objects );
+    }
+
+    @AfterClass
+    public static void cleanup() {
+        config.dispose();
+    }
+
+    @Test
+    public void testSortedPages() {
+        final SortBy sortBy = new SortBy( "lastModifiedDate", SortBy.Type.LONG, true );
+        final List<KObject> all = new ArrayList<KObject>();
+
+        SearchPage page = config.getSearchIndex().fullTextSearch( "cursor", 100, null, sortBy );
+        assertEquals( 100, page.getResults().size() );
+        all.addAll( page.getResults() );
+
+        page = config.getSearchIndex().fullTextSearch( "cursor", 100, page.getContinuation(), sortBy );
+        assertEquals( 100, page.getResults().size() );
+        all.addAll( page.getResults() );
+
+        page = config.getSearchIndex().fullTextSearch( "cursor", 100, page.getContinuation(), sortBy );
+        assertEquals( 50, page.getResults().size() );
+        assertFalse( page.hasNext() );
+        all.addAll( page.getResults() );
+
+        for ( int i = 0; i < all.size(); i++ ) {
+            assertEquals( "/doc" + ( DOCUMENTS - 1 - i ), all.get( i ).getKey() );
+        }
+    }
+
+    @Test
+    public void testRelevancePages() {
+        final Set<String> keys = new HashSet<String>();
+        String continuation = null;
+        int pages = 0;
+        do {
+            final SearchPage page = config.getSearchIndex().searchByAttrs( new HashMap<String, Object>() {{
+                put( "dcore.author", "cursor*" );
+            }}, 30, continuation, null );
+            for ( final KObject kObject : page.getResults() ) {
+                assertTrue( keys.add( kObject.getKey() ) );
+            }
+            continuation = page.getContinuation();
+            pages++;
+        } while ( continuation != null );
+
+        assertEquals( DOCUMENTS, keys.size() );
+        assertEquals( 9, pages );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidContinuation() {
+        config.getSearchIndex().fullTextSearch( "cursor", 10, "not a token", null );
+    }
+
+    @Test
+    public void testInvalidValueLength() {
+        final SortBy sortBy = new SortBy( "dcore.author", SortBy.Type.STRING, false );
+        // version, doc, score, one sort value of type bytes, then its length
+        final String header = "01" + "00000000" + "00000000" + "00000001" + "05";
+        for ( final String length : new String[]{ "ffffffff", "7fffffff" } ) {
+            try {
+                config.getSearchIndex().fullTextSearch( "cursor", 10, header + length, sortBy );
+                fail( "length " + length + " must be rejected" );
+            } catch ( final IllegalArgumentException ignored ) {
+            }
+        }
+    }
+
+    private static KObject newKObject( final int i ) {
+        return kObject( TYPE, "cursor-test", "/doc" + i,
+                        property( "dcore.author", "cursor" ),
+                        property( "lastModifiedDate", new Date( 1400000000000L + i * 1000L ) ) );
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.metadata.io;
+
+import java.io.File;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assume;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.metadata.backend.lucene.LuceneConfig;
+import org.uberfire.metadata.backend.lucene.LuceneConfigBuilder;
+import org.uberfire.metadata.model.KObject;
+import org.uberfire.metadata.model.KProperty;
+import org.uberfire.metadata.model.StoragePolicy;
+import org.uberfire.metadata.model.schema.MetaType;
+
+import static org.junit.Assert.*;
+import static org.uberfire.metadata.io.TestKObjects.*;
+
+public class StoragePolicyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger( StoragePolicyTest.class );
+
+    private static final MetaType TYPE = metaType( "policy" );
+
+    @Test
+    public void testIndexedOnlyProperty() {
+        final LuceneConfig config = new LuceneConfigBuilder().withInMemoryMetaModelStore().useDirectoryBasedIndex().useInMemoryDirectory().build();
+        try {
+            config.getIndexEngine().index( newKObject( 0, StoragePolicy.INDEXED, 1 ) );
+
+            final List<KObject> result = config.getSearchIndex().fullTextSearch( "giraffe", 10, 0 );
+            assertEquals( 1, result.size() );
+
+            final Map<String, Object> properties = toMap( result.get( 0 ) );
+            assertEquals( "author 0", properties.get( "dcore.author" ) );
+            assertFalse( properties.containsKey( "dcore.comment" ) );
+        } finally {
+            config.dispose();
+        }
+    }
+
+    @Test
+    public void testLazyResults() {
+        final LuceneConfig config = new LuceneConfigBuilder().withInMemoryMetaModelStore().useDirectoryBasedIndex().useInMemoryDirectory().withLazyResults().build();
+        try {
+            for ( int i = 0; i < 10; i++ ) {
+                config.getIndexEngine().index( newKObject( i, StoragePolicy.STORED, 1 ) );
+            }
+
+            final List<KObject> result = config.getSearchIndex().searchByAttrs( new HashMap<String, Object>() {{
+                put( "dcore.author", "author 3" );
+            }}, 10, 0 );
+            assertEquals( 1, result.size() );
+
+            final KObject kObject = result.get( 0 );
+            assertEquals( "/doc3", kObject.getKey() );
+            assertEquals( "policy", kObject.getType().getName() );
+            assertEquals( "policy", kObject.getClusterId() );
+
+            final Map<String, Object> properties = toMap( kObject );
+            assertEquals( "author 3", properties.get( "dcore.author" ) );
+            assertTrue( properties.get( "dcore.comment" ).toString().contains( "giraffe" ) );
+        } finally {
+            config.dispose();
+        }
+    }
+
+    /**
+     * Index size and search-to-render latency of a corpus with a large comment, stored vs. indexed only, with
+     * eager and lazy results.
+     * <p/>
+     * Run with <code>-Dorg.uberfire.metadata.benchmark=true</code>.
+     */
+    @Test
+    public void testBenchmark() throws Exception {
+        Assume.assumeTrue( Boolean.getBoolean( "org.uberfire.metadata.benchmark" ) );
+
+        benchmark( "stored, eager", StoragePolicy.STORED, false );
+        benchmark( "stored, lazy", StoragePolicy.STORED, true );
+        benchmark( "indexed, eager", StoragePolicy.INDEXED, false );
+        benchmark( "indexed, lazy", StoragePolicy.INDEXED, true );
+    }
+
+    private void benchmark( final String name,
+                            final StoragePolicy policy,
+                            final boolean lazyResults ) throws Exception {
+        final int documents = 20000;
+        final String previousDir = System.getProperty( "org.uberfire.metadata.index.dir" );
+        final File dir = File.createTempFile( "policy", "index" );
+        FileUtils.deleteQuietly( dir );
+        dir.mkdirs();
+        System.setProperty( "org.uberfire.metadata.index.dir", dir.getAbsolutePath() );
+
+        final LuceneConfigBuilder builder = new LuceneConfigBuilder().withInMemoryMetaModelStore().useDirectoryBasedIndex().useNIODirectory();
+        if ( lazyResults ) {
+            builder.withLazyResults();
+        }
+        final LuceneConfig config = builder.build();
+        try {
+            final KObject[] objects = new KObject[ documents ];
+            for ( int i = 0; i < documents; i++ ) {
+                objects[ i ] = newKObject( i, policy, 200 );
+            }
+            config.getIndexEngine().index( objects );
+
+            final long start = System.nanoTime();
+            int rendered = 0;
+            for ( int i = 0; i < 100; i++ ) {
+                // a result list only shows the key and a couple of properties
+                for ( final KObject kObject : config.getSearchIndex().fullTextSearch( "giraffe", 50, i * 50 ) ) {
+                    if ( kObject.getKey() != null && toMap( kObject ).get( "dcore.author" ) != null ) {
+                        rendered++;
+                    }
+                }
+            }
+            final long elapsed = System.nanoTime() - start;
+
+            assertEquals( 5000, rendered );
+            logger.info( "{}: index {}KB, {} results rendered in {}ms", name, FileUtils.sizeOf( new File( dir, ".index" ) ) / 1024, rendered, elapsed / 1000000 );
+        } finally {
+            config.dispose();
+            if ( previousDir == null ) {
+                System.clearProperty( "org.uberfire.metadata.index.dir" );
+            } else {
+                System.setProperty( "org.uberfire.metadata.index.dir", previousDir );
+            }
+            FileUtils.deleteQuietly( dir );
+        }
+    }
+
+    private static Map<String, Object> toMap( final KObject kObject ) {
+        final Map<String, Object> result = new HashMap<String, Object>();
+        for ( final KProperty<?> property : kObject.getProperties() ) {
+            result.put( property.getName(), property.getValue() );
+        }
+        return result;
+    }
+
+    private static KObject newKObject( final int i,
+                                       final StoragePolicy commentPolicy,
+                                       final int commentSentences ) {
+        final StringBuilder comment = new StringBuilder();
+        for ( int j = 0; j < commentSentences; j++ ) {
+            comment.append( "a long comment about a giraffe, revision " ).append( i ).append( " line " ).append( j ).append( ". " );
+        }
+
+        return kObject( TYPE, "policy", "/doc" + i,
+                        property( "dcore.author", "author " + i, StoragePolicy.STORED ),
+                        property( "dcore.comment", comment.toString(), commentPolicy ),
+                        property( "dcore.lastModification", new Date( 1400000000000L + i ), StoragePolicy.DOC_VALUES ) );
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 JBoss, by Red Hat, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.metadata.io;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.uberfire.metadata.model.KObject;
+import org.uberfire.metadata.model.KProperty;
+import org.uberfire.metadata.model.StoragePolicy;
+import org.uberfire.metadata.model.StoragePolicyAware;
+import org.uberfire.metadata.model.schema.MetaType;
+
+/**
+ * Builds the {@link KObject}s indexed by the tests of this package.
+ */
+final class TestKObjects {
+
+    private TestKObjects() {
+
+    }
+
+    static MetaType metaType( final String name ) {
+        return new MetaType() {
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+
+    /**
+     * @return an object of the master segment of the given cluster, identified by the cluster id followed by its key.
+     */
+    static KObject kObject( final MetaType type,
+                            final String clusterId,
+                            final String key,
+                            final KProperty<?>... properties ) {
+        final List<KProperty<?>> content = Arrays.asList( properties );
+        return new KObject() {
+            @Override
+            public String getId() {
+                return clusterId + key;
+            }
+
+            @Override
+            public MetaType getType() {
+                return type;
+            }
+
+            @Override
+            public String getClusterId() {
+                return clusterId;
+            }
+
+            @Override
+            public String getSegmentId() {
+                return "master";
+            }
+
+            @Override
+            public String getKey() {
+                return key;
+            }
+
+            @Override
+            public Iterable<KProperty<?>> getProperties() {
+                return content;
+            }
+        };
+    }
+
+    static KProperty<?> property( final String name,
+                                  final Object value ) {
+        return property( name, value, true, StoragePolicy.STORED );
+    }
+
+    static KProperty<?> property( final String name,
+                                  final Object value,
+                                  final StoragePolicy policy ) {
+        return property( name, value, true, policy );
+    }
+
+    static KProperty<?> property( final String name,
+                                  final Object value,
+                                  final boolean searchable,
+                                  final StoragePolicy policy ) {
+        return new StoragePolicyProperty() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Object getValue() {
+                return value;
+            }
+
+            @Override
+            public boolean isSearchable() {
+                return searchable;
+            }
+
+            @Override
+            public StoragePolicy getStoragePolicy() {
+                return policy;
+            }
+        };
+    }
+
+    private interface StoragePolicyProperty extends KProperty<Object>,
+                                                    StoragePolicyAware {
+
+    }
+}
@@ -17,6 +17,7 @@
 package org.uberfire.java.nio.file;
 
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.FileTreeWalkSupport;
 import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 
 import static org.uberfire.commons.validation.Preconditions.*;
@@ -41,6 +42,10 @@ class FileTreeWalker {
      */
     void walk(final Path start) throws IOException {
         checkNotNull("start", start);
+        if (start.getFileSystem() instanceof FileTreeWalkSupport &&
+                ((FileTreeWalkSupport) start.getFileSystem()).walkFileTree(start, maxDepth, visitor)) {
+            return;
+        }
         walk(start, 0);
     }
 
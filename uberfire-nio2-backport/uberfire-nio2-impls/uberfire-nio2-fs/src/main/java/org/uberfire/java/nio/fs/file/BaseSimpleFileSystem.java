@@ -143,10 +143,20 @@ public abstract class BaseSimpleFileSystem implements FileSystem,
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Directories must be registered on the returned service with
+     * {@link Path#register(WatchService, org.uberfire.java.nio.file.WatchEvent.Kind[])}; they're polled every
+     * <code>org.uberfire.nio.file.watch.interval</code> milliseconds. The default directory of this file system (the
+     * working directory) is only registered when <code>org.uberfire.nio.file.watch.default</code> is true.
+     */
     @Override
     public WatchService newWatchService()
             throws UnsupportedOperationException, IOException {
-        throw new UnsupportedOperationException();
+        final SimpleWatchService watchService = new SimpleWatchService( this, Long.getLong( "org.uberfire.nio.file.watch.interval", SimpleWatchService.DEFAULT_POLL_INTERVAL ) );
+        if ( Boolean.getBoolean( "org.uberfire.nio.file.watch.default" ) && new File( defaultDirectory ).isDirectory() ) {
+            watchService.register( getPath( defaultDirectory ) );
+        }
+        return watchService;
     }
 
     @Override
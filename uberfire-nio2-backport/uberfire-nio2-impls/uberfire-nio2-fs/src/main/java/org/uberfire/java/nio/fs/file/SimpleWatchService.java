@@ -0,0 +1,527 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.file;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.GeneralPathImpl;
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.base.watch.CoalescingWatchKeyQueue;
+import org.uberfire.java.nio.base.watch.ListenableWatchService;
+import org.uberfire.java.nio.base.watch.RecursiveWatchService;
+import org.uberfire.java.nio.file.ClosedWatchServiceException;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.NotDirectoryException;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardWatchEventKind;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.Watchable;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Recursive watch service for plain directories.
+ * <p/>
+ * Registered directories are scanned every poll interval and compared with the last published snapshot (path, size
+ * and last modified time of every file); changes are published once the tree has been stable for a whole interval,
+ * or after {@link #MAX_DEBOUNCE_POLLS} intervals of continuous changes, so a burst of writes ends in a single key. A
+ * file deleted and a file created with the same size and last modified time in the same key are reported as a
+ * rename. Directories whose name starts with a dot (<code>.niogit</code>, <code>.index</code>, ...) below the registered
+ * ones aren't watched. Events carry a {@link WatchContext}, as the ones published by the git provider.
+ */
+public class SimpleWatchService implements ListenableWatchService,
+                                           RecursiveWatchService {
+
+    public static final long DEFAULT_POLL_INTERVAL = 1000;
+    public static final int MAX_DEBOUNCE_POLLS = 10;
+
+    private static final String SYSTEM = "<system>";
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+        @Override
+        public Thread newThread( final Runnable r ) {
+            final Thread thread = new Thread( r, "uberfire-file-watch" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    } );
+
+    private final FileSystem fileSystem;
+    private final CoalescingWatchKeyQueue queue = new CoalescingWatchKeyQueue();
+    private final List<Registration> registrations = new CopyOnWriteArrayList<Registration>();
+    private final ScheduledFuture<?> task;
+
+    private volatile Runnable listener = null;
+    private volatile boolean wsClose = false;
+
+    SimpleWatchService( final FileSystem fileSystem,
+                        final long pollInterval ) {
+        this.fileSystem = checkNotNull( "fileSystem", fileSystem );
+        final long interval = pollInterval > 0 ? pollInterval : DEFAULT_POLL_INTERVAL;
+        this.task = SCHEDULER.scheduleWithFixedDelay( new Runnable() {
+            @Override
+            public void run() {
+                scan();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS );
+    }
+
+    @Override
+    public WatchKey register( final Path dir,
+                              final WatchEvent.Kind<?>... kinds ) throws ClosedWatchServiceException, NotDirectoryException {
+        checkNotNull( "dir", dir );
+        if ( wsClose ) {
+            throw new ClosedWatchServiceException();
+        }
+        final File root = dir.toFile();
+        if ( !root.isDirectory() ) {
+            throw new NotDirectoryException( dir.toString() );
+        }
+        final Registration registration = new Registration( dir, root, kinds );
+        registrations.add( registration );
+        return registration;
+    }
+
+    void scan() {
+        for ( final Registration registration : registrations ) {
+            if ( wsClose ) {
+                return;
+            }
+            registration.scan();
+        }
+    }
+
+    private void publish( final WatchKey wk ) {
+        queue.offer( wk );
+        final Runnable currentListener = listener;
+        if ( currentListener != null ) {
+            currentListener.run();
+        }
+        synchronized ( this ) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public WatchKey poll() throws ClosedWatchServiceException {
+        if ( wsClose ) {
+            throw new ClosedWatchServiceException();
+        }
+        return queue.poll();
+    }
+
+    @Override
+    public synchronized WatchKey poll( final long timeout,
+                                       final TimeUnit unit ) throws ClosedWatchServiceException, org.uberfire.java.nio.file.InterruptedException {
+        final long deadline = System.currentTimeMillis() + unit.toMillis( timeout );
+        while ( true ) {
+            if ( wsClose ) {
+                throw new ClosedWatchServiceException();
+            } else if ( !queue.isEmpty() ) {
+                return queue.poll();
+            }
+            final long wait = deadline - System.currentTimeMillis();
+            if ( wait <= 0 ) {
+                return null;
+            }
+            try {
+                this.wait( wait );
+            } catch ( final java.lang.InterruptedException e ) {
+                throw new org.uberfire.java.nio.file.InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public synchronized WatchKey take() throws ClosedWatchServiceException, org.uberfire.java.nio.file.InterruptedException {
+        while ( true ) {
+            if ( wsClose ) {
+                throw new ClosedWatchServiceException();
+            } else if ( !queue.isEmpty() ) {
+                return queue.poll();
+            }
+            try {
+                this.wait();
+            } catch ( final java.lang.InterruptedException e ) {
+                throw new org.uberfire.java.nio.file.InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public void setListener( final Runnable listener ) {
+        this.listener = listener;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public int getMaxQueueDepth() {
+        return queue.getMaxDepth();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return queue.getCoalescedCount();
+    }
+
+    @Override
+    public boolean isClose() {
+        return wsClose;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        wsClose = true;
+        task.cancel( false );
+        listener = null;
+        registrations.clear();
+        queue.clear();
+        notifyAll();
+    }
+
+    @Override
+    public String toString() {
+        return "WatchService{" +
+                "FileSystem=" + fileSystem.toString() +
+                '}';
+    }
+
+    private class Registration implements WatchKey {
+
+        private final Path dir;
+        private final File root;
+        private final Set<String> kinds;
+
+        private Map<String, FileState> published;
+        private Map<String, FileState> pending = null;
+        private int pendingPolls = 0;
+        private volatile boolean valid = true;
+
+        Registration( final Path dir,
+                      final File root,
+                      final WatchEvent.Kind<?>[] kinds ) {
+            this.dir = dir;
+            this.root = root;
+            this.kinds = new HashSet<String>();
+            for ( final WatchEvent.Kind<?> kind : kinds ) {
+                this.kinds.add( kind.name() );
+            }
+            this.published = snapshot( root );
+        }
+
+        synchronized void scan() {
+            if ( !valid ) {
+                return;
+            }
+            final Map<String, FileState> current = snapshot( root );
+            if ( pending == null ) {
+                if ( !current.equals( published ) ) {
+                    pending = current;
+                    pendingPolls = 1;
+                }
+                return;
+            }
+            if ( !current.equals( pending ) && pendingPolls < MAX_DEBOUNCE_POLLS ) {
+                pending = current;
+                pendingPolls++;
+                return;
+            }
+
+            final List<WatchEvent<?>> events = diff( published, current );
+            published = current;
+            pending = null;
+            pendingPolls = 0;
+            if ( !events.isEmpty() ) {
+                publish( new EventsKey( dir, events ) );
+            }
+        }
+
+        private List<WatchEvent<?>> diff( final Map<String, FileState> before,
+                                          final Map<String, FileState> after ) {
+            final List<String> created = new ArrayList<String>();
+            final List<String> modified = new ArrayList<String>();
+            final List<String> deleted = new ArrayList<String>();
+            for ( final Map.Entry<String, FileState> entry : after.entrySet() ) {
+                final FileState previous = before.get( entry.getKey() );
+                if ( previous == null ) {
+                    created.add( entry.getKey() );
+                } else if ( !previous.equals( entry.getValue() ) ) {
+                    modified.add( entry.getKey() );
+                }
+            }
+            for ( final String path : before.keySet() ) {
+                if ( !after.containsKey( path ) ) {
+                    deleted.add( path );
+                }
+            }
+
+            final List<WatchEvent<?>> events = new ArrayList<WatchEvent<?>>();
+            for ( final Iterator<String> it = deleted.iterator(); it.hasNext(); ) {
+                final String oldPath = it.next();
+                final FileState state = before.get( oldPath );
+                for ( final Iterator<String> cit = created.iterator(); cit.hasNext(); ) {
+                    final String newPath = cit.next();
+                    if ( state.equals( after.get( newPath ) ) ) {
+                        add( events, StandardWatchEventKind.ENTRY_RENAME, oldPath, newPath );
+                        it.remove();
+                        cit.remove();
+                        break;
+                    }
+                }
+            }
+            for ( final String path : created ) {
+                add( events, StandardWatchEventKind.ENTRY_CREATE, null, path );
+            }
+            for ( final String path : modified ) {
+                add( events, StandardWatchEventKind.ENTRY_MODIFY, path, path );
+            }
+            for ( final String path : deleted ) {
+                add( events, StandardWatchEventKind.ENTRY_DELETE, path, null );
+            }
+            return events;
+        }
+
+        private void add( final List<WatchEvent<?>> events,
+                          final WatchEvent.Kind<?> kind,
+                          final String oldPath,
+                          final String newPath ) {
+            if ( kinds.isEmpty() || kinds.contains( kind.name() ) ) {
+                events.add( new SimpleWatchEvent( kind, toPath( oldPath ), toPath( newPath ) ) );
+            }
+        }
+
+        private Path toPath( final String path ) {
+            if ( path == null ) {
+                return null;
+            }
+            return GeneralPathImpl.newFromFile( fileSystem, new File( path ) );
+        }
+
+        @Override
+        public boolean isValid() {
+            return valid && !wsClose;
+        }
+
+        @Override
+        public List<WatchEvent<?>> pollEvents() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean reset() {
+            return isValid();
+        }
+
+        @Override
+        public void cancel() {
+            valid = false;
+            registrations.remove( this );
+        }
+
+        @Override
+        public Watchable watchable() {
+            return dir;
+        }
+    }
+
+    /**
+     * Files (not directories, as git doesn't track them either) under the given root, by absolute path.
+     */
+    static Map<String, FileState> snapshot( final File root ) {
+        final Map<String, FileState> result = new TreeMap<String, FileState>();
+        final Set<String> visited = new HashSet<String>();
+        final LinkedList<File> dirs = new LinkedList<File>();
+        dirs.add( root );
+        while ( !dirs.isEmpty() ) {
+            final File dir = dirs.removeFirst();
+            if ( !visited.add( canonical( dir ) ) ) {
+                // symbolic link cycle
+                continue;
+            }
+            final File[] content = dir.listFiles();
+            if ( content == null ) {
+                continue;
+            }
+            Arrays.sort( content );
+            for ( final File file : content ) {
+                if ( file.isDirectory() ) {
+                    if ( !file.getName().startsWith( "." ) ) {
+                        dirs.add( file );
+                    }
+                } else {
+                    result.put( file.getAbsolutePath(), new FileState( file.length(), file.lastModified() ) );
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String canonical( final File dir ) {
+        try {
+            return dir.getCanonicalPath();
+        } catch ( final java.io.IOException e ) {
+            return dir.getAbsolutePath();
+        }
+    }
+
+    static class FileState {
+
+        private final long length;
+        private final long lastModified;
+
+        FileState( final long length,
+                   final long lastModified ) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals( final Object o ) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( !( o instanceof FileState ) ) {
+                return false;
+            }
+            final FileState that = (FileState) o;
+            return length == that.length && lastModified == that.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) ( length ^ ( length >>> 32 ) ) + (int) ( lastModified ^ ( lastModified >>> 32 ) );
+        }
+    }
+
+    private static class EventsKey implements WatchKey {
+
+        private final Path dir;
+        private final List<WatchEvent<?>> events;
+
+        EventsKey( final Path dir,
+                   final List<WatchEvent<?>> events ) {
+            this.dir = dir;
+            this.events = events;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public List<WatchEvent<?>> pollEvents() {
+            return new ArrayList<WatchEvent<?>>( events );
+        }
+
+        @Override
+        public boolean reset() {
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public Watchable watchable() {
+            return dir;
+        }
+    }
+
+    private static class SimpleWatchEvent implements WatchEvent {
+
+        private final Kind<?> kind;
+        private final Path oldPath;
+        private final Path newPath;
+
+        SimpleWatchEvent( final Kind<?> kind,
+                          final Path oldPath,
+                          final Path newPath ) {
+            this.kind = kind;
+            this.oldPath = oldPath;
+            this.newPath = newPath;
+        }
+
+        @Override
+        public Kind kind() {
+            return kind;
+        }
+
+        @Override
+        public int count() {
+            return 1;
+        }
+
+        @Override
+        public Object context() {
+            return new WatchContext() {
+
+                @Override
+                public Path getPath() {
+                    return newPath;
+                }
+
+                @Override
+                public Path getOldPath() {
+                    return oldPath;
+                }
+
+                @Override
+                public String getSessionId() {
+                    return SYSTEM;
+                }
+
+                @Override
+                public String getUser() {
+                    return SYSTEM;
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "WatchEvent{" +
+                    "newPath=" + newPath +
+                    ", oldPath=" + oldPath +
+                    ", kind=" + kind.name() +
+                    '}';
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.uberfire.java.nio.base.GeneralPathImpl;
 import org.uberfire.java.nio.file.FileStore;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchService;
 import org.uberfire.java.nio.file.spi.FileSystemProvider;
 import org.uberfire.java.nio.fs.file.SimpleFileSystemProvider;
 import org.uberfire.java.nio.fs.file.SimpleUnixFileSystem;
@@ -100,9 +101,13 @@ public class SimpleUnixFileSystemTest {
         new SimpleUnixFileSystem( fsProvider, "/" ).getUserPrincipalLookupService();
     }
 
-    @Test(expected = UnsupportedOperationException.class)
-    public void newWatchServiceUnsupportedOp() {
-        new SimpleUnixFileSystem( fsProvider, "/" ).newWatchService();
+    @Test
+    public void newWatchService() {
+        final WatchService ws = new SimpleUnixFileSystem( fsProvider, "/" ).newWatchService();
+        assertThat( ws ).isNotNull().isInstanceOf( SimpleWatchService.class );
+        assertThat( ws.isClose() ).isFalse();
+        ws.close();
+        assertThat( ws.isClose() ).isTrue();
     }
 
     @Test(expected = UnsupportedOperationException.class)
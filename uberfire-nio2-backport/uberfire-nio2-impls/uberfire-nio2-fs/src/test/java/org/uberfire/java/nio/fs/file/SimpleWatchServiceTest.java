@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.file;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.StandardWatchEventKind;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class SimpleWatchServiceTest {
+
+    private File dir;
+    private FileSystem fs;
+    private SimpleWatchService ws;
+
+    @Before
+    public void setup() throws Exception {
+        dir = File.createTempFile( "watch", "" );
+        dir.delete();
+        dir.mkdirs();
+        fs = new SimpleFileSystemProvider().getFileSystem( dir.toURI() );
+        ws = new SimpleWatchService( fs, 50 );
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        ws.close();
+        FileUtils.deleteDirectory( dir );
+    }
+
+    @Test
+    public void testCreateModifyDelete() throws Exception {
+        final File sub = new File( dir, "sub" );
+        sub.mkdirs();
+        final File file = new File( sub, "file.txt" );
+        ws.register( fs.getPath( dir.getAbsolutePath() ) );
+
+        FileUtils.writeStringToFile( file, "content" );
+        List<WatchEvent<?>> events = next();
+        assertThat( events ).hasSize( 1 );
+        assertThat( (Object) events.get( 0 ).kind() ).isEqualTo( StandardWatchEventKind.ENTRY_CREATE );
+        assertThat( context( events.get( 0 ) ).getPath().toFile() ).isEqualTo( file.getAbsoluteFile() );
+        assertThat( context( events.get( 0 ) ).getOldPath() ).isNull();
+
+        FileUtils.writeStringToFile( file, "new content" );
+        events = next();
+        assertThat( events ).hasSize( 1 );
+        assertThat( (Object) events.get( 0 ).kind() ).isEqualTo( StandardWatchEventKind.ENTRY_MODIFY );
+
+        file.delete();
+        events = next();
+        assertThat( events ).hasSize( 1 );
+        assertThat( (Object) events.get( 0 ).kind() ).isEqualTo( StandardWatchEventKind.ENTRY_DELETE );
+        assertThat( context( events.get( 0 ) ).getOldPath().toFile() ).isEqualTo( file.getAbsoluteFile() );
+        assertThat( context( events.get( 0 ) ).getPath() ).isNull();
+    }
+
+    @Test
+    public void testRename() throws Exception {
+        final File file = new File( dir, "file.txt" );
+        FileUtils.writeStringToFile( file, "content" );
+        fs.getPath( dir.getAbsolutePath() ).register( ws );
+
+        final File renamed = new File( dir, "renamed.txt" );
+        assertThat( file.renameTo( renamed ) ).isTrue();
+
+        final List<WatchEvent<?>> events = next();
+        assertThat( events ).hasSize( 1 );
+        assertThat( (Object) events.get( 0 ).kind() ).isEqualTo( StandardWatchEventKind.ENTRY_RENAME );
+        assertThat( context( events.get( 0 ) ).getOldPath().toFile() ).isEqualTo( file.getAbsoluteFile() );
+        assertThat( context( events.get( 0 ) ).getPath().toFile() ).isEqualTo( renamed.getAbsoluteFile() );
+    }
+
+    @Test
+    public void testBurstIsDebounced() throws Exception {
+        ws.register( fs.getPath( dir.getAbsolutePath() ) );
+
+        for ( int i = 0; i < 20; i++ ) {
+            FileUtils.writeStringToFile( new File( dir, "file" + i + ".txt" ), "content" );
+        }
+
+        final List<WatchEvent<?>> events = next();
+        assertThat( events ).hasSize( 20 );
+        assertThat( ws.poll( 300, TimeUnit.MILLISECONDS ) ).isNull();
+    }
+
+    @Test
+    public void testKindsAndCancel() throws Exception {
+        final WatchKey key = ws.register( fs.getPath( dir.getAbsolutePath() ), StandardWatchEventKind.ENTRY_DELETE );
+        final File file = new File( dir, "file.txt" );
+
+        FileUtils.writeStringToFile( file, "content" );
+        assertThat( ws.poll( 300, TimeUnit.MILLISECONDS ) ).isNull();
+
+        file.delete();
+        final List<WatchEvent<?>> events = next();
+        assertThat( events ).hasSize( 1 );
+        assertThat( (Object) events.get( 0 ).kind() ).isEqualTo( StandardWatchEventKind.ENTRY_DELETE );
+
+        key.cancel();
+        assertThat( key.isValid() ).isFalse();
+        FileUtils.writeStringToFile( file, "content" );
+        file.delete();
+        assertThat( ws.poll( 300, TimeUnit.MILLISECONDS ) ).isNull();
+    }
+
+    @Test
+    public void testPathRegisterDelegates() throws Exception {
+        final WatchKey key = fs.getPath( dir.getAbsolutePath() ).register( ws, StandardWatchEventKind.ENTRY_CREATE );
+        assertThat( key.isValid() ).isTrue();
+        assertThat( key.watchable() ).isEqualTo( fs.getPath( dir.getAbsolutePath() ) );
+
+        FileUtils.writeStringToFile( new File( dir, "file.txt" ), "content" );
+        final List<WatchEvent<?>> events = next();
+        assertThat( events ).hasSize( 1 );
+        assertThat( (Object) events.get( 0 ).kind() ).isEqualTo( StandardWatchEventKind.ENTRY_CREATE );
+    }
+
+    @Test
+    public void testDotDirectoriesAreNotWatched() throws Exception {
+        final File index = new File( dir, ".index" );
+        index.mkdirs();
+        ws.register( fs.getPath( dir.getAbsolutePath() ) );
+
+        FileUtils.writeStringToFile( new File( index, "segment" ), "content" );
+        final File file = new File( dir, "file.txt" );
+        FileUtils.writeStringToFile( file, "content" );
+
+        final List<WatchEvent<?>> events = next();
+        assertThat( events ).hasSize( 1 );
+        assertThat( context( events.get( 0 ) ).getPath().toFile() ).isEqualTo( file.getAbsoluteFile() );
+    }
+
+    @Test
+    public void testNewWatchServiceWatchesNothingByDefault() throws Exception {
+        final SimpleWatchService defaultWs = newWatchService();
+        try {
+            FileUtils.writeStringToFile( new File( dir, "file.txt" ), "content" );
+
+            assertThat( defaultWs.poll( 300, TimeUnit.MILLISECONDS ) ).isNull();
+        } finally {
+            defaultWs.close();
+        }
+    }
+
+    @Test
+    public void testNewWatchServiceWatchesDefaultDirectoryWhenEnabled() throws Exception {
+        System.setProperty( "org.uberfire.nio.file.watch.default", "true" );
+        final SimpleWatchService defaultWs;
+        try {
+            defaultWs = newWatchService();
+        } finally {
+            System.clearProperty( "org.uberfire.nio.file.watch.default" );
+        }
+        try {
+            final File file = new File( dir, "file.txt" );
+            FileUtils.writeStringToFile( file, "content" );
+
+            final WatchKey key = defaultWs.poll( 5, TimeUnit.SECONDS );
+            assertThat( key ).isNotNull();
+            final List<WatchEvent<?>> events = key.pollEvents();
+            assertThat( events ).hasSize( 1 );
+            assertThat( (Object) events.get( 0 ).kind() ).isEqualTo( StandardWatchEventKind.ENTRY_CREATE );
+            assertThat( context( events.get( 0 ) ).getPath().toFile() ).isEqualTo( file.getAbsoluteFile() );
+        } finally {
+            defaultWs.close();
+        }
+    }
+
+    private SimpleWatchService newWatchService() {
+        System.setProperty( "org.uberfire.nio.file.watch.interval", "50" );
+        try {
+            return (SimpleWatchService) new SimpleUnixFileSystem( new SimpleFileSystemProvider(), dir.getAbsolutePath() ).newWatchService();
+        } finally {
+            System.clearProperty( "org.uberfire.nio.file.watch.interval" );
+        }
+    }
+
+    private List<WatchEvent<?>> next() {
+        final WatchKey key = ws.poll( 5, TimeUnit.SECONDS );
+        assertThat( key ).isNotNull();
+        return key.pollEvents();
+    }
+
+    private WatchContext context( final WatchEvent<?> event ) {
+        return (WatchContext) event.context();
+    }
+}
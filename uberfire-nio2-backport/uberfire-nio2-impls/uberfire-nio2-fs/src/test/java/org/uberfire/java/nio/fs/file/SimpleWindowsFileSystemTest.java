@@ -25,6 +25,7 @@ import org.uberfire.java.nio.base.GeneralPathImpl;
 import org.uberfire.java.nio.file.FileStore;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchService;
 import org.uberfire.java.nio.file.spi.FileSystemProvider;
 import org.uberfire.java.nio.fs.file.SimpleWindowsFileSystem;
 
@@ -80,9 +81,13 @@ public class SimpleWindowsFileSystemTest {
         new SimpleWindowsFileSystem( fsProvider, "c:\\" ).getUserPrincipalLookupService();
     }
 
-    @Test(expected = UnsupportedOperationException.class)
-    public void newWatchServiceUnsupportedOp() {
-        new SimpleWindowsFileSystem( fsProvider, "c:\\" ).newWatchService();
+    @Test
+    public void newWatchService() {
+        final WatchService ws = new SimpleWindowsFileSystem( fsProvider, "c:\\" ).newWatchService();
+        assertThat( ws ).isNotNull().isInstanceOf( SimpleWatchService.class );
+        assertThat( ws.isClose() ).isFalse();
+        ws.close();
+        assertThat( ws.isClose() ).isTrue();
     }
 
     @Test(expected = UnsupportedOperationException.class)
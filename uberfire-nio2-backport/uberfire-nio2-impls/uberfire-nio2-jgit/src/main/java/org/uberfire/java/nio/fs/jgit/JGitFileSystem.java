@@ -24,23 +24,31 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.FileSystemChanges;
 import org.uberfire.java.nio.base.FileSystemId;
+import org.uberfire.java.nio.base.FileSystemState;
+import org.uberfire.java.nio.base.FileTreeWalkSupport;
+import org.uberfire.java.nio.base.version.LastChanges;
+import org.uberfire.java.nio.base.version.VersionRecord;
+import org.uberfire.java.nio.base.watch.CoalescingWatchKeyQueue;
+import org.uberfire.java.nio.base.watch.ListenableWatchService;
 import org.uberfire.java.nio.file.ClosedWatchServiceException;
 import org.uberfire.java.nio.file.FileStore;
 import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.FileVisitor;
 import org.uberfire.java.nio.file.InterruptedException;
 import org.uberfire.java.nio.file.InvalidPathException;
 import org.uberfire.java.nio.file.Path;
@@ -52,13 +60,19 @@ import org.uberfire.java.nio.file.WatchService;
 import org.uberfire.java.nio.file.Watchable;
 import org.uberfire.java.nio.file.attribute.UserPrincipalLookupService;
 import org.uberfire.java.nio.file.spi.FileSystemProvider;
+import org.uberfire.java.nio.fs.jgit.util.JGitPathCache;
+import org.uberfire.java.nio.fs.jgit.util.JGitPathHistory;
+import org.uberfire.java.nio.fs.jgit.util.JGitUtil;
 
 import static org.eclipse.jgit.lib.Repository.*;
 import static org.uberfire.commons.validation.Preconditions.*;
 import static org.uberfire.java.nio.fs.jgit.util.JGitUtil.*;
 
 public class JGitFileSystem implements FileSystem,
-                                       FileSystemId {
+                                       FileSystemId,
+                                       FileSystemChanges,
+                                       LastChanges,
+                                       FileTreeWalkSupport {
 
     private static final Logger LOGGER = LoggerFactory.getLogger( JGitFileSystem.class );
 
@@ -75,8 +89,16 @@ public class JGitFileSystem implements FileSystem,
     private final FileStore fileStore;
     private final String name;
     private final CredentialsProvider credential;
-    private final Map<WatchService, Queue<WatchKey>> events = new ConcurrentHashMap<WatchService, Queue<WatchKey>>();
-    private final Collection<WatchService> watchServices = new ArrayList<WatchService>();
+    private final Collection<JGitWatchService> watchServices = new CopyOnWriteArrayList<JGitWatchService>();
+    private final JGitPathCache pathCache;
+    private final JGitPathHistory pathHistory;
+    private volatile JGitGroupCommitter groupCommitter = null;
+    private volatile JGitRepositoryMaintenance maintenance = null;
+
+    private volatile FileSystemState state = FileSystemState.NORMAL;
+    private volatile CommitInfo batchCommitInfo = null;
+    private volatile boolean hadCommitOnBatchState = false;
+    private final Map<String, NotificationModel> oldHeadsOfPendingDiffs = new ConcurrentHashMap<String, NotificationModel>();
 
     JGitFileSystem( final JGitFileSystemProvider provider,
                     final Map<String, String> fullHostNames,
@@ -98,6 +120,8 @@ public class JGitFileSystem implements FileSystem,
         this.credential = checkNotNull( "credential", credential );
         this.listMode = listMode;
         this.fileStore = new JGitFileStore( gitRepo.getRepository() );
+        this.pathCache = new JGitPathCache( JGitFileSystemProvider.PATH_CACHE_SIZE );
+        this.pathHistory = new JGitPathHistory( this, JGitFileSystemProvider.PATH_HISTORY_SIZE );
         if ( fullHostNames != null && !fullHostNames.isEmpty() ) {
             final StringBuilder sb = new StringBuilder();
             final Iterator<Map.Entry<String, String>> iterator = fullHostNames.entrySet().iterator();
@@ -131,6 +155,110 @@ public class JGitFileSystem implements FileSystem,
         return credential;
     }
 
+    public JGitPathCache getPathCache() {
+        return pathCache;
+    }
+
+    public JGitPathHistory getPathHistory() {
+        return pathHistory;
+    }
+
+    public JGitGroupCommitter getGroupCommitter() {
+        return groupCommitter;
+    }
+
+    void setGroupCommitter( final JGitGroupCommitter groupCommitter ) {
+        this.groupCommitter = groupCommitter;
+    }
+
+    public JGitRepositoryMaintenance getMaintenance() {
+        return maintenance;
+    }
+
+    void setMaintenance( final JGitRepositoryMaintenance maintenance ) {
+        this.maintenance = maintenance;
+    }
+
+    /**
+     * Batch state is kept per file system, as batches on different file systems may run at the same time.
+     */
+    FileSystemState getState() {
+        return state;
+    }
+
+    void setState( final FileSystemState state ) {
+        this.state = state;
+    }
+
+    CommitInfo getBatchCommitInfo() {
+        return batchCommitInfo;
+    }
+
+    void setBatchCommitInfo( final CommitInfo batchCommitInfo ) {
+        this.batchCommitInfo = batchCommitInfo;
+    }
+
+    boolean hadCommitOnBatchState() {
+        return hadCommitOnBatchState;
+    }
+
+    void setHadCommitOnBatchState( final boolean hadCommitOnBatchState ) {
+        this.hadCommitOnBatchState = hadCommitOnBatchState;
+    }
+
+    /**
+     * @return original heads, by branch, of the diffs held back while in batch.
+     */
+    Map<String, NotificationModel> getOldHeadsOfPendingDiffs() {
+        return oldHeadsOfPendingDiffs;
+    }
+
+    /**
+     * @return id of the head commit of the root's branch.
+     */
+    @Override
+    public String revision( final Path root ) {
+        final ObjectId head = resolveObjectId( gitRepo, checkInstanceOf( "root", root, JGitPathImpl.class ).getRefTree() );
+        if ( head == null ) {
+            return null;
+        }
+        return head.name();
+    }
+
+    @Override
+    public List<WatchEvent<?>> changesSince( final Path root,
+                                             final String revision ) {
+        final String branch = checkInstanceOf( "root", root, JGitPathImpl.class ).getRefTree();
+        final ObjectId oldCommit = resolveObjectId( gitRepo, checkNotEmpty( "revision", revision ) );
+        if ( oldCommit == null ) {
+            return null;
+        }
+        final ObjectId oldTree = getTreeRefObjectId( gitRepo.getRepository(), oldCommit.name() );
+        final ObjectId newTree = getTreeRefObjectId( gitRepo.getRepository(), branch );
+        if ( oldTree == null ) {
+            return null;
+        }
+        return provider.buildEvents( this, branch, null, null, oldTree, newTree );
+    }
+
+    @Override
+    public Map<String, VersionRecord> lastChanges( final Path directory ) {
+        final JGitPathImpl path = checkInstanceOf( "directory", directory, JGitPathImpl.class );
+        return JGitUtil.lastChanges( this, path.getRefTree(), path.getPath() );
+    }
+
+    @Override
+    public boolean walkFileTree( final Path start,
+                                 final int maxDepth,
+                                 final FileVisitor<? super Path> visitor ) throws IOException {
+        if ( !( start instanceof JGitPathImpl ) || ( (JGitPathImpl) start ).getFileSystem() != this ) {
+            return false;
+        }
+        checkClose();
+        new JGitFileTreeWalker( visitor, maxDepth ).walk( (JGitPathImpl) start );
+        return true;
+    }
+
     @Override
     public FileSystemProvider provider() {
         return provider;
@@ -274,56 +402,7 @@ public class JGitFileSystem implements FileSystem,
     public WatchService newWatchService()
             throws UnsupportedOperationException, IOException {
         checkClose();
-        final WatchService ws = new WatchService() {
-            private boolean wsClose = false;
-
-            @Override
-            public WatchKey poll() throws ClosedWatchServiceException {
-                return events.get( this ).poll();
-            }
-
-            @Override
-            public WatchKey poll( long timeout,
-                                  TimeUnit unit ) throws ClosedWatchServiceException, org.uberfire.java.nio.file.InterruptedException {
-                return events.get( this ).poll();
-            }
-
-            @Override
-            public synchronized WatchKey take() throws ClosedWatchServiceException, InterruptedException {
-                while ( true ) {
-                    if ( wsClose || isClose ) {
-                        throw new ClosedWatchServiceException();
-                    } else if ( events.get( this ).size() > 0 ) {
-                        return events.get( this ).poll();
-                    } else {
-                        try {
-                            this.wait();
-                        } catch ( final java.lang.InterruptedException e ) {
-                        }
-                    }
-                }
-            }
-
-            @Override
-            public boolean isClose() {
-                return isClose;
-            }
-
-            @Override
-            public synchronized void close() throws IOException {
-                wsClose = true;
-                notifyAll();
-                watchServices.remove( this );
-            }
-
-            @Override
-            public String toString() {
-                return "WatchService{" +
-                        "FileSystem=" + JGitFileSystem.this.toString() +
-                        '}';
-            }
-        };
-        events.put( ws, new ConcurrentLinkedQueue<WatchKey>() );
+        final JGitWatchService ws = new JGitWatchService();
         watchServices.add( ws );
         return ws;
     }
@@ -333,11 +412,16 @@ public class JGitFileSystem implements FileSystem,
         if ( isClose ) {
             return;
         }
+        if ( maintenance != null ) {
+            maintenance.stop();
+        }
         gitRepo.getRepository().close();
+        pathCache.clear();
+        pathHistory.clear();
         isClose = true;
         try {
 
-            for ( final WatchService ws : new ArrayList<WatchService>( watchServices ) ) {
+            for ( final WatchService ws : watchServices ) {
                 try {
                     ws.close();
                 } catch ( final Exception ex ) {
@@ -345,7 +429,6 @@ public class JGitFileSystem implements FileSystem,
                 }
             }
             watchServices.clear();
-            events.clear();
         } catch ( final Exception ex ) {
             LOGGER.error( "Error during close of WatchServices [" + toString() + "]", ex );
         } finally {
@@ -406,7 +489,7 @@ public class JGitFileSystem implements FileSystem,
 
     public void publishEvents( final Path watchable,
                                final List<WatchEvent<?>> elist ) {
-        if ( this.events.isEmpty() ) {
+        if ( watchServices.isEmpty() ) {
             return;
         }
 
@@ -437,12 +520,8 @@ public class JGitFileSystem implements FileSystem,
             }
         };
 
-        for ( final Map.Entry<WatchService, Queue<WatchKey>> watchServiceQueueEntry : events.entrySet() ) {
-            watchServiceQueueEntry.getValue().add( wk );
-            final WatchService ws = watchServiceQueueEntry.getKey();
-            synchronized ( ws ) {
-                ws.notifyAll();
-            }
+        for ( final JGitWatchService ws : watchServices ) {
+            ws.publish( wk );
         }
     }
 
@@ -450,4 +529,90 @@ public class JGitFileSystem implements FileSystem,
     public void dispose() {
         provider.onDisposeFileSystem( this );
     }
+
+    private class JGitWatchService implements ListenableWatchService {
+
+        private final CoalescingWatchKeyQueue queue = new CoalescingWatchKeyQueue( JGitFileSystemProvider.WATCH_QUEUE_CAPACITY );
+        private volatile Runnable listener = null;
+        private boolean wsClose = false;
+
+        void publish( final WatchKey wk ) {
+            queue.offer( wk );
+            final Runnable currentListener = listener;
+            if ( currentListener != null ) {
+                currentListener.run();
+            }
+            synchronized ( this ) {
+                notifyAll();
+            }
+        }
+
+        @Override
+        public WatchKey poll() throws ClosedWatchServiceException {
+            return queue.poll();
+        }
+
+        @Override
+        public WatchKey poll( long timeout,
+                              TimeUnit unit ) throws ClosedWatchServiceException, org.uberfire.java.nio.file.InterruptedException {
+            return queue.poll();
+        }
+
+        @Override
+        public synchronized WatchKey take() throws ClosedWatchServiceException, InterruptedException {
+            while ( true ) {
+                if ( wsClose || isClose ) {
+                    throw new ClosedWatchServiceException();
+                } else if ( !queue.isEmpty() ) {
+                    return queue.poll();
+                } else {
+                    try {
+                        this.wait();
+                    } catch ( final java.lang.InterruptedException e ) {
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void setListener( final Runnable listener ) {
+            this.listener = listener;
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return queue.size();
+        }
+
+        @Override
+        public int getMaxQueueDepth() {
+            return queue.getMaxDepth();
+        }
+
+        @Override
+        public long getCoalescedCount() {
+            return queue.getCoalescedCount();
+        }
+
+        @Override
+        public boolean isClose() {
+            return isClose;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            wsClose = true;
+            listener = null;
+            queue.clear();
+            notifyAll();
+            watchServices.remove( this );
+        }
+
+        @Override
+        public String toString() {
+            return "WatchService{" +
+                    "FileSystem=" + JGitFileSystem.this.toString() +
+                    '}';
+        }
+    }
 }
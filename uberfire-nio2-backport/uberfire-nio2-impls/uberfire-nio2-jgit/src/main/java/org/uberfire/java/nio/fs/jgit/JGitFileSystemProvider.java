@@ -51,7 +51,7 @@ import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
-import org.eclipse.jgit.internal.storage.file.WindowCache;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
@@ -74,6 +74,7 @@ import org.uberfire.commons.message.MessageType;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.AbstractPath;
 import org.uberfire.java.nio.base.BasicFileAttributesImpl;
+import org.uberfire.java.nio.base.Discardable;
 import org.uberfire.java.nio.base.ExtendedAttributeView;
 import org.uberfire.java.nio.base.FileSystemState;
 import org.uberfire.java.nio.base.SeekableByteChannelFileBasedImpl;
@@ -82,6 +83,7 @@ import org.uberfire.java.nio.base.dotfiles.DotFileOption;
 import org.uberfire.java.nio.base.options.CommentedOption;
 import org.uberfire.java.nio.base.version.VersionAttributeView;
 import org.uberfire.java.nio.base.version.VersionAttributes;
+import org.uberfire.java.nio.base.watch.CoalescingWatchKeyQueue;
 import org.uberfire.java.nio.channels.AsynchronousFileChannel;
 import org.uberfire.java.nio.channels.SeekableByteChannel;
 import org.uberfire.java.nio.file.AccessDeniedException;
@@ -120,6 +122,8 @@ import org.uberfire.java.nio.fs.jgit.daemon.ssh.GitSSHService;
 import org.uberfire.java.nio.fs.jgit.util.CommitContent;
 import org.uberfire.java.nio.fs.jgit.util.CopyCommitContent;
 import org.uberfire.java.nio.fs.jgit.util.DefaultCommitContent;
+import org.uberfire.java.nio.fs.jgit.util.JGitPathCache;
+import org.uberfire.java.nio.fs.jgit.util.JGitPathHistory;
 import org.uberfire.java.nio.fs.jgit.util.JGitUtil;
 import org.uberfire.java.nio.fs.jgit.util.MoveCommitContent;
 import org.uberfire.java.nio.fs.jgit.util.RevertCommitContent;
@@ -142,6 +146,8 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
     public static final String GIT_DEFAULT_REMOTE_NAME = DEFAULT_REMOTE_NAME;
     public static final String GIT_LIST_ROOT_BRANCH_MODE = "listMode";
+    public static final String GIT_GROUP_COMMIT_WINDOW = "groupCommitWindow";
+    public static final String GIT_GROUP_COMMIT_MAX_FILES = "groupCommitMaxFiles";
 
     private static final String SCHEME = "git";
 
@@ -153,6 +159,8 @@ public class JGitFileSystemProvider implements FileSystemProvider,
     public static final int DAEMON_DEFAULT_PORT = 9418;
     public static final boolean SSH_DEFAULT_ENABLED = true;
     public static final int SSH_DEFAULT_PORT = 8001;
+    public static final int PATH_CACHE_DEFAULT_SIZE = JGitPathCache.DEFAULT_MAX_ENTRIES;
+    public static final int PATH_HISTORY_DEFAULT_SIZE = JGitPathHistory.DEFAULT_MAX_PATHS;
 
     private static final String GIT_ENV_PROP_DEST_PATH = "out-dir";
 
@@ -168,6 +176,25 @@ public class JGitFileSystemProvider implements FileSystemProvider,
     private static String SSH_HOST_NAME;
     private static File SSH_FILE_CERT_DIR;
 
+    public static int PATH_CACHE_SIZE = PATH_CACHE_DEFAULT_SIZE;
+    public static int PATH_HISTORY_SIZE = PATH_HISTORY_DEFAULT_SIZE;
+    public static int WATCH_QUEUE_CAPACITY = CoalescingWatchKeyQueue.DEFAULT_CAPACITY;
+
+    private static long GROUP_COMMIT_WINDOW;
+    private static int GROUP_COMMIT_MAX_FILES;
+
+    private static boolean MAINTENANCE_ENABLED;
+    private static long MAINTENANCE_INTERVAL;
+    private static int MAINTENANCE_LOOSE_OBJECTS;
+    private static int MAINTENANCE_PACKS;
+    private static long MAINTENANCE_PRUNE_EXPIRE;
+    private static boolean MAINTENANCE_BITMAPS;
+    private static int MAINTENANCE_WINDOW_START;
+    private static int MAINTENANCE_WINDOW_END;
+
+    private static WindowCacheConfig WINDOW_CACHE_CONFIG;
+    private static boolean WINDOW_CACHE_CUSTOM;
+
     public static final String USER_NAME = "username";
     public static final String PASSWORD = "password";
     public static final String INIT = "init";
@@ -175,10 +202,6 @@ public class JGitFileSystemProvider implements FileSystemProvider,
     public static final int SCHEME_SIZE = ( SCHEME + "://" ).length();
     public static final int DEFAULT_SCHEME_SIZE = ( "default://" ).length();
 
-    private FileSystemState state = FileSystemState.NORMAL;
-    private CommitInfo batchCommitInfo = null;
-    private boolean hadCommitOnBatchState = false;
-
     private final Map<String, JGitFileSystem> fileSystems = new ConcurrentHashMap<String, JGitFileSystem>();
     private final Set<JGitFileSystem> closedFileSystems = new HashSet<JGitFileSystem>();
     private final Map<Repository, JGitFileSystem> repoIndex = new ConcurrentHashMap<Repository, JGitFileSystem>();
@@ -188,8 +211,6 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
     private boolean isDefault;
 
-    private final Map<JGitFileSystem, Map<String, NotificationModel>> oldHeadsOfPendingDiffs = new HashMap<JGitFileSystem, Map<String, NotificationModel>>();
-
     private AuthenticationManager authenticationManager = null;
     private AuthorizationManager authorizationManager = null;
 
@@ -209,6 +230,28 @@ public class JGitFileSystemProvider implements FileSystemProvider,
         final String sshPort = System.getProperty( "org.uberfire.nio.git.ssh.port" );
         final String sshCertDir = System.getProperty( "org.uberfire.nio.git.ssh.cert.dir" );
 
+        final String pathCacheSize = System.getProperty( "org.uberfire.nio.git.path.cache.size" );
+        final String pathHistorySize = System.getProperty( "org.uberfire.nio.git.path.history.size" );
+        final String watchQueueCapacity = System.getProperty( "org.uberfire.nio.git.watch.queue.capacity" );
+
+        final String groupCommitWindow = System.getProperty( "org.uberfire.nio.git.commit.group.window" );
+        final String groupCommitMaxFiles = System.getProperty( "org.uberfire.nio.git.commit.group.maxfiles" );
+
+        final String maintenanceEnabled = System.getProperty( "org.uberfire.nio.git.maintenance.enabled" );
+        final String maintenanceInterval = System.getProperty( "org.uberfire.nio.git.maintenance.interval" );
+        final String maintenanceLooseObjects = System.getProperty( "org.uberfire.nio.git.maintenance.loose.threshold" );
+        final String maintenancePacks = System.getProperty( "org.uberfire.nio.git.maintenance.packs.threshold" );
+        final String maintenancePruneExpire = System.getProperty( "org.uberfire.nio.git.maintenance.prune.expire" );
+        final String maintenanceBitmaps = System.getProperty( "org.uberfire.nio.git.maintenance.bitmaps" );
+        final String maintenanceWindow = System.getProperty( "org.uberfire.nio.git.maintenance.window" );
+
+        final String packedGitLimit = System.getProperty( "org.uberfire.nio.git.window.packedgitlimit" );
+        final String packedGitWindowSize = System.getProperty( "org.uberfire.nio.git.window.packedgitwindowsize" );
+        final String packedGitOpenFiles = System.getProperty( "org.uberfire.nio.git.window.packedgitopenfiles" );
+        final String packedGitMMAP = System.getProperty( "org.uberfire.nio.git.window.packedgitmmap" );
+        final String deltaBaseCacheLimit = System.getProperty( "org.uberfire.nio.git.window.deltabasecachelimit" );
+        final String streamFileThreshold = System.getProperty( "org.uberfire.nio.git.window.streamfilethreshold" );
+
         if ( bareReposDir == null || bareReposDir.trim().isEmpty() ) {
             FILE_REPOSITORIES_ROOT = new File( REPOSITORIES_ROOT_DIR );
         } else {
@@ -281,11 +324,72 @@ public class JGitFileSystemProvider implements FileSystemProvider,
             SSH_FILE_CERT_DIR = new File( sshCertDir.trim(), SSH_FILE_CERT_ROOT_DIR );
         }
 
+        if ( pathCacheSize == null || pathCacheSize.trim().isEmpty() ) {
+            PATH_CACHE_SIZE = PATH_CACHE_DEFAULT_SIZE;
+        } else {
+            try {
+                PATH_CACHE_SIZE = Integer.valueOf( pathCacheSize.trim() );
+            } catch ( Exception ex ) {
+                PATH_CACHE_SIZE = PATH_CACHE_DEFAULT_SIZE;
+            }
+        }
+
+        PATH_HISTORY_SIZE = (int) toLong( pathHistorySize, PATH_HISTORY_DEFAULT_SIZE );
+        WATCH_QUEUE_CAPACITY = (int) toLong( watchQueueCapacity, CoalescingWatchKeyQueue.DEFAULT_CAPACITY );
+
+        GROUP_COMMIT_WINDOW = toLong( groupCommitWindow, 0L );
+        GROUP_COMMIT_MAX_FILES = (int) toLong( groupCommitMaxFiles, JGitGroupCommitter.DEFAULT_MAX_FILES );
+
+        // opt-in: gc competes with commits for disk and CPU, enable it along with an off-peak window (ex. "1-5")
+        MAINTENANCE_ENABLED = toBoolean( maintenanceEnabled, false );
+        MAINTENANCE_INTERVAL = toLong( maintenanceInterval, JGitRepositoryMaintenance.DEFAULT_CHECK_INTERVAL );
+        MAINTENANCE_LOOSE_OBJECTS = (int) toLong( maintenanceLooseObjects, JGitRepositoryMaintenance.DEFAULT_LOOSE_OBJECTS_THRESHOLD );
+        MAINTENANCE_PACKS = (int) toLong( maintenancePacks, JGitRepositoryMaintenance.DEFAULT_PACKS_THRESHOLD );
+        MAINTENANCE_PRUNE_EXPIRE = toLong( maintenancePruneExpire, JGitRepositoryMaintenance.DEFAULT_PRUNE_EXPIRE );
+        MAINTENANCE_BITMAPS = toBoolean( maintenanceBitmaps, true );
+        MAINTENANCE_WINDOW_START = -1;
+        MAINTENANCE_WINDOW_END = -1;
+        if ( maintenanceWindow != null && maintenanceWindow.contains( "-" ) ) {
+            final String[] hours = maintenanceWindow.split( "-" );
+            MAINTENANCE_WINDOW_START = (int) toLong( hours[ 0 ], -1 );
+            MAINTENANCE_WINDOW_END = hours.length > 1 ? (int) toLong( hours[ 1 ], -1 ) : -1;
+        }
+
+        WINDOW_CACHE_CONFIG = new WindowCacheConfig();
+        WINDOW_CACHE_CONFIG.setPackedGitLimit( toLong( packedGitLimit, WINDOW_CACHE_CONFIG.getPackedGitLimit() ) );
+        WINDOW_CACHE_CONFIG.setPackedGitWindowSize( (int) toLong( packedGitWindowSize, WINDOW_CACHE_CONFIG.getPackedGitWindowSize() ) );
+        WINDOW_CACHE_CONFIG.setPackedGitOpenFiles( (int) toLong( packedGitOpenFiles, WINDOW_CACHE_CONFIG.getPackedGitOpenFiles() ) );
+        WINDOW_CACHE_CONFIG.setPackedGitMMAP( toBoolean( packedGitMMAP, WINDOW_CACHE_CONFIG.isPackedGitMMAP() ) );
+        WINDOW_CACHE_CONFIG.setDeltaBaseCacheLimit( (int) toLong( deltaBaseCacheLimit, WINDOW_CACHE_CONFIG.getDeltaBaseCacheLimit() ) );
+        WINDOW_CACHE_CONFIG.setStreamFileThreshold( (int) toLong( streamFileThreshold, WINDOW_CACHE_CONFIG.getStreamFileThreshold() ) );
+        WINDOW_CACHE_CUSTOM = packedGitLimit != null || packedGitWindowSize != null || packedGitOpenFiles != null ||
+                packedGitMMAP != null || deltaBaseCacheLimit != null || streamFileThreshold != null;
+    }
+
+    private static boolean toBoolean( final Object value,
+                                      final boolean defaultValue ) {
+        if ( value == null || value.toString().trim().isEmpty() ) {
+            return defaultValue;
+        }
+        return Boolean.valueOf( value.toString().trim() );
+    }
+
+    private static long toLong( final Object value,
+                                final long defaultValue ) {
+        if ( value == null || value.toString().trim().isEmpty() ) {
+            return defaultValue;
+        }
+        try {
+            return Long.valueOf( value.toString().trim() );
+        } catch ( Exception ex ) {
+            return defaultValue;
+        }
+
     }
 
     public void onCloseFileSystem( final JGitFileSystem fileSystem ) {
         closedFileSystems.add( fileSystem );
-        oldHeadsOfPendingDiffs.remove( fileSystem );
+        fileSystem.getOldHeadsOfPendingDiffs().clear();
         if ( closedFileSystems.size() == fileSystems.size() ) {
             if ( daemonService != null ) {
                 daemonService.stop();
@@ -352,6 +456,9 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
     public JGitFileSystemProvider() {
         loadConfig();
+        if ( WINDOW_CACHE_CUSTOM ) {
+            WINDOW_CACHE_CONFIG.install();
+        }
         CredentialsProvider.setDefault( new UsernamePasswordCredentialsProvider( "guest", "" ) );
 
         if ( DAEMON_ENABLED ) {
@@ -374,6 +481,8 @@ public class JGitFileSystemProvider implements FileSystemProvider,
                 if ( repoDir.isDirectory() ) {
                     final String name = repoDir.getName().substring( 0, repoDir.getName().indexOf( DOT_GIT_EXT ) );
                     final JGitFileSystem fs = new JGitFileSystem( this, fullHostNames, newRepository( repoDir, true ), name, ALL, buildCredential( null ) );
+                    setupGroupCommit( fs, null );
+                    setupMaintenance( fs );
                     fileSystems.put( name, fs );
                     repoIndex.put( fs.gitRepo().getRepository(), fs );
                 }
@@ -408,7 +517,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
                         public void onPreReceive( final ReceivePack rp,
                                                   final Collection<ReceiveCommand> commands ) {
                             if ( clusterService != null ) {
-                                clusterService.lock();
+                                clusterService.lock( fs.id() );
                             }
                             for ( final ReceiveCommand command : commands ) {
                                 oldTreeRefs.put( command.getRefName(), JGitUtil.getTreeRefObjectId( db, command.getRefName() ) );
@@ -446,7 +555,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
                                                           }}
                                                         );
 
-                                clusterService.unlock();
+                                clusterService.unlock( fs.id() );
                             }
                         }
                     } );
@@ -550,6 +659,8 @@ public class JGitFileSystemProvider implements FileSystemProvider,
         }
 
         final JGitFileSystem fs = new JGitFileSystem( this, fullHostNames, git, name, listMode, credential );
+        setupGroupCommit( fs, env );
+        setupMaintenance( fs );
         fileSystems.put( name, fs );
         repoIndex.put( fs.gitRepo().getRepository(), fs );
 
@@ -589,6 +700,46 @@ public class JGitFileSystemProvider implements FileSystemProvider,
         return fs;
     }
 
+    private void setupGroupCommit( final JGitFileSystem fs,
+                                   final Map<String, ?> env ) {
+        long window = GROUP_COMMIT_WINDOW;
+        int maxFiles = GROUP_COMMIT_MAX_FILES;
+        if ( env != null ) {
+            window = toLong( env.get( GIT_GROUP_COMMIT_WINDOW ), window );
+            maxFiles = (int) toLong( env.get( GIT_GROUP_COMMIT_MAX_FILES ), maxFiles );
+        }
+
+        if ( window <= 0 ) {
+            fs.setGroupCommitter( null );
+            return;
+        }
+
+        fs.setGroupCommitter( new JGitGroupCommitter( window, maxFiles, new JGitGroupCommitter.Committer() {
+            @Override
+            public void commit( final JGitPathImpl path,
+                                final CommitInfo commitInfo,
+                                final DefaultCommitContent content ) {
+                doCommit( path, commitInfo, content );
+            }
+        } ) );
+    }
+
+    private void setupMaintenance( final JGitFileSystem fs ) {
+        final Repository repository = fs.gitRepo().getRepository();
+        if ( !MAINTENANCE_ENABLED || !( repository instanceof FileRepository ) ) {
+            return;
+        }
+        final JGitRepositoryMaintenance maintenance = new JGitRepositoryMaintenance( (FileRepository) repository,
+                                                                                     MAINTENANCE_LOOSE_OBJECTS,
+                                                                                     MAINTENANCE_PACKS,
+                                                                                     MAINTENANCE_PRUNE_EXPIRE,
+                                                                                     MAINTENANCE_BITMAPS,
+                                                                                     MAINTENANCE_WINDOW_START,
+                                                                                     MAINTENANCE_WINDOW_END );
+        fs.setMaintenance( maintenance );
+        maintenance.start( MAINTENANCE_INTERVAL );
+    }
+
     private CommentedOption setupOp( final Map<String, ?> env ) {
         return null;
     }
@@ -608,12 +759,23 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
         if ( hasSyncFlag( uri ) ) {
             try {
-                final String treeRef = "master";
-                final ObjectId oldHead = JGitUtil.getTreeRefObjectId( fileSystem.gitRepo().getRepository(), treeRef );
                 final Map<String, String> params = getQueryParams( uri );
-                syncRepository( fileSystem.gitRepo(), fileSystem.getCredential(), params.get( "sync" ), hasForceFlag( uri ) );
-                final ObjectId newHead = JGitUtil.getTreeRefObjectId( fileSystem.gitRepo().getRepository(), treeRef );
-                notifyDiffs( fileSystem, treeRef, "<system>", "<system>", oldHead, newHead );
+                final String root = params.get( "root" );
+                if ( root != null && !root.isEmpty() ) {
+                    // delta sync: only the branch of the given root, up to the given revision
+                    final String treeRef = JGitPathImpl.createRoot( fileSystem, "/", extractHost( URI.create( root ) ), false ).getRefTree();
+                    final ObjectId oldHead = JGitUtil.getTreeRefObjectId( fileSystem.gitRepo().getRepository(), treeRef );
+                    if ( syncBranch( fileSystem.gitRepo(), fileSystem.getCredential(), params.get( "sync" ), treeRef, params.get( "rev" ) ) ) {
+                        final ObjectId newHead = JGitUtil.getTreeRefObjectId( fileSystem.gitRepo().getRepository(), treeRef );
+                        notifyDiffs( fileSystem, treeRef, "<system>", "<system>", oldHead, newHead );
+                    }
+                } else {
+                    final String treeRef = "master";
+                    final ObjectId oldHead = JGitUtil.getTreeRefObjectId( fileSystem.gitRepo().getRepository(), treeRef );
+                    syncRepository( fileSystem.gitRepo(), fileSystem.getCredential(), params.get( "sync" ), hasForceFlag( uri ) );
+                    final ObjectId newHead = JGitUtil.getTreeRefObjectId( fileSystem.gitRepo().getRepository(), treeRef );
+                    notifyDiffs( fileSystem, treeRef, "<system>", "<system>", oldHead, newHead );
+                }
             } catch ( final Exception ex ) {
                 throw new IOException( ex );
             }
@@ -654,7 +816,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
         final JGitPathImpl gPath = toPathImpl( path );
 
-        return resolveInputStream( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+        return resolveInputStream( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
     }
 
     @Override
@@ -665,28 +827,89 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
         final JGitPathImpl gPath = toPathImpl( path );
 
-        final Pair<PathType, ObjectId> result = checkPath( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+        final Pair<PathType, ObjectId> result = checkPath( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
 
         if ( result.getK1().equals( PathType.DIRECTORY ) ) {
             throw new IOException();
         }
 
         try {
-            final File file = File.createTempFile( "gitz", "woot" );
-            return new FilterOutputStream( new FileOutputStream( file ) ) {
-                public void close() throws java.io.IOException {
-                    super.close();
-
-                    commit( gPath, buildCommitInfo( null, Arrays.asList( options ) ), new DefaultCommitContent( new HashMap<String, File>() {{
-                        put( gPath.getPath(), file );
-                    }} ) );
-                }
-            };
+            return new CommitOnCloseOutputStream( gPath, File.createTempFile( "gitz", "woot" ), options );
         } catch ( java.io.IOException e ) {
             throw new IOException( e );
         }
     }
 
+    /**
+     * Writes to a temp file that's committed on close, or just deleted if the stream is discarded.
+     */
+    private class CommitOnCloseOutputStream extends FilterOutputStream implements Discardable {
+
+        private final JGitPathImpl path;
+        private final File file;
+        private final OpenOption[] options;
+        private final JGitGroupCommitter groupCommitter;
+        private boolean closed = false;
+
+        CommitOnCloseOutputStream( final JGitPathImpl path,
+                                   final File file,
+                                   final OpenOption[] options ) throws FileNotFoundException {
+            super( new FileOutputStream( file ) );
+            this.path = path;
+            this.file = file;
+            this.options = options;
+            // lets a group commit wait for this write, that's still in progress
+            this.groupCommitter = path.getFileSystem().getGroupCommitter();
+            if ( groupCommitter != null ) {
+                groupCommitter.writerStarted( path.getRefTree() );
+            }
+        }
+
+        @Override
+        public void write( final byte[] b,
+                           final int off,
+                           final int len ) throws java.io.IOException {
+            out.write( b, off, len );
+        }
+
+        @Override
+        public void close() throws java.io.IOException {
+            if ( closed ) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+
+                commit( path, buildCommitInfo( null, Arrays.asList( options ) ), new DefaultCommitContent( new HashMap<String, File>() {{
+                    put( path.getPath(), file );
+                }} ) );
+            } finally {
+                finished();
+            }
+        }
+
+        @Override
+        public void discard() throws java.io.IOException {
+            if ( closed ) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                file.delete();
+                finished();
+            }
+        }
+
+        private void finished() {
+            if ( groupCommitter != null ) {
+                groupCommitter.writerFinished( path.getRefTree() );
+            }
+        }
+    }
+
     private CommitInfo buildCommitInfo( final String defaultMessage,
                                         final Collection<? extends Option> options ) {
         String sessionId = null;
@@ -775,7 +998,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
             }
         }
 
-        final Pair<PathType, ObjectId> result = checkPath( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+        final Pair<PathType, ObjectId> result = checkPath( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
 
         if ( result.getK1().equals( PathType.DIRECTORY ) ) {
             throw new IOException();
@@ -864,13 +1087,13 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
         final JGitPathImpl gPath = toPathImpl( path );
 
-        final Pair<PathType, ObjectId> result = checkPath( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+        final Pair<PathType, ObjectId> result = checkPath( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
 
         if ( !result.getK1().equals( PathType.DIRECTORY ) ) {
             throw new NotDirectoryException( path.toString() );
         }
 
-        final List<JGitPathInfo> pathContent = listPathContent( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+        final List<JGitPathInfo> pathContent = listPathContent( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
 
         return new DirectoryStream<Path>() {
             boolean isClosed = false;
@@ -957,7 +1180,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
         final JGitPathImpl gPath = toPathImpl( path );
 
-        final Pair<PathType, ObjectId> result = checkPath( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+        final Pair<PathType, ObjectId> result = checkPath( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
 
         if ( !result.getK1().equals( NOT_FOUND ) ) {
             throw new FileAlreadyExistsException( path.toString() );
@@ -1016,7 +1239,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
         try {
             if ( System.getProperty( "os.name" ).toLowerCase().contains( "windows" ) ) {
                 //this operation forces a cache clean freeing any lock -> windows only issue!
-                WindowCache.reconfigure( new WindowCacheConfig() );
+                WINDOW_CACHE_CONFIG.install();
             }
             FileUtils.delete( gitDir, FileUtils.RECURSIVE | FileUtils.RETRY );
             return true;
@@ -1027,14 +1250,14 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
     public void deleteAsset( final JGitPathImpl path,
                              final DeleteOption... options ) {
-        final Pair<PathType, ObjectId> result = checkPath( path.getFileSystem().gitRepo(), path.getRefTree(), path.getPath() );
+        final Pair<PathType, ObjectId> result = checkPath( path.getFileSystem(), path.getRefTree(), path.getPath() );
 
         if ( result.getK1().equals( PathType.DIRECTORY ) ) {
             if ( deleteNonEmptyDirectory( options ) ) {
                 deleteResource( path, options );
                 return;
             }
-            final List<JGitPathInfo> content = listPathContent( path.getFileSystem().gitRepo(), path.getRefTree(), path.getPath() );
+            final List<JGitPathInfo> content = listPathContent( path.getFileSystem(), path.getRefTree(), path.getPath() );
             if ( content.size() == 1 && content.get( 0 ).getPath().equals( path.getPath().substring( 1 ) + "/.gitignore" ) ) {
                 delete( path.resolve( ".gitignore" ) );
                 deleteResource( path, options );
@@ -1108,14 +1331,14 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
     public boolean deleteAssetIfExists( final JGitPathImpl path,
                                         final DeleteOption... options ) {
-        final Pair<PathType, ObjectId> result = checkPath( path.getFileSystem().gitRepo(), path.getRefTree(), path.getPath() );
+        final Pair<PathType, ObjectId> result = checkPath( path.getFileSystem(), path.getRefTree(), path.getPath() );
 
         if ( result.getK1().equals( PathType.DIRECTORY ) ) {
             if ( deleteNonEmptyDirectory( options ) ) {
                 deleteResource( path, options );
                 return true;
             }
-            final List<JGitPathInfo> content = listPathContent( path.getFileSystem().gitRepo(), path.getRefTree(), path.getPath() );
+            final List<JGitPathInfo> content = listPathContent( path.getFileSystem(), path.getRefTree(), path.getPath() );
             if ( content.size() == 1 && content.get( 0 ).getPath().equals( path.getPath().substring( 1 ) + "/.gitignore" ) ) {
                 delete( path.resolve( ".gitignore" ) );
                 return true;
@@ -1179,8 +1402,8 @@ public class JGitFileSystemProvider implements FileSystemProvider,
     private void copyAsset( final JGitPathImpl source,
                             final JGitPathImpl target,
                             final CopyOption... options ) {
-        final Pair<PathType, ObjectId> sourceResult = checkPath( source.getFileSystem().gitRepo(), source.getRefTree(), source.getPath() );
-        final Pair<PathType, ObjectId> targetResult = checkPath( target.getFileSystem().gitRepo(), target.getRefTree(), target.getPath() );
+        final Pair<PathType, ObjectId> sourceResult = checkPath( source.getFileSystem(), source.getRefTree(), source.getPath() );
+        final Pair<PathType, ObjectId> targetResult = checkPath( target.getFileSystem(), target.getRefTree(), target.getPath() );
 
         if ( !isRoot( target ) && targetResult.getK1() != NOT_FOUND ) {
             if ( !contains( options, StandardCopyOption.REPLACE_EXISTING ) ) {
@@ -1209,8 +1432,8 @@ public class JGitFileSystemProvider implements FileSystemProvider,
     private void copyAssetContent( final JGitPathImpl source,
                                    final JGitPathImpl target,
                                    final CopyOption... options ) {
-        final Pair<PathType, ObjectId> sourceResult = checkPath( source.getFileSystem().gitRepo(), source.getRefTree(), source.getPath() );
-        final Pair<PathType, ObjectId> targetResult = checkPath( target.getFileSystem().gitRepo(), target.getRefTree(), target.getPath() );
+        final Pair<PathType, ObjectId> sourceResult = checkPath( source.getFileSystem(), source.getRefTree(), source.getPath() );
+        final Pair<PathType, ObjectId> targetResult = checkPath( target.getFileSystem(), target.getRefTree(), target.getPath() );
 
         if ( !isRoot( target ) && targetResult.getK1() != NOT_FOUND ) {
             if ( !contains( options, StandardCopyOption.REPLACE_EXISTING ) ) {
@@ -1246,7 +1469,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
         final List<JGitPathImpl> directories = new ArrayList<JGitPathImpl>();
         for ( final Path path : newDirectoryStream( source, null ) ) {
             final JGitPathImpl gPath = toPathImpl( path );
-            final Pair<PathType, ObjectId> pathResult = checkPath( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+            final Pair<PathType, ObjectId> pathResult = checkPath( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
             if ( pathResult.getK1() == DIRECTORY ) {
                 directories.add( gPath );
                 continue;
@@ -1396,8 +1619,8 @@ public class JGitFileSystemProvider implements FileSystemProvider,
     private void moveAsset( final JGitPathImpl source,
                             final JGitPathImpl target,
                             final CopyOption... options ) {
-        final Pair<PathType, ObjectId> sourceResult = checkPath( source.getFileSystem().gitRepo(), source.getRefTree(), source.getPath() );
-        final Pair<PathType, ObjectId> targetResult = checkPath( target.getFileSystem().gitRepo(), target.getRefTree(), target.getPath() );
+        final Pair<PathType, ObjectId> sourceResult = checkPath( source.getFileSystem(), source.getRefTree(), source.getPath() );
+        final Pair<PathType, ObjectId> targetResult = checkPath( target.getFileSystem(), target.getRefTree(), target.getPath() );
 
         if ( !isRoot( target ) && targetResult.getK1() != NOT_FOUND ) {
             if ( !contains( options, StandardCopyOption.REPLACE_EXISTING ) ) {
@@ -1430,7 +1653,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
         final Map<JGitPathImpl, JGitPathImpl> fromTo = new HashMap<JGitPathImpl, JGitPathImpl>();
         for ( final Path path : newDirectoryStream( source, null ) ) {
             final JGitPathImpl gPath = toPathImpl( path );
-            final Pair<PathType, ObjectId> pathResult = checkPath( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+            final Pair<PathType, ObjectId> pathResult = checkPath( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
             if ( pathResult.getK1() == DIRECTORY ) {
                 fromTo.putAll( mapDirectoryContent( gPath, composePath( target, (JGitPathImpl) gPath.getFileName() ) ) );
             } else {
@@ -1474,8 +1697,8 @@ public class JGitFileSystemProvider implements FileSystemProvider,
         final JGitPathImpl gPathA = toPathImpl( pathA );
         final JGitPathImpl gPathB = toPathImpl( pathB );
 
-        final Pair<PathType, ObjectId> resultA = checkPath( gPathA.getFileSystem().gitRepo(), gPathA.getRefTree(), gPathA.getPath() );
-        final Pair<PathType, ObjectId> resultB = checkPath( gPathB.getFileSystem().gitRepo(), gPathB.getRefTree(), gPathB.getPath() );
+        final Pair<PathType, ObjectId> resultA = checkPath( gPathA.getFileSystem(), gPathA.getRefTree(), gPathA.getPath() );
+        final Pair<PathType, ObjectId> resultB = checkPath( gPathB.getFileSystem(), gPathB.getRefTree(), gPathB.getPath() );
 
         if ( resultA.getK1() == PathType.FILE && resultA.getK2().equals( resultB.getK2() ) ) {
             return true;
@@ -1514,7 +1737,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
         final JGitPathImpl gPath = toPathImpl( path );
 
-        final Pair<PathType, ObjectId> result = checkPath( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+        final Pair<PathType, ObjectId> result = checkPath( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
 
         if ( result.getK1().equals( NOT_FOUND ) ) {
             throw new NoSuchFileException( path.toString() );
@@ -1531,7 +1754,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
         final JGitPathImpl gPath = toPathImpl( path );
 
-        final Pair<PathType, ObjectId> pathResult = checkPath( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+        final Pair<PathType, ObjectId> pathResult = checkPath( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
         if ( pathResult.getK1().equals( NOT_FOUND ) ) {
             throw new NoSuchFileException( path.toString() );
         }
@@ -1584,7 +1807,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
         final JGitPathImpl gPath = toPathImpl( path );
 
-        final Pair<PathType, ObjectId> pathResult = checkPath( gPath.getFileSystem().gitRepo(), gPath.getRefTree(), gPath.getPath() );
+        final Pair<PathType, ObjectId> pathResult = checkPath( gPath.getFileSystem(), gPath.getRefTree(), gPath.getPath() );
         if ( pathResult.getK1().equals( NOT_FOUND ) ) {
             throw new NoSuchFileException( path.toString() );
         }
@@ -1631,22 +1854,22 @@ public class JGitFileSystemProvider implements FileSystemProvider,
         checkNotEmpty( "attributes", attribute );
 
         if ( attribute.equals( FileSystemState.FILE_SYSTEM_STATE_ATTR ) ) {
+            final JGitFileSystem fileSystem = toPathImpl( path ).getFileSystem();
             if ( value instanceof CommentedOption ) {
-                this.batchCommitInfo = buildCommitInfo( "Batch mode", (CommentedOption) value );
+                fileSystem.setBatchCommitInfo( buildCommitInfo( "Batch mode", (CommentedOption) value ) );
                 return;
             }
-            final boolean isOriginalStateBatch = state.equals( FileSystemState.BATCH );
+            final boolean isOriginalStateBatch = fileSystem.getState().equals( FileSystemState.BATCH );
             try {
-                state = FileSystemState.valueOf( value.toString() );
-                FileSystemState.valueOf( value.toString() );
+                fileSystem.setState( FileSystemState.valueOf( value.toString() ) );
             } catch ( final Exception ex ) {
-                state = FileSystemState.NORMAL;
+                fileSystem.setState( FileSystemState.NORMAL );
             }
-            if ( isOriginalStateBatch && state.equals( FileSystemState.NORMAL ) ) {
-                this.batchCommitInfo = null;
-                notifyAllDiffs();
+            if ( isOriginalStateBatch && fileSystem.getState().equals( FileSystemState.NORMAL ) ) {
+                fileSystem.setBatchCommitInfo( null );
+                notifyAllDiffs( fileSystem );
             }
-            hadCommitOnBatchState = false;
+            fileSystem.setHadCommitOnBatchState( false );
             return;
         }
 
@@ -1821,56 +2044,83 @@ public class JGitFileSystemProvider implements FileSystemProvider,
     private void commit( final JGitPathImpl path,
                          final CommitInfo commitInfo,
                          final CommitContent commitContent ) {
-        final Git git = path.getFileSystem().gitRepo();
+        final JGitGroupCommitter groupCommitter = path.getFileSystem().getGroupCommitter();
+        if ( groupCommitter == null || path.getFileSystem().getState() == FileSystemState.BATCH ) {
+            doCommit( path, commitInfo, commitContent );
+        } else if ( commitContent instanceof DefaultCommitContent ) {
+            groupCommitter.commit( path, commitInfo, (DefaultCommitContent) commitContent );
+        } else {
+            groupCommitter.runExclusive( path.getRefTree(), new Runnable() {
+                @Override
+                public void run() {
+                    doCommit( path, commitInfo, commitContent );
+                }
+            } );
+        }
+    }
+
+    private void doCommit( final JGitPathImpl path,
+                           final CommitInfo commitInfo,
+                           final CommitContent commitContent ) {
+        final JGitFileSystem fileSystem = path.getFileSystem();
+        final Git git = fileSystem.gitRepo();
         final String branchName = path.getRefTree();
-        final boolean batchState = state == FileSystemState.BATCH;
-        final boolean amend = batchState && hadCommitOnBatchState;
+        final boolean batchState = fileSystem.getState() == FileSystemState.BATCH;
+        final boolean amend = batchState && fileSystem.hadCommitOnBatchState();
+        final CommitInfo batchCommitInfo = fileSystem.getBatchCommitInfo();
 
-        final ObjectId oldHead = JGitUtil.getTreeRefObjectId( path.getFileSystem().gitRepo().getRepository(), branchName );
+        final ObjectId oldHead = JGitUtil.getTreeRefObjectId( git.getRepository(), branchName );
+        final ObjectId oldCommitId = resolveObjectId( git, branchName );
 
+        final JGitRepositoryMaintenance maintenance = fileSystem.getMaintenance();
         final boolean hasCommit;
-        if ( batchState && batchCommitInfo != null ) {
-            hasCommit = JGitUtil.commit( git, branchName, batchCommitInfo, amend, commitContent );
-        } else {
-            hasCommit = JGitUtil.commit( git, branchName, commitInfo, amend, commitContent );
+        if ( maintenance != null ) {
+            maintenance.getCommitLock().lock();
+        }
+        try {
+            if ( batchState && batchCommitInfo != null ) {
+                hasCommit = JGitUtil.commit( git, branchName, batchCommitInfo, amend, commitContent );
+            } else {
+                hasCommit = JGitUtil.commit( git, branchName, commitInfo, amend, commitContent );
+            }
+        } finally {
+            if ( maintenance != null ) {
+                maintenance.getCommitLock().unlock();
+            }
         }
 
-        if ( !batchState ) {
-            final ObjectId newHead = JGitUtil.getTreeRefObjectId( path.getFileSystem().gitRepo().getRepository(), branchName );
-
-            notifyDiffs( path.getFileSystem(), branchName, commitInfo.getSessionId(), commitInfo.getName(), oldHead, newHead );
-        } else if ( !oldHeadsOfPendingDiffs.containsKey( path.getFileSystem() ) ||
-                !oldHeadsOfPendingDiffs.get( path.getFileSystem() ).containsKey( branchName ) ) {
+        if ( hasCommit ) {
+            fileSystem.getPathCache().invalidate( oldCommitId );
+        }
 
-            if ( !oldHeadsOfPendingDiffs.containsKey( path.getFileSystem() ) ) {
-                oldHeadsOfPendingDiffs.put( path.getFileSystem(), new HashMap<String, NotificationModel>() );
-            }
+        if ( !batchState ) {
+            final ObjectId newHead = JGitUtil.getTreeRefObjectId( git.getRepository(), branchName );
 
+            notifyDiffs( fileSystem, branchName, commitInfo.getSessionId(), commitInfo.getName(), oldHead, newHead );
+        } else if ( !fileSystem.getOldHeadsOfPendingDiffs().containsKey( branchName ) ) {
             if ( batchCommitInfo != null ) {
-                oldHeadsOfPendingDiffs.get( path.getFileSystem() ).put( branchName, new NotificationModel( oldHead, batchCommitInfo.getSessionId(), batchCommitInfo.getName() ) );
+                fileSystem.getOldHeadsOfPendingDiffs().put( branchName, new NotificationModel( oldHead, batchCommitInfo.getSessionId(), batchCommitInfo.getName() ) );
             } else {
-                oldHeadsOfPendingDiffs.get( path.getFileSystem() ).put( branchName, new NotificationModel( oldHead, commitInfo.getSessionId(), commitInfo.getName() ) );
+                fileSystem.getOldHeadsOfPendingDiffs().put( branchName, new NotificationModel( oldHead, commitInfo.getSessionId(), commitInfo.getName() ) );
             }
         }
 
-        if ( state == FileSystemState.BATCH && !hadCommitOnBatchState ) {
-            hadCommitOnBatchState = hasCommit;
+        if ( batchState && !fileSystem.hadCommitOnBatchState() ) {
+            fileSystem.setHadCommitOnBatchState( hasCommit );
         }
     }
 
-    private void notifyAllDiffs() {
-        for ( Map.Entry<JGitFileSystem, Map<String, NotificationModel>> jGitFileSystemMapEntry : oldHeadsOfPendingDiffs.entrySet() ) {
-            for ( Map.Entry<String, NotificationModel> branchNameNotificationModelEntry : jGitFileSystemMapEntry.getValue().entrySet() ) {
-                final ObjectId newHead = JGitUtil.getTreeRefObjectId( jGitFileSystemMapEntry.getKey().gitRepo().getRepository(), branchNameNotificationModelEntry.getKey() );
-                notifyDiffs( jGitFileSystemMapEntry.getKey(),
-                             branchNameNotificationModelEntry.getKey(),
-                             branchNameNotificationModelEntry.getValue().getSessionId(),
-                             branchNameNotificationModelEntry.getValue().getUserName(),
-                             branchNameNotificationModelEntry.getValue().getOriginalHead(),
-                             newHead );
-            }
+    private void notifyAllDiffs( final JGitFileSystem fileSystem ) {
+        for ( Map.Entry<String, NotificationModel> branchNameNotificationModelEntry : fileSystem.getOldHeadsOfPendingDiffs().entrySet() ) {
+            final ObjectId newHead = JGitUtil.getTreeRefObjectId( fileSystem.gitRepo().getRepository(), branchNameNotificationModelEntry.getKey() );
+            notifyDiffs( fileSystem,
+                         branchNameNotificationModelEntry.getKey(),
+                         branchNameNotificationModelEntry.getValue().getSessionId(),
+                         branchNameNotificationModelEntry.getValue().getUserName(),
+                         branchNameNotificationModelEntry.getValue().getOriginalHead(),
+                         newHead );
         }
-        oldHeadsOfPendingDiffs.clear();
+        fileSystem.getOldHeadsOfPendingDiffs().clear();
     }
 
     private void notifyDiffs( final JGitFileSystem fs,
@@ -1887,8 +2137,20 @@ public class JGitFileSystemProvider implements FileSystemProvider,
             tree = _tree;
         }
 
+        final Path root = JGitPathImpl.createRoot( fs, "/", tree + "@" + fs.getName(), false );
+        final List<WatchEvent<?>> events = buildEvents( fs, tree, sessionId, userName, oldHead, newHead );
+        if ( !events.isEmpty() ) {
+            fs.publishEvents( root, events );
+        }
+    }
+
+    List<WatchEvent<?>> buildEvents( final JGitFileSystem fs,
+                                     final String tree,
+                                     final String sessionId,
+                                     final String userName,
+                                     final ObjectId oldHead,
+                                     final ObjectId newHead ) {
         final String host = tree + "@" + fs.getName();
-        final Path root = JGitPathImpl.createRoot( fs, "/", host, false );
 
         final List<DiffEntry> diff = JGitUtil.getDiff( fs.gitRepo().getRepository(), oldHead, newHead );
         final List<WatchEvent<?>> events = new ArrayList<WatchEvent<?>>( diff.size() );
@@ -1903,7 +2165,7 @@ public class JGitFileSystemProvider implements FileSystemProvider,
 
             final Path newPath;
             if ( !diffEntry.getNewPath().equals( DiffEntry.DEV_NULL ) ) {
-                JGitPathInfo pathInfo = resolvePath( fs.gitRepo(), tree, diffEntry.getNewPath() );
+                JGitPathInfo pathInfo = resolvePath( fs, tree, diffEntry.getNewPath() );
                 newPath = JGitPathImpl.create( fs, "/" + pathInfo.getPath(), host, pathInfo.getObjectId(), false );
             } else {
                 newPath = null;
@@ -1970,8 +2232,6 @@ public class JGitFileSystemProvider implements FileSystemProvider,
                 }
             } );
         }
-        if ( !events.isEmpty() ) {
-            fs.publishEvents( root, events );
-        }
+        return events;
     }
 }
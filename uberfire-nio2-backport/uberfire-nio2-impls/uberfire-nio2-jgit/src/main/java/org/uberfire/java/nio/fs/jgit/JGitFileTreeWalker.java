@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.util.LinkedList;
+
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.file.FileVisitResult;
+import org.uberfire.java.nio.file.FileVisitor;
+import org.uberfire.java.nio.file.NoSuchFileException;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+import static org.uberfire.java.nio.fs.jgit.util.JGitUtil.*;
+
+/**
+ * Walks a tree of a {@link JGitFileSystem} with a single {@link TreeWalk}, visiting entries in git order.
+ * <p/>
+ * The start path is resolved once and the walk is pinned to the commit it was resolved on; paths, types and object
+ * ids of all the other entries come from the tree walk itself, so the cost is one parse of each tree instead of a
+ * lookup from the root for every entry and a listing for every directory. Sizes and times are read only if the
+ * visitor asks for them.
+ */
+public class JGitFileTreeWalker {
+
+    private final FileVisitor<? super Path> visitor;
+    private final int maxDepth;
+
+    public JGitFileTreeWalker( final FileVisitor<? super Path> visitor,
+                               final int maxDepth ) {
+        this.visitor = checkNotNull( "visitor", visitor );
+        this.maxDepth = maxDepth;
+    }
+
+    public void walk( final JGitPathImpl start ) throws IOException {
+        checkNotNull( "start", start );
+        final JGitFileSystem fs = start.getFileSystem();
+        final ObjectId commitId = resolveObjectId( fs.gitRepo(), start.getRefTree() );
+        final JGitPathInfo startInfo = commitId == null ? null : resolvePath( fs, commitId.name(), start.getPath() );
+        if ( startInfo == null ) {
+            visitor.visitFileFailed( start, new NoSuchFileException( start.toString() ) );
+            return;
+        }
+
+        final String startPath = fixPath( start.getPath() );
+        final BasicFileAttributes startAttrs = buildBasicAttributes( fs, commitId, startPath, startInfo );
+        if ( maxDepth <= 0 || !startAttrs.isDirectory() ) {
+            visitor.visitFile( start, startAttrs );
+            return;
+        }
+
+        final FileVisitResult result = visitor.preVisitDirectory( start, startAttrs );
+        if ( result != FileVisitResult.CONTINUE ) {
+            return;
+        }
+
+        final ObjectId treeId = startPath.isEmpty() ? getTreeRefObjectId( fs.gitRepo().getRepository(), commitId.name() ) : startInfo.getObjectId();
+        final IOException postException;
+        try {
+            postException = walkTree( start, commitId, startPath, treeId );
+        } catch ( final Terminate ignored ) {
+            return;
+        }
+
+        visitor.postVisitDirectory( start, postException );
+    }
+
+    /**
+     * @return the error reading the trees, if any.
+     */
+    private IOException walkTree( final JGitPathImpl start,
+                                  final ObjectId commitId,
+                                  final String startPath,
+                                  final ObjectId treeId ) throws Terminate {
+        final JGitFileSystem fs = start.getFileSystem();
+        final String prefix = startPath.isEmpty() ? "/" : "/" + startPath + "/";
+        final LinkedList<Path> openDirectories = new LinkedList<Path>();
+
+        final TreeWalk tw = new TreeWalk( fs.gitRepo().getRepository() );
+        try {
+            tw.setRecursive( false );
+            tw.reset( treeId );
+
+            int skipSiblingsDepth = -1;
+            while ( tw.next() ) {
+                final int depth = tw.getDepth();
+                while ( openDirectories.size() > depth ) {
+                    final FileVisitResult result = visitor.postVisitDirectory( openDirectories.removeLast(), null );
+                    if ( result == FileVisitResult.TERMINATE ) {
+                        throw new Terminate();
+                    }
+                    if ( result == FileVisitResult.SKIP_SIBLINGS ) {
+                        skipSiblingsDepth = openDirectories.size();
+                    }
+                }
+                if ( skipSiblingsDepth != -1 ) {
+                    if ( depth >= skipSiblingsDepth ) {
+                        continue;
+                    }
+                    skipSiblingsDepth = -1;
+                }
+
+                final String gitPath = startPath.isEmpty() ? tw.getPathString() : startPath + "/" + tw.getPathString();
+                final FileMode mode = tw.getFileMode( 0 );
+                final ObjectId objectId = tw.getObjectId( 0 );
+                final JGitPathImpl path = JGitPathImpl.create( fs, prefix + tw.getPathString(), start.getHost(), objectId, start.isRealPath() );
+                final JGitPathInfo pathInfo = new JGitPathInfo( objectId, gitPath, mode );
+                final BasicFileAttributes attrs = buildBasicAttributes( fs, commitId, gitPath, pathInfo );
+
+                final FileVisitResult result;
+                if ( tw.isSubtree() && depth + 1 < maxDepth ) {
+                    result = visitor.preVisitDirectory( path, attrs );
+                    if ( result == FileVisitResult.CONTINUE ) {
+                        tw.enterSubtree();
+                        openDirectories.add( path );
+                    }
+                } else {
+                    result = visitor.visitFile( path, attrs );
+                }
+
+                if ( result == FileVisitResult.TERMINATE ) {
+                    throw new Terminate();
+                }
+                if ( result == FileVisitResult.SKIP_SIBLINGS ) {
+                    skipSiblingsDepth = depth;
+                }
+            }
+        } catch ( final java.io.IOException ex ) {
+            return new IOException( ex );
+        } finally {
+            tw.release();
+        }
+
+        while ( !openDirectories.isEmpty() ) {
+            final FileVisitResult result = visitor.postVisitDirectory( openDirectories.removeLast(), null );
+            if ( result == FileVisitResult.TERMINATE ) {
+                throw new Terminate();
+            }
+        }
+        return null;
+    }
+
+    private static class Terminate extends Exception {
+
+    }
+}
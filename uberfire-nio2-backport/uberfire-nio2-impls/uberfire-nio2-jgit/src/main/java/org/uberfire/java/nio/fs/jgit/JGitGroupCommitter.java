@@ -0,0 +1,317 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.java.nio.fs.jgit.util.DefaultCommitContent;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Group commit for a single {@link JGitFileSystem}: file writes that arrive for the same branch within
+ * {@code window} milliseconds (or until {@code maxFiles} files are pending) are merged into one commit.
+ * <p/>
+ * The first writer of a group acts as leader, collects the group and commits it; every writer blocks until
+ * the commit that contains its content is done and gets its own failure, if any. Only consecutive writes of the
+ * same identity (session, name and email) are merged, so history and diff notifications keep every author.
+ * <p/>
+ * Writers still preparing their content announce themselves with {@link #writerStarted(String)}: the leader
+ * waits only while some of them haven't joined the group yet, so a lone writer commits right away.
+ */
+public class JGitGroupCommitter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger( JGitGroupCommitter.class );
+
+    public static final int DEFAULT_MAX_FILES = 100;
+
+    public interface Committer {
+
+        void commit( final JGitPathImpl path,
+                     final CommitInfo commitInfo,
+                     final DefaultCommitContent content );
+    }
+
+    private final long window;
+    private final int maxFiles;
+    private final Committer committer;
+    private final ConcurrentMap<String, BranchQueue> branches = new ConcurrentHashMap<String, BranchQueue>();
+
+    public JGitGroupCommitter( final long window,
+                               final int maxFiles,
+                               final Committer committer ) {
+        this.window = window;
+        this.maxFiles = maxFiles > 0 ? maxFiles : DEFAULT_MAX_FILES;
+        this.committer = checkNotNull( "committer", committer );
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    /**
+     * Counts a writer of the given branch that will commit later on; must be paired with {@link #writerFinished(String)}
+     * once its content is committed or abandoned.
+     */
+    public void writerStarted( final String branchName ) {
+        final BranchQueue queue = getQueue( branchName );
+        synchronized ( queue ) {
+            queue.writers++;
+        }
+    }
+
+    public void writerFinished( final String branchName ) {
+        final BranchQueue queue = getQueue( branchName );
+        synchronized ( queue ) {
+            queue.writers--;
+            if ( queue.hasLeader ) {
+                queue.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Blocks until the given content is committed, possibly together with concurrent writes to the same branch.
+     */
+    public void commit( final JGitPathImpl path,
+                        final CommitInfo commitInfo,
+                        final DefaultCommitContent content ) {
+        final BranchQueue queue = getQueue( path.getRefTree() );
+        final PendingCommit pending = new PendingCommit( path, commitInfo, content );
+
+        final boolean isLeader;
+        synchronized ( queue ) {
+            queue.pending.add( pending );
+            queue.pendingFiles += content.getContent().size();
+            isLeader = !queue.hasLeader;
+            if ( isLeader ) {
+                queue.hasLeader = true;
+            } else if ( queue.pendingFiles >= maxFiles || !othersInFlight( queue ) ) {
+                queue.notifyAll();
+            }
+        }
+
+        if ( isLeader ) {
+            final List<PendingCommit> group = collect( queue );
+            queue.commitLock.lock();
+            try {
+                execute( group );
+            } finally {
+                queue.commitLock.unlock();
+            }
+        }
+
+        pending.await();
+    }
+
+    /**
+     * Runs a commit that can't be merged (move, copy, revert) making sure it doesn't interleave with a group commit.
+     */
+    public void runExclusive( final String branchName,
+                              final Runnable runnable ) {
+        final BranchQueue queue = getQueue( branchName );
+        queue.commitLock.lock();
+        try {
+            runnable.run();
+        } finally {
+            queue.commitLock.unlock();
+        }
+    }
+
+    private BranchQueue getQueue( final String branchName ) {
+        BranchQueue queue = branches.get( branchName );
+        if ( queue == null ) {
+            final BranchQueue newQueue = new BranchQueue();
+            queue = branches.putIfAbsent( branchName, newQueue );
+            if ( queue == null ) {
+                queue = newQueue;
+            }
+        }
+        return queue;
+    }
+
+    private List<PendingCommit> collect( final BranchQueue queue ) {
+        synchronized ( queue ) {
+            final long deadline = System.currentTimeMillis() + window;
+            long remaining = window;
+            while ( queue.pendingFiles < maxFiles && remaining > 0 && othersInFlight( queue ) ) {
+                try {
+                    queue.wait( remaining );
+                } catch ( final InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            final List<PendingCommit> group = new ArrayList<PendingCommit>( queue.pending );
+            queue.pending.clear();
+            queue.pendingFiles = 0;
+            queue.hasLeader = false;
+            return group;
+        }
+    }
+
+    /**
+     * @return true if some started writer hasn't joined the pending group yet.
+     */
+    private static boolean othersInFlight( final BranchQueue queue ) {
+        return queue.writers > queue.pending.size();
+    }
+
+    private void execute( final List<PendingCommit> group ) {
+        List<PendingCommit> run = new ArrayList<PendingCommit>();
+        for ( final PendingCommit pending : group ) {
+            if ( !run.isEmpty() && !sameIdentity( run.get( 0 ).commitInfo, pending.commitInfo ) ) {
+                executeRun( run );
+                run = new ArrayList<PendingCommit>();
+            }
+            run.add( pending );
+        }
+        executeRun( run );
+    }
+
+    private static boolean sameIdentity( final CommitInfo one,
+                                         final CommitInfo other ) {
+        return equals( one.getSessionId(), other.getSessionId() ) &&
+                equals( one.getName(), other.getName() ) &&
+                equals( one.getEmail(), other.getEmail() );
+    }
+
+    private static boolean equals( final String one,
+                                   final String other ) {
+        return one == null ? other == null : one.equals( other );
+    }
+
+    private void executeRun( final List<PendingCommit> group ) {
+        if ( group.size() == 1 ) {
+            executeSingle( group.get( 0 ) );
+            return;
+        }
+
+        final Map<String, File> content = new LinkedHashMap<String, File>();
+        for ( final PendingCommit pending : group ) {
+            content.putAll( pending.content.getContent() );
+        }
+
+        try {
+            committer.commit( group.get( 0 ).path, mergeCommitInfo( group ), new DefaultCommitContent( content ) );
+            for ( final PendingCommit pending : group ) {
+                pending.done( null );
+            }
+        } catch ( final RuntimeException ex ) {
+            LOGGER.warn( "Group commit of " + group.size() + " writes failed, committing them one by one.", ex );
+            for ( final PendingCommit pending : group ) {
+                executeSingle( pending );
+            }
+        }
+    }
+
+    private void executeSingle( final PendingCommit pending ) {
+        try {
+            committer.commit( pending.path, pending.commitInfo, pending.content );
+            pending.done( null );
+        } catch ( final RuntimeException ex ) {
+            pending.done( ex );
+        }
+    }
+
+    private CommitInfo mergeCommitInfo( final List<PendingCommit> group ) {
+        final CommitInfo first = group.get( 0 ).commitInfo;
+        final Set<String> messages = new LinkedHashSet<String>();
+        for ( final PendingCommit pending : group ) {
+            final String message = pending.commitInfo.getMessage();
+            if ( message != null && !message.trim().isEmpty() ) {
+                messages.add( message );
+            }
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        for ( final String message : messages ) {
+            if ( sb.length() > 0 ) {
+                sb.append( '\n' );
+            }
+            sb.append( message );
+        }
+
+        return new CommitInfo( first.getSessionId(), first.getName(), first.getEmail(), sb.length() > 0 ? sb.toString() : null, first.getTimeZone(), first.getWhen() );
+    }
+
+    private static class BranchQueue {
+
+        private final List<PendingCommit> pending = new ArrayList<PendingCommit>();
+        private final ReentrantLock commitLock = new ReentrantLock( true );
+        private int pendingFiles = 0;
+        private int writers = 0;
+        private boolean hasLeader = false;
+    }
+
+    private static class PendingCommit {
+
+        private final JGitPathImpl path;
+        private final CommitInfo commitInfo;
+        private final DefaultCommitContent content;
+        private final CountDownLatch latch = new CountDownLatch( 1 );
+        private volatile RuntimeException failure = null;
+
+        PendingCommit( final JGitPathImpl path,
+                       final CommitInfo commitInfo,
+                       final DefaultCommitContent content ) {
+            this.path = path;
+            this.commitInfo = commitInfo;
+            this.content = content;
+        }
+
+        void done( final RuntimeException failure ) {
+            this.failure = failure;
+            latch.countDown();
+        }
+
+        void await() {
+            boolean interrupted = false;
+            while ( true ) {
+                try {
+                    latch.await();
+                    break;
+                } catch ( final InterruptedException e ) {
+                    interrupted = true;
+                }
+            }
+            if ( interrupted ) {
+                Thread.currentThread().interrupt();
+            }
+            if ( failure != null ) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Background maintenance of the repository of a single {@link JGitFileSystem}.
+ * <p/>
+ * Loose objects and packs are counted periodically (loose objects are estimated from a single fan-out directory,
+ * as <code>git gc --auto</code> does); when a threshold is exceeded and the current time is inside the off-peak
+ * window, refs are packed, all objects are repacked in a single pack (with bitmap index, if enabled) and loose
+ * objects that got packed, or are unreachable and older than the prune expiry, are removed.
+ * <p/>
+ * Only packing refs conflicts with concurrent commits, so commits hold {@link #getCommitLock()} and just that
+ * step takes the exclusive lock; repack and prune run alongside writes, new objects are younger than the expiry.
+ */
+public class JGitRepositoryMaintenance {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger( JGitRepositoryMaintenance.class );
+
+    public static final int DEFAULT_LOOSE_OBJECTS_THRESHOLD = 6700;
+    public static final int DEFAULT_PACKS_THRESHOLD = 50;
+    public static final long DEFAULT_CHECK_INTERVAL = TimeUnit.HOURS.toMillis( 1 );
+    public static final long DEFAULT_PRUNE_EXPIRE = TimeUnit.HOURS.toMillis( 1 );
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+        @Override
+        public Thread newThread( final Runnable r ) {
+            final Thread thread = new Thread( r, "uberfire-git-maintenance" );
+            thread.setDaemon( true );
+            thread.setPriority( Thread.MIN_PRIORITY );
+            return thread;
+        }
+    } );
+
+    private final FileRepository repository;
+    private final int looseObjectsThreshold;
+    private final int packsThreshold;
+    private final long pruneExpire;
+    private final boolean buildBitmaps;
+    private final int offPeakStart;
+    private final int offPeakEnd;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean running = new AtomicBoolean( false );
+    private volatile Result lastResult = null;
+    private ScheduledFuture<?> task = null;
+
+    /**
+     * @param offPeakStart first hour of day (0-23) maintenance can run; -1 to run at any time.
+     * @param offPeakEnd hour of day (0-23) maintenance stops running, it can wrap around midnight.
+     */
+    public JGitRepositoryMaintenance( final FileRepository repository,
+                                      final int looseObjectsThreshold,
+                                      final int packsThreshold,
+                                      final long pruneExpire,
+                                      final boolean buildBitmaps,
+                                      final int offPeakStart,
+                                      final int offPeakEnd ) {
+        this.repository = checkNotNull( "repository", repository );
+        this.looseObjectsThreshold = looseObjectsThreshold > 0 ? looseObjectsThreshold : DEFAULT_LOOSE_OBJECTS_THRESHOLD;
+        this.packsThreshold = packsThreshold > 0 ? packsThreshold : DEFAULT_PACKS_THRESHOLD;
+        this.pruneExpire = pruneExpire >= 0 ? pruneExpire : DEFAULT_PRUNE_EXPIRE;
+        this.buildBitmaps = buildBitmaps;
+        this.offPeakStart = offPeakStart;
+        this.offPeakEnd = offPeakEnd;
+    }
+
+    public synchronized void start( final long checkInterval ) {
+        stop();
+        final long interval = checkInterval > 0 ? checkInterval : DEFAULT_CHECK_INTERVAL;
+        task = SCHEDULER.scheduleWithFixedDelay( new Runnable() {
+            @Override
+            public void run() {
+                check();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS );
+    }
+
+    public synchronized void stop() {
+        if ( task != null ) {
+            task.cancel( false );
+            task = null;
+        }
+    }
+
+    /**
+     * Lock held by commits, shared among them.
+     */
+    public Lock getCommitLock() {
+        return lock.readLock();
+    }
+
+    public Result getLastResult() {
+        return lastResult;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Runs the maintenance if it's needed and the current time is off-peak.
+     */
+    public void check() {
+        try {
+            if ( isOffPeak( Calendar.getInstance() ) && isNeeded() ) {
+                runNow();
+            }
+        } catch ( final Exception ex ) {
+            LOGGER.error( "Maintenance of repository [" + repository.getDirectory() + "] failed.", ex );
+        }
+    }
+
+    public boolean isOffPeak( final Calendar now ) {
+        if ( offPeakStart < 0 || offPeakEnd < 0 || offPeakStart == offPeakEnd ) {
+            return true;
+        }
+        final int hour = now.get( Calendar.HOUR_OF_DAY );
+        if ( offPeakStart < offPeakEnd ) {
+            return hour >= offPeakStart && hour < offPeakEnd;
+        }
+        return hour >= offPeakStart || hour < offPeakEnd;
+    }
+
+    public boolean isNeeded() {
+        return estimateLooseObjects() > looseObjectsThreshold || countPacks() > packsThreshold;
+    }
+
+    /**
+     * Runs the maintenance right away, regardless of thresholds and schedule.
+     * @return before and after statistics, or null if a maintenance is already running for this repository.
+     */
+    public Result runNow() throws java.io.IOException {
+        if ( !running.compareAndSet( false, true ) ) {
+            return null;
+        }
+        try {
+            final long start = System.currentTimeMillis();
+            final Statistics before = getStatistics();
+
+            repository.getConfig().setBoolean( "pack", null, "buildbitmaps", buildBitmaps );
+            final GC gc = new GC( repository );
+            gc.setExpireAgeMillis( pruneExpire );
+
+            lock.writeLock().lock();
+            try {
+                gc.packRefs();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            gc.repack();
+            gc.prune( Collections.<ObjectId>emptySet() );
+
+            final Statistics after = getStatistics();
+            final Result result = new Result( start, System.currentTimeMillis() - start, before, after );
+            lastResult = result;
+            LOGGER.info( "Maintenance of repository [" + repository.getDirectory() + "] done in " + result.getDuration() + "ms; before " + before + ", after " + after );
+            return result;
+        } catch ( final java.io.IOException ex ) {
+            throw ex;
+        } catch ( final Exception ex ) {
+            throw new java.io.IOException( ex );
+        } finally {
+            running.set( false );
+        }
+    }
+
+    public Statistics getStatistics() throws java.io.IOException {
+        final GC.RepoStatistics stats = new GC( repository ).getStatistics();
+        return new Statistics( stats.numberOfLooseObjects, stats.sizeOfLooseObjects, stats.numberOfPackFiles, stats.numberOfPackedObjects, stats.sizeOfPackedObjects );
+    }
+
+    int estimateLooseObjects() {
+        final String[] objects = new File( repository.getObjectsDirectory(), "17" ).list( new FilenameFilter() {
+            @Override
+            public boolean accept( final File dir,
+                                   final String name ) {
+                return name.length() == 38;
+            }
+        } );
+        return objects == null ? 0 : objects.length * 256;
+    }
+
+    int countPacks() {
+        final String[] packs = new File( repository.getObjectsDirectory(), "pack" ).list( new FilenameFilter() {
+            @Override
+            public boolean accept( final File dir,
+                                   final String name ) {
+                return name.endsWith( ".pack" );
+            }
+        } );
+        return packs == null ? 0 : packs.length;
+    }
+
+    public static class Statistics {
+
+        private final long looseObjects;
+        private final long looseSize;
+        private final long packs;
+        private final long packedObjects;
+        private final long packedSize;
+
+        Statistics( final long looseObjects,
+                    final long looseSize,
+                    final long packs,
+                    final long packedObjects,
+                    final long packedSize ) {
+            this.looseObjects = looseObjects;
+            this.looseSize = looseSize;
+            this.packs = packs;
+            this.packedObjects = packedObjects;
+            this.packedSize = packedSize;
+        }
+
+        public long getLooseObjects() {
+            return looseObjects;
+        }
+
+        public long getLooseSize() {
+            return looseSize;
+        }
+
+        public long getPacks() {
+            return packs;
+        }
+
+        public long getPackedObjects() {
+            return packedObjects;
+        }
+
+        public long getPackedSize() {
+            return packedSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "looseObjects=" + looseObjects +
+                    ", looseSize=" + looseSize +
+                    ", packs=" + packs +
+                    ", packedObjects=" + packedObjects +
+                    ", packedSize=" + packedSize +
+                    '}';
+        }
+    }
+
+    public static class Result {
+
+        private final long timestamp;
+        private final long duration;
+        private final Statistics before;
+        private final Statistics after;
+
+        Result( final long timestamp,
+                final long duration,
+                final Statistics before,
+                final Statistics after ) {
+            this.timestamp = timestamp;
+            this.duration = duration;
+            this.before = before;
+            this.after = after;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        public Statistics getBefore() {
+            return before;
+        }
+
+        public Statistics getAfter() {
+            return after;
+        }
+    }
+}
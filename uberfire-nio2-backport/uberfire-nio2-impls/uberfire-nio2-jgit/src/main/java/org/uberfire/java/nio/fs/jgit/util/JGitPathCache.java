@@ -0,0 +1,261 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.uberfire.java.nio.base.version.VersionRecord;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Bounded LRU cache of tree lookups for a single repository, keyed by commit id and path.
+ * <p/>
+ * Entries are immutable by nature (a commit never changes), so the cache is always consistent;
+ * entries of a commit are dropped once a ref moves away from it, as they're unlikely to be read again.
+ */
+public class JGitPathCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    public static final JGitUtil.JGitPathInfo NOT_FOUND = new JGitUtil.JGitPathInfo( null, "", FileMode.MISSING );
+
+    private final int maxEntries;
+    private final Map<Key, JGitUtil.JGitPathInfo> pathInfos;
+    private final Map<Key, List<JGitUtil.JGitPathInfo>> listings;
+    private final Map<Key, Map<String, VersionRecord>> lastChanges;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public JGitPathCache() {
+        this( DEFAULT_MAX_ENTRIES );
+    }
+
+    public JGitPathCache( final int maxEntries ) {
+        this.maxEntries = maxEntries;
+        this.pathInfos = new LRUMap<JGitUtil.JGitPathInfo>( maxEntries );
+        this.listings = new LRUMap<List<JGitUtil.JGitPathInfo>>( Math.max( maxEntries / 10, 1 ) );
+        this.lastChanges = new LRUMap<Map<String, VersionRecord>>( Math.max( maxEntries / 100, 1 ) );
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * @return cached path info, {@link #NOT_FOUND} if path is known to not exist or null if not cached.
+     */
+    public JGitUtil.JGitPathInfo getPathInfo( final AnyObjectId commitId,
+                                              final String path ) {
+        if ( !isEnabled() ) {
+            return null;
+        }
+        final JGitUtil.JGitPathInfo result;
+        synchronized ( pathInfos ) {
+            result = pathInfos.get( new Key( commitId, path ) );
+        }
+        count( result != null );
+        return result;
+    }
+
+    public void putPathInfo( final AnyObjectId commitId,
+                             final String path,
+                             final JGitUtil.JGitPathInfo pathInfo ) {
+        if ( !isEnabled() ) {
+            return;
+        }
+        synchronized ( pathInfos ) {
+            pathInfos.put( new Key( commitId, path ), pathInfo == null ? NOT_FOUND : pathInfo );
+        }
+    }
+
+    public List<JGitUtil.JGitPathInfo> getListing( final AnyObjectId commitId,
+                                                   final String path ) {
+        if ( !isEnabled() ) {
+            return null;
+        }
+        final List<JGitUtil.JGitPathInfo> result;
+        synchronized ( listings ) {
+            result = listings.get( new Key( commitId, path ) );
+        }
+        count( result != null );
+        return result;
+    }
+
+    public void putListing( final AnyObjectId commitId,
+                            final String path,
+                            final List<JGitUtil.JGitPathInfo> content ) {
+        if ( !isEnabled() ) {
+            return;
+        }
+        synchronized ( listings ) {
+            listings.put( new Key( commitId, path ), Collections.unmodifiableList( content ) );
+        }
+    }
+
+    public Map<String, VersionRecord> getLastChanges( final AnyObjectId commitId,
+                                                      final String path ) {
+        if ( !isEnabled() ) {
+            return null;
+        }
+        final Map<String, VersionRecord> result;
+        synchronized ( lastChanges ) {
+            result = lastChanges.get( new Key( commitId, path ) );
+        }
+        count( result != null );
+        return result;
+    }
+
+    public void putLastChanges( final AnyObjectId commitId,
+                                final String path,
+                                final Map<String, VersionRecord> content ) {
+        if ( !isEnabled() ) {
+            return;
+        }
+        synchronized ( lastChanges ) {
+            lastChanges.put( new Key( commitId, path ), Collections.unmodifiableMap( content ) );
+        }
+    }
+
+    /**
+     * Drops every entry resolved against the given commit; called when a ref moves away from it.
+     */
+    public void invalidate( final AnyObjectId commitId ) {
+        if ( commitId == null || !isEnabled() ) {
+            return;
+        }
+        synchronized ( pathInfos ) {
+            removeByCommit( pathInfos, commitId );
+        }
+        synchronized ( listings ) {
+            removeByCommit( listings, commitId );
+        }
+        synchronized ( lastChanges ) {
+            removeByCommit( lastChanges, commitId );
+        }
+    }
+
+    public void clear() {
+        synchronized ( pathInfos ) {
+            pathInfos.clear();
+        }
+        synchronized ( listings ) {
+            listings.clear();
+        }
+        synchronized ( lastChanges ) {
+            lastChanges.clear();
+        }
+    }
+
+    public int size() {
+        synchronized ( pathInfos ) {
+            synchronized ( listings ) {
+                synchronized ( lastChanges ) {
+                    return pathInfos.size() + listings.size() + lastChanges.size();
+                }
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private void count( final boolean hit ) {
+        if ( hit ) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+    }
+
+    private static void removeByCommit( final Map<Key, ?> map,
+                                        final AnyObjectId commitId ) {
+        final Iterator<Key> iterator = map.keySet().iterator();
+        while ( iterator.hasNext() ) {
+            if ( iterator.next().commitId.equals( commitId ) ) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JGitPathCache{" +
+                "size=" + size() +
+                ", hits=" + hits.get() +
+                ", misses=" + misses.get() +
+                '}';
+    }
+
+    private static class LRUMap<V> extends LinkedHashMap<Key, V> {
+
+        private final int maxEntries;
+
+        LRUMap( final int maxEntries ) {
+            super( 16, 0.75f, true );
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry( final Map.Entry<Key, V> eldest ) {
+            return size() > maxEntries;
+        }
+    }
+
+    private static class Key {
+
+        private final ObjectId commitId;
+        private final String path;
+
+        Key( final AnyObjectId commitId,
+             final String path ) {
+            this.commitId = checkNotNull( "commitId", commitId ).copy();
+            this.path = checkNotNull( "path", path );
+        }
+
+        @Override
+        public boolean equals( final Object o ) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( !( o instanceof Key ) ) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return commitId.equals( key.commitId ) && path.equals( key.path );
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * commitId.hashCode() + path.hashCode();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.uberfire.java.nio.base.version.VersionRecord;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystem;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Bounded LRU index of path histories for a single repository, keyed by branch and path.
+ * <p/>
+ * Each entry remembers the branch head it was built for; when the branch moves forward only the new commits
+ * are walked and prepended, the full history is walked again only if the old head is not an ancestor
+ * of the new one anymore (ex. forced update).
+ */
+public class JGitPathHistory {
+
+    public static final int DEFAULT_MAX_PATHS = 1000;
+
+    private final JGitFileSystem fs;
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public JGitPathHistory( final JGitFileSystem fs,
+                            final int maxPaths ) {
+        this.fs = checkNotNull( "fs", fs );
+        this.entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( final Map.Entry<String, Entry> eldest ) {
+                return size() > maxPaths;
+            }
+        };
+    }
+
+    /**
+     * @return history of the given path from the given head, newest first; null if not indexed for that head yet.
+     */
+    public List<VersionRecord> peek( final String branchName,
+                                     final ObjectId head,
+                                     final String gitPath ) {
+        final Entry entry;
+        synchronized ( entries ) {
+            entry = entries.get( key( branchName, gitPath ) );
+        }
+        if ( entry != null && entry.head.equals( head ) ) {
+            return entry.records;
+        }
+        return null;
+    }
+
+    /**
+     * @return history of the given path from the given head, newest first.
+     */
+    public List<VersionRecord> history( final String branchName,
+                                        final ObjectId head,
+                                        final String gitPath,
+                                        final String path ) {
+        checkNotEmpty( "branchName", branchName );
+        checkNotNull( "head", head );
+        checkNotNull( "gitPath", gitPath );
+
+        final String key = key( branchName, gitPath );
+        final Entry entry;
+        synchronized ( entries ) {
+            entry = entries.get( key );
+        }
+        if ( entry != null && entry.head.equals( head ) ) {
+            hits.incrementAndGet();
+            return entry.records;
+        }
+
+        final List<VersionRecord> records = new ArrayList<VersionRecord>();
+        final RevWalk walk = new RevWalk( fs.gitRepo().getRepository() );
+        try {
+            final RevCommit headCommit = walk.parseCommit( head );
+            final boolean incremental = entry != null && walk.isMergedInto( walk.parseCommit( entry.head ), headCommit );
+            walk.reset();
+
+            walk.setTreeFilter( pathFilter( gitPath ) );
+            walk.markStart( headCommit );
+            if ( incremental ) {
+                walk.markUninteresting( walk.parseCommit( entry.head ) );
+            }
+            for ( final RevCommit commit : walk ) {
+                records.add( new JGitVersionRecord( fs, commit, path ) );
+            }
+            if ( incremental ) {
+                records.addAll( entry.records );
+                updates.incrementAndGet();
+            } else {
+                rebuilds.incrementAndGet();
+            }
+        } catch ( final Exception e ) {
+            throw new RuntimeException( e );
+        } finally {
+            walk.release();
+        }
+
+        final List<VersionRecord> result = Collections.unmodifiableList( records );
+        synchronized ( entries ) {
+            entries.put( key, new Entry( head, result ) );
+        }
+
+        return result;
+    }
+
+    public void clear() {
+        synchronized ( entries ) {
+            entries.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getUpdateCount() {
+        return updates.get();
+    }
+
+    public long getRebuildCount() {
+        return rebuilds.get();
+    }
+
+    /**
+     * @return filter of the commits that changed the given path, as used by <code>git log -- path</code>.
+     */
+    static TreeFilter pathFilter( final String gitPath ) {
+        if ( gitPath.isEmpty() ) {
+            return TreeFilter.ALL;
+        }
+        return AndTreeFilter.create( PathFilterGroup.createFromStrings( gitPath ), TreeFilter.ANY_DIFF );
+    }
+
+    private static String key( final String branchName,
+                               final String gitPath ) {
+        return branchName + '\n' + gitPath;
+    }
+
+    @Override
+    public String toString() {
+        return "JGitPathHistory{" +
+                "hits=" + hits.get() +
+                ", updates=" + updates.get() +
+                ", rebuilds=" + rebuilds.get() +
+                '}';
+    }
+
+    private static class Entry {
+
+        private final ObjectId head;
+        private final List<VersionRecord> records;
+
+        Entry( final ObjectId head,
+               final List<VersionRecord> records ) {
+            this.head = head.copy();
+            this.records = records;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Applies path edits to an existing tree writing only the tree objects on the paths from the edited entries
+ * up to the root; every untouched subtree is reused by id, so the cost of a commit depends on the depth and
+ * number of the changed paths, not on the size of the repository.
+ * <p/>
+ * Edits are applied in the order they are added, a later edit on the same path wins. Trees left empty are
+ * removed, as git can't represent empty directories.
+ */
+public class JGitTreeUpdater {
+
+    /**
+     * Entry names are kept as ISO-8859-1 strings, that maps every byte to a single char: the raw name is
+     * preserved and the natural string order is the unsigned byte order.
+     */
+    private static final Charset RAW = Charset.forName( "ISO-8859-1" );
+
+    private static final Comparator<Entry> GIT_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare( final Entry e1,
+                            final Entry e2 ) {
+            final int length = Math.min( e1.name.length, e2.name.length );
+            for ( int i = 0; i < length; i++ ) {
+                final int diff = ( e1.name[ i ] & 0xff ) - ( e2.name[ i ] & 0xff );
+                if ( diff != 0 ) {
+                    return diff;
+                }
+            }
+            return lastChar( e1, length ) - lastChar( e2, length );
+        }
+
+        private int lastChar( final Entry entry,
+                              final int length ) {
+            if ( entry.name.length > length ) {
+                return entry.name[ length ] & 0xff;
+            }
+            return entry.isTree() ? '/' : '\0';
+        }
+    };
+
+    private final ObjectReader reader;
+    private final ObjectInserter inserter;
+    private final ObjectId baseTreeId;
+    private final Node root = new Node();
+
+    private int writtenTrees = 0;
+
+    /**
+     * @param baseTreeId tree to be updated, null for an empty tree.
+     */
+    public JGitTreeUpdater( final ObjectReader reader,
+                            final ObjectInserter inserter,
+                            final ObjectId baseTreeId ) {
+        this.reader = checkNotNull( "reader", reader );
+        this.inserter = checkNotNull( "inserter", inserter );
+        this.baseTreeId = baseTreeId;
+    }
+
+    /**
+     * Adds or replaces the entry at the given path, creating the missing parent trees.
+     */
+    public JGitTreeUpdater put( final String path,
+                                final FileMode mode,
+                                final ObjectId objectId ) {
+        checkNotNull( "mode", mode );
+        checkNotNull( "objectId", objectId );
+        final Node node = node( path );
+        node.children.clear();
+        node.reset = true;
+        node.entry = new Entry( Constants.encode( name( path ) ), mode, objectId.copy() );
+        return this;
+    }
+
+    /**
+     * Removes the entry at the given path, with all its content if it's a tree.
+     */
+    public JGitTreeUpdater delete( final String path ) {
+        final Node node = node( path );
+        node.children.clear();
+        node.reset = true;
+        node.entry = null;
+        return this;
+    }
+
+    public ObjectId getBaseTreeId() {
+        return baseTreeId;
+    }
+
+    /**
+     * Number of tree objects written by {@link #write()}.
+     */
+    public int getWrittenTrees() {
+        return writtenTrees;
+    }
+
+    /**
+     * Writes the changed trees to the inserter (it's up to the caller to flush it).
+     * @return id of the new root tree; the base tree id if the edits didn't change anything, or null if there's
+     * no base tree and nothing was added.
+     */
+    public ObjectId write() throws IOException {
+        final ObjectId treeId = rewrite( root.reset ? null : baseTreeId, root );
+        if ( treeId != null ) {
+            return treeId;
+        }
+        if ( baseTreeId == null ) {
+            return null;
+        }
+        writtenTrees++;
+        return inserter.insert( new TreeFormatter() );
+    }
+
+    private ObjectId rewrite( final ObjectId treeId,
+                              final Node node ) throws IOException {
+        if ( node.children.isEmpty() ) {
+            return treeId;
+        }
+
+        final Map<String, Entry> entries = treeId == null ? new HashMap<String, Entry>() : readTree( treeId );
+        boolean changed = false;
+
+        for ( final Map.Entry<String, Node> child : node.children.entrySet() ) {
+            final Node childNode = child.getValue();
+            final Entry current = entries.get( child.getKey() );
+            final Entry updated;
+            if ( childNode.entry != null ) {
+                updated = childNode.entry;
+            } else {
+                final ObjectId subtreeId = !childNode.reset && current != null && current.isTree() ? current.objectId : null;
+                final ObjectId newSubtreeId = rewrite( subtreeId, childNode );
+                updated = newSubtreeId == null ? null : new Entry( child.getKey().getBytes( RAW ), FileMode.TREE, newSubtreeId );
+            }
+
+            if ( updated == null ) {
+                if ( current != null ) {
+                    entries.remove( child.getKey() );
+                    changed = true;
+                }
+            } else if ( current == null || !current.sameAs( updated ) ) {
+                entries.put( child.getKey(), updated );
+                changed = true;
+            }
+        }
+
+        if ( !changed ) {
+            return treeId;
+        }
+        if ( entries.isEmpty() ) {
+            return null;
+        }
+
+        final List<Entry> sorted = new ArrayList<Entry>( entries.values() );
+        Collections.sort( sorted, GIT_ORDER );
+
+        final TreeFormatter formatter = new TreeFormatter();
+        for ( final Entry entry : sorted ) {
+            formatter.append( entry.name, entry.mode, entry.objectId );
+        }
+        writtenTrees++;
+        return inserter.insert( formatter );
+    }
+
+    private Map<String, Entry> readTree( final ObjectId treeId ) throws IOException {
+        final Map<String, Entry> entries = new HashMap<String, Entry>();
+        final CanonicalTreeParser parser = new CanonicalTreeParser( null, reader, treeId );
+        while ( !parser.eof() ) {
+            final byte[] name = new byte[ parser.getNameLength() ];
+            parser.getName( name, 0 );
+            entries.put( new String( name, RAW ), new Entry( name, parser.getEntryFileMode(), parser.getEntryObjectId() ) );
+            parser.next( 1 );
+        }
+        return entries;
+    }
+
+    private Node node( final String path ) {
+        Node node = root;
+        for ( final String segment : segments( path ) ) {
+            final String key = new String( Constants.encode( segment ), RAW );
+            Node child = node.children.get( key );
+            if ( child == null ) {
+                child = new Node();
+                node.children.put( key, child );
+            }
+            if ( child.entry != null ) {
+                // an entry replaced by a tree
+                child.entry = null;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private static List<String> segments( final String path ) {
+        final List<String> segments = new ArrayList<String>();
+        for ( final String segment : path.split( "/" ) ) {
+            if ( !segment.isEmpty() ) {
+                segments.add( segment );
+            }
+        }
+        return segments;
+    }
+
+    private static String name( final String path ) {
+        final List<String> segments = segments( path );
+        checkCondition( "path is not empty", !segments.isEmpty() );
+        return segments.get( segments.size() - 1 );
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> children = new LinkedHashMap<String, Node>();
+        private boolean reset = false;
+        private Entry entry = null;
+    }
+
+    private static class Entry {
+
+        private final byte[] name;
+        private final FileMode mode;
+        private final ObjectId objectId;
+
+        Entry( final byte[] name,
+               final FileMode mode,
+               final ObjectId objectId ) {
+            this.name = name;
+            this.mode = mode;
+            this.objectId = objectId;
+        }
+
+        boolean isTree() {
+            return mode.getObjectType() == Constants.OBJ_TREE;
+        }
+
+        boolean sameAs( final Entry other ) {
+            return mode.getBits() == other.mode.getBits() && objectId.equals( other.objectId );
+        }
+    }
+}
@@ -23,11 +23,10 @@ import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -43,9 +42,6 @@ import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.dircache.DirCache;
-import org.eclipse.jgit.dircache.DirCacheEditor;
-import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.internal.JGitText;
 import org.eclipse.jgit.internal.storage.file.FileRepository;
 import org.eclipse.jgit.lib.CommitBuilder;
@@ -53,6 +49,7 @@ import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
@@ -60,13 +57,16 @@ import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryCache;
 import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.TreeFormatter;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.uberfire.commons.data.Pair;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.FileTimeImpl;
@@ -141,7 +141,7 @@ public final class JGitUtil {
                     tw.enterSubtree();
                     continue;
                 }
-                return new ByteArrayInputStream( git.getRepository().open( tw.getObjectId( 0 ), Constants.OBJ_BLOB ).getBytes() );
+                return openBlob( git.getRepository(), tw.getObjectId( 0 ) );
             }
         } catch ( final Throwable t ) {
             throw new NoSuchFileException( "Can't find '" + gitPath + "' in tree '" + treeRef + "'" );
@@ -156,6 +156,19 @@ public final class JGitUtil {
         throw new NoSuchFileException( "" );
     }
 
+    /**
+     * Small blobs are served from the cached bytes, large ones are streamed from the object database
+     * instead of being loaded in memory.
+     */
+    private static InputStream openBlob( final Repository repo,
+                                         final ObjectId blobId ) throws java.io.IOException {
+        final ObjectLoader loader = repo.open( blobId, Constants.OBJ_BLOB );
+        if ( loader.isLarge() ) {
+            return loader.openStream();
+        }
+        return new ByteArrayInputStream( loader.getCachedBytes() );
+    }
+
     public static String fixPath( final String path ) {
 
         if ( path.equals( "/" ) ) {
@@ -293,6 +306,59 @@ public final class JGitUtil {
         }
     }
 
+    /**
+     * Fetches a single branch from the origin and moves the local branch to it, instead of fetching every ref.
+     * @param expectedId commit id the branch is expected to reach; nothing is fetched if the local branch is
+     * already there. May be null.
+     * @return true if a fetch was run.
+     */
+    public static boolean syncBranch( final Git git,
+                                      final CredentialsProvider credentialsProvider,
+                                      final String origin,
+                                      final String branchName,
+                                      final String expectedId )
+            throws InvalidRemoteException {
+        checkNotEmpty( "origin", origin );
+        checkNotEmpty( "branchName", branchName );
+
+        if ( expectedId != null ) {
+            final ObjectId current = resolveObjectId( git, branchName );
+            if ( current != null && current.name().equals( expectedId ) ) {
+                return false;
+            }
+        }
+
+        try {
+            final StoredConfig config = git.getRepository().getConfig();
+            if ( !origin.equals( config.getString( "remote", "upstream", "url" ) ) ) {
+                config.setString( "remote", "upstream", "url", origin );
+                config.save();
+            }
+        } catch ( final Exception ex ) {
+            throw new RuntimeException( ex );
+        }
+
+        try {
+            git.fetch()
+                    .setCredentialsProvider( credentialsProvider )
+                    .setRefSpecs( new RefSpec( "+refs/heads/" + branchName + ":refs/remotes/upstream/" + branchName ) )
+                    .setRemote( origin )
+                    .call();
+
+            git.branchCreate()
+                    .setName( branchName )
+                    .setUpstreamMode( CreateBranchCommand.SetupUpstreamMode.SET_UPSTREAM )
+                    .setStartPoint( "upstream/" + branchName )
+                    .setForce( true )
+                    .call();
+        } catch ( final InvalidRemoteException e ) {
+            throw e;
+        } catch ( final Exception ex ) {
+            throw new RuntimeException( ex );
+        }
+        return true;
+    }
+
     public static void pushRepository( final Git git,
                                        final CredentialsProvider credentialsProvider,
                                        final String origin,
@@ -395,7 +461,7 @@ public final class JGitUtil {
         try {
             final ObjectInserter odi = git.getRepository().newObjectInserter();
             try {
-                // Create the in-memory index of the new/updated issue.
+                // Resolve the current head and the commit the change is based on.
                 final ObjectId headId = git.getRepository().resolve( branchName + "^{commit}" );
 
                 final ObjectId originId;
@@ -405,22 +471,9 @@ public final class JGitUtil {
                     originId = _originId;
                 }
 
-                final DirCache index;
-                if ( content instanceof DefaultCommitContent ) {
-                    index = createTemporaryIndex( git, originId, (DefaultCommitContent) content );
-                } else if ( content instanceof MoveCommitContent ) {
-                    index = createTemporaryIndex( git, originId, (MoveCommitContent) content );
-                } else if ( content instanceof CopyCommitContent ) {
-                    index = createTemporaryIndex( git, originId, (CopyCommitContent) content );
-                } else if ( content instanceof RevertCommitContent ) {
-                    index = createTemporaryIndex( git, originId );
-                } else {
-                    index = null;
-                }
-
-                if ( index != null ) {
-                    final ObjectId indexTreeId = index.writeTree( odi );
+                final ObjectId treeId = buildTree( git, originId, content, odi );
 
+                if ( treeId != null ) {
                     // Create a commit object
                     final CommitBuilder commit = new CommitBuilder();
                     commit.setAuthor( author );
@@ -441,7 +494,7 @@ public final class JGitUtil {
                             commit.setParentId( headId );
                         }
                     }
-                    commit.setTreeId( indexTreeId );
+                    commit.setTreeId( treeId );
 
                     // Insert the commit into the repository
                     final ObjectId commitId = odi.insert( commit );
@@ -505,263 +558,97 @@ public final class JGitUtil {
     }
 
     /**
-     * Creates an in-memory index of the issue change.
+     * Builds the tree of the new commit, rewriting only the trees on the paths of the changed entries.
+     * @return the new tree id, or null if the content has no effect on the origin tree.
      */
-    private static DirCache createTemporaryIndex( final Git git,
-                                                  final ObjectId headId,
-                                                  final DefaultCommitContent commitContent ) {
-
-        final Map<String, File> content = commitContent.getContent();
-
-        final Map<String, Pair<File, ObjectId>> paths = new HashMap<String, Pair<File, ObjectId>>( content.size() );
-        final Set<String> path2delete = new HashSet<String>();
+    private static ObjectId buildTree( final Git git,
+                                       final ObjectId originId,
+                                       final CommitContent content,
+                                       final ObjectInserter inserter ) throws java.io.IOException {
+        final ObjectId baseTreeId;
+        if ( originId == null ) {
+            baseTreeId = null;
+        } else {
+            final RevWalk revWalk = new RevWalk( git.getRepository() );
+            try {
+                baseTreeId = revWalk.parseCommit( originId ).getTree().copy();
+            } finally {
+                revWalk.release();
+            }
+        }
 
-        final DirCache inCoreIndex = DirCache.newInCore();
-        final ObjectInserter inserter = git.getRepository().newObjectInserter();
-        final DirCacheEditor editor = inCoreIndex.editor();
+        if ( content instanceof RevertCommitContent ) {
+            return baseTreeId;
+        }
 
+        final ObjectReader reader = git.getRepository().newObjectReader();
         try {
-            for ( final Map.Entry<String, File> pathAndContent : content.entrySet() ) {
-                final String gPath = fixPath( pathAndContent.getKey() );
-                if ( pathAndContent.getValue() == null ) {
-                    final TreeWalk treeWalk = new TreeWalk( git.getRepository() );
-                    treeWalk.addTree( new RevWalk( git.getRepository() ).parseTree( headId ) );
-                    treeWalk.setRecursive( true );
-                    treeWalk.setFilter( PathFilter.create( gPath ) );
-
-                    while ( treeWalk.next() ) {
-                        path2delete.add( treeWalk.getPathString() );
-                    }
-                    treeWalk.release();
-                } else {
-                    try {
+            final JGitTreeUpdater updater = new JGitTreeUpdater( reader, inserter, baseTreeId );
+            if ( content instanceof DefaultCommitContent ) {
+                for ( final Map.Entry<String, File> pathAndContent : ( (DefaultCommitContent) content ).getContent().entrySet() ) {
+                    final String gPath = fixPath( pathAndContent.getKey() );
+                    if ( pathAndContent.getValue() == null ) {
+                        updater.delete( gPath );
+                    } else {
                         final InputStream inputStream = new FileInputStream( pathAndContent.getValue() );
                         try {
-                            final ObjectId objectId = inserter.insert( Constants.OBJ_BLOB, pathAndContent.getValue().length(), inputStream );
-                            paths.put( gPath, Pair.newPair( pathAndContent.getValue(), objectId ) );
+                            updater.put( gPath, REGULAR_FILE, inserter.insert( Constants.OBJ_BLOB, pathAndContent.getValue().length(), inputStream ) );
                         } finally {
                             inputStream.close();
                         }
-                    } catch ( final Exception ex ) {
-                        throw new RuntimeException( ex );
                     }
                 }
-            }
-
-            if ( headId != null ) {
-                final TreeWalk treeWalk = new TreeWalk( git.getRepository() );
-                final int hIdx = treeWalk.addTree( new RevWalk( git.getRepository() ).parseTree( headId ) );
-                treeWalk.setRecursive( true );
-
-                while ( treeWalk.next() ) {
-                    final String walkPath = treeWalk.getPathString();
-                    final CanonicalTreeParser hTree = treeWalk.getTree( hIdx, CanonicalTreeParser.class );
-
-                    if ( paths.containsKey( walkPath ) && paths.get( walkPath ).getK2().equals( hTree.getEntryObjectId() ) ) {
-                        paths.remove( walkPath );
-                    }
-
-                    if ( paths.get( walkPath ) == null && !path2delete.contains( walkPath ) ) {
-                        final DirCacheEntry dcEntry = new DirCacheEntry( walkPath );
-                        final ObjectId _objectId = hTree.getEntryObjectId();
-                        final FileMode _fileMode = hTree.getEntryFileMode();
-
-                        // add to temporary in-core index
-                        editor.add( new DirCacheEditor.PathEdit( dcEntry ) {
-                            @Override
-                            public void apply( final DirCacheEntry ent ) {
-                                ent.setObjectId( _objectId );
-                                ent.setFileMode( _fileMode );
-                            }
-                        } );
-                    }
+                final ObjectId treeId = updater.write();
+                if ( treeId == null || treeId.equals( baseTreeId ) ) {
+                    //no changes!
+                    return null;
                 }
-                treeWalk.release();
-            }
-
-            for ( final Map.Entry<String, Pair<File, ObjectId>> pathAndContent : paths.entrySet() ) {
-                if ( pathAndContent.getValue().getK1() != null ) {
-                    editor.add( new DirCacheEditor.PathEdit( new DirCacheEntry( pathAndContent.getKey() ) ) {
-                        @Override
-                        public void apply( final DirCacheEntry ent ) {
-                            ent.setLength( pathAndContent.getValue().getK1().length() );
-                            ent.setLastModified( pathAndContent.getValue().getK1().lastModified() );
-                            ent.setFileMode( REGULAR_FILE );
-                            ent.setObjectId( pathAndContent.getValue().getK2() );
-                        }
-                    } );
+                return treeId;
+            } else if ( content instanceof MoveCommitContent ) {
+                final Map<String, String> fromTo = ( (MoveCommitContent) content ).getContent();
+                final Map<String, Pair<FileMode, ObjectId>> moved = resolveEntries( reader, baseTreeId, fromTo );
+                for ( final String from : moved.keySet() ) {
+                    updater.delete( from );
+                }
+                for ( final Map.Entry<String, Pair<FileMode, ObjectId>> entry : moved.entrySet() ) {
+                    updater.put( fromTo.get( entry.getKey() ), entry.getValue().getK1(), entry.getValue().getK2() );
+                }
+            } else if ( content instanceof CopyCommitContent ) {
+                final Map<String, String> sourceDest = ( (CopyCommitContent) content ).getContent();
+                for ( final Map.Entry<String, Pair<FileMode, ObjectId>> entry : resolveEntries( reader, baseTreeId, sourceDest ).entrySet() ) {
+                    updater.put( sourceDest.get( entry.getKey() ), entry.getValue().getK1(), entry.getValue().getK2() );
                 }
+            } else {
+                return null;
             }
 
-            editor.finish();
-        } catch ( Exception e ) {
-            throw new RuntimeException( e );
+            final ObjectId treeId = updater.write();
+            return treeId != null ? treeId : inserter.insert( new TreeFormatter() );
         } finally {
-            inserter.release();
+            reader.release();
         }
-
-        if ( path2delete.isEmpty() && paths.isEmpty() ) {
-            //no changes!
-            return null;
-        }
-
-        return inCoreIndex;
     }
 
-    private static DirCache createTemporaryIndex( final Git git,
-                                                  final ObjectId headId,
-                                                  final MoveCommitContent commitContent ) {
-        final Map<String, String> content = commitContent.getContent();
-
-        final DirCache inCoreIndex = DirCache.newInCore();
-        final DirCacheEditor editor = inCoreIndex.editor();
-
-        try {
-            if ( headId != null ) {
-                final TreeWalk treeWalk = new TreeWalk( git.getRepository() );
-                final int hIdx = treeWalk.addTree( new RevWalk( git.getRepository() ).parseTree( headId ) );
-                treeWalk.setRecursive( true );
-
-                while ( treeWalk.next() ) {
-                    final String walkPath = treeWalk.getPathString();
-                    final CanonicalTreeParser hTree = treeWalk.getTree( hIdx, CanonicalTreeParser.class );
-
-                    final String toPath = content.get( walkPath );
-
-                    if ( toPath == null ) {
-                        final DirCacheEntry dcEntry = new DirCacheEntry( walkPath );
-                        final ObjectId _objectId = hTree.getEntryObjectId();
-                        final FileMode _fileMode = hTree.getEntryFileMode();
-
-                        // add to temporary in-core index
-                        editor.add( new DirCacheEditor.PathEdit( dcEntry ) {
-                            @Override
-                            public void apply( final DirCacheEntry ent ) {
-                                ent.setObjectId( _objectId );
-                                ent.setFileMode( _fileMode );
-                            }
-                        } );
-                    } else {
-                        final DirCacheEntry dcEntry = new DirCacheEntry( toPath );
-                        final ObjectId _objectId = hTree.getEntryObjectId();
-                        final FileMode _fileMode = hTree.getEntryFileMode();
-
-                        editor.add( new DirCacheEditor.PathEdit( dcEntry ) {
-                            @Override
-                            public void apply( final DirCacheEntry ent ) {
-                                ent.setFileMode( _fileMode );
-                                ent.setObjectId( _objectId );
-                            }
-                        } );
-                    }
-                }
-                treeWalk.release();
-            }
-
-            editor.finish();
-        } catch ( final Exception e ) {
-            throw new RuntimeException( e );
+    private static Map<String, Pair<FileMode, ObjectId>> resolveEntries( final ObjectReader reader,
+                                                                         final ObjectId treeId,
+                                                                         final Map<String, String> paths ) throws java.io.IOException {
+        final Map<String, Pair<FileMode, ObjectId>> result = new LinkedHashMap<String, Pair<FileMode, ObjectId>>();
+        if ( treeId == null ) {
+            return result;
         }
-
-        return inCoreIndex;
-    }
-
-    private static DirCache createTemporaryIndex( final Git git,
-                                                  final ObjectId headId,
-                                                  final CopyCommitContent commitContent ) {
-        final Map<String, String> content = commitContent.getContent();
-
-        final DirCache inCoreIndex = DirCache.newInCore();
-        final DirCacheEditor editor = inCoreIndex.editor();
-
-        try {
-            if ( headId != null ) {
-                final TreeWalk treeWalk = new TreeWalk( git.getRepository() );
-                final int hIdx = treeWalk.addTree( new RevWalk( git.getRepository() ).parseTree( headId ) );
-                treeWalk.setRecursive( true );
-
-                while ( treeWalk.next() ) {
-                    final String walkPath = treeWalk.getPathString();
-                    final CanonicalTreeParser hTree = treeWalk.getTree( hIdx, CanonicalTreeParser.class );
-
-                    final String toPath = content.get( walkPath );
-
-                    final DirCacheEntry dcEntry = new DirCacheEntry( walkPath );
-                    final ObjectId _objectId = hTree.getEntryObjectId();
-                    final FileMode _fileMode = hTree.getEntryFileMode();
-
-                    // add to temporary in-core index
-                    editor.add( new DirCacheEditor.PathEdit( dcEntry ) {
-                        @Override
-                        public void apply( final DirCacheEntry ent ) {
-                            ent.setObjectId( _objectId );
-                            ent.setFileMode( _fileMode );
-                        }
-                    } );
-
-                    if ( toPath != null ) {
-                        final DirCacheEntry newdcEntry = new DirCacheEntry( toPath );
-                        final ObjectId newObjectId = hTree.getEntryObjectId();
-                        final FileMode newFileMode = hTree.getEntryFileMode();
-
-                        editor.add( new DirCacheEditor.PathEdit( newdcEntry ) {
-                            @Override
-                            public void apply( final DirCacheEntry ent ) {
-                                ent.setFileMode( newFileMode );
-                                ent.setObjectId( newObjectId );
-                            }
-                        } );
+        for ( final String path : paths.keySet() ) {
+            final TreeWalk treeWalk = TreeWalk.forPath( reader, path, treeId );
+            if ( treeWalk != null ) {
+                try {
+                    if ( !treeWalk.isSubtree() ) {
+                        result.put( path, newPair( treeWalk.getFileMode( 0 ), treeWalk.getObjectId( 0 ) ) );
                     }
+                } finally {
+                    treeWalk.release();
                 }
-                treeWalk.release();
-            }
-
-            editor.finish();
-        } catch ( final Exception e ) {
-            throw new RuntimeException( e );
-        }
-
-        return inCoreIndex;
-    }
-
-    private static DirCache createTemporaryIndex( final Git git,
-                                                  final ObjectId headId ) {
-
-        final DirCache inCoreIndex = DirCache.newInCore();
-        final DirCacheEditor editor = inCoreIndex.editor();
-
-        try {
-            if ( headId != null ) {
-                final TreeWalk treeWalk = new TreeWalk( git.getRepository() );
-                final int hIdx = treeWalk.addTree( new RevWalk( git.getRepository() ).parseTree( headId ) );
-                treeWalk.setRecursive( true );
-
-                while ( treeWalk.next() ) {
-                    final String walkPath = treeWalk.getPathString();
-                    final CanonicalTreeParser hTree = treeWalk.getTree( hIdx, CanonicalTreeParser.class );
-
-                    final DirCacheEntry dcEntry = new DirCacheEntry( walkPath );
-                    final ObjectId _objectId = hTree.getEntryObjectId();
-                    final FileMode _fileMode = hTree.getEntryFileMode();
-
-                    // add to temporary in-core index
-                    editor.add( new DirCacheEditor.PathEdit( dcEntry ) {
-                        @Override
-                        public void apply( final DirCacheEntry ent ) {
-                            ent.setObjectId( _objectId );
-                            ent.setFileMode( _fileMode );
-                        }
-                    } );
-                }
-                treeWalk.release();
             }
-
-            editor.finish();
-        } catch ( final Exception e ) {
-            throw new RuntimeException( e );
         }
-
-        return inCoreIndex;
+        return result;
     }
 
     public static ObjectId resolveObjectId( final Git git,
@@ -811,87 +698,27 @@ public final class JGitUtil {
     public static VersionAttributes buildVersionAttributes( final JGitFileSystem fs,
                                                             final String branchName,
                                                             final String path ) {
-        final JGitPathInfo pathInfo = resolvePath( fs.gitRepo(), branchName, path );
+        final JGitPathInfo pathInfo = resolvePath( fs, branchName, path );
 
         if ( pathInfo == null ) {
             throw new NoSuchFileException( path );
         }
 
-        final String gPath = fixPath( path );
-
         final ObjectId id = resolveObjectId( fs.gitRepo(), branchName );
 
-        final List<VersionRecord> records = new ArrayList<VersionRecord>();
-
-        if ( id != null ) {
-            try {
-                final LogCommand logCommand = fs.gitRepo().log().add( id );
-                if ( !gPath.isEmpty() ) {
-                    logCommand.addPath( gPath );
-                }
-
-                for ( final RevCommit commit : logCommand.call() ) {
-
-                    records.add( new VersionRecord() {
-                        @Override
-                        public String id() {
-                            return commit.name();
-                        }
-
-                        @Override
-                        public String author() {
-                            return commit.getAuthorIdent().getName();
-                        }
-
-                        @Override
-                        public String email() {
-                            return commit.getAuthorIdent().getEmailAddress();
-                        }
-
-                        @Override
-                        public String comment() {
-                            return commit.getFullMessage();
-                        }
-
-                        @Override
-                        public Date date() {
-                            return commit.getAuthorIdent().getWhen();
-                        }
-
-                        @Override
-                        public String uri() {
-                            return fs.getPath( commit.name(), path ).toUri().toString();
-                        }
-                    } );
-                }
-            } catch ( Exception e ) {
-                throw new RuntimeException( e );
-            }
-        }
-
-        Collections.sort( records, new Comparator<VersionRecord>() {
-            @Override
-            public int compare( final VersionRecord o1,
-                                final VersionRecord o2 ) {
-                return o1.date().compareTo( o2.date() );
-            }
-        } );
+        final VersionHistory history = new JGitVersionHistory( fs, branchName, id, path );
 
         return new VersionAttributes() {
             @Override
             public VersionHistory history() {
-                return new VersionHistory() {
-                    @Override
-                    public List<VersionRecord> records() {
-                        return records;
-                    }
-                };
+                return history;
             }
 
             @Override
             public FileTime lastModifiedTime() {
-                if ( records.size() > 0 ) {
-                    return new FileTimeImpl( records.get( records.size() - 1 ).date().getTime() );
+                final VersionRecord newest = history.newest();
+                if ( newest != null ) {
+                    return new FileTimeImpl( newest.date().getTime() );
                 }
                 return null;
             }
@@ -903,8 +730,9 @@ public final class JGitUtil {
 
             @Override
             public FileTime creationTime() {
-                if ( records.size() > 0 ) {
-                    return new FileTimeImpl( records.get( 0 ).date().getTime() );
+                final VersionRecord oldest = history.oldest();
+                if ( oldest != null ) {
+                    return new FileTimeImpl( oldest.date().getTime() );
                 }
                 return null;
             }
@@ -941,22 +769,118 @@ public final class JGitUtil {
         };
     }
 
+    /**
+     * Resolves the latest commit of every direct child of the given directory walking the history only once,
+     * stopping as soon as every child is resolved; results are cached per branch head.
+     * @return version record of the latest commit that changed each child, keyed by child name.
+     */
+    public static Map<String, VersionRecord> lastChanges( final JGitFileSystem fs,
+                                                          final String branchName,
+                                                          final String path ) {
+        checkNotNull( "fs", fs );
+        checkNotNull( "path", path );
+        checkNotEmpty( "branchName", branchName );
+
+        final String gitPath = fixPath( path );
+
+        final ObjectId commitId = resolveObjectId( fs.gitRepo(), branchName );
+        if ( commitId == null ) {
+            return emptyMap();
+        }
+
+        final JGitPathCache cache = fs.getPathCache();
+        final Map<String, VersionRecord> cached = cache.getLastChanges( commitId, gitPath );
+        if ( cached != null ) {
+            return cached;
+        }
+
+        final Set<String> pending = new HashSet<String>();
+        for ( final JGitPathInfo child : listPathContent( fs, branchName, path ) ) {
+            pending.add( child.getPath().substring( child.getPath().lastIndexOf( '/' ) + 1 ) );
+        }
+
+        final Map<String, VersionRecord> result = new HashMap<String, VersionRecord>( pending.size() );
+        final String basePath = path.endsWith( "/" ) ? path : path + "/";
+        final int childDepth = gitPath.isEmpty() ? 0 : gitPath.split( "/" ).length;
+        final TreeFilter filter = gitPath.isEmpty() ? TreeFilter.ANY_DIFF : AndTreeFilter.create( PathFilter.create( gitPath ), TreeFilter.ANY_DIFF );
+
+        final Repository repo = fs.gitRepo().getRepository();
+        final RevWalk revWalk = new RevWalk( repo );
+        final TreeWalk tw = new TreeWalk( repo );
+        try {
+            revWalk.markStart( revWalk.parseCommit( commitId ) );
+            tw.setFilter( filter );
+            for ( final RevCommit commit : revWalk ) {
+                if ( pending.isEmpty() ) {
+                    break;
+                }
+                tw.reset();
+                tw.addTree( commit.getTree() );
+                for ( final RevCommit parent : commit.getParents() ) {
+                    revWalk.parseHeaders( parent );
+                    tw.addTree( parent.getTree() );
+                }
+                while ( tw.next() ) {
+                    if ( tw.getDepth() < childDepth ) {
+                        if ( tw.isSubtree() ) {
+                            tw.enterSubtree();
+                        }
+                        continue;
+                    }
+                    final String name = tw.getNameString();
+                    if ( tw.getRawMode( 0 ) == 0 || !pending.contains( name ) || !changedFromAllParents( tw ) ) {
+                        continue;
+                    }
+                    pending.remove( name );
+                    result.put( name, new JGitVersionRecord( fs, commit, basePath + name ) );
+                }
+            }
+        } catch ( final Exception e ) {
+            throw new RuntimeException( e );
+        } finally {
+            tw.release();
+            revWalk.release();
+        }
+
+        cache.putLastChanges( commitId, gitPath, result );
+
+        return result;
+    }
+
+    private static boolean changedFromAllParents( final TreeWalk tw ) {
+        for ( int i = 1; i < tw.getTreeCount(); i++ ) {
+            if ( tw.getRawMode( 0 ) == tw.getRawMode( i ) && tw.idEqual( 0, i ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static BasicFileAttributes buildBasicAttributes( final JGitFileSystem fs,
                                                             final String branchName,
                                                             final String path ) {
-        final JGitPathInfo pathInfo = resolvePath( fs.gitRepo(), branchName, path );
+        final JGitPathInfo pathInfo = resolvePath( fs, branchName, path );
 
         if ( pathInfo == null ) {
             throw new NoSuchFileException( path );
         }
 
-        final ObjectId id = resolveObjectId( fs.gitRepo(), branchName );
-        final String gPath = fixPath( path );
+        return buildBasicAttributes( fs, resolveObjectId( fs.gitRepo(), branchName ), fixPath( path ), pathInfo );
+    }
 
+    /**
+     * Attributes of an already resolved path; times are read from the history of the given commit, and the size of
+     * files resolved without it, when asked for.
+     */
+    public static BasicFileAttributes buildBasicAttributes( final JGitFileSystem fs,
+                                                            final ObjectId id,
+                                                            final String gPath,
+                                                            final JGitPathInfo pathInfo ) {
         return new BasicFileAttributes() {
 
             private long lastModifiedDate = -1;
             private long creationDate = -1;
+            private long size = pathInfo.getSize();
 
             @Override
             public FileTime lastModifiedTime() {
@@ -1029,7 +953,10 @@ public final class JGitUtil {
 
             @Override
             public long size() {
-                return pathInfo.getSize();
+                if ( size == -1L && isRegularFile() ) {
+                    size = blobSize( fs, pathInfo.getObjectId() );
+                }
+                return size;
             }
 
             @Override
@@ -1039,6 +966,21 @@ public final class JGitUtil {
         };
     }
 
+    private static long blobSize( final JGitFileSystem fs,
+                                  final ObjectId blobId ) {
+        if ( blobId == null ) {
+            return 0;
+        }
+        final ObjectReader reader = fs.gitRepo().getRepository().newObjectReader();
+        try {
+            return reader.getObjectSize( blobId, OBJ_BLOB );
+        } catch ( final java.io.IOException ex ) {
+            return 0;
+        } finally {
+            reader.release();
+        }
+    }
+
     public static void createBranch( final Git git,
                                      final String source,
                                      final String target ) {
@@ -1188,6 +1130,98 @@ public final class JGitUtil {
         return result;
     }
 
+    public static Pair<PathType, ObjectId> checkPath( final JGitFileSystem fs,
+                                                      final String branchName,
+                                                      final String path ) {
+        checkNotNull( "fs", fs );
+        checkNotNull( "path", path );
+        checkNotEmpty( "branchName", branchName );
+
+        final JGitPathInfo pathInfo = resolvePath( fs, branchName, path );
+        if ( pathInfo == null ) {
+            return newPair( PathType.NOT_FOUND, null );
+        }
+        if ( PathType.DIRECTORY.equals( pathInfo.getPathType() ) ) {
+            return newPair( PathType.DIRECTORY, pathInfo.getObjectId() );
+        }
+        return newPair( PathType.FILE, pathInfo.getObjectId() );
+    }
+
+    public static JGitPathInfo resolvePath( final JGitFileSystem fs,
+                                            final String branchName,
+                                            final String path ) {
+        checkNotNull( "fs", fs );
+        checkNotNull( "path", path );
+        checkNotEmpty( "branchName", branchName );
+
+        final String gitPath = fixPath( path );
+
+        if ( gitPath.isEmpty() ) {
+            return new JGitPathInfo( null, "/", TREE );
+        }
+
+        final ObjectId commitId = resolveObjectId( fs.gitRepo(), branchName );
+        if ( commitId == null ) {
+            return null;
+        }
+
+        final JGitPathCache cache = fs.getPathCache();
+        final JGitPathInfo cached = cache.getPathInfo( commitId, gitPath );
+        if ( cached != null ) {
+            return cached == JGitPathCache.NOT_FOUND ? null : cached;
+        }
+
+        final JGitPathInfo result = resolvePath( fs.gitRepo(), commitId.name(), gitPath );
+        cache.putPathInfo( commitId, gitPath, result );
+
+        return result;
+    }
+
+    public static List<JGitPathInfo> listPathContent( final JGitFileSystem fs,
+                                                      final String branchName,
+                                                      final String path ) {
+        checkNotNull( "fs", fs );
+        checkNotNull( "path", path );
+        checkNotEmpty( "branchName", branchName );
+
+        final String gitPath = fixPath( path );
+
+        final ObjectId commitId = resolveObjectId( fs.gitRepo(), branchName );
+        if ( commitId == null ) {
+            return new ArrayList<JGitPathInfo>();
+        }
+
+        final JGitPathCache cache = fs.getPathCache();
+        final List<JGitPathInfo> cached = cache.getListing( commitId, gitPath );
+        if ( cached != null ) {
+            return cached;
+        }
+
+        final List<JGitPathInfo> result = listPathContent( fs.gitRepo(), commitId.name(), gitPath );
+        cache.putListing( commitId, gitPath, result );
+
+        return result;
+    }
+
+    public static InputStream resolveInputStream( final JGitFileSystem fs,
+                                                  final String treeRef,
+                                                  final String path ) {
+        checkNotNull( "fs", fs );
+        checkNotEmpty( "treeRef", treeRef );
+        checkNotEmpty( "path", path );
+
+        final JGitPathInfo pathInfo = resolvePath( fs, treeRef, path );
+        if ( pathInfo == null || PathType.DIRECTORY.equals( pathInfo.getPathType() ) ) {
+            throw new NoSuchFileException( "Can't find '" + fixPath( path ) + "' in tree '" + treeRef + "'" );
+        }
+
+        try {
+            return openBlob( fs.gitRepo().getRepository(), pathInfo.getObjectId() );
+        } catch ( final Throwable t ) {
+            throw new NoSuchFileException( "Can't find '" + fixPath( path ) + "' in tree '" + treeRef + "'" );
+        }
+    }
+
     public static class JGitPathInfo {
 
         private final ObjectId objectId;
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.uberfire.java.nio.base.version.VersionHistory;
+import org.uberfire.java.nio.base.version.VersionRecord;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystem;
+
+/**
+ * Lazy {@link VersionHistory} of a path: pages and the newest record are read walking only as many commits
+ * as needed, the whole history is read only on demand, through the file system {@link JGitPathHistory}.
+ */
+public class JGitVersionHistory implements VersionHistory {
+
+    private static final Comparator<VersionRecord> BY_DATE = new Comparator<VersionRecord>() {
+        @Override
+        public int compare( final VersionRecord o1,
+                            final VersionRecord o2 ) {
+            return o1.date().compareTo( o2.date() );
+        }
+    };
+
+    private static final int FIRST_PAGE_SIZE = 16;
+    private static final int MAX_PAGE_SIZE = 1024;
+
+    private final JGitFileSystem fs;
+    private final String branchName;
+    private final ObjectId head;
+    private final String gitPath;
+    private final String path;
+
+    private VersionRecord newest = null;
+
+    public JGitVersionHistory( final JGitFileSystem fs,
+                               final String branchName,
+                               final ObjectId head,
+                               final String path ) {
+        this.fs = fs;
+        this.branchName = branchName;
+        this.head = head;
+        this.gitPath = JGitUtil.fixPath( path );
+        this.path = path;
+    }
+
+    @Override
+    public List<VersionRecord> records() {
+        final List<VersionRecord> records = new ArrayList<VersionRecord>( all() );
+        Collections.sort( records, BY_DATE );
+        return records;
+    }
+
+    @Override
+    public List<VersionRecord> records( final int offset,
+                                        final int limit ) {
+        if ( head == null || limit <= 0 ) {
+            return new ArrayList<VersionRecord>();
+        }
+        final int from = Math.max( offset, 0 );
+
+        final List<VersionRecord> indexed = fs.getPathHistory().peek( branchName, head, gitPath );
+        if ( indexed != null ) {
+            if ( from >= indexed.size() ) {
+                return new ArrayList<VersionRecord>();
+            }
+            return new ArrayList<VersionRecord>( indexed.subList( from, (int) Math.min( (long) from + limit, indexed.size() ) ) );
+        }
+
+        final List<VersionRecord> result = new ArrayList<VersionRecord>( Math.min( limit, 100 ) );
+        final RevWalk walk = newWalk();
+        try {
+            int skipped = 0;
+            for ( final RevCommit commit : walk ) {
+                if ( skipped < from ) {
+                    skipped++;
+                    continue;
+                }
+                result.add( new JGitVersionRecord( fs, commit, path ) );
+                if ( result.size() >= limit ) {
+                    break;
+                }
+            }
+        } finally {
+            walk.release();
+        }
+
+        return result;
+    }
+
+    @Override
+    public VersionRecord newest() {
+        if ( newest == null ) {
+            final List<VersionRecord> page = records( 0, 1 );
+            newest = page.isEmpty() ? null : page.get( 0 );
+        }
+        return newest;
+    }
+
+    @Override
+    public VersionRecord oldest() {
+        final List<VersionRecord> all = all();
+        if ( all.isEmpty() ) {
+            return null;
+        }
+        return all.get( all.size() - 1 );
+    }
+
+    @Override
+    public Iterator<VersionRecord> iterator() {
+        if ( head == null ) {
+            return Collections.<VersionRecord>emptyList().iterator();
+        }
+
+        final List<VersionRecord> indexed = fs.getPathHistory().peek( branchName, head, gitPath );
+        if ( indexed != null ) {
+            return indexed.iterator();
+        }
+
+        // read in pages, each walk released before it's handed out, so an abandoned iterator holds nothing;
+        // pages grow, so a long history is read with few walks
+        return new Iterator<VersionRecord>() {
+            private Iterator<VersionRecord> page = Collections.<VersionRecord>emptyList().iterator();
+            private int offset = 0;
+            private int pageSize = FIRST_PAGE_SIZE;
+            private boolean last = false;
+
+            @Override
+            public boolean hasNext() {
+                if ( !page.hasNext() && !last ) {
+                    final List<VersionRecord> records = records( offset, pageSize );
+                    offset += records.size();
+                    last = records.size() < pageSize;
+                    pageSize = Math.min( pageSize * 2, MAX_PAGE_SIZE );
+                    page = records.iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public VersionRecord next() {
+                if ( !hasNext() ) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @return whole history, newest first.
+     */
+    private List<VersionRecord> all() {
+        if ( head == null ) {
+            return Collections.emptyList();
+        }
+        return fs.getPathHistory().history( branchName, head, gitPath, path );
+    }
+
+    private RevWalk newWalk() {
+        final RevWalk walk = new RevWalk( fs.gitRepo().getRepository() );
+        try {
+            walk.setTreeFilter( JGitPathHistory.pathFilter( gitPath ) );
+            walk.markStart( walk.parseCommit( head ) );
+        } catch ( final Exception e ) {
+            walk.release();
+            throw new RuntimeException( e );
+        }
+        return walk;
+    }
+}
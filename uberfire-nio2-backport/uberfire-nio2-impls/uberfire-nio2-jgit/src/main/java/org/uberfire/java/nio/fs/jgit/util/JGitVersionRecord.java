@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.util.Date;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.uberfire.java.nio.base.version.VersionRecord;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystem;
+
+/**
+ * Immutable {@link VersionRecord} detached from the {@link RevCommit} it was read from, so it can be cached
+ * without retaining the commit graph of the walk that produced it.
+ */
+public class JGitVersionRecord implements VersionRecord {
+
+    private final JGitFileSystem fs;
+    private final String path;
+    private final String id;
+    private final String author;
+    private final String email;
+    private final String comment;
+    private final long date;
+
+    public JGitVersionRecord( final JGitFileSystem fs,
+                              final RevCommit commit,
+                              final String path ) {
+        this.fs = fs;
+        this.path = path;
+        this.id = commit.name();
+        this.author = commit.getAuthorIdent().getName();
+        this.email = commit.getAuthorIdent().getEmailAddress();
+        this.comment = commit.getFullMessage();
+        this.date = commit.getAuthorIdent().getWhen().getTime();
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public String author() {
+        return author;
+    }
+
+    @Override
+    public String email() {
+        return email;
+    }
+
+    @Override
+    public String comment() {
+        return comment;
+    }
+
+    @Override
+    public Date date() {
+        return new Date( date );
+    }
+
+    @Override
+    public String uri() {
+        return fs.getPath( id, path ).toUri().toString();
+    }
+}
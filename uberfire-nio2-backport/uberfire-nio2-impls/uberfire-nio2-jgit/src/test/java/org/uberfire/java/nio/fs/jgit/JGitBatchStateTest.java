@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.HashMap;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Test;
+import org.uberfire.java.nio.base.FileSystemState;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.WatchService;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class JGitBatchStateTest extends AbstractTestInfra {
+
+    private static final JGitFileSystemProvider PROVIDER = JGitFileSystemProvider.getInstance();
+
+    @Test
+    public void testConcurrentBatchesOnTwoFileSystems() throws Exception {
+        final JGitFileSystem fs1 = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://batch-state-test1" ), new HashMap<String, Object>() );
+        final JGitFileSystem fs2 = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://batch-state-test2" ), new HashMap<String, Object>() );
+        final Path root1 = PROVIDER.getPath( URI.create( "git://batch-state-test1/" ) );
+        final Path root2 = PROVIDER.getPath( URI.create( "git://batch-state-test2/" ) );
+
+        write( "git://batch-state-test2/before.txt" );
+        assertThat( countCommits( fs2 ) ).isEqualTo( 1 );
+
+        final WatchService ws2 = fs2.newWatchService();
+
+        PROVIDER.setAttribute( root1, FileSystemState.FILE_SYSTEM_STATE_ATTR, FileSystemState.BATCH );
+        PROVIDER.setAttribute( root2, FileSystemState.FILE_SYSTEM_STATE_ATTR, FileSystemState.BATCH );
+
+        write( "git://batch-state-test1/file1.txt" );
+        write( "git://batch-state-test1/file2.txt" );
+        // fs1 had a commit on its batch, but fs2 didn't: its head must not be amended
+        write( "git://batch-state-test2/file1.txt" );
+        assertThat( countCommits( fs1 ) ).isEqualTo( 1 );
+        assertThat( countCommits( fs2 ) ).isEqualTo( 2 );
+
+        PROVIDER.setAttribute( root1, FileSystemState.FILE_SYSTEM_STATE_ATTR, FileSystemState.NORMAL );
+
+        // fs2 is still in batch: no diffs sent and further writes amended
+        assertThat( ws2.poll() ).isNull();
+        write( "git://batch-state-test2/file2.txt" );
+        assertThat( countCommits( fs2 ) ).isEqualTo( 2 );
+        assertThat( ws2.poll() ).isNull();
+
+        // fs1 is back to normal
+        write( "git://batch-state-test1/file3.txt" );
+        assertThat( countCommits( fs1 ) ).isEqualTo( 2 );
+
+        PROVIDER.setAttribute( root2, FileSystemState.FILE_SYSTEM_STATE_ATTR, FileSystemState.NORMAL );
+
+        final WatchKey key = ws2.poll();
+        assertThat( key ).isNotNull();
+        assertThat( key.pollEvents() ).hasSize( 2 );
+        ws2.close();
+    }
+
+    private void write( final String uri ) throws Exception {
+        final OutputStream out = PROVIDER.newOutputStream( PROVIDER.getPath( URI.create( uri ) ) );
+        out.write( ( "content of " + uri ).getBytes() );
+        out.close();
+    }
+
+    private int countCommits( final JGitFileSystem fs ) throws Exception {
+        int commits = 0;
+        for ( final RevCommit ignored : fs.gitRepo().log().call() ) {
+            commits++;
+        }
+        return commits;
+    }
+}
@@ -34,6 +34,7 @@ import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.uberfire.commons.data.Pair;
+import org.uberfire.java.nio.base.Discardable;
 import org.uberfire.java.nio.base.NotImplementedException;
 import org.uberfire.java.nio.base.options.CommentedOption;
 import org.uberfire.java.nio.file.DirectoryNotEmptyException;
@@ -541,6 +542,22 @@ public class JGitFileSystemProviderTest extends AbstractTestInfra {
         }
     }
 
+    @Test
+    public void testDiscardOutputStream() throws Exception {
+        final URI newRepo = URI.create( "git://discard-outstream-test-repo" );
+        PROVIDER.newFileSystem( newRepo, EMPTY_ENV );
+
+        final Path path = PROVIDER.getPath( URI.create( "git://master@discard-outstream-test-repo/myfile.txt" ) );
+
+        final OutputStream outStream = PROVIDER.newOutputStream( path );
+        assertThat( outStream ).isInstanceOf( Discardable.class );
+        outStream.write( "partial content".getBytes() );
+        ( (Discardable) outStream ).discard();
+        outStream.close();
+
+        assertThat( PROVIDER.exists( path ) ).isFalse();
+    }
+
     @Test
     public void testNewOutputStreamWithJGitOp() throws Exception {
         final File parentFolder = createTempDirectory();
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.junit.Test;
+import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.file.FileVisitResult;
+import org.uberfire.java.nio.file.FileVisitor;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
+
+import static java.util.Arrays.*;
+import static org.fest.assertions.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.uberfire.java.nio.fs.jgit.util.JGitUtil.*;
+
+public class JGitFileTreeWalkerTest extends AbstractTestInfra {
+
+    @Test
+    public void testWalkOrderAndAttributes() throws Exception {
+        final JGitFileSystem fs = setupFileSystem();
+        final RecordingVisitor visitor = new RecordingVisitor( null, null );
+
+        assertThat( fs.walkFileTree( root( fs, "/" ), Integer.MAX_VALUE, visitor ) ).isTrue();
+
+        assertThat( visitor.events ).isEqualTo( asList( "pre /", "pre /a", "pre /a/b", "file /a/b/c.txt", "post /a/b", "file /a/d.txt", "post /a",
+                                                        "pre /e", "file /e/f.txt", "post /e", "file /file1.txt", "file /file2.txt", "post /" ) );
+        assertThat( visitor.sizes.get( visitor.events.indexOf( "file /a/b/c.txt" ) ) ).isEqualTo( (long) "content c".length() );
+        assertThat( visitor.directories.get( visitor.events.indexOf( "pre /a/b" ) ) ).isTrue();
+        assertThat( visitor.directories.get( visitor.events.indexOf( "file /a/d.txt" ) ) ).isFalse();
+    }
+
+    @Test
+    public void testMaxDepthAndSubdirectory() throws Exception {
+        final JGitFileSystem fs = setupFileSystem();
+
+        final RecordingVisitor shallow = new RecordingVisitor( null, null );
+        fs.walkFileTree( root( fs, "/" ), 1, shallow );
+        assertThat( shallow.events ).isEqualTo( asList( "pre /", "file /a", "file /e", "file /file1.txt", "file /file2.txt", "post /" ) );
+        assertThat( shallow.directories.get( 1 ) ).isTrue();
+
+        final RecordingVisitor sub = new RecordingVisitor( null, null );
+        fs.walkFileTree( root( fs, "/a" ), Integer.MAX_VALUE, sub );
+        assertThat( sub.events ).isEqualTo( asList( "pre /a", "pre /a/b", "file /a/b/c.txt", "post /a/b", "file /a/d.txt", "post /a" ) );
+
+        final RecordingVisitor file = new RecordingVisitor( null, null );
+        fs.walkFileTree( root( fs, "/a/d.txt" ), Integer.MAX_VALUE, file );
+        assertThat( file.events ).isEqualTo( asList( "file /a/d.txt" ) );
+
+        final RecordingVisitor missing = new RecordingVisitor( null, null );
+        fs.walkFileTree( root( fs, "/missing" ), Integer.MAX_VALUE, missing );
+        assertThat( missing.events ).isEqualTo( asList( "failed /missing" ) );
+    }
+
+    @Test
+    public void testSkipAndTerminate() throws Exception {
+        final JGitFileSystem fs = setupFileSystem();
+
+        final RecordingVisitor skipSubtree = new RecordingVisitor( "/a", FileVisitResult.SKIP_SUBTREE );
+        fs.walkFileTree( root( fs, "/" ), Integer.MAX_VALUE, skipSubtree );
+        assertThat( skipSubtree.events ).isEqualTo( asList( "pre /", "pre /a", "pre /e", "file /e/f.txt", "post /e", "file /file1.txt", "file /file2.txt", "post /" ) );
+
+        final RecordingVisitor skipSiblings = new RecordingVisitor( "/a/b", FileVisitResult.SKIP_SIBLINGS );
+        fs.walkFileTree( root( fs, "/" ), Integer.MAX_VALUE, skipSiblings );
+        assertThat( skipSiblings.events ).isEqualTo( asList( "pre /", "pre /a", "pre /a/b", "post /a", "pre /e", "file /e/f.txt", "post /e", "file /file1.txt", "file /file2.txt", "post /" ) );
+
+        final RecordingVisitor terminate = new RecordingVisitor( "/a/b/c.txt", FileVisitResult.TERMINATE );
+        fs.walkFileTree( root( fs, "/" ), Integer.MAX_VALUE, terminate );
+        assertThat( terminate.events ).isEqualTo( asList( "pre /", "pre /a", "pre /a/b", "file /a/b/c.txt" ) );
+    }
+
+    private JGitFileSystem setupFileSystem() throws Exception {
+        final Git git = setupGit();
+        commit( git, "master", "name", "name@example.com", "tree", null, null, false, new HashMap<String, File>() {{
+            put( "a/b/c.txt", tempFile( "content c" ) );
+            put( "a/d.txt", tempFile( "content d" ) );
+            put( "e/f.txt", tempFile( "content f" ) );
+        }} );
+        return new JGitFileSystem( mock( JGitFileSystemProvider.class ), null, git, "walk-repo", new UsernamePasswordCredentialsProvider( "guest", "" ) );
+    }
+
+    private Path root( final JGitFileSystem fs,
+                       final String path ) {
+        return JGitPathImpl.create( fs, path, "master@walk-repo", false );
+    }
+
+    private static class RecordingVisitor implements FileVisitor<Path> {
+
+        private final List<String> events = new ArrayList<String>();
+        private final List<Long> sizes = new ArrayList<Long>();
+        private final List<Boolean> directories = new ArrayList<Boolean>();
+        private final String target;
+        private final FileVisitResult targetResult;
+
+        RecordingVisitor( final String target,
+                          final FileVisitResult targetResult ) {
+            this.target = target;
+            this.targetResult = targetResult;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory( final Path dir,
+                                                  final BasicFileAttributes attrs ) throws IOException {
+            return record( "pre", dir, attrs );
+        }
+
+        @Override
+        public FileVisitResult visitFile( final Path file,
+                                          final BasicFileAttributes attrs ) throws IOException {
+            return record( "file", file, attrs );
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed( final Path file,
+                                                final IOException exc ) throws IOException {
+            return record( "failed", file, null );
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory( final Path dir,
+                                                   final IOException exc ) throws IOException {
+            return record( "post", dir, null );
+        }
+
+        private FileVisitResult record( final String type,
+                                        final Path path,
+                                        final BasicFileAttributes attrs ) {
+            events.add( type + " " + path.toString() );
+            sizes.add( attrs == null ? null : attrs.size() );
+            directories.add( attrs == null ? null : attrs.isDirectory() );
+            if ( path.toString().equals( target ) && !type.equals( "post" ) ) {
+                return targetResult;
+            }
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
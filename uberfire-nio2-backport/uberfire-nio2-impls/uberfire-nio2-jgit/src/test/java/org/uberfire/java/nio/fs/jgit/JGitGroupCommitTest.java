@@ -0,0 +1,172 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Test;
+import org.uberfire.java.nio.base.options.CommentedOption;
+import org.uberfire.java.nio.file.Path;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class JGitGroupCommitTest extends AbstractTestInfra {
+
+    private static final JGitFileSystemProvider PROVIDER = JGitFileSystemProvider.getInstance();
+
+    @Test
+    public void testConcurrentWritesAreMerged() throws Exception {
+        final Map<String, Object> env = new HashMap<String, Object>() {{
+            put( JGitFileSystemProvider.GIT_GROUP_COMMIT_WINDOW, "500" );
+            put( JGitFileSystemProvider.GIT_GROUP_COMMIT_MAX_FILES, "5" );
+        }};
+
+        final JGitFileSystem fs = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://group-commit-test" ), env );
+        assertThat( fs.getGroupCommitter() ).isNotNull();
+
+        final int writers = 5;
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final CyclicBarrier opened = new CyclicBarrier( writers );
+        final List<Thread> threads = new ArrayList<Thread>();
+        final List<Throwable> errors = new ArrayList<Throwable>();
+
+        for ( int i = 0; i < writers; i++ ) {
+            final Path path = PROVIDER.getPath( URI.create( "git://group-commit-test/file" + i + ".txt" ) );
+            final Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        final OutputStream out = PROVIDER.newOutputStream( path );
+                        out.write( ( "content of " + path ).getBytes() );
+                        // all writes in progress before the first commit
+                        opened.await();
+                        out.close();
+                    } catch ( final Throwable t ) {
+                        synchronized ( errors ) {
+                            errors.add( t );
+                        }
+                    }
+                }
+            };
+            thread.start();
+            threads.add( thread );
+        }
+
+        start.countDown();
+        for ( final Thread thread : threads ) {
+            thread.join();
+        }
+
+        assertThat( errors ).isEmpty();
+
+        for ( int i = 0; i < writers; i++ ) {
+            assertThat( PROVIDER.exists( PROVIDER.getPath( URI.create( "git://group-commit-test/file" + i + ".txt" ) ) ) ).isTrue();
+        }
+
+        int commits = 0;
+        for ( final RevCommit ignored : fs.gitRepo().log().call() ) {
+            commits++;
+        }
+        assertThat( commits ).isLessThan( writers );
+    }
+
+    @Test
+    public void testLoneWriterDoesNotWait() throws Exception {
+        final Map<String, Object> env = new HashMap<String, Object>() {{
+            put( JGitFileSystemProvider.GIT_GROUP_COMMIT_WINDOW, "10000" );
+        }};
+
+        final JGitFileSystem fs = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://group-commit-lone-test" ), env );
+        assertThat( fs.getGroupCommitter() ).isNotNull();
+
+        final long start = System.currentTimeMillis();
+        for ( int i = 0; i < 3; i++ ) {
+            final OutputStream out = PROVIDER.newOutputStream( PROVIDER.getPath( URI.create( "git://group-commit-lone-test/file" + i + ".txt" ) ) );
+            out.write( ( "content " + i ).getBytes() );
+            out.close();
+        }
+        assertThat( System.currentTimeMillis() - start ).isLessThan( 5000 );
+
+        int commits = 0;
+        for ( final RevCommit ignored : fs.gitRepo().log().call() ) {
+            commits++;
+        }
+        assertThat( commits ).isEqualTo( 3 );
+    }
+
+    @Test
+    public void testWritersKeepTheirIdentity() throws Exception {
+        final Map<String, Object> env = new HashMap<String, Object>() {{
+            put( JGitFileSystemProvider.GIT_GROUP_COMMIT_WINDOW, "500" );
+            put( JGitFileSystemProvider.GIT_GROUP_COMMIT_MAX_FILES, "10" );
+        }};
+
+        final JGitFileSystem fs = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://group-commit-identity-test" ), env );
+
+        final String[] users = new String[]{ "alice", "bob", "alice", "bob" };
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final List<Thread> threads = new ArrayList<Thread>();
+        final List<Throwable> errors = new ArrayList<Throwable>();
+
+        for ( int i = 0; i < users.length; i++ ) {
+            final String user = users[ i ];
+            final Path path = PROVIDER.getPath( URI.create( "git://group-commit-identity-test/file" + i + ".txt" ) );
+            final Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        final OutputStream out = PROVIDER.newOutputStream( path, new CommentedOption( user, user + "@example.com", "written by " + user ) );
+                        out.write( ( "content of " + path ).getBytes() );
+                        out.close();
+                    } catch ( final Throwable t ) {
+                        synchronized ( errors ) {
+                            errors.add( t );
+                        }
+                    }
+                }
+            };
+            thread.start();
+            threads.add( thread );
+        }
+
+        start.countDown();
+        for ( final Thread thread : threads ) {
+            thread.join();
+        }
+
+        assertThat( errors ).isEmpty();
+
+        final Set<String> authors = new HashSet<String>();
+        for ( final RevCommit commit : fs.gitRepo().log().call() ) {
+            authors.add( commit.getAuthorIdent().getName() );
+            assertThat( commit.getFullMessage() ).doesNotContain( "written by " + ( "alice".equals( commit.getAuthorIdent().getName() ) ? "bob" : "alice" ) );
+        }
+        assertThat( authors ).contains( "alice", "bob" );
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Test;
+import org.uberfire.java.nio.base.version.VersionRecord;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.fs.jgit.util.JGitPathCache;
+import org.uberfire.java.nio.fs.jgit.util.JGitUtil;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.uberfire.java.nio.fs.jgit.util.JGitUtil.PathType.*;
+
+public class JGitPathCacheTest extends AbstractTestInfra {
+
+    private static final JGitFileSystemProvider PROVIDER = JGitFileSystemProvider.getInstance();
+
+    @Test
+    public void testLRUEviction() {
+        final JGitPathCache cache = new JGitPathCache( 2 );
+        final ObjectId commit = ObjectId.fromString( "0123456789012345678901234567890123456789" );
+
+        cache.putPathInfo( commit, "a", new JGitUtil.JGitPathInfo( commit, "a", FileMode.REGULAR_FILE, 1 ) );
+        cache.putPathInfo( commit, "b", new JGitUtil.JGitPathInfo( commit, "b", FileMode.REGULAR_FILE, 1 ) );
+        assertThat( cache.getPathInfo( commit, "a" ) ).isNotNull();
+
+        cache.putPathInfo( commit, "c", null );
+
+        assertThat( cache.getPathInfo( commit, "b" ) ).isNull();
+        assertThat( cache.getPathInfo( commit, "a" ) ).isNotNull();
+        assertThat( cache.getPathInfo( commit, "c" ) ).isSameAs( JGitPathCache.NOT_FOUND );
+        assertThat( cache.getHitCount() ).isEqualTo( 3 );
+        assertThat( cache.getMissCount() ).isEqualTo( 1 );
+
+        cache.invalidate( commit );
+        assertThat( cache.size() ).isEqualTo( 0 );
+    }
+
+    @Test
+    public void testInvalidatedOnCommit() throws Exception {
+        final JGitFileSystem fs = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://path-cache-test" ), EMPTY_ENV );
+
+        final Path path = PROVIDER.getPath( URI.create( "git://path-cache-test/some/file.txt" ) );
+
+        final OutputStream outStream = PROVIDER.newOutputStream( path );
+        outStream.write( "content".getBytes() );
+        outStream.close();
+
+        assertThat( JGitUtil.checkPath( fs, "master", "/some/file.txt" ).getK1() ).isEqualTo( FILE );
+        assertThat( JGitUtil.checkPath( fs, "master", "/some/file.txt" ).getK1() ).isEqualTo( FILE );
+        assertThat( JGitUtil.checkPath( fs, "master", "/some/other.txt" ).getK1() ).isEqualTo( NOT_FOUND );
+
+        final long hits = fs.getPathCache().getHitCount();
+        assertThat( hits ).isGreaterThan( 0 );
+
+        final OutputStream otherStream = PROVIDER.newOutputStream( PROVIDER.getPath( URI.create( "git://path-cache-test/some/other.txt" ) ) );
+        otherStream.write( "other content".getBytes() );
+        otherStream.close();
+
+        assertThat( JGitUtil.checkPath( fs, "master", "/some/other.txt" ).getK1() ).isEqualTo( FILE );
+        assertThat( JGitUtil.checkPath( fs, "master", "/some" ).getK1() ).isEqualTo( DIRECTORY );
+        assertThat( JGitUtil.listPathContent( fs, "master", "/some" ) ).hasSize( 2 );
+    }
+
+    @Test
+    public void testLastChanges() throws Exception {
+        final JGitFileSystem fs = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://last-changes-test" ), EMPTY_ENV );
+
+        write( "git://last-changes-test/dir/a.txt", "a" );
+        write( "git://last-changes-test/dir/b.txt", "b" );
+        write( "git://last-changes-test/dir/sub/c.txt", "c" );
+        write( "git://last-changes-test/other.txt", "other" );
+
+        final String otherCommit = fs.gitRepo().getRepository().resolve( "master" ).name();
+
+        write( "git://last-changes-test/dir/a.txt", "new a" );
+
+        final String head = fs.gitRepo().getRepository().resolve( "master" ).name();
+
+        final Map<String, VersionRecord> changes = fs.lastChanges( PROVIDER.getPath( URI.create( "git://last-changes-test/dir" ) ) );
+        assertThat( changes ).hasSize( 3 );
+        assertThat( changes.get( "a.txt" ).id() ).isEqualTo( head );
+        assertThat( changes.get( "b.txt" ).id() ).isNotEqualTo( head ).isNotEqualTo( otherCommit );
+        assertThat( changes.get( "sub" ) ).isNotNull();
+
+        assertThat( fs.lastChanges( PROVIDER.getPath( URI.create( "git://last-changes-test/dir" ) ) ) ).isSameAs( fs.lastChanges( PROVIDER.getPath( URI.create( "git://last-changes-test/dir" ) ) ) );
+
+        final Map<String, VersionRecord> rootChanges = fs.lastChanges( PROVIDER.getPath( URI.create( "git://last-changes-test/" ) ) );
+        assertThat( rootChanges.get( "dir" ).id() ).isEqualTo( head );
+        assertThat( rootChanges.get( "other.txt" ).id() ).isEqualTo( otherCommit );
+    }
+
+    private void write( final String uri,
+                        final String content ) throws Exception {
+        final OutputStream outStream = PROVIDER.newOutputStream( PROVIDER.getPath( URI.create( uri ) ) );
+        outStream.write( content.getBytes() );
+        outStream.close();
+    }
+}
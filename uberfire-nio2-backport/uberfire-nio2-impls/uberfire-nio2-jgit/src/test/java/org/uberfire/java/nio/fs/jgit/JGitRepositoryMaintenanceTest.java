@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Calendar;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class JGitRepositoryMaintenanceTest extends AbstractTestInfra {
+
+    private static final JGitFileSystemProvider PROVIDER = JGitFileSystemProvider.getInstance();
+
+    @Test
+    public void testRunNow() throws Exception {
+        final JGitFileSystem fs = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://maintenance-test" ), EMPTY_ENV );
+
+        for ( int i = 0; i < 10; i++ ) {
+            final OutputStream out = PROVIDER.newOutputStream( PROVIDER.getPath( URI.create( "git://maintenance-test/dir/file" + i + ".txt" ) ) );
+            out.write( ( "content " + i ).getBytes() );
+            out.close();
+        }
+
+        final JGitRepositoryMaintenance maintenance = new JGitRepositoryMaintenance( (FileRepository) fs.gitRepo().getRepository(), 0, 0, -1, true, -1, -1 );
+
+        final JGitRepositoryMaintenance.Result result = maintenance.runNow();
+        assertThat( result ).isNotNull();
+        assertThat( result.getBefore().getLooseObjects() ).isGreaterThan( 0 );
+        assertThat( result.getAfter().getLooseObjects() ).isEqualTo( 0 );
+        assertThat( result.getAfter().getPacks() ).isEqualTo( 1 );
+        assertThat( result.getAfter().getPackedObjects() ).isGreaterThan( 0 );
+        assertThat( maintenance.getLastResult() ).isSameAs( result );
+        assertThat( maintenance.isNeeded() ).isFalse();
+
+        final InputStream in = PROVIDER.newInputStream( PROVIDER.getPath( URI.create( "git://maintenance-test/dir/file3.txt" ) ) );
+        assertThat( IOUtils.toString( in ) ).isEqualTo( "content 3" );
+        in.close();
+
+        final OutputStream out = PROVIDER.newOutputStream( PROVIDER.getPath( URI.create( "git://maintenance-test/dir/after.txt" ) ) );
+        out.write( "after gc".getBytes() );
+        out.close();
+        assertThat( PROVIDER.exists( PROVIDER.getPath( URI.create( "git://maintenance-test/dir/after.txt" ) ) ) ).isTrue();
+    }
+
+    @Test
+    public void testOffPeakWindow() throws Exception {
+        final JGitFileSystem fs = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://maintenance-window-test" ), EMPTY_ENV );
+        final FileRepository repository = (FileRepository) fs.gitRepo().getRepository();
+
+        final Calendar threeAM = Calendar.getInstance();
+        threeAM.set( Calendar.HOUR_OF_DAY, 3 );
+        final Calendar noon = Calendar.getInstance();
+        noon.set( Calendar.HOUR_OF_DAY, 12 );
+
+        final JGitRepositoryMaintenance night = new JGitRepositoryMaintenance( repository, 0, 0, -1, true, 22, 6 );
+        assertThat( night.isOffPeak( threeAM ) ).isTrue();
+        assertThat( night.isOffPeak( noon ) ).isFalse();
+
+        final JGitRepositoryMaintenance morning = new JGitRepositoryMaintenance( repository, 0, 0, -1, true, 1, 5 );
+        assertThat( morning.isOffPeak( threeAM ) ).isTrue();
+        assertThat( morning.isOffPeak( noon ) ).isFalse();
+
+        final JGitRepositoryMaintenance always = new JGitRepositoryMaintenance( repository, 0, 0, -1, true, -1, -1 );
+        assertThat( always.isOffPeak( noon ) ).isTrue();
+    }
+}
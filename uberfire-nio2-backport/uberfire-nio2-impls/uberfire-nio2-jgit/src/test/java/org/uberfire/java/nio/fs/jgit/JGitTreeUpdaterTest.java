@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Test;
+import org.uberfire.java.nio.fs.jgit.util.JGitTreeUpdater;
+import org.uberfire.java.nio.fs.jgit.util.MoveCommitContent;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.uberfire.java.nio.fs.jgit.util.JGitUtil.*;
+
+public class JGitTreeUpdaterTest extends AbstractTestInfra {
+
+    @Test
+    public void testOnlyChangedTreesAreWritten() throws Exception {
+        final Git git = setupGit();
+
+        final Map<String, File> content = new HashMap<String, File>();
+        for ( int i = 0; i < 20; i++ ) {
+            for ( int j = 0; j < 20; j++ ) {
+                content.put( "dir" + i + "/sub" + j + "/file.txt", tempFile( "content " + i + " " + j ) );
+            }
+        }
+        commit( git, "master", "name", "name@example.com", "many files", null, null, false, content );
+
+        final ObjectId baseTree = headTree( git );
+
+        final ObjectReader reader = git.getRepository().newObjectReader();
+        final ObjectInserter inserter = git.getRepository().newObjectInserter();
+        try {
+            final ObjectId blob = inserter.insert( Constants.OBJ_BLOB, Constants.encode( "new content" ) );
+            final JGitTreeUpdater updater = new JGitTreeUpdater( reader, inserter, baseTree );
+            updater.put( "dir3/sub4/file.txt", FileMode.REGULAR_FILE, blob );
+            final ObjectId newTree = updater.write();
+            inserter.flush();
+
+            // root, dir3 and dir3/sub4: the cost doesn't depend on the other 399 files
+            assertThat( updater.getWrittenTrees() ).isEqualTo( 3 );
+            assertThat( newTree ).isNotEqualTo( baseTree );
+            assertThat( entry( reader, newTree, "dir3/sub4/file.txt" ) ).isEqualTo( blob );
+            assertThat( entry( reader, newTree, "dir3/sub5" ) ).isEqualTo( entry( reader, baseTree, "dir3/sub5" ) );
+            assertThat( entry( reader, newTree, "dir7" ) ).isEqualTo( entry( reader, baseTree, "dir7" ) );
+            assertThat( entry( reader, newTree, "file1.txt" ) ).isEqualTo( entry( reader, baseTree, "file1.txt" ) );
+
+            final JGitTreeUpdater noop = new JGitTreeUpdater( reader, inserter, newTree );
+            noop.put( "dir3/sub4/file.txt", FileMode.REGULAR_FILE, blob );
+            assertThat( noop.write() ).isEqualTo( newTree );
+            assertThat( noop.getWrittenTrees() ).isEqualTo( 0 );
+        } finally {
+            reader.release();
+            inserter.release();
+        }
+    }
+
+    @Test
+    public void testCanonicalOrderAndDeletes() throws Exception {
+        final Git git = setupGit();
+
+        commit( git, "master", "name", "name@example.com", "tricky names", null, null, false, new HashMap<String, File>() {{
+            put( "a/b.txt", tempFile( "b" ) );
+            put( "a.txt", tempFile( "a.txt" ) );
+            put( "a-b", tempFile( "a-b" ) );
+            put( "a0/c.txt", tempFile( "c" ) );
+            put( "z/y/x.txt", tempFile( "x" ) );
+        }} );
+
+        commit( git, "master", "name", "name@example.com", "edits", null, null, false, new HashMap<String, File>() {{
+            put( "a/d.txt", tempFile( "d" ) );
+            put( "a.b/e.txt", tempFile( "e" ) );
+            put( "z/y/x.txt", null );
+            put( "file1.txt", null );
+        }} );
+
+        final ObjectReader reader = git.getRepository().newObjectReader();
+        try {
+            final ObjectId tree = headTree( git );
+            assertThat( entry( reader, tree, "z" ) ).isNull();
+            assertThat( entry( reader, tree, "file1.txt" ) ).isNull();
+            assertThat( entry( reader, tree, "a/b.txt" ) ).isNotNull();
+            assertThat( entry( reader, tree, "a/d.txt" ) ).isNotNull();
+            assertThat( entry( reader, tree, "a.b/e.txt" ) ).isNotNull();
+
+            // entries are in git order: "a/" sorts after "a-b", "a.b/" and "a.txt"
+            final TreeWalk treeWalk = new TreeWalk( reader );
+            treeWalk.addTree( tree );
+            treeWalk.setRecursive( true );
+            final StringBuilder paths = new StringBuilder();
+            while ( treeWalk.next() ) {
+                paths.append( treeWalk.getPathString() ).append( ' ' );
+            }
+            treeWalk.release();
+            assertThat( paths.toString() ).isEqualTo( "a-b a.b/e.txt a.txt a/b.txt a/d.txt a0/c.txt file2.txt " );
+        } finally {
+            reader.release();
+        }
+    }
+
+    @Test
+    public void testMove() throws Exception {
+        final Git git = setupGit();
+
+        final ObjectReader reader = git.getRepository().newObjectReader();
+        try {
+            final ObjectId file1 = entry( reader, headTree( git ), "file1.txt" );
+
+            commit( git, "master", new CommitInfo( null, "name", "name@example.com", "move", null, null ), false, new MoveCommitContent( new HashMap<String, String>() {{
+                put( "file1.txt", "moved/file1.txt" );
+            }} ) );
+
+            assertThat( entry( reader, headTree( git ), "file1.txt" ) ).isNull();
+            assertThat( entry( reader, headTree( git ), "moved/file1.txt" ) ).isEqualTo( file1 );
+            assertThat( entry( reader, headTree( git ), "file2.txt" ) ).isNotNull();
+        } finally {
+            reader.release();
+        }
+    }
+
+    private ObjectId headTree( final Git git ) throws Exception {
+        final RevWalk revWalk = new RevWalk( git.getRepository() );
+        try {
+            return revWalk.parseCommit( git.getRepository().resolve( "master" ) ).getTree().copy();
+        } finally {
+            revWalk.release();
+        }
+    }
+
+    private ObjectId entry( final ObjectReader reader,
+                            final ObjectId tree,
+                            final String path ) throws Exception {
+        final TreeWalk treeWalk = TreeWalk.forPath( reader, path, tree );
+        if ( treeWalk == null ) {
+            return null;
+        }
+        try {
+            return treeWalk.getObjectId( 0 );
+        } finally {
+            treeWalk.release();
+        }
+    }
+}
@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.util.HashMap;
 
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.InvalidRemoteException;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.junit.Test;
 import org.uberfire.java.nio.fs.jgit.util.JGitUtil;
@@ -129,4 +131,69 @@ public class JGitUtilTest extends AbstractTestInfra {
         assertThat( JGitUtil.checkPath( git, "master", "path/to" ).getK1() ).isEqualTo( DIRECTORY );
     }
 
+    @Test
+    public void testSyncBranch() throws IOException, InvalidRemoteException {
+        final File parentFolder = createTempDirectory();
+        final File gitFolder = new File( parentFolder, "mytest.git" );
+
+        final Git origin = JGitUtil.newRepository( gitFolder, true );
+
+        commit( origin, "master", "name", "name@example.com", "commit", null, null, false, new HashMap<String, File>() {{
+            put( "file.txt", tempFile( "temp" ) );
+        }} );
+        commit( origin, "user_branch", "name", "name@example.com", "commit!", null, null, false, new HashMap<String, File>() {{
+            put( "file2.txt", tempFile( "temp2222" ) );
+        }} );
+
+        final File gitClonedFolder = new File( parentFolder, "myclone.git" );
+        final String originUri = origin.getRepository().getDirectory().toString();
+
+        final Git git = cloneRepository( gitClonedFolder, originUri, true, CredentialsProvider.getDefault() );
+        final ObjectId userBranch = resolveObjectId( git, "user_branch" );
+
+        commit( origin, "master", "name", "name@example.com", "commit", null, null, false, new HashMap<String, File>() {{
+            put( "file3.txt", tempFile( "temp3" ) );
+        }} );
+        commit( origin, "user_branch", "name", "name@example.com", "commit!", null, null, false, new HashMap<String, File>() {{
+            put( "file4.txt", tempFile( "temp4" ) );
+        }} );
+        final String originMaster = resolveObjectId( origin, "master" ).name();
+
+        assertThat( syncBranch( git, CredentialsProvider.getDefault(), originUri, "master", originMaster ) ).isTrue();
+
+        assertThat( resolveObjectId( git, "master" ).name() ).isEqualTo( originMaster );
+        assertThat( JGitUtil.checkPath( git, "master", "file3.txt" ).getK1() ).isEqualTo( FILE );
+        // only the requested branch is fetched
+        assertThat( (Object) resolveObjectId( git, "user_branch" ) ).isEqualTo( userBranch );
+        assertThat( git.getRepository().getRef( "refs/remotes/upstream/user_branch" ) ).isNull();
+    }
+
+    @Test
+    public void testSyncBranchUpToDate() throws IOException, InvalidRemoteException {
+        final File parentFolder = createTempDirectory();
+        final File gitFolder = new File( parentFolder, "mytest.git" );
+
+        final Git origin = JGitUtil.newRepository( gitFolder, true );
+
+        commit( origin, "master", "name", "name@example.com", "commit", null, null, false, new HashMap<String, File>() {{
+            put( "file.txt", tempFile( "temp" ) );
+        }} );
+
+        final File gitClonedFolder = new File( parentFolder, "myclone.git" );
+        final String originUri = origin.getRepository().getDirectory().toString();
+
+        final Git git = cloneRepository( gitClonedFolder, originUri, true, CredentialsProvider.getDefault() );
+        final String local = resolveObjectId( git, "master" ).name();
+
+        commit( origin, "master", "name", "name@example.com", "commit", null, null, false, new HashMap<String, File>() {{
+            put( "file3.txt", tempFile( "temp3" ) );
+        }} );
+
+        // already at the expected revision: nothing is fetched, even if the origin moved on since
+        assertThat( syncBranch( git, CredentialsProvider.getDefault(), originUri, "master", local ) ).isFalse();
+
+        assertThat( resolveObjectId( git, "master" ).name() ).isEqualTo( local );
+        assertThat( git.getRepository().getRef( "refs/remotes/upstream/master" ) ).isNull();
+    }
+
 }
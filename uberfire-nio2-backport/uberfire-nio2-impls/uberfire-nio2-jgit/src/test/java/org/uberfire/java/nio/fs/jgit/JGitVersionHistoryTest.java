@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.uberfire.java.nio.base.version.VersionHistory;
+import org.uberfire.java.nio.base.version.VersionRecord;
+import org.uberfire.java.nio.file.Path;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class JGitVersionHistoryTest extends AbstractTestInfra {
+
+    private static final JGitFileSystemProvider PROVIDER = JGitFileSystemProvider.getInstance();
+
+    @Test
+    public void testPagedHistory() throws Exception {
+        final JGitFileSystem fs = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://version-history-test" ), EMPTY_ENV );
+
+        final Path path = PROVIDER.getPath( URI.create( "git://version-history-test/some/file.txt" ) );
+        for ( int i = 0; i < 5; i++ ) {
+            write( path, "content " + i );
+            write( PROVIDER.getPath( URI.create( "git://version-history-test/other.txt" ) ), "other " + i );
+        }
+
+        final String head = fs.gitRepo().getRepository().resolve( "master" ).name();
+
+        final VersionHistory history = PROVIDER.getFileAttributeView( path, JGitVersionAttributeView.class ).readAttributes().history();
+
+        assertThat( history.newest() ).isNotNull();
+        assertThat( history.newest().id() ).isNotEqualTo( head );
+
+        final List<VersionRecord> firstPage = history.records( 0, 2 );
+        assertThat( firstPage ).hasSize( 2 );
+        assertThat( firstPage.get( 0 ).id() ).isEqualTo( history.newest().id() );
+        assertThat( history.records( 4, 2 ) ).hasSize( 1 );
+        assertThat( history.records( 5, 2 ) ).isEmpty();
+
+        final List<String> iterated = new ArrayList<String>();
+        for ( final VersionRecord record : history ) {
+            iterated.add( record.id() );
+        }
+        assertThat( iterated ).hasSize( 5 );
+        assertThat( iterated.get( 0 ) ).isEqualTo( firstPage.get( 0 ).id() );
+        assertThat( iterated.get( 1 ) ).isEqualTo( firstPage.get( 1 ).id() );
+
+        assertThat( history.oldest().id() ).isEqualTo( iterated.get( 4 ) );
+        assertThat( history.records() ).hasSize( 5 );
+        assertThat( fs.getPathHistory().getRebuildCount() ).isEqualTo( 1 );
+
+        assertThat( history.records( 4, 2 ).get( 0 ).id() ).isEqualTo( iterated.get( 4 ) );
+        assertThat( fs.getPathHistory().getRebuildCount() ).isEqualTo( 1 );
+
+        write( path, "content 5" );
+
+        // version attributes are cached by the path's view, a new path reads the new head
+        final Path newPath = PROVIDER.getPath( URI.create( "git://version-history-test/some/file.txt" ) );
+        final VersionHistory newHistory = PROVIDER.getFileAttributeView( newPath, JGitVersionAttributeView.class ).readAttributes().history();
+        assertThat( newHistory.records() ).hasSize( 6 );
+        assertThat( newHistory.oldest().id() ).isEqualTo( iterated.get( 4 ) );
+        assertThat( fs.getPathHistory().getRebuildCount() ).isEqualTo( 1 );
+        assertThat( fs.getPathHistory().getUpdateCount() ).isEqualTo( 1 );
+    }
+
+    @Test
+    public void testIterateAcrossPages() throws Exception {
+        final JGitFileSystem fs = (JGitFileSystem) PROVIDER.newFileSystem( URI.create( "git://version-iterator-test" ), EMPTY_ENV );
+
+        final Path path = PROVIDER.getPath( URI.create( "git://version-iterator-test/file.txt" ) );
+        for ( int i = 0; i < 40; i++ ) {
+            write( path, "content " + i );
+        }
+
+        final VersionHistory history = PROVIDER.getFileAttributeView( path, JGitVersionAttributeView.class ).readAttributes().history();
+
+        // abandoned after the first record: nothing left to release
+        assertThat( history.iterator().next().id() ).isEqualTo( history.newest().id() );
+
+        final List<String> expected = new ArrayList<String>();
+        for ( final VersionRecord record : history.records( 0, 100 ) ) {
+            expected.add( record.id() );
+        }
+        final List<String> iterated = new ArrayList<String>();
+        for ( final VersionRecord record : history ) {
+            iterated.add( record.id() );
+        }
+        assertThat( iterated ).hasSize( 40 ).isEqualTo( expected );
+        assertThat( fs.getPathHistory().getRebuildCount() ).isEqualTo( 0 );
+    }
+
+    private void write( final Path path,
+                        final String content ) throws Exception {
+        final OutputStream outStream = PROVIDER.newOutputStream( path );
+        outStream.write( content.getBytes() );
+        outStream.close();
+    }
+}
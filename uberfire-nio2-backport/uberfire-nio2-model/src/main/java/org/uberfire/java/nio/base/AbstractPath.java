@@ -30,6 +30,7 @@ import org.apache.commons.httpclient.util.URIUtil;
 import org.apache.commons.io.FilenameUtils;
 import org.uberfire.commons.data.Pair;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.watch.RecursiveWatchService;
 import org.uberfire.java.nio.file.ClosedWatchServiceException;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.InvalidPathException;
@@ -560,7 +561,7 @@ public abstract class AbstractPath<FS extends FileSystem>
                               Modifier... modifiers )
             throws UnsupportedOperationException, IllegalArgumentException,
             ClosedWatchServiceException, IOException, SecurityException {
-        return watcher.poll();
+        return register( watcher, events );
     }
 
     @Override
@@ -568,6 +569,9 @@ public abstract class AbstractPath<FS extends FileSystem>
                               Kind<?>... events )
             throws UnsupportedOperationException, IllegalArgumentException,
             ClosedWatchServiceException, IOException, SecurityException {
+        if ( watcher instanceof RecursiveWatchService ) {
+            return ( (RecursiveWatchService) watcher ).register( this, events );
+        }
         return watcher.poll();
     }
 
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base;
+
+import java.io.IOException;
+
+/**
+ * Output stream that stores its content only when closed, and can be abandoned instead (ex. after a failed upload)
+ * leaving the target untouched.
+ */
+public interface Discardable {
+
+    /**
+     * Releases the stream dropping what was written so far; closing it afterwards does nothing.
+     */
+    void discard() throws IOException;
+}
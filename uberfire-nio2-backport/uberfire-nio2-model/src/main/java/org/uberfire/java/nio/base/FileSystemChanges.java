@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base;
+
+import java.util.List;
+
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchEvent;
+
+/**
+ * File system able to identify the state of its roots and to list what changed between two of those states,
+ * so consumers (ex. indexes) can catch up incrementally instead of walking the whole file system.
+ */
+public interface FileSystemChanges {
+
+    /**
+     * @return opaque identifier of the current state of the given root, or null if it has no content yet.
+     */
+    String revision( final Path root );
+
+    /**
+     * @return changes of the given root since the given revision, as watch events with {@link WatchContext} contexts;
+     * null if the revision is unknown (ex. not available anymore).
+     */
+    List<WatchEvent<?>> changesSince( final Path root,
+                                      final String revision );
+}
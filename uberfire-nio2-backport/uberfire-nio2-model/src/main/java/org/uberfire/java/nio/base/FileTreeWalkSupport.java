@@ -0,0 +1,36 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base;
+
+import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.file.FileVisitor;
+import org.uberfire.java.nio.file.Path;
+
+/**
+ * File system able to walk a whole file tree in a single pass, instead of resolving the attributes and listing the
+ * content of every entry on its own; <code>Files.walkFileTree</code> delegates to it.
+ */
+public interface FileTreeWalkSupport {
+
+    /**
+     * Walks the tree starting at the given path, with the same semantics of <code>Files.walkFileTree</code>.
+     * @return false if the walk is not supported for the given path, nothing has been visited then.
+     */
+    boolean walkFileTree( final Path start,
+                          final int maxDepth,
+                          final FileVisitor<? super Path> visitor ) throws IOException;
+}
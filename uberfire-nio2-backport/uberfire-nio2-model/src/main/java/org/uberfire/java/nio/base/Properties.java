@@ -1,5 +1,6 @@
 package org.uberfire.java.nio.base;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -8,12 +9,21 @@ import java.util.Map;
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.XStreamException;
+import org.uberfire.java.nio.base.dotfiles.AttributeCodec;
 
 /**
  *
  */
 public class Properties extends HashMap<String, Object> {
 
+    /**
+     * Set <code>org.uberfire.nio.dotfile.format=xml</code> to keep writing the legacy XStream format, ex. while
+     * older nodes of a cluster still need to read it; both formats are always readable.
+     */
+    private static final boolean LEGACY_FORMAT = "xml".equalsIgnoreCase( System.getProperty( "org.uberfire.nio.dotfile.format" ) );
+
+    private static final XStream XML = new XStream();
+
     public Properties() {
     }
 
@@ -35,12 +45,20 @@ public class Properties extends HashMap<String, Object> {
 
     public void store( final OutputStream out,
                        boolean closeOnFinish ) {
-        final XStream xstream = new XStream();
-        xstream.toXML( this, out );
-        if ( closeOnFinish ) {
-            try {
-                out.close();
-            } catch ( IOException e ) {
+        try {
+            if ( LEGACY_FORMAT ) {
+                XML.toXML( this, out );
+            } else {
+                AttributeCodec.encode( this, out );
+            }
+        } catch ( final IOException e ) {
+            throw new org.uberfire.java.nio.IOException( e );
+        } finally {
+            if ( closeOnFinish ) {
+                try {
+                    out.close();
+                } catch ( IOException e ) {
+                }
             }
         }
     }
@@ -49,28 +67,51 @@ public class Properties extends HashMap<String, Object> {
         load( in, true );
     }
 
+    /**
+     * Loads content in the compact binary format or in the legacy XStream XML, detected from the header.
+     */
     public void load( final InputStream in,
                       boolean closeOnFinish ) {
-        final XStream xstream = new XStream();
-        final Properties temp = new Properties();
+        final InputStream input = in.markSupported() ? in : new BufferedInputStream( in );
         try {
-            xstream.fromXML( in, temp );
-        } catch ( final XStreamException ex ) {
-            if ( !ex.getMessage().equals( " : input contained no data" ) ) {
-                throw ex;
+            final byte[] header = new byte[ AttributeCodec.MAGIC.length ];
+            input.mark( header.length );
+            int length = 0;
+            int read;
+            while ( length < header.length && ( read = input.read( header, length, header.length - length ) ) != -1 ) {
+                length += read;
             }
-        }
+            input.reset();
 
-        for ( final Map.Entry<String, Object> entry : temp.entrySet() ) {
-            if ( entry.getValue() != null ) {
-                put( entry.getKey(), entry.getValue() );
+            final Map<String, Object> temp;
+            if ( length == 0 ) {
+                temp = new HashMap<String, Object>();
+            } else if ( AttributeCodec.isEncoded( header, length ) ) {
+                temp = AttributeCodec.decode( input );
+            } else {
+                temp = new Properties();
+                try {
+                    XML.fromXML( input, temp );
+                } catch ( final XStreamException ex ) {
+                    if ( !ex.getMessage().equals( " : input contained no data" ) ) {
+                        throw ex;
+                    }
+                }
             }
-        }
-        temp.clear();
-        if ( closeOnFinish ) {
-            try {
-                in.close();
-            } catch ( IOException e ) {
+
+            for ( final Map.Entry<String, Object> entry : temp.entrySet() ) {
+                if ( entry.getValue() != null ) {
+                    put( entry.getKey(), entry.getValue() );
+                }
+            }
+        } catch ( final IOException e ) {
+            throw new org.uberfire.java.nio.IOException( e );
+        } finally {
+            if ( closeOnFinish ) {
+                try {
+                    in.close();
+                } catch ( IOException e ) {
+                }
             }
         }
     }
@@ -0,0 +1,204 @@
+package org.uberfire.java.nio.base.dotfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+
+/**
+ * Compact binary encoding of file attributes, used for dot file content.
+ * <p/>
+ * Layout: a 4 bytes magic header, the number of entries and, for each of them, the name followed by a type tag
+ * and the value; common types (strings, numbers, booleans and dates) are written natively, any other value
+ * is written as XStream XML, as the legacy format did, so no java serialization is involved. The first byte
+ * of the magic can't start an XML document, so {@link #isEncoded(byte[], int)} tells it apart from legacy
+ * XStream content.
+ */
+public final class AttributeCodec {
+
+    public static final byte[] MAGIC = new byte[]{ (byte) 0xAF, 'U', 'A', 1 };
+
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+    private static final int READ_CHUNK = 8192;
+
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte DATE = 6;
+    // 7 was java serialization, no longer written nor read
+    private static final byte XML = 8;
+
+    private static final XStream XSTREAM = new XStream();
+
+    private AttributeCodec() {
+
+    }
+
+    public static boolean isEncoded( final byte[] header,
+                                     final int length ) {
+        if ( length < MAGIC.length ) {
+            return false;
+        }
+        for ( int i = 0; i < MAGIC.length; i++ ) {
+            if ( header[ i ] != MAGIC[ i ] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void encode( final Map<String, Object> attributes,
+                               final OutputStream out ) throws IOException {
+        final DataOutputStream data = new DataOutputStream( out );
+        data.write( MAGIC );
+
+        int size = 0;
+        for ( final Object value : attributes.values() ) {
+            if ( value != null ) {
+                size++;
+            }
+        }
+        data.writeInt( size );
+
+        for ( final Map.Entry<String, Object> entry : attributes.entrySet() ) {
+            final Object value = entry.getValue();
+            if ( value == null ) {
+                continue;
+            }
+            writeString( data, entry.getKey() );
+            if ( value instanceof String ) {
+                data.writeByte( STRING );
+                writeString( data, (String) value );
+            } else if ( value instanceof Integer ) {
+                data.writeByte( INTEGER );
+                data.writeInt( (Integer) value );
+            } else if ( value instanceof Long ) {
+                data.writeByte( LONG );
+                data.writeLong( (Long) value );
+            } else if ( value instanceof Boolean ) {
+                data.writeByte( BOOLEAN );
+                data.writeBoolean( (Boolean) value );
+            } else if ( value instanceof Double ) {
+                data.writeByte( DOUBLE );
+                data.writeDouble( (Double) value );
+            } else if ( value.getClass().equals( Date.class ) ) {
+                data.writeByte( DATE );
+                data.writeLong( ( (Date) value ).getTime() );
+            } else {
+                data.writeByte( XML );
+                writeString( data, XSTREAM.toXML( value ) );
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Decodes the content written by {@link #encode(Map, OutputStream)}, magic header included.
+     */
+    public static Map<String, Object> decode( final InputStream in ) throws IOException {
+        final DataInputStream data = new DataInputStream( in );
+        final byte[] header = new byte[ MAGIC.length ];
+        data.readFully( header );
+        if ( !isEncoded( header, header.length ) ) {
+            throw new IOException( "Unknown attribute encoding." );
+        }
+
+        final int size = data.readInt();
+        if ( size < 0 ) {
+            throw new IOException( "Corrupted attribute content." );
+        }
+        final Map<String, Object> result = new HashMap<String, Object>();
+        for ( int i = 0; i < size; i++ ) {
+            final String name = readString( data );
+            final byte type = data.readByte();
+            switch ( type ) {
+                case STRING:
+                    result.put( name, readString( data ) );
+                    break;
+                case INTEGER:
+                    result.put( name, data.readInt() );
+                    break;
+                case LONG:
+                    result.put( name, data.readLong() );
+                    break;
+                case BOOLEAN:
+                    result.put( name, data.readBoolean() );
+                    break;
+                case DOUBLE:
+                    result.put( name, data.readDouble() );
+                    break;
+                case DATE:
+                    result.put( name, new Date( data.readLong() ) );
+                    break;
+                case XML:
+                    result.put( name, fromXML( name, readString( data ) ) );
+                    break;
+                default:
+                    throw new IOException( "Unknown attribute type " + type + " for '" + name + "'." );
+            }
+        }
+        return result;
+    }
+
+    private static void writeString( final DataOutputStream data,
+                                     final String value ) throws IOException {
+        final byte[] bytes = value.getBytes( UTF_8 );
+        data.writeInt( bytes.length );
+        data.write( bytes );
+    }
+
+    private static String readString( final DataInputStream data ) throws IOException {
+        final int length = data.readInt();
+        if ( length < 0 ) {
+            throw new IOException( "Corrupted attribute content." );
+        }
+        if ( length <= READ_CHUNK ) {
+            final byte[] bytes = new byte[ length ];
+            readFully( data, bytes, length );
+            return new String( bytes, UTF_8 );
+        }
+
+        // the length isn't trusted for allocation: buffers only grow with what the input actually holds
+        final ByteArrayOutputStream content = new ByteArrayOutputStream( READ_CHUNK );
+        final byte[] chunk = new byte[ READ_CHUNK ];
+        int remaining = length;
+        while ( remaining > 0 ) {
+            final int size = Math.min( remaining, READ_CHUNK );
+            readFully( data, chunk, size );
+            content.write( chunk, 0, size );
+            remaining -= size;
+        }
+        return new String( content.toByteArray(), UTF_8 );
+    }
+
+    private static void readFully( final DataInputStream data,
+                                   final byte[] bytes,
+                                   final int length ) throws IOException {
+        try {
+            data.readFully( bytes, 0, length );
+        } catch ( final EOFException ex ) {
+            throw new IOException( "Corrupted attribute content: length exceeds the remaining input." );
+        }
+    }
+
+    private static Object fromXML( final String name,
+                                   final String xml ) throws IOException {
+        try {
+            return XSTREAM.fromXML( xml );
+        } catch ( final XStreamException ex ) {
+            throw new IOException( "Can't read attribute '" + name + "': " + ex.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base.version;
+
+import java.util.Map;
+
+import org.uberfire.java.nio.file.Path;
+
+/**
+ * File system able to resolve the latest change of every entry of a directory at once, instead of
+ * reading the whole {@link VersionHistory} of each entry.
+ */
+public interface LastChanges {
+
+    /**
+     * @return latest version record of each direct child of the given directory, keyed by file name;
+     * children without history are absent from the map.
+     */
+    Map<String, VersionRecord> lastChanges( final Path directory );
+}
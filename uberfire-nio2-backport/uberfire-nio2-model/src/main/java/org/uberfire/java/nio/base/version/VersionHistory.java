@@ -19,10 +19,31 @@ package org.uberfire.java.nio.base.version;
 import java.util.List;
 
 /**
- *
+ * Version history of a path; implementations are expected to load records lazily, so that reading only
+ * the latest changes (ex. {@link #newest()} or the first page of {@link #records(int, int)}) doesn't
+ * load the whole history. Iteration goes from newest to oldest.
  */
-public interface VersionHistory {
+public interface VersionHistory extends Iterable<VersionRecord> {
 
+    /**
+     * @return every record, from oldest to newest; loads the whole history.
+     */
     List<VersionRecord> records();
 
+    /**
+     * @return up to {@code limit} records, from newest to oldest, skipping the {@code offset} newest ones.
+     */
+    List<VersionRecord> records( final int offset,
+                                 final int limit );
+
+    /**
+     * @return the latest record, or null if there's no history.
+     */
+    VersionRecord newest();
+
+    /**
+     * @return the first record, or null if there's no history.
+     */
+    VersionRecord oldest();
+
 }
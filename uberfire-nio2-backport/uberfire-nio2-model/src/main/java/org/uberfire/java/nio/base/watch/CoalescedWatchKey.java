@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base.watch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.Watchable;
+
+import static org.uberfire.java.nio.file.StandardWatchEventKind.*;
+
+/**
+ * Watch key that merges the events of several keys of the same watchable, coalescing events of the same path:
+ * <ul>
+ * <li>create followed by modify is kept as create;</li>
+ * <li>create followed by delete is dropped;</li>
+ * <li>modify followed by modify or delete is replaced by the latter.</li>
+ * </ul>
+ * Renames are never merged and act as a barrier for the paths they touch.
+ */
+public class CoalescedWatchKey implements WatchKey {
+
+    private final WatchKey first;
+    private final List<WatchEvent<?>> events = new ArrayList<WatchEvent<?>>();
+    private final Map<Path, Integer> lastEventOf = new HashMap<Path, Integer>();
+
+    private CoalescedWatchKey( final WatchKey first ) {
+        this.first = first;
+        add( first.pollEvents() );
+    }
+
+    public static CoalescedWatchKey merge( final WatchKey pending,
+                                           final WatchKey key ) {
+        final CoalescedWatchKey result;
+        if ( pending instanceof CoalescedWatchKey ) {
+            result = (CoalescedWatchKey) pending;
+        } else {
+            result = new CoalescedWatchKey( pending );
+        }
+        result.add( key.pollEvents() );
+        return result;
+    }
+
+    private synchronized void add( final List<WatchEvent<?>> newEvents ) {
+        for ( final WatchEvent<?> event : newEvents ) {
+            add( event );
+        }
+    }
+
+    private void add( final WatchEvent<?> event ) {
+        if ( !( event.context() instanceof WatchContext ) ) {
+            events.add( event );
+            return;
+        }
+        final WatchContext context = (WatchContext) event.context();
+
+        if ( event.kind().equals( ENTRY_RENAME ) ) {
+            lastEventOf.remove( context.getOldPath() );
+            lastEventOf.remove( context.getPath() );
+            events.add( event );
+            return;
+        }
+
+        final Path path = event.kind().equals( ENTRY_CREATE ) || context.getOldPath() == null ? context.getPath() : context.getOldPath();
+        final Integer index = lastEventOf.get( path );
+        if ( index != null ) {
+            final WatchEvent<?> previous = events.get( index );
+            if ( previous.kind().equals( ENTRY_CREATE ) ) {
+                if ( event.kind().equals( ENTRY_MODIFY ) ) {
+                    return;
+                }
+                if ( event.kind().equals( ENTRY_DELETE ) ) {
+                    events.set( index, null );
+                    lastEventOf.remove( path );
+                    return;
+                }
+            } else if ( previous.kind().equals( ENTRY_MODIFY ) &&
+                    ( event.kind().equals( ENTRY_MODIFY ) || event.kind().equals( ENTRY_DELETE ) ) ) {
+                events.set( index, null );
+            }
+        }
+
+        if ( path != null ) {
+            lastEventOf.put( path, events.size() );
+        }
+        events.add( event );
+    }
+
+    @Override
+    public boolean isValid() {
+        return first.isValid();
+    }
+
+    @Override
+    public synchronized List<WatchEvent<?>> pollEvents() {
+        final List<WatchEvent<?>> result = new ArrayList<WatchEvent<?>>( events.size() );
+        for ( final WatchEvent<?> event : events ) {
+            if ( event != null ) {
+                result.add( event );
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean reset() {
+        return first.reset();
+    }
+
+    @Override
+    public void cancel() {
+        first.cancel();
+    }
+
+    @Override
+    public Watchable watchable() {
+        return first.watchable();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base.watch;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import org.uberfire.java.nio.file.WatchKey;
+
+/**
+ * Bounded queue of watch keys.
+ * <p/>
+ * Keys are queued as they come while there's room; once {@code capacity} keys are pending, a new key is merged
+ * into the most recent pending key of the same watchable (see {@link CoalescedWatchKey}), so a slow consumer
+ * sees fewer, bigger keys instead of an ever growing queue. A key is queued beyond capacity only if no pending key
+ * has the same watchable.
+ */
+public class CoalescingWatchKeyQueue {
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final int capacity;
+    private final LinkedList<WatchKey> keys = new LinkedList<WatchKey>();
+
+    private int maxDepth = 0;
+    private long coalesced = 0;
+
+    public CoalescingWatchKeyQueue() {
+        this( DEFAULT_CAPACITY );
+    }
+
+    public CoalescingWatchKeyQueue( final int capacity ) {
+        this.capacity = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+    }
+
+    public synchronized void offer( final WatchKey key ) {
+        if ( keys.size() >= capacity ) {
+            final ListIterator<WatchKey> iterator = keys.listIterator( keys.size() );
+            while ( iterator.hasPrevious() ) {
+                final WatchKey pending = iterator.previous();
+                if ( pending.watchable() != null && pending.watchable().equals( key.watchable() ) ) {
+                    iterator.set( CoalescedWatchKey.merge( pending, key ) );
+                    coalesced++;
+                    return;
+                }
+            }
+        }
+        keys.add( key );
+        if ( keys.size() > maxDepth ) {
+            maxDepth = keys.size();
+        }
+    }
+
+    public synchronized WatchKey poll() {
+        return keys.poll();
+    }
+
+    public synchronized int size() {
+        return keys.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    public synchronized void clear() {
+        keys.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+}
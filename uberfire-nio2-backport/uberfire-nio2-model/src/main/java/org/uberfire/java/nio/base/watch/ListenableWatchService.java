@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base.watch;
+
+import org.uberfire.java.nio.file.WatchService;
+
+/**
+ * Watch service able to notify when keys are queued, so consumers can be served by a shared
+ * {@link WatchEventDispatcher} instead of parking a thread on {@link #take()}.
+ */
+public interface ListenableWatchService extends WatchService {
+
+    /**
+     * Sets the listener run, on the publisher thread, every time keys are queued; it must not block.
+     */
+    void setListener( final Runnable listener );
+
+    /**
+     * @return number of keys queued and not polled yet.
+     */
+    int getQueueDepth();
+
+    /**
+     * @return highest number of keys ever queued at once.
+     */
+    int getMaxQueueDepth();
+
+    /**
+     * @return number of keys merged into pending ones because the queue was full.
+     */
+    long getCoalescedCount();
+}
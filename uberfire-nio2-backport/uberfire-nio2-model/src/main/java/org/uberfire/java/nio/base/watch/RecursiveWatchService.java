@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base.watch;
+
+import org.uberfire.java.nio.file.ClosedWatchServiceException;
+import org.uberfire.java.nio.file.NotDirectoryException;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.WatchService;
+
+/**
+ * Watch service that only publishes events for the directories registered on it, each one watched with all its
+ * content; {@link org.uberfire.java.nio.base.AbstractPath#register(WatchService, WatchEvent.Kind[])} delegates to it.
+ */
+public interface RecursiveWatchService extends WatchService {
+
+    /**
+     * Starts watching the given directory and all its content.
+     * @param kinds kinds of events to publish; all of them if none is given.
+     * @return key of the registration, that can be cancelled; events are published on separate keys.
+     */
+    WatchKey register( final Path dir,
+                       final WatchEvent.Kind<?>... kinds ) throws ClosedWatchServiceException, NotDirectoryException;
+}
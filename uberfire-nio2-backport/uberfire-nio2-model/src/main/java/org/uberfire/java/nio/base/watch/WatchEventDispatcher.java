@@ -0,0 +1,312 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base.watch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.commons.async.DescriptiveRunnable;
+import org.uberfire.commons.async.DescriptiveThreadFactory;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.WatchService;
+
+import static org.uberfire.commons.validation.Preconditions.*;
+
+/**
+ * Delivers watch keys of many watch services to their consumers using a small fixed thread pool.
+ * <p/>
+ * {@link ListenableWatchService}s are drained on demand, when they notify new keys, by at most one pool thread
+ * at a time (so each subscriber sees its keys in order) and a limited number of keys per turn (so a busy
+ * subscriber doesn't starve the others); any other watch service falls back to a dedicated thread blocked
+ * on {@link WatchService#take()}. Subscribers with slow handlers can bring their own executor, so they don't
+ * hold the shared threads while the keys of other subscribers pile up.
+ * <p/>
+ * The pool size can be set with the <code>org.uberfire.nio.watch.dispatcher.threads</code> system property.
+ */
+public class WatchEventDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger( WatchEventDispatcher.class );
+
+    public static final int DEFAULT_THREADS = 2;
+    public static final int KEYS_PER_TURN = 16;
+
+    private static WatchEventDispatcher instance;
+
+    /**
+     * Consumer of the keys of a watch service.
+     */
+    public interface WatchKeyHandler {
+
+        /**
+         * @return false to cancel the subscription.
+         */
+        boolean handle( final WatchKey key );
+    }
+
+    private final ExecutorService executor;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+    private ExecutorService blockingExecutor = null;
+
+    public static synchronized WatchEventDispatcher getInstance() {
+        if ( instance == null ) {
+            instance = new WatchEventDispatcher( Integer.getInteger( "org.uberfire.nio.watch.dispatcher.threads", DEFAULT_THREADS ) );
+        }
+        return instance;
+    }
+
+    public WatchEventDispatcher( final int threads ) {
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool( threads > 0 ? threads : DEFAULT_THREADS, new ThreadFactory() {
+            @Override
+            public Thread newThread( final Runnable r ) {
+                final Thread thread = new Thread( r, "watch-event-dispatcher-" + count.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+    }
+
+    public Subscription subscribe( final WatchService watchService,
+                                   final String description,
+                                   final WatchKeyHandler handler ) {
+        return subscribe( watchService, description, handler, executor );
+    }
+
+    /**
+     * @param executor runs the handler of a {@link ListenableWatchService}, instead of the shared pool; it isn't
+     * shut down by the dispatcher.
+     */
+    public Subscription subscribe( final WatchService watchService,
+                                   final String description,
+                                   final WatchKeyHandler handler,
+                                   final Executor executor ) {
+        checkNotNull( "watchService", watchService );
+        checkNotNull( "handler", handler );
+        checkNotNull( "executor", executor );
+
+        final Subscription subscription = new Subscription( watchService, description, handler, executor );
+        subscriptions.add( subscription );
+
+        if ( watchService instanceof ListenableWatchService ) {
+            ( (ListenableWatchService) watchService ).setListener( new Runnable() {
+                @Override
+                public void run() {
+                    subscription.schedule();
+                }
+            } );
+            subscription.schedule();
+        } else {
+            blockingExecutor().execute( new DescriptiveRunnable() {
+                @Override
+                public String getDescription() {
+                    return subscription.getDescription();
+                }
+
+                @Override
+                public void run() {
+                    subscription.takeLoop();
+                }
+            } );
+        }
+
+        return subscription;
+    }
+
+    public List<Subscription> getSubscriptions() {
+        return new ArrayList<Subscription>( subscriptions );
+    }
+
+    public void shutdown() {
+        for ( final Subscription subscription : subscriptions ) {
+            subscription.cancel();
+        }
+        executor.shutdown();
+        synchronized ( this ) {
+            if ( blockingExecutor != null ) {
+                blockingExecutor.shutdown();
+            }
+        }
+        try {
+            executor.awaitTermination( 60, TimeUnit.SECONDS );
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized ExecutorService blockingExecutor() {
+        if ( blockingExecutor == null ) {
+            blockingExecutor = Executors.newCachedThreadPool( new DescriptiveThreadFactory() );
+        }
+        return blockingExecutor;
+    }
+
+    public class Subscription {
+
+        private final WatchService watchService;
+        private final String description;
+        private final WatchKeyHandler handler;
+        private final Executor drainExecutor;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean( false );
+        private final AtomicLong dispatched = new AtomicLong( 0 );
+        private volatile boolean cancelled = false;
+
+        private final Runnable drain = new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+
+        Subscription( final WatchService watchService,
+                      final String description,
+                      final WatchKeyHandler handler,
+                      final Executor drainExecutor ) {
+            this.watchService = watchService;
+            this.description = description;
+            this.handler = handler;
+            this.drainExecutor = drainExecutor;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove( this );
+            if ( watchService instanceof ListenableWatchService ) {
+                ( (ListenableWatchService) watchService ).setListener( null );
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public long getDispatchedCount() {
+            return dispatched.get();
+        }
+
+        /**
+         * @return keys waiting to be dispatched, or -1 if the watch service doesn't expose its queue.
+         */
+        public int getQueueDepth() {
+            if ( watchService instanceof ListenableWatchService ) {
+                return ( (ListenableWatchService) watchService ).getQueueDepth();
+            }
+            return -1;
+        }
+
+        public int getMaxQueueDepth() {
+            if ( watchService instanceof ListenableWatchService ) {
+                return ( (ListenableWatchService) watchService ).getMaxQueueDepth();
+            }
+            return -1;
+        }
+
+        public long getCoalescedCount() {
+            if ( watchService instanceof ListenableWatchService ) {
+                return ( (ListenableWatchService) watchService ).getCoalescedCount();
+            }
+            return 0;
+        }
+
+        void schedule() {
+            if ( !cancelled && scheduled.compareAndSet( false, true ) ) {
+                try {
+                    drainExecutor.execute( drain );
+                } catch ( final RejectedExecutionException ex ) {
+                    // the subscriber's own executor is already shut down
+                    scheduled.set( false );
+                    cancel();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                for ( int i = 0; i < KEYS_PER_TURN && !cancelled; i++ ) {
+                    final WatchKey key;
+                    try {
+                        key = watchService.poll();
+                    } catch ( final Exception ex ) {
+                        cancel();
+                        break;
+                    }
+                    if ( key == null ) {
+                        break;
+                    }
+                    dispatch( key );
+                }
+            } finally {
+                scheduled.set( false );
+            }
+            // keys queued while draining were not notified, as this subscription was still scheduled
+            if ( ( (ListenableWatchService) watchService ).getQueueDepth() > 0 ) {
+                schedule();
+            }
+        }
+
+        private void takeLoop() {
+            while ( !cancelled && !watchService.isClose() ) {
+                final WatchKey key;
+                try {
+                    key = watchService.take();
+                } catch ( final Exception ex ) {
+                    break;
+                }
+                dispatch( key );
+            }
+            cancel();
+        }
+
+        private void dispatch( final WatchKey key ) {
+            dispatched.incrementAndGet();
+            try {
+                if ( !handler.handle( key ) ) {
+                    cancel();
+                }
+            } catch ( final Exception ex ) {
+                LOGGER.error( "Unexpected error dispatching watch events to " + description + ".", ex );
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Subscription{" +
+                    "description='" + description + '\'' +
+                    ", queueDepth=" + getQueueDepth() +
+                    ", maxQueueDepth=" + getMaxQueueDepth() +
+                    ", coalesced=" + getCoalescedCount() +
+                    ", dispatched=" + dispatched.get() +
+                    '}';
+        }
+    }
+}
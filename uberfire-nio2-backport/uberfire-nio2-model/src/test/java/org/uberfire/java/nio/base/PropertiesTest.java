@@ -1,14 +1,21 @@
 package org.uberfire.java.nio.base;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 
+import com.thoughtworks.xstream.XStream;
 import org.junit.Test;
+import org.uberfire.java.nio.base.dotfiles.AttributeCodec;
 
 import static org.junit.Assert.*;
 
@@ -56,4 +63,144 @@ public class PropertiesTest {
         assertEquals( 0, loadProperties.size() );
     }
 
+    @Test
+    public void testCompactFormat() {
+        final Properties properties = new Properties();
+        final Date dt = new Date();
+
+        properties.put( "string", "some \u00e9 content" );
+        properties.put( "int", 10453 );
+        properties.put( "long", 1000000L );
+        properties.put( "boolean", true );
+        properties.put( "double", 1.5D );
+        properties.put( "date", dt );
+        properties.put( "list", new ArrayList<String>( Arrays.asList( "a", "b" ) ) );
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        properties.store( out );
+
+        final byte[] content = out.toByteArray();
+        assertTrue( AttributeCodec.isEncoded( content, content.length ) );
+        assertTrue( content.length < new XStream().toXML( properties ).length() );
+
+        final Properties loadProperties = new Properties();
+        loadProperties.load( new ByteArrayInputStream( content ) );
+
+        assertEquals( properties, loadProperties );
+    }
+
+    @Test
+    public void testLegacyXmlFormat() {
+        final Properties properties = new Properties();
+        final Date dt = new Date();
+
+        properties.put( "int", 10453 );
+        properties.put( "date", dt );
+
+        final byte[] content = new XStream().toXML( properties ).getBytes();
+
+        final Properties loadProperties = new Properties();
+        loadProperties.load( new ByteArrayInputStream( content ) );
+
+        assertEquals( 2, loadProperties.size() );
+        assertEquals( 10453, loadProperties.get( "int" ) );
+        assertEquals( dt, loadProperties.get( "date" ) );
+    }
+
+    @Test
+    public void testComplexValuesWithoutSerialization() {
+        final Properties properties = new Properties();
+        properties.put( "value", new NotSerializable( "content" ) );
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        properties.store( out );
+
+        final Properties loadProperties = new Properties();
+        loadProperties.load( new ByteArrayInputStream( out.toByteArray() ) );
+
+        assertEquals( "content", ( (NotSerializable) loadProperties.get( "value" ) ).content );
+    }
+
+    @Test
+    public void testSerializedValuesAreNotRead() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream( out );
+        data.write( AttributeCodec.MAGIC );
+        data.writeInt( 1 );
+        data.writeInt( 1 );
+        data.write( 'a' );
+        data.writeByte( 7 );
+        data.writeInt( 4 );
+        data.write( new byte[]{ (byte) 0xAC, (byte) 0xED, 0, 5 } );
+        data.flush();
+
+        try {
+            new Properties().load( new ByteArrayInputStream( out.toByteArray() ) );
+            fail( "java serialization must not be read" );
+        } catch ( final org.uberfire.java.nio.IOException ignored ) {
+        }
+    }
+
+    @Test
+    public void testNegativeLength() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream( out );
+        data.write( AttributeCodec.MAGIC );
+        data.writeInt( 1 );
+        data.writeInt( -1 );
+        data.flush();
+
+        try {
+            new Properties().load( new ByteArrayInputStream( out.toByteArray() ) );
+            fail( "corrupted content must be rejected" );
+        } catch ( final org.uberfire.java.nio.IOException ignored ) {
+        }
+    }
+
+    @Test
+    public void testLengthBeyondInput() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream( out );
+        data.write( AttributeCodec.MAGIC );
+        data.writeInt( 1 );
+        data.writeInt( Integer.MAX_VALUE );
+        data.write( 'a' );
+        data.flush();
+
+        try {
+            new Properties().load( new ByteArrayInputStream( out.toByteArray() ) );
+            fail( "corrupted content must be rejected" );
+        } catch ( final org.uberfire.java.nio.IOException ignored ) {
+        }
+    }
+
+    @Test
+    public void testLongStrings() {
+        final StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 5000; i++ ) {
+            sb.append( "long value " ).append( i ).append( '\n' );
+        }
+        final Properties properties = new Properties();
+        properties.put( "long", sb.toString() );
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        properties.store( out );
+
+        final Properties loadProperties = new Properties();
+        loadProperties.load( new ByteArrayInputStream( out.toByteArray() ) );
+        assertEquals( sb.toString(), loadProperties.get( "long" ) );
+    }
+
+    private static class NotSerializable {
+
+        private String content;
+
+        NotSerializable() {
+        }
+
+        NotSerializable( final String content ) {
+            this.content = content;
+        }
+    }
+
 }
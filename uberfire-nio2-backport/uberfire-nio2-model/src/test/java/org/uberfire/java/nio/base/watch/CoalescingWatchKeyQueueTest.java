@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base.watch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.Watchable;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.uberfire.java.nio.file.StandardWatchEventKind.*;
+
+public class CoalescingWatchKeyQueueTest {
+
+    private final Path root = mock( Path.class );
+    private final Path other = mock( Path.class );
+    private final Path a = mock( Path.class );
+    private final Path b = mock( Path.class );
+    private final Path c = mock( Path.class );
+
+    @Test
+    public void testQueuesWhileThereIsRoom() {
+        final CoalescingWatchKeyQueue queue = new CoalescingWatchKeyQueue( 2 );
+
+        queue.offer( key( root, event( ENTRY_CREATE, a, null ) ) );
+        queue.offer( key( root, event( ENTRY_MODIFY, a, a ) ) );
+
+        assertThat( queue.size() ).isEqualTo( 2 );
+        assertThat( queue.getCoalescedCount() ).isEqualTo( 0 );
+        assertThat( (Object) queue.poll().pollEvents().get( 0 ).kind() ).isEqualTo( ENTRY_CREATE );
+        assertThat( (Object) queue.poll().pollEvents().get( 0 ).kind() ).isEqualTo( ENTRY_MODIFY );
+        assertThat( queue.poll() ).isNull();
+        assertThat( queue.getMaxDepth() ).isEqualTo( 2 );
+    }
+
+    @Test
+    public void testCoalescesWhenFull() {
+        final CoalescingWatchKeyQueue queue = new CoalescingWatchKeyQueue( 2 );
+
+        queue.offer( key( root, event( ENTRY_CREATE, a, null ), event( ENTRY_MODIFY, b, b ) ) );
+        queue.offer( key( other, event( ENTRY_MODIFY, c, c ) ) );
+
+        queue.offer( key( root, event( ENTRY_MODIFY, a, a ), event( ENTRY_MODIFY, b, b ) ) );
+        queue.offer( key( root, event( ENTRY_DELETE, null, b ), event( ENTRY_CREATE, c, null ) ) );
+        queue.offer( key( root, event( ENTRY_DELETE, null, a ) ) );
+
+        assertThat( queue.size() ).isEqualTo( 2 );
+        assertThat( queue.getCoalescedCount() ).isEqualTo( 3 );
+
+        final List<WatchEvent<?>> events = queue.poll().pollEvents();
+        assertThat( events ).hasSize( 2 );
+        assertThat( (Object) events.get( 0 ).kind() ).isEqualTo( ENTRY_DELETE );
+        assertThat( (Object) events.get( 1 ).kind() ).isEqualTo( ENTRY_CREATE );
+        assertThat( ( (WatchContext) events.get( 0 ).context() ).getOldPath() ).isSameAs( b );
+        assertThat( ( (WatchContext) events.get( 1 ).context() ).getPath() ).isSameAs( c );
+
+        assertThat( queue.poll().watchable() ).isSameAs( other );
+    }
+
+    @Test
+    public void testQueuesBeyondCapacityOnlyForNewWatchables() {
+        final CoalescingWatchKeyQueue queue = new CoalescingWatchKeyQueue( 1 );
+
+        queue.offer( key( root, event( ENTRY_MODIFY, a, a ) ) );
+        queue.offer( key( other, event( ENTRY_MODIFY, a, a ) ) );
+        queue.offer( key( root, event( ENTRY_MODIFY, b, b ) ) );
+
+        assertThat( queue.size() ).isEqualTo( 2 );
+        assertThat( queue.poll().pollEvents() ).hasSize( 2 );
+    }
+
+    private WatchKey key( final Watchable watchable,
+                          final WatchEvent<?>... events ) {
+        final WatchKey key = mock( WatchKey.class );
+        final List<WatchEvent<?>> list = new ArrayList<WatchEvent<?>>();
+        for ( final WatchEvent<?> event : events ) {
+            list.add( event );
+        }
+        when( key.watchable() ).thenReturn( watchable );
+        when( key.pollEvents() ).thenReturn( list );
+        return key;
+    }
+
+    private WatchEvent<?> event( final WatchEvent.Kind<?> kind,
+                                 final Path path,
+                                 final Path oldPath ) {
+        final WatchContext context = mock( WatchContext.class );
+        when( context.getPath() ).thenReturn( path );
+        when( context.getOldPath() ).thenReturn( oldPath );
+
+        final WatchEvent event = mock( WatchEvent.class );
+        when( event.kind() ).thenReturn( kind );
+        when( event.context() ).thenReturn( context );
+        return event;
+    }
+}
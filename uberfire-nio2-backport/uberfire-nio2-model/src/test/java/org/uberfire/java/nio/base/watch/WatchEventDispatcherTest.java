@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base.watch;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.uberfire.java.nio.file.WatchKey;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WatchEventDispatcherTest {
+
+    private final WatchEventDispatcher dispatcher = new WatchEventDispatcher( 1 );
+
+    @After
+    public void cleanup() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testOwnExecutorIsNotHeldBySlowSubscribers() throws InterruptedException {
+        final CountDownLatch slowStarted = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        dispatcher.subscribe( watchService(), "slow", new WatchEventDispatcher.WatchKeyHandler() {
+            @Override
+            public boolean handle( final WatchKey key ) {
+                slowStarted.countDown();
+                try {
+                    release.await( 5, TimeUnit.SECONDS );
+                } catch ( final InterruptedException ignored ) {
+                }
+                return true;
+            }
+        } );
+        assertThat( slowStarted.await( 5, TimeUnit.SECONDS ) ).isTrue();
+
+        // the only shared thread is busy, but this one brings its own
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch handled = new CountDownLatch( 1 );
+        final WatchEventDispatcher.Subscription subscription = dispatcher.subscribe( watchService(), "own", new WatchEventDispatcher.WatchKeyHandler() {
+            @Override
+            public boolean handle( final WatchKey key ) {
+                handled.countDown();
+                return true;
+            }
+        }, executor );
+
+        assertThat( handled.await( 5, TimeUnit.SECONDS ) ).isTrue();
+        assertThat( subscription.getDispatchedCount() ).isEqualTo( 1 );
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCancelledIfOwnExecutorIsShutDown() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+
+        final WatchEventDispatcher.Subscription subscription = dispatcher.subscribe( watchService(), "closed", new WatchEventDispatcher.WatchKeyHandler() {
+            @Override
+            public boolean handle( final WatchKey key ) {
+                return true;
+            }
+        }, executor );
+
+        assertThat( subscription.isCancelled() ).isTrue();
+        assertThat( dispatcher.getSubscriptions() ).isEmpty();
+    }
+
+    private ListenableWatchService watchService() {
+        final ListenableWatchService watchService = mock( ListenableWatchService.class );
+        when( watchService.poll() ).thenReturn( mock( WatchKey.class ), (WatchKey) null );
+        return watchService;
+    }
+}
@@ -20,18 +20,17 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.uberfire.security.Resource;
 import org.uberfire.security.ResourceManager;
 import org.uberfire.security.Role;
 import org.uberfire.security.impl.RoleImpl;
-import org.uberfire.security.server.util.AntPathMatcher;
+import org.uberfire.security.server.util.URLPatternMatcher;
 import org.yaml.snakeyaml.Yaml;
 
 import static java.util.Collections.*;
@@ -39,9 +38,16 @@ import static org.uberfire.commons.validation.PortablePreconditions.checkNotNull
 import static org.uberfire.commons.validation.Preconditions.*;
 import static org.uberfire.security.server.SecurityConstants.*;
 
+/**
+ * Resolves URL exclusions and mandatory roles from the YAML configured patterns.
+ * <p/>
+ * Patterns are compiled once into {@link URLPatternMatcher}s, so a URL is checked against all of them in a single
+ * pass; filters are tried in configuration order. Results are kept in bounded LRU caches, by URL.
+ */
 public class URLResourceManager implements ResourceManager {
 
-    private static final AntPathMatcher ANT_PATH_MATCHER = new AntPathMatcher();
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
     private static final Collection<Class<? extends Resource>> SUPPORTED_TYPES = new ArrayList<Class<? extends Resource>>( 1 ) {{
         add( URLResource.class );
     }};
@@ -54,13 +60,30 @@ public class URLResourceManager implements ResourceManager {
     private String configFile = URL_FILTER_CONFIG_YAML;
 
     private final Resources resources;
-    private final Set<String> excludeCache = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+    private final Map<String, Boolean> excludeCache;
+    private final Map<String, List<Role>> rolesCache;
 
     public URLResourceManager( final String configFile ) {
+        this( configFile, DEFAULT_CACHE_SIZE );
+    }
+
+    public URLResourceManager( final String configFile,
+                               final int cacheSize ) {
         if ( configFile != null && !configFile.isEmpty() ) {
             this.configFile = configFile;
         }
         this.resources = loadConfigData();
+        this.excludeCache = newLRUCache( cacheSize );
+        this.rolesCache = newLRUCache( cacheSize );
+    }
+
+    private static <V> Map<String, V> newLRUCache( final int maxSize ) {
+        return Collections.synchronizedMap( new LinkedHashMap<String, V>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( final Map.Entry<String, V> eldest ) {
+                return size() > maxSize;
+            }
+        } );
     }
 
     private Resources loadConfigData() {
@@ -92,32 +115,27 @@ public class URLResourceManager implements ResourceManager {
             return false;
         }
 
-        if ( !excludeCache.contains( urlResource.getURL() ) ) {
-            boolean isExcluded = false;
-            for ( String excluded : resources.getExcludedResources() ) {
-                if ( ANT_PATH_MATCHER.match( excluded, urlResource.getURL() ) ) {
-                    isExcluded = true;
-                    excludeCache.add( urlResource.getURL() );
-                    break;
-                }
-            }
-            if ( isExcluded ) {
-                return false;
-            }
-        } else {
-            return false;
+        final String url = urlResource.getURL();
+        Boolean excluded = excludeCache.get( url );
+        if ( excluded == null ) {
+            excluded = resources.getExcludeMatcher().match( url ) != null;
+            excludeCache.put( url, excluded );
         }
 
-        return true;
+        return !excluded;
     }
 
     public List<Role> getMandatoryRoles( final URLResource urlResource ) {
-        for ( Map.Entry<String, List<Role>> activeFilteredResource : resources.getMandatoryFilteredResources().entrySet() ) {
-            if ( ANT_PATH_MATCHER.match( activeFilteredResource.getKey(), urlResource.getURL() ) ) {
-                return activeFilteredResource.getValue();
+        final String url = urlResource.getURL();
+        List<Role> roles = rolesCache.get( url );
+        if ( roles == null ) {
+            roles = resources.getMandatoryRolesMatcher().match( url );
+            if ( roles == null ) {
+                roles = emptyList();
             }
+            rolesCache.put( url, roles );
         }
-        return emptyList();
+        return roles;
     }
 
     private static class Resources {
@@ -125,6 +143,8 @@ public class URLResourceManager implements ResourceManager {
         private final Map<String, List<Role>> filteredResources;
         private final Map<String, List<Role>> mandatoryFilteredResources;
         private final Set<String> excludedResources;
+        private final URLPatternMatcher<Boolean> excludeMatcher = new URLPatternMatcher<Boolean>();
+        private final URLPatternMatcher<List<Role>> mandatoryRolesMatcher = new URLPatternMatcher<List<Role>>();
 
         private Resources( final Map yaml ) {
             checkNotNull( "yaml", yaml );
@@ -133,8 +153,8 @@ public class URLResourceManager implements ResourceManager {
             if ( ofilter != null ) {
                 final List<Map<String, String>> filter = checkInstanceOf( "ofilter", ofilter, List.class );
 
-                this.filteredResources = new HashMap<String, List<Role>>( filter.size() );
-                this.mandatoryFilteredResources = new HashMap<String, List<Role>>( filter.size() );
+                this.filteredResources = new LinkedHashMap<String, List<Role>>( filter.size() );
+                this.mandatoryFilteredResources = new LinkedHashMap<String, List<Role>>( filter.size() );
                 for ( final Map<String, String> activeFilter : filter ) {
                     final String pattern = activeFilter.get( "pattern" );
                     final String access = activeFilter.get( "access" );
@@ -161,6 +181,13 @@ public class URLResourceManager implements ResourceManager {
             final List exclude = checkInstanceOf( "exclude", oexclude, List.class );
 
             this.excludedResources = new HashSet<String>( exclude );
+
+            for ( final String excluded : excludedResources ) {
+                excludeMatcher.add( excluded, Boolean.TRUE );
+            }
+            for ( final Map.Entry<String, List<Role>> mandatoryFilter : mandatoryFilteredResources.entrySet() ) {
+                mandatoryRolesMatcher.add( mandatoryFilter.getKey(), mandatoryFilter.getValue() );
+            }
         }
 
         public Map<String, List<Role>> getFilteredResources() {
@@ -174,5 +201,13 @@ public class URLResourceManager implements ResourceManager {
         public Map<String, List<Role>> getMandatoryFilteredResources() {
             return mandatoryFilteredResources;
         }
+
+        public URLPatternMatcher<Boolean> getExcludeMatcher() {
+            return excludeMatcher;
+        }
+
+        public URLPatternMatcher<List<Role>> getMandatoryRolesMatcher() {
+            return mandatoryRolesMatcher;
+        }
     }
 }
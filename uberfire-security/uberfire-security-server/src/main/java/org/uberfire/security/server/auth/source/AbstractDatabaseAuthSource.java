@@ -21,8 +21,11 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,17 +40,39 @@ import org.uberfire.security.impl.auth.UsernamePasswordCredential;
 
 import static org.uberfire.commons.validation.Preconditions.*;
 
+/**
+ * Authenticates users and loads their roles with two queries.
+ * <p/>
+ * Successful verifications and role sets are kept in an {@link AuthenticationCache} (options <code>cacheSize</code>
+ * and <code>cacheTTL</code>, in milliseconds; 0 disables it). Connections are reused along with their prepared
+ * statements when <code>connectionPoolSize</code> is greater than 0, the default of sources that don't get their
+ * connections from a container managed pool; an idle connection is checked with {@link Connection#isValid(int)}
+ * before it's reused, so connections dropped by the database (or a firewall) are replaced instead of failing the
+ * next query.
+ */
 public abstract class AbstractDatabaseAuthSource implements AuthenticationSource,
                                                             RoleProvider {
 
     private static final Logger LOG = LoggerFactory.getLogger( AbstractDatabaseAuthSource.class );
 
+    // seconds
+    private static final int VALIDATION_TIMEOUT = 2;
+
     private boolean alreadyInit = false;
     private String userQuery;
     private String rolesQuery;
+    private AuthenticationCache cache = new AuthenticationCache( 0, 0 );
+    private BlockingQueue<PooledConnection> idleConnections = null;
 
     public abstract Connection getConnection();
 
+    /**
+     * Number of idle connections kept for reuse when the <code>connectionPoolSize</code> option is not set.
+     */
+    protected int getDefaultConnectionPoolSize() {
+        return 0;
+    }
+
     public synchronized void initialize( final Map<String, ?> options ) {
         if ( !alreadyInit ) {
             userQuery = "select 1 from " + options.get( "userTable" ) + " where " + options.get( "userField" ) + "=? and " + options.get( "passwordField" ) + "=?";
@@ -66,10 +91,25 @@ public abstract class AbstractDatabaseAuthSource implements AuthenticationSource
 
             LOG.debug( "rolesQuery = " + rolesQuery );
 
+            cache = new AuthenticationCache( (int) longOption( options, "cacheSize", AuthenticationCache.DEFAULT_MAX_SIZE ),
+                                             longOption( options, "cacheTTL", AuthenticationCache.DEFAULT_TTL ) );
+
+            final int poolSize = (int) longOption( options, "connectionPoolSize", getDefaultConnectionPoolSize() );
+            if ( poolSize > 0 ) {
+                idleConnections = new ArrayBlockingQueue<PooledConnection>( poolSize );
+            }
+
             alreadyInit = true;
         }
     }
 
+    /**
+     * Cache of verified credentials and roles, to invalidate users after a change or to read hit rates.
+     */
+    public AuthenticationCache getCache() {
+        return cache;
+    }
+
     @Override
     public boolean supportsCredential( final Credential credential ) {
         if ( credential == null ) {
@@ -82,65 +122,171 @@ public abstract class AbstractDatabaseAuthSource implements AuthenticationSource
     public boolean authenticate( final Credential credential, final SecurityContext securityContext ) {
         final UsernamePasswordCredential usernamePasswd = checkInstanceOf( "credential", credential, UsernamePasswordCredential.class );
 
-        Connection connection = null;
+        if ( cache.isAuthenticated( usernamePasswd.getUserName(), usernamePasswd.getPassword() ) ) {
+            return true;
+        }
 
+        final PooledConnection connection = acquire();
+        boolean reusable = false;
         try {
-            connection = getConnection();
-            final PreparedStatement statement = connection.prepareStatement( userQuery );
+            final PreparedStatement statement = connection.prepare( userQuery );
             statement.setString( 1, usernamePasswd.getUserName() );
             statement.setObject( 2, usernamePasswd.getPassword() );
             final ResultSet queryResult = statement.executeQuery();
             final boolean result;
-            if ( queryResult.next() ) {
-                result = true;
-            } else {
-                result = false;
+            try {
+                result = queryResult.next();
+            } finally {
+                queryResult.close();
             }
-            queryResult.close();
-            statement.close();
+            reusable = true;
 
+            if ( result ) {
+                cache.authenticated( usernamePasswd.getUserName(), usernamePasswd.getPassword() );
+            }
             return result;
         } catch ( Exception ex ) {
             throw new IllegalStateException( ex );
         } finally {
-            if ( connection != null ) {
-                try {
-                    connection.close();
-                } catch ( SQLException e ) {
-                    throw new IllegalStateException( e );
-                }
-            }
+            release( connection, reusable );
         }
     }
 
     @Override
     public List<Role> loadRoles( final Principal principal ) {
-        Connection connection = null;
+        final List<Role> cachedRoles = cache.getRoles( principal.getName() );
+        if ( cachedRoles != null ) {
+            return cachedRoles;
+        }
+
+        final PooledConnection connection = acquire();
+        boolean reusable = false;
         try {
-            connection = getConnection();
-            final PreparedStatement statement = connection.prepareStatement( rolesQuery );
+            final PreparedStatement statement = connection.prepare( rolesQuery );
             statement.setString( 1, principal.getName() );
             final ResultSet queryResult = statement.executeQuery();
             final List<Role> roles = new ArrayList<Role>();
-            while ( queryResult.next() ) {
-                final String roleName = queryResult.getString( 1 );
-                roles.add( new RoleImpl( roleName ) );
+            try {
+                while ( queryResult.next() ) {
+                    final String roleName = queryResult.getString( 1 );
+                    roles.add( new RoleImpl( roleName ) );
+                }
+            } finally {
+                queryResult.close();
             }
+            reusable = true;
 
-            queryResult.close();
-            statement.close();
-
+            cache.putRoles( principal.getName(), roles );
             return roles;
         } catch ( Exception ex ) {
             throw new IllegalStateException( ex );
         } finally {
-            if ( connection != null ) {
+            release( connection, reusable );
+        }
+    }
+
+    private PooledConnection acquire() {
+        if ( idleConnections != null ) {
+            PooledConnection connection;
+            while ( ( connection = idleConnections.poll() ) != null ) {
+                if ( connection.isValid() ) {
+                    return connection;
+                }
+                connection.discard();
+            }
+        }
+        return new PooledConnection( getConnection() );
+    }
+
+    /**
+     * Returns the connection to the pool; it's closed if the pool is full or disabled, or if it failed.
+     */
+    private void release( final PooledConnection connection,
+                          final boolean reusable ) {
+        if ( reusable && idleConnections != null && idleConnections.offer( connection ) ) {
+            return;
+        }
+        connection.close();
+    }
+
+    private static long longOption( final Map<String, ?> options,
+                                    final String key,
+                                    final long defaultValue ) {
+        final Object value = options.get( key );
+        if ( value == null ) {
+            return defaultValue;
+        }
+        if ( value instanceof Number ) {
+            return ( (Number) value ).longValue();
+        }
+        try {
+            return Long.parseLong( value.toString().trim() );
+        } catch ( final NumberFormatException e ) {
+            LOG.warn( "Invalid value '" + value + "' for option " + key + ", using " + defaultValue );
+            return defaultValue;
+        }
+    }
+
+    /**
+     * A connection with the statements prepared on it.
+     */
+    private static class PooledConnection {
+
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+
+        PooledConnection( final Connection connection ) {
+            this.connection = connection;
+        }
+
+        PreparedStatement prepare( final String query ) throws SQLException {
+            PreparedStatement statement = statements.get( query );
+            if ( statement == null ) {
+                statement = connection.prepareStatement( query );
+                statements.put( query, statement );
+            }
+            return statement;
+        }
+
+        boolean isValid() {
+            try {
+                return connection.isValid( VALIDATION_TIMEOUT );
+            } catch ( final SQLException e ) {
+                return false;
+            } catch ( final AbstractMethodError e ) {
+                // pre JDBC 4 driver
+                try {
+                    return !connection.isClosed();
+                } catch ( final SQLException ex ) {
+                    return false;
+                }
+            }
+        }
+
+        void close() {
+            for ( final PreparedStatement statement : statements.values() ) {
                 try {
-                    connection.close();
-                } catch ( SQLException e ) {
-                    throw new IllegalStateException( e );
+                    statement.close();
+                } catch ( final SQLException ignored ) {
                 }
             }
+            statements.clear();
+            try {
+                connection.close();
+            } catch ( SQLException e ) {
+                throw new IllegalStateException( e );
+            }
+        }
+
+        /**
+         * Closes a connection that's gone bad, ignoring the errors it raises.
+         */
+        void discard() {
+            try {
+                close();
+            } catch ( final IllegalStateException e ) {
+                LOG.debug( "Error closing invalid connection", e );
+            }
         }
     }
 
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.security.server.auth.source;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.uberfire.security.Role;
+
+/**
+ * Bounded, time limited cache of successful credential verifications and of role sets, by user name.
+ * <p/>
+ * Passwords are never kept: a verification is stored as a SHA-256 hash of the password with a random per-entry
+ * salt, and a later password matches only if it hashes to the same value. Failed verifications are not cached.
+ * Entries expire after the TTL, the least recently used ones are evicted when the cache is full.
+ */
+public class AuthenticationCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+    public static final long DEFAULT_TTL = 60000;
+
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+    private final int maxSize;
+    private final long ttl;
+    private final SecureRandom random = new SecureRandom();
+
+    private final Map<String, CredentialEntry> credentials;
+    private final Map<String, RolesEntry> roles;
+
+    private final AtomicLong credentialHits = new AtomicLong();
+    private final AtomicLong credentialMisses = new AtomicLong();
+    private final AtomicLong roleHits = new AtomicLong();
+    private final AtomicLong roleMisses = new AtomicLong();
+
+    /**
+     * @param maxSize max number of users kept, 0 disables the cache.
+     * @param ttl milliseconds an entry is valid, 0 disables the cache.
+     */
+    public AuthenticationCache( final int maxSize,
+                                final long ttl ) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.credentials = newLRUMap( maxSize );
+        this.roles = newLRUMap( maxSize );
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0 && ttl > 0;
+    }
+
+    /**
+     * @return true if the user was verified with the same password and the entry didn't expire.
+     */
+    public boolean isAuthenticated( final String userName,
+                                    final Object password ) {
+        if ( !isEnabled() ) {
+            return false;
+        }
+        final CredentialEntry entry;
+        synchronized ( credentials ) {
+            entry = credentials.get( userName );
+        }
+        if ( entry != null && !entry.isExpired() && MessageDigest.isEqual( entry.hash, hash( entry.salt, password ) ) ) {
+            credentialHits.incrementAndGet();
+            return true;
+        }
+        credentialMisses.incrementAndGet();
+        return false;
+    }
+
+    public void authenticated( final String userName,
+                               final Object password ) {
+        if ( !isEnabled() ) {
+            return;
+        }
+        final byte[] salt = new byte[ 16 ];
+        random.nextBytes( salt );
+        final CredentialEntry entry = new CredentialEntry( salt, hash( salt, password ), System.currentTimeMillis() + ttl );
+        synchronized ( credentials ) {
+            credentials.put( userName, entry );
+        }
+    }
+
+    /**
+     * @return cached roles of the user, or null if not cached or expired.
+     */
+    public List<Role> getRoles( final String userName ) {
+        if ( !isEnabled() ) {
+            return null;
+        }
+        final RolesEntry entry;
+        synchronized ( roles ) {
+            entry = roles.get( userName );
+        }
+        if ( entry != null && !entry.isExpired() ) {
+            roleHits.incrementAndGet();
+            return new ArrayList<Role>( entry.roles );
+        }
+        roleMisses.incrementAndGet();
+        return null;
+    }
+
+    public void putRoles( final String userName,
+                          final List<Role> userRoles ) {
+        if ( !isEnabled() ) {
+            return;
+        }
+        final RolesEntry entry = new RolesEntry( Collections.unmodifiableList( new ArrayList<Role>( userRoles ) ), System.currentTimeMillis() + ttl );
+        synchronized ( roles ) {
+            roles.put( userName, entry );
+        }
+    }
+
+    /**
+     * Drops the cached credential and roles of the user, ex. after a password or role change.
+     */
+    public void invalidate( final String userName ) {
+        synchronized ( credentials ) {
+            credentials.remove( userName );
+        }
+        synchronized ( roles ) {
+            roles.remove( userName );
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized ( credentials ) {
+            credentials.clear();
+        }
+        synchronized ( roles ) {
+            roles.clear();
+        }
+    }
+
+    public long getCredentialHits() {
+        return credentialHits.get();
+    }
+
+    public long getCredentialMisses() {
+        return credentialMisses.get();
+    }
+
+    public long getRoleHits() {
+        return roleHits.get();
+    }
+
+    public long getRoleMisses() {
+        return roleMisses.get();
+    }
+
+    public double getCredentialHitRate() {
+        return hitRate( credentialHits.get(), credentialMisses.get() );
+    }
+
+    public double getRoleHitRate() {
+        return hitRate( roleHits.get(), roleMisses.get() );
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticationCache{" +
+                "credentialHits=" + credentialHits +
+                ", credentialMisses=" + credentialMisses +
+                ", roleHits=" + roleHits +
+                ", roleMisses=" + roleMisses +
+                '}';
+    }
+
+    private static double hitRate( final long hits,
+                                   final long misses ) {
+        final long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private static byte[] hash( final byte[] salt,
+                                final Object password ) {
+        final String value;
+        if ( password == null ) {
+            value = "";
+        } else if ( password instanceof char[] ) {
+            value = new String( (char[]) password );
+        } else {
+            value = password.toString();
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance( "SHA-256" );
+            digest.update( salt );
+            return digest.digest( value.getBytes( UTF_8 ) );
+        } catch ( final NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static <V> Map<String, V> newLRUMap( final int maxSize ) {
+        return new LinkedHashMap<String, V>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( final Map.Entry<String, V> eldest ) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    private static class CredentialEntry {
+
+        private final byte[] salt;
+        private final byte[] hash;
+        private final long expires;
+
+        CredentialEntry( final byte[] salt,
+                         final byte[] hash,
+                         final long expires ) {
+            this.salt = salt;
+            this.hash = hash;
+            this.expires = expires;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expires;
+        }
+    }
+
+    private static class RolesEntry {
+
+        private final List<Role> roles;
+        private final long expires;
+
+        RolesEntry( final List<Role> roles,
+                    final long expires ) {
+            this.roles = roles;
+            this.expires = expires;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expires;
+        }
+    }
+}
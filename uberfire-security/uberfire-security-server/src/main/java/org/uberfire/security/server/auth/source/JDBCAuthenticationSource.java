@@ -36,6 +36,8 @@ public class JDBCAuthenticationSource extends AbstractDatabaseAuthSource impleme
 
     public void initialize(final Map<String, ?> options) {
         try {
+            super.initialize(options);
+
             dbDriver = (String) options.get("dbDriver");
             dbUrl = (String) options.get("dbUrl");
             dbUserName = (String) options.get("dbUserName");
@@ -57,6 +59,14 @@ public class JDBCAuthenticationSource extends AbstractDatabaseAuthSource impleme
         }
     }
 
+    /**
+     * Connections come straight from the driver, keep a few of them to avoid a new connection per request.
+     */
+    @Override
+    protected int getDefaultConnectionPoolSize() {
+        return 4;
+    }
+
     public Connection getConnection() {
         if (!((dbDriver != null) && (dbUrl != null))) {
             throw new IllegalStateException("Database connection information not configured");
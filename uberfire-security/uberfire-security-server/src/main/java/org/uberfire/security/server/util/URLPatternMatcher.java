@@ -0,0 +1,261 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.security.server.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.uberfire.commons.validation.PortablePreconditions.*;
+
+/**
+ * Set of Ant-style path patterns compiled into a trie of path segments, matched against a path in a single pass.
+ * <p/>
+ * Literal segments are looked up by hash, segments with <code>*</code> or <code>?</code> are matched one by one,
+ * <code>**</code> matches zero or more segments; the result is the same as {@link AntPathMatcher#match(String, String)}
+ * on each pattern. Every pattern has a value and {@link #match(String)} returns the value of the first pattern
+ * added that matches. Instances are thread safe once built.
+ */
+public class URLPatternMatcher<T> {
+
+    private static final String SEPARATOR = AntPathMatcher.DEFAULT_PATH_SEPARATOR;
+    private static final String DOUBLE_STAR = "**";
+    private static final String STAR = "*";
+
+    private final Node<T> absoluteRoot = new Node<T>();
+    private final Node<T> relativeRoot = new Node<T>();
+    private int size = 0;
+
+    public URLPatternMatcher<T> add( final String pattern,
+                                     final T value ) {
+        checkNotNull( "pattern", pattern );
+        checkNotNull( "value", value );
+
+        final String[] segments = AntPathMatcher.tokenizeToStringArray( pattern, SEPARATOR );
+        Node<T> node = pattern.startsWith( SEPARATOR ) ? absoluteRoot : relativeRoot;
+        boolean hasDoubleStar = false;
+        for ( final String segment : segments ) {
+            if ( DOUBLE_STAR.equals( segment ) ) {
+                hasDoubleStar = true;
+                if ( !node.isDoubleStar ) {
+                    node = node.doubleStarChild();
+                }
+            } else {
+                node = node.child( segment );
+            }
+        }
+        final boolean endsWithStar = segments.length > 0 && STAR.equals( segments[ segments.length - 1 ] );
+        node.terminals.add( new Terminal<T>( size++, value, pattern.endsWith( SEPARATOR ), hasDoubleStar, endsWithStar ) );
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return value of the first added pattern that matches the path, null if none does.
+     */
+    public T match( final String path ) {
+        final boolean trailingSeparator = path.endsWith( SEPARATOR );
+        final String[] segments = AntPathMatcher.tokenizeToStringArray( path, SEPARATOR );
+
+        List<Node<T>> current = new ArrayList<Node<T>>( 4 );
+        addWithClosure( current, path.startsWith( SEPARATOR ) ? absoluteRoot : relativeRoot );
+
+        for ( final String segment : segments ) {
+            final List<Node<T>> next = new ArrayList<Node<T>>( 4 );
+            for ( final Node<T> node : current ) {
+                if ( node.isDoubleStar ) {
+                    addWithClosure( next, node );
+                }
+                if ( node.literals != null ) {
+                    final Node<T> literal = node.literals.get( segment );
+                    if ( literal != null ) {
+                        addWithClosure( next, literal );
+                    }
+                }
+                if ( node.wildcards != null ) {
+                    for ( final Map.Entry<String, Node<T>> wildcard : node.wildcards.entrySet() ) {
+                        if ( matchSegment( wildcard.getKey(), segment ) ) {
+                            addWithClosure( next, wildcard.getValue() );
+                        }
+                    }
+                }
+            }
+            if ( next.isEmpty() ) {
+                return null;
+            }
+            current = next;
+        }
+
+        Terminal<T> result = null;
+        for ( final Node<T> node : current ) {
+            for ( final Terminal<T> terminal : node.terminals ) {
+                if ( terminal.hasDoubleStar || terminal.trailingSeparator == trailingSeparator ) {
+                    result = first( result, terminal );
+                }
+            }
+            // a trailing "*" also matches the empty segment after a trailing separator
+            if ( trailingSeparator && node.wildcards != null ) {
+                final Node<T> star = node.wildcards.get( STAR );
+                if ( star != null ) {
+                    for ( final Terminal<T> terminal : star.terminals ) {
+                        if ( terminal.endsWithStar && !terminal.hasDoubleStar ) {
+                            result = first( result, terminal );
+                        }
+                    }
+                }
+            }
+        }
+        return result == null ? null : result.value;
+    }
+
+    private static <T> Terminal<T> first( final Terminal<T> current,
+                                          final Terminal<T> candidate ) {
+        if ( current == null || candidate.order < current.order ) {
+            return candidate;
+        }
+        return current;
+    }
+
+    /**
+     * Adds the node and, as <code>**</code> also matches no segment at all, the <code>**</code> node following it.
+     */
+    private static <T> void addWithClosure( final List<Node<T>> nodes,
+                                            final Node<T> node ) {
+        if ( !containsNode( nodes, node ) ) {
+            nodes.add( node );
+        }
+        if ( node.doubleStar != null && !containsNode( nodes, node.doubleStar ) ) {
+            nodes.add( node.doubleStar );
+        }
+    }
+
+    private static <T> boolean containsNode( final List<Node<T>> nodes,
+                                             final Node<T> node ) {
+        for ( int i = 0; i < nodes.size(); i++ ) {
+            if ( nodes.get( i ) == node ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Glob match of a single segment: <code>*</code> is zero or more characters, <code>?</code> exactly one.
+     */
+    static boolean matchSegment( final String pattern,
+                                 final String str ) {
+        int p = 0;
+        int s = 0;
+        int starP = -1;
+        int starS = -1;
+        while ( s < str.length() ) {
+            if ( p < pattern.length() && ( pattern.charAt( p ) == '?' || pattern.charAt( p ) == str.charAt( s ) ) ) {
+                p++;
+                s++;
+            } else if ( p < pattern.length() && pattern.charAt( p ) == '*' ) {
+                starP = p++;
+                starS = s;
+            } else if ( starP != -1 ) {
+                p = starP + 1;
+                s = ++starS;
+            } else {
+                return false;
+            }
+        }
+        while ( p < pattern.length() && pattern.charAt( p ) == '*' ) {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
+    private static boolean isPattern( final String segment ) {
+        return segment.indexOf( '*' ) != -1 || segment.indexOf( '?' ) != -1;
+    }
+
+    private static class Node<T> {
+
+        private final boolean isDoubleStar;
+        private Map<String, Node<T>> literals = null;
+        private Map<String, Node<T>> wildcards = null;
+        private Node<T> doubleStar = null;
+        private final List<Terminal<T>> terminals = new ArrayList<Terminal<T>>( 1 );
+
+        Node() {
+            this( false );
+        }
+
+        Node( final boolean isDoubleStar ) {
+            this.isDoubleStar = isDoubleStar;
+        }
+
+        Node<T> child( final String segment ) {
+            if ( isPattern( segment ) ) {
+                if ( wildcards == null ) {
+                    wildcards = new HashMap<String, Node<T>>();
+                }
+                return childOf( wildcards, segment );
+            }
+            if ( literals == null ) {
+                literals = new HashMap<String, Node<T>>();
+            }
+            return childOf( literals, segment );
+        }
+
+        Node<T> doubleStarChild() {
+            if ( doubleStar == null ) {
+                doubleStar = new Node<T>( true );
+            }
+            return doubleStar;
+        }
+
+        private Node<T> childOf( final Map<String, Node<T>> children,
+                                 final String segment ) {
+            Node<T> child = children.get( segment );
+            if ( child == null ) {
+                child = new Node<T>();
+                children.put( segment, child );
+            }
+            return child;
+        }
+    }
+
+    private static class Terminal<T> {
+
+        private final int order;
+        private final T value;
+        private final boolean trailingSeparator;
+        private final boolean hasDoubleStar;
+        private final boolean endsWithStar;
+
+        Terminal( final int order,
+                  final T value,
+                  final boolean trailingSeparator,
+                  final boolean hasDoubleStar,
+                  final boolean endsWithStar ) {
+            this.order = order;
+            this.value = value;
+            this.trailingSeparator = trailingSeparator;
+            this.hasDoubleStar = hasDoubleStar;
+            this.endsWithStar = endsWithStar;
+        }
+    }
+}
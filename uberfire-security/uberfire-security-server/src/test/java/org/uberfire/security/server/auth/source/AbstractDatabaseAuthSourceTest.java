@@ -0,0 +1,82 @@
+package org.uberfire.security.server.auth.source;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.security.impl.auth.UsernamePasswordCredential;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class AbstractDatabaseAuthSourceTest {
+
+    private final Queue<Connection> connections = new LinkedList<Connection>();
+    private AbstractDatabaseAuthSource source;
+
+    @Before
+    public void setup() {
+        source = new AbstractDatabaseAuthSource() {
+            @Override
+            public Connection getConnection() {
+                return connections.remove();
+            }
+        };
+        final Map<String, Object> options = new HashMap<String, Object>();
+        options.put( "userQuery", "select 1 from users where name=? and password=?" );
+        options.put( "rolesQuery", "select role from roles where name=?" );
+        options.put( "cacheSize", 0 );
+        options.put( "connectionPoolSize", 1 );
+        source.initialize( options );
+    }
+
+    @Test
+    public void testReuseValidConnection() throws SQLException {
+        final Connection connection = connection();
+        connections.add( connection );
+
+        assertTrue( source.authenticate( new UsernamePasswordCredential( "admin", "secret" ), null ) );
+        assertTrue( source.authenticate( new UsernamePasswordCredential( "admin", "secret" ), null ) );
+
+        verify( connection, times( 1 ) ).prepareStatement( anyString() );
+        verify( connection, never() ).close();
+    }
+
+    @Test
+    public void testReplaceInvalidConnection() throws SQLException {
+        final Connection stale = connection();
+        final Connection fresh = connection();
+        connections.add( stale );
+        connections.add( fresh );
+
+        assertTrue( source.authenticate( new UsernamePasswordCredential( "admin", "secret" ), null ) );
+
+        // still open, but the database dropped it meanwhile
+        when( stale.isValid( anyInt() ) ).thenReturn( false );
+        doThrow( new SQLException( "connection reset" ) ).when( stale ).close();
+
+        assertTrue( source.authenticate( new UsernamePasswordCredential( "admin", "secret" ), null ) );
+
+        verify( stale ).close();
+        verify( fresh ).prepareStatement( anyString() );
+        assertTrue( connections.isEmpty() );
+    }
+
+    private Connection connection() throws SQLException {
+        final ResultSet resultSet = mock( ResultSet.class );
+        when( resultSet.next() ).thenReturn( true );
+        final PreparedStatement statement = mock( PreparedStatement.class );
+        when( statement.executeQuery() ).thenReturn( resultSet );
+        final Connection connection = mock( Connection.class );
+        when( connection.prepareStatement( anyString() ) ).thenReturn( statement );
+        when( connection.isValid( anyInt() ) ).thenReturn( true );
+        return connection;
+    }
+}
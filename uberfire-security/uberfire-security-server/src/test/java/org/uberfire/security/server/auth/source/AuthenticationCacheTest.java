@@ -0,0 +1,72 @@
+package org.uberfire.security.server.auth.source;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.uberfire.security.Role;
+import org.uberfire.security.impl.RoleImpl;
+
+import static org.junit.Assert.*;
+
+public class AuthenticationCacheTest {
+
+    @Test
+    public void testCredentials() {
+        final AuthenticationCache cache = new AuthenticationCache( 10, 60000 );
+        assertFalse( cache.isAuthenticated( "admin", "secret" ) );
+
+        cache.authenticated( "admin", "secret" );
+        assertTrue( cache.isAuthenticated( "admin", "secret" ) );
+        assertTrue( cache.isAuthenticated( "admin", "secret".toCharArray() ) );
+        assertFalse( cache.isAuthenticated( "admin", "other" ) );
+        assertFalse( cache.isAuthenticated( "guest", "secret" ) );
+
+        assertEquals( 2, cache.getCredentialHits() );
+        assertEquals( 3, cache.getCredentialMisses() );
+        assertEquals( 0.4, cache.getCredentialHitRate(), 0.001 );
+
+        cache.invalidate( "admin" );
+        assertFalse( cache.isAuthenticated( "admin", "secret" ) );
+    }
+
+    @Test
+    public void testRoles() {
+        final AuthenticationCache cache = new AuthenticationCache( 10, 60000 );
+        assertNull( cache.getRoles( "admin" ) );
+
+        final List<Role> roles = new ArrayList<Role>();
+        roles.add( new RoleImpl( "admin" ) );
+        cache.putRoles( "admin", roles );
+        roles.add( new RoleImpl( "changed" ) );
+
+        assertEquals( 1, cache.getRoles( "admin" ).size() );
+        assertEquals( 0.5, cache.getRoleHitRate(), 0.001 );
+
+        cache.invalidateAll();
+        assertNull( cache.getRoles( "admin" ) );
+    }
+
+    @Test
+    public void testBoundsAndExpiry() throws Exception {
+        final AuthenticationCache cache = new AuthenticationCache( 2, 60000 );
+        cache.authenticated( "user1", "p1" );
+        cache.authenticated( "user2", "p2" );
+        assertTrue( cache.isAuthenticated( "user1", "p1" ) );
+        cache.authenticated( "user3", "p3" );
+
+        // user2 is the least recently used
+        assertTrue( cache.isAuthenticated( "user1", "p1" ) );
+        assertFalse( cache.isAuthenticated( "user2", "p2" ) );
+        assertTrue( cache.isAuthenticated( "user3", "p3" ) );
+
+        final AuthenticationCache shortLived = new AuthenticationCache( 10, 1 );
+        shortLived.authenticated( "user", "p" );
+        Thread.sleep( 10 );
+        assertFalse( shortLived.isAuthenticated( "user", "p" ) );
+
+        final AuthenticationCache disabled = new AuthenticationCache( 0, 60000 );
+        disabled.authenticated( "user", "p" );
+        assertFalse( disabled.isAuthenticated( "user", "p" ) );
+    }
+}
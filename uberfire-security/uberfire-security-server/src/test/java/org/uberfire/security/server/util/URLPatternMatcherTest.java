@@ -0,0 +1,140 @@
+package org.uberfire.security.server.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.Assert.*;
+
+public class URLPatternMatcherTest {
+
+    private static final Logger logger = LoggerFactory.getLogger( URLPatternMatcherTest.class );
+
+    private static final String[] SEGMENTS = { "a", "b", "css", "image", "*", "?", "**", "*.ico", "a*", "*.html", "b?c" };
+    private static final String[] PATH_SEGMENTS = { "a", "b", "css", "image", "x.ico", "abc", "bxc", "index.html", "a.b" };
+
+    @Test
+    public void testFirstPatternWins() {
+        final URLPatternMatcher<String> matcher = new URLPatternMatcher<String>()
+                .add( "/admin/**", "admin" )
+                .add( "/**/*.html", "html" )
+                .add( "/*.ico", "icon" );
+
+        assertEquals( "admin", matcher.match( "/admin/index.html" ) );
+        assertEquals( "admin", matcher.match( "/admin" ) );
+        assertEquals( "html", matcher.match( "/user/index.html" ) );
+        assertEquals( "html", matcher.match( "/index.html" ) );
+        assertEquals( "icon", matcher.match( "/favicon.ico" ) );
+        assertNull( matcher.match( "/image/favicon.ico" ) );
+        assertNull( matcher.match( "favicon.ico" ) );
+    }
+
+    @Test
+    public void testSameResultAsAntPathMatcher() {
+        final AntPathMatcher antPathMatcher = new AntPathMatcher();
+        final Random random = new Random( 42 );
+        for ( int i = 0; i < 2000; i++ ) {
+            final String pattern = randomPath( random, SEGMENTS );
+            final URLPatternMatcher<String> matcher = new URLPatternMatcher<String>().add( pattern, pattern );
+            for ( int j = 0; j < 50; j++ ) {
+                final String path = randomPath( random, PATH_SEGMENTS );
+                assertEquals( pattern + " on " + path, antPathMatcher.match( pattern, path ), matcher.match( path ) != null );
+            }
+        }
+    }
+
+    @Test
+    public void testSegmentMatch() {
+        assertTrue( URLPatternMatcher.matchSegment( "*", "" ) );
+        assertTrue( URLPatternMatcher.matchSegment( "*.ico", "favicon.ico" ) );
+        assertTrue( URLPatternMatcher.matchSegment( "a*b*c", "aXbYbc" ) );
+        assertTrue( URLPatternMatcher.matchSegment( "?b?", "abc" ) );
+        assertFalse( URLPatternMatcher.matchSegment( "?b?", "abcd" ) );
+        assertFalse( URLPatternMatcher.matchSegment( "*.ico", "favicon.png" ) );
+    }
+
+    /**
+     * Single pass matching vs. one {@link AntPathMatcher} call per pattern, on a filter set of hundreds of patterns.
+     * <p/>
+     * Run with <code>-Dorg.uberfire.security.benchmark=true</code>.
+     */
+    @Test
+    public void testBenchmark() {
+        Assume.assumeTrue( Boolean.getBoolean( "org.uberfire.security.benchmark" ) );
+
+        final List<String> patterns = new ArrayList<String>();
+        for ( int i = 0; i < 300; i++ ) {
+            switch ( i % 3 ) {
+                case 0:
+                    patterns.add( "/module" + i + "/**" );
+                    break;
+                case 1:
+                    patterns.add( "/module" + i + "/*/rest/*.json" );
+                    break;
+                default:
+                    patterns.add( "/**/asset" + i + "/*.js" );
+            }
+        }
+        final URLPatternMatcher<String> matcher = new URLPatternMatcher<String>();
+        for ( final String pattern : patterns ) {
+            matcher.add( pattern, pattern );
+        }
+        final String[] paths = new String[ 1000 ];
+        for ( int i = 0; i < paths.length; i++ ) {
+            paths[ i ] = "/module" + ( i * 7 % 400 ) + "/user/rest/data" + i + ".json";
+        }
+
+        final AntPathMatcher antPathMatcher = new AntPathMatcher();
+        int antMatches = 0;
+        long start = System.nanoTime();
+        for ( int round = 0; round < 20; round++ ) {
+            for ( final String path : paths ) {
+                for ( final String pattern : patterns ) {
+                    if ( antPathMatcher.match( pattern, path ) ) {
+                        antMatches++;
+                        break;
+                    }
+                }
+            }
+        }
+        final long antTime = System.nanoTime() - start;
+
+        int trieMatches = 0;
+        start = System.nanoTime();
+        for ( int round = 0; round < 20; round++ ) {
+            for ( final String path : paths ) {
+                if ( matcher.match( path ) != null ) {
+                    trieMatches++;
+                }
+            }
+        }
+        final long trieTime = System.nanoTime() - start;
+
+        assertEquals( antMatches, trieMatches );
+        logger.info( "ant: {}ms, trie: {}ms, for {} paths and {} patterns", antTime / 1000000, trieTime / 1000000, 20 * paths.length, patterns.size() );
+    }
+
+    private static String randomPath( final Random random,
+                                      final String[] segments ) {
+        final StringBuilder sb = new StringBuilder();
+        if ( random.nextInt( 5 ) > 0 ) {
+            sb.append( '/' );
+        }
+        final int length = random.nextInt( 5 );
+        for ( int i = 0; i < length; i++ ) {
+            if ( i > 0 ) {
+                sb.append( '/' );
+            }
+            sb.append( segments[ random.nextInt( segments.length ) ] );
+        }
+        if ( length > 0 && random.nextInt( 4 ) == 0 ) {
+            sb.append( '/' );
+        }
+        return sb.toString();
+    }
+}
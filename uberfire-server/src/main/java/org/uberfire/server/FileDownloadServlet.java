@@ -1,6 +1,8 @@
 package org.uberfire.server;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import javax.inject.Inject;
@@ -14,12 +16,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributeView;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 
+/**
+ * Streams file content to the client, without loading it in memory.
+ * <p/>
+ * Supports conditional requests (<code>If-None-Match</code>) when the file system provides a file key (ex. the blob
+ * id on git), and single byte ranges (<code>Range: bytes=start-end</code>, optionally guarded by <code>If-Range</code>).
+ */
 public class FileDownloadServlet
         extends HttpServlet {
 
     private static final Logger logger = LoggerFactory.getLogger(FileDownloadServlet.class);
 
+    private static final int BUFFER_SIZE = 8192;
+
     @Inject
     @Named("ioStrategy")
     private IOService ioService;
@@ -32,21 +44,117 @@ public class FileDownloadServlet
 
             Path path = ioService.get(new URI(request.getParameter("path")));
 
-            byte[] bytes = ioService.readAllBytes(path);
+            final BasicFileAttributes attrs = ioService.getFileAttributeView(path, BasicFileAttributeView.class).readAttributes();
+            final long size = attrs.size();
+            final String etag = attrs.fileKey() == null ? null : "\"" + attrs.fileKey() + "\"";
+
+            if (etag != null) {
+                response.setHeader("ETag", etag);
+                if (etag.equals(request.getHeader("If-None-Match"))) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+
+            long start = 0;
+            long end = size - 1;
+
+            final String range = request.getHeader("Range");
+            final String ifRange = request.getHeader("If-Range");
+            if (range != null && (ifRange == null || ifRange.equals(etag))) {
+                final long[] bounds = parseRange(range, size);
+                if (bounds == null) {
+                    response.setHeader("Content-Range", "bytes */" + size);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                if (bounds.length == 2) {
+                    start = bounds[0];
+                    end = bounds[1];
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+                }
+            }
 
             response.setHeader("Content-Disposition",
                     String.format("attachment; filename=%s;", path.getFileName().toString()));
 
             response.setContentType("application/octet-stream");
+            response.setHeader("Accept-Ranges", "bytes");
+            response.setHeader("Content-Length", String.valueOf(end - start + 1));
 
-            response.getOutputStream().write(
-                    bytes,
-                    0,
-                    bytes.length);
+            final InputStream in = ioService.newInputStream(path);
+            try {
+                copy(in, response.getOutputStream(), start, end - start + 1);
+            } finally {
+                in.close();
+            }
 
         } catch (URISyntaxException e) {
             logger.error("Failed to download a file.", e);
         }
 
     }
+
+    /**
+     * @return {start, end} of a satisfiable single range, an empty array if the header should be ignored
+     * (malformed or multiple ranges) or null if the range is not satisfiable.
+     */
+    static long[] parseRange(final String range, final long size) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') != -1) {
+            return new long[0];
+        }
+        final String spec = range.substring("bytes=".length()).trim();
+        final int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return new long[0];
+        }
+        try {
+            final long start;
+            final long end;
+            if (dash == 0) {
+                final long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(size - suffix, 0);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), size - 1);
+            }
+            if (start >= size || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (final NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static void copy(final InputStream in, final OutputStream out, final long offset, final long length) throws IOException {
+        long toSkip = offset;
+        while (toSkip > 0) {
+            final long skipped = in.skip(toSkip);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    return;
+                }
+                toSkip--;
+            } else {
+                toSkip -= skipped;
+            }
+        }
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = length;
+        while (remaining > 0) {
+            final int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
 }
@@ -1,9 +1,10 @@
 package org.uberfire.server;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Iterator;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.servlet.ServletException;
@@ -11,15 +12,15 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.fileupload.FileItem;
-import org.apache.commons.fileupload.FileItemFactory;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
 import org.apache.commons.fileupload.FileUploadException;
-import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.Discardable;
 import org.uberfire.java.nio.file.Path;
 
 public class FileUploadServlet
@@ -35,18 +36,21 @@ public class FileUploadServlet
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
 
         try {
+            final Path path;
             if (request.getParameter("path") != null) {
-                writeFile(ioService.get(new URI(request.getParameter("path"))), getFileItem(request));
-
-                writeResponse(response, "OK");
+                path = ioService.get(new URI(request.getParameter("path")));
             } else if (request.getParameter("folder") != null) {
-                writeFile(
-                        ioService.get(new URI(request.getParameter("folder") + "/" + request.getParameter("fileName"))),
-                        getFileItem(request));
+                path = ioService.get(new URI(request.getParameter("folder") + "/" + request.getParameter("fileName")));
+            } else {
+                return;
+            }
 
+            if (writeFile(path, request)) {
                 writeResponse(response, "OK");
+            } else {
+                logger.error("Failed to upload a file: no file part in the request.");
+                writeResponse(response, "FAIL");
             }
-
         } catch (FileUploadException e) {
             logError(e);
             writeResponse(response, "FAIL");
@@ -56,15 +60,22 @@ public class FileUploadServlet
         }
     }
 
-    private FileItem getFileItem(HttpServletRequest request) throws FileUploadException {
-        Iterator iterator = getServletFileUpload().parseRequest(request).iterator();
+    /**
+     * Streams the first file part of the request straight into the file, without buffering it in memory; if the
+     * upload is aborted the output stream is discarded (when the file system supports it, see {@link Discardable})
+     * so nothing is committed.
+     * @return false if the request has no file part.
+     */
+    private boolean writeFile(Path path, HttpServletRequest request) throws FileUploadException, IOException {
+        final FileItemIterator iterator = getServletFileUpload().getItemIterator(request);
         while (iterator.hasNext()) {
-            FileItem item = (FileItem) iterator.next();
+            final FileItemStream item = iterator.next();
             if (!item.isFormField()) {
-                return item;
+                writeFile(path, item.openStream());
+                return true;
             }
         }
-        return null;
+        return false;
     }
 
     private void writeResponse(HttpServletResponse response, String ok) throws IOException {
@@ -73,20 +84,40 @@ public class FileUploadServlet
     }
 
     private ServletFileUpload getServletFileUpload() {
-        FileItemFactory factory = new DiskFileItemFactory();
-        ServletFileUpload upload = new ServletFileUpload(factory);
+        ServletFileUpload upload = new ServletFileUpload();
         upload.setHeaderEncoding("UTF-8");
         return upload;
     }
 
-    private void writeFile(Path path, FileItem uploadedItem) throws IOException {
-        if (!ioService.exists(path)) {
-            ioService.createFile(path);
+    private void writeFile(Path path, InputStream content) throws IOException {
+        try {
+            final OutputStream out = ioService.newOutputStream(path);
+            boolean done = false;
+            try {
+                IOUtils.copyLarge(content, out);
+                done = true;
+            } finally {
+                if (done) {
+                    out.close();
+                } else {
+                    discard(out);
+                }
+            }
+        } finally {
+            content.close();
         }
+    }
 
-        ioService.write(path, IOUtils.toByteArray(uploadedItem.getInputStream()));
-
-        uploadedItem.getInputStream().close();
+    private void discard(OutputStream out) {
+        try {
+            if (out instanceof Discardable) {
+                ((Discardable) out).discard();
+            } else {
+                out.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to discard an aborted upload.", e);
+        }
     }
 
     private void logError(Throwable e) {
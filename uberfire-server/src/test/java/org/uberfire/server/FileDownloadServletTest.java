@@ -0,0 +1,44 @@
+package org.uberfire.server;
+
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class FileDownloadServletTest {
+
+    @Test
+    public void testBoundedRange() {
+        assertThat(FileDownloadServlet.parseRange("bytes=0-49", 100)).isEqualTo(new long[]{0, 49});
+        assertThat(FileDownloadServlet.parseRange("bytes=10-10", 100)).isEqualTo(new long[]{10, 10});
+        assertThat(FileDownloadServlet.parseRange("bytes=50-500", 100)).isEqualTo(new long[]{50, 99});
+    }
+
+    @Test
+    public void testOpenEndedRange() {
+        assertThat(FileDownloadServlet.parseRange("bytes=50-", 100)).isEqualTo(new long[]{50, 99});
+        assertThat(FileDownloadServlet.parseRange("bytes=0-", 100)).isEqualTo(new long[]{0, 99});
+    }
+
+    @Test
+    public void testSuffixRange() {
+        assertThat(FileDownloadServlet.parseRange("bytes=-10", 100)).isEqualTo(new long[]{90, 99});
+        assertThat(FileDownloadServlet.parseRange("bytes=-200", 100)).isEqualTo(new long[]{0, 99});
+    }
+
+    @Test
+    public void testUnsatisfiableRange() {
+        assertThat(FileDownloadServlet.parseRange("bytes=100-", 100)).isNull();
+        assertThat(FileDownloadServlet.parseRange("bytes=100-150", 100)).isNull();
+        assertThat(FileDownloadServlet.parseRange("bytes=60-50", 100)).isNull();
+        assertThat(FileDownloadServlet.parseRange("bytes=-0", 100)).isNull();
+        assertThat(FileDownloadServlet.parseRange("bytes=0-", 0)).isNull();
+    }
+
+    @Test
+    public void testIgnoredRange() {
+        assertThat(FileDownloadServlet.parseRange("items=0-10", 100)).isEmpty();
+        assertThat(FileDownloadServlet.parseRange("bytes=0-10,20-30", 100)).isEmpty();
+        assertThat(FileDownloadServlet.parseRange("bytes=10", 100)).isEmpty();
+        assertThat(FileDownloadServlet.parseRange("bytes=a-b", 100)).isEmpty();
+    }
+}
@@ -0,0 +1,119 @@
+package org.uberfire.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URI;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.Discardable;
+import org.uberfire.java.nio.file.Path;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FileUploadServletTest {
+
+    private static final String BOUNDARY = "----uploadboundary";
+
+    @Mock
+    private IOService ioService;
+
+    @Mock
+    private Path path;
+
+    @InjectMocks
+    private FileUploadServlet servlet;
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private final StringWriter responseBody = new StringWriter();
+
+    @Before
+    public void setup() throws Exception {
+        when(ioService.get(any(URI.class))).thenReturn(path);
+        when(ioService.newOutputStream(path)).thenReturn(written);
+    }
+
+    @Test
+    public void testUploadIsWritten() throws Exception {
+        servlet.doPost(request("--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"file.txt\"\r\n" +
+                "Content-Type: text/plain\r\n\r\n" +
+                "file content\r\n" +
+                "--" + BOUNDARY + "--\r\n"), response());
+
+        assertThat(new String(written.toByteArray(), "UTF-8")).isEqualTo("file content");
+        assertThat(responseBody.toString()).isEqualTo("OK");
+    }
+
+    @Test
+    public void testTruncatedUploadIsDiscarded() throws Exception {
+        final DiscardableStream out = spy(new DiscardableStream());
+        when(ioService.newOutputStream(path)).thenReturn(out);
+        try {
+            servlet.doPost(request("--" + BOUNDARY + "\r\n" +
+                    "Content-Disposition: form-data; name=\"file\"; filename=\"file.txt\"\r\n" +
+                    "Content-Type: text/plain\r\n\r\n" +
+                    "partial cont"), response());
+            fail("a truncated upload should fail");
+        } catch (final IOException expected) {
+        }
+
+        verify(ioService, never()).createFile(any(Path.class));
+        verify(out).discard();
+        verify(out, never()).close();
+    }
+
+    @Test
+    public void testNoFilePartFails() throws Exception {
+        servlet.doPost(request("--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"field\"\r\n\r\n" +
+                "value\r\n" +
+                "--" + BOUNDARY + "--\r\n"), response());
+
+        verify(ioService, never()).newOutputStream(any(Path.class));
+        assertThat(responseBody.toString()).isEqualTo("FAIL");
+    }
+
+    public static class DiscardableStream extends ByteArrayOutputStream implements Discardable {
+
+        @Override
+        public void discard() {
+        }
+    }
+
+    private HttpServletRequest request(final String body) throws IOException {
+        final ByteArrayInputStream content = new ByteArrayInputStream(body.getBytes("UTF-8"));
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getParameter("path")).thenReturn("git://repo/file.txt");
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getContentType()).thenReturn("multipart/form-data; boundary=" + BOUNDARY);
+        when(request.getContentLength()).thenReturn(-1);
+        when(request.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public int read() throws IOException {
+                return content.read();
+            }
+        });
+        return request;
+    }
+
+    private HttpServletResponse response() throws IOException {
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getWriter()).thenReturn(new PrintWriter(responseBody, true));
+        return response;
+    }
+}
@@ -34,8 +34,10 @@ import org.uberfire.backend.repositories.Repository;
 import org.uberfire.backend.repositories.RepositoryRemovedEvent;
 import org.uberfire.backend.repositories.RepositoryService;
 import org.uberfire.backend.repositories.RepositoryUpdatedEvent;
-import org.uberfire.backend.vfs.DirectoryStream;
+import org.uberfire.backend.vfs.DirectoryPage;
+import org.uberfire.backend.vfs.DirectoryPageRequest;
 import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
 import org.uberfire.backend.vfs.VFSService;
 import org.uberfire.client.annotations.DefaultPosition;
 import org.uberfire.client.annotations.WorkbenchPartTitle;
@@ -118,23 +120,34 @@ public class FileExplorerPresenter {
 
     public void loadDirectoryContent( final FileExplorerItem item,
                                       final Path path ) {
-        vfsService.call( new RemoteCallback<DirectoryStream<Path>>() {
+        vfsService.call( new RemoteCallback<DirectoryPage>() {
             @Override
-            public void callback( DirectoryStream<Path> response ) {
+            public void callback( DirectoryPage response ) {
                 for ( final Path child : response ) {
+                    // the type is inlined in the listed paths
+                    if ( child instanceof PathFactory.PathImpl && ( (PathFactory.PathImpl) child ).getAttributes().containsKey( "isDirectory" ) ) {
+                        addChild( item, child, ( (PathFactory.PathImpl) child ).getAttributes() );
+                        continue;
+                    }
                     vfsService.call( new RemoteCallback<Map>() {
                         @Override
                         public void callback( final Map response ) {
-                            if ( isDirectory( response ) ) {
-                                item.addDirectory( child );
-                            } else {
-                                item.addFile( child );
-                            }
+                            addChild( item, child, response );
                         }
                     } ).readAttributes( child );
                 }
             }
-        } ).newDirectoryStream( path );
+        } ).listDirectory( path, new DirectoryPageRequest().withAttributes( DirectoryPageRequest.Attribute.TYPE ) );
+    }
+
+    private void addChild( final FileExplorerItem item,
+                           final Path child,
+                           final Map attributes ) {
+        if ( isDirectory( attributes ) ) {
+            item.addDirectory( child );
+        } else {
+            item.addFile( child );
+        }
     }
 
     private boolean isDirectory( final Map response ) {